@@ -0,0 +1,55 @@
+package battlecode.instrumenter;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures one robot turn's worth of handoff: the engine lets the player
+ * run, and the player immediately hands control back.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TurnHandoffBenchmark {
+
+    @Param({"monitor", "park", "spin", "virtual"})
+    public String strategy;
+
+    private TurnHandoff handoff;
+    private Thread player;
+    private volatile boolean stopped;
+
+    @Setup
+    public void setup() throws InterruptedException {
+        handoff = TurnHandoff.create(strategy);
+        stopped = false;
+        player = handoff.newThread(() -> {
+            try {
+                while (!stopped) {
+                    handoff.pausePlayer();
+                }
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            } finally {
+                handoff.finishPlayer();
+            }
+        }, "TurnHandoffBenchmark player");
+        handoff.start(player);
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        stopped = true;
+        handoff.runPlayer();
+        player.join();
+    }
+
+    @Benchmark
+    public void turn() throws InterruptedException {
+        handoff.runPlayer();
+    }
+}
@@ -15,6 +15,12 @@ package battlecode.common;
  * An <code>IllegalArgumentException</code> is thrown if this type of
  * robot can never successfully call the function with the given arguments.
  * A <code>GameActionException</code> is thrown in all other circumstances.
+ * <p>
+ * Unless the server runs in debug mode (<code>bc.server.debug</code>, which
+ * the scaffold's run tasks set), a <code>GameActionException</code> thrown
+ * by the game doesn't record a stack trace, since recording one is most of
+ * the cost of throwing it. <code>printStackTrace</code> then prints only the
+ * exception and its message.
  */
 public class GameActionException extends Exception {
 
@@ -31,6 +37,18 @@ public class GameActionException extends Exception {
         this.type = type;
     }
 
+    /**
+     * Creates a GameActionException with the given type and message, which
+     * records its stack trace only if asked to.
+     * @param type the type of the GameActionException
+     * @param message the error message
+     * @param writableStackTrace whether to record the stack trace
+     */
+    public GameActionException(GameActionExceptionType type, String message, boolean writableStackTrace) {
+        super(message, null, true, writableStackTrace);
+        this.type = type;
+    }
+
     /**
      * Gives the type of gameworld interaction that caused this GameActionException, which
      * was specified when this instance was constructed.
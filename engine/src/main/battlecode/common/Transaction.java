@@ -13,20 +13,13 @@ public class Transaction implements Comparable<Transaction> {
     private final int[] message;
 
     /**
-     * The serialized message of the transaction.
+     * The serialized message of the transaction, created on first request.
      */
-    private final String serializedMessage;
+    private String serializedMessage;
 
     public Transaction(int cost, int[] message) {
         this.cost = cost;
         this.message = message;
-
-        // Serialize the message
-        String[] stringMessageArray = new String[message.length];
-        for (int i = 0; i < message.length; i++) {
-            stringMessageArray[i] = Integer.toString(message[i]);
-        }
-        this.serializedMessage = String.join("_", stringMessageArray);
     }
 
     // *********************************
@@ -45,6 +38,14 @@ public class Transaction implements Comparable<Transaction> {
 
     public String getSerializedMessage()
     {
+        if (this.serializedMessage == null) {
+            // Serialize the message
+            String[] stringMessageArray = new String[message.length];
+            for (int i = 0; i < message.length; i++) {
+                stringMessageArray[i] = Integer.toString(message[i]);
+            }
+            this.serializedMessage = String.join("_", stringMessageArray);
+        }
         return this.serializedMessage;
     }
 
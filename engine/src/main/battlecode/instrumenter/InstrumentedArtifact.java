@@ -0,0 +1,386 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.*;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.InvalidKeyException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Writes and reads submissions instrumented ahead of time, so that games
+ * don't have to instrument the same submission over and over.
+ * <p/>
+ * Usage:<br>
+ * <code>java InstrumentedArtifact teamXXX team.url output.jar</code><br>
+ * This verifies the team, like Verifier, and writes a jar holding the
+ * team's class files, their instrumented versions under
+ * META-INF/battlecode/instrumented/, and a manifest recording a hash of
+ * everything under battlecode/instrumenter, a hash of the method costs,
+ * the settings that change what the instrumenter produces, and hashes of
+ * every class. The manifest
+ * is signed with an HMAC keyed by the secret in bc.engine.artifact-key.
+ * The jar can be used as the team's URL like any other.
+ * <p/>
+ * TeamClassLoaderFactory uses the instrumented classes if the signature
+ * checks out with its own secret, the manifest matches the running engine,
+ * and the team's classes are the ones that were instrumented; otherwise it
+ * instruments them itself as usual. Everything in a submission can be
+ * written by its team, so without a secret no artifact is trusted.
+ */
+public class InstrumentedArtifact {
+
+    /**
+     * Where the manifest and instrumented classes are kept in the jar; the
+     * class files under META-INF aren't the team's.
+     */
+    static final String META_INF = "META-INF/";
+    static final String MANIFEST = "META-INF/battlecode/instrumented.properties";
+    static final String SIGNATURE = "META-INF/battlecode/instrumented.sig";
+    static final String INSTRUMENTED_PREFIX = "META-INF/battlecode/instrumented/";
+
+    /**
+     * The version of the artifact format.
+     */
+    private static final String FORMAT = "1";
+
+    /**
+     * Where the instrumenter's classes, including the inject classes that
+     * instrumented code calls, and the files it reads are kept. Everything
+     * there decides what it produces, besides the settings.
+     */
+    private static final String INSTRUMENTER_PACKAGE = "battlecode/instrumenter/";
+
+    /**
+     * The files the instrumenter reads, in case they aren't kept with its
+     * classes.
+     */
+    private static final String[] INSTRUMENTER_RESOURCES = {
+            "battlecode/instrumenter/bytecode/resources/AllowedPackages.txt",
+            "battlecode/instrumenter/bytecode/resources/DisallowedClasses.txt",
+            "battlecode/instrumenter/bytecode/resources/IntrinsicCosts.txt",
+    };
+
+    private static final String METHOD_COSTS = "battlecode/instrumenter/bytecode/resources/MethodCosts.txt";
+
+    public static void main(String[] args) {
+        if (args.length != 3) {
+            System.err.println("Usage: battlecode.instrumenter.InstrumentedArtifact ${team} ${team.url} ${output.jar}, " +
+                    "where team is a package containing a RobotPlayer, team.url is a folder or jar containing all " +
+                    "of the player-defined class files for that RobotPlayer, and output.jar is the jar to write");
+            System.exit(1);
+        }
+        if (!write(args[0], args[1], args[2])) System.exit(1);
+    }
+
+    /**
+     * Verify a team, instrument all of its classes and write the artifact.
+     *
+     * @param teamPackageName the team's package
+     * @param teamURL a folder or jar containing the team's classes
+     * @param outputJar the jar to write
+     * @return whether the team passed verification and the jar was written
+     */
+    public static boolean write(String teamPackageName, String teamURL, String outputJar) {
+        if (Config.getGlobalConfig().getBoolean("bc.engine.share-classes")) {
+            System.out.println("Can't write instrumented artifacts with bc.engine.share-classes set");
+            return false;
+        }
+        if (!Verifier.verify(teamPackageName, teamURL)) {
+            return false;
+        }
+
+        try {
+            byte[] key = signingKey();
+            if (key == null) {
+                System.out.println("Can't write instrumented artifacts without bc.engine.artifact-key");
+                return false;
+            }
+
+            TeamClassLoaderFactory factory = new TeamClassLoaderFactory(teamURL);
+            TeamClassLoaderFactory.Loader loader = factory.createLoader();
+
+            Properties manifest = engineManifest();
+            try (JarOutputStream jar = new JarOutputStream(new FileOutputStream(outputJar))) {
+                for (String name : factory.listTeamClasses("")) {
+                    String resource = name.replace('.', '/') + ".class";
+                    byte[] original = readAll(factory.getTeamURL(resource));
+                    byte[] instrumented = factory.instrumentTeamClass(loader, name);
+
+                    writeEntry(jar, resource, original);
+                    writeEntry(jar, INSTRUMENTED_PREFIX + resource, instrumented);
+                    manifest.setProperty("class." + name, sha256(original) + " " + sha256(instrumented));
+                }
+
+                // generated from the classes above, so they only need the
+                // one hash
+                for (String name : factory.getLambdaClasses()) {
+                    String resource = name.replace('.', '/') + ".class";
+                    byte[] instrumented = factory.instrumentTeamClass(loader, name);
+
+                    writeEntry(jar, INSTRUMENTED_PREFIX + resource, instrumented);
+                    manifest.setProperty("lambda." + name, sha256(instrumented));
+                }
+
+                ByteArrayOutputStream manifestBytes = new ByteArrayOutputStream();
+                manifest.store(manifestBytes, "Instrumented " + teamPackageName);
+                writeEntry(jar, MANIFEST, manifestBytes.toByteArray());
+                writeEntry(jar, SIGNATURE, sign(key, manifestBytes.toByteArray()).getBytes(StandardCharsets.US_ASCII));
+            }
+            return true;
+        } catch (Exception e) {
+            System.out.println(e.getMessage());
+            e.printStackTrace(System.out);
+            return false;
+        }
+    }
+
+    /**
+     * Read the instrumented classes from a team's artifact, if it is one.
+     *
+     * @param factory the team's factory
+     * @return the instrumented classes, by binary name, or null if the team
+     *         isn't an artifact, it isn't signed with our secret, or its
+     *         manifest doesn't match the running engine or the team's
+     *         classes
+     */
+    static Map<String, byte[]> read(TeamClassLoaderFactory factory) {
+        URL manifestURL = factory.getTeamURL(MANIFEST);
+        URL signatureURL = factory.getTeamURL(SIGNATURE);
+        if (manifestURL == null || signatureURL == null) {
+            return null;
+        }
+
+        try {
+            byte[] secret = signingKey();
+            if (secret == null) {
+                return null;
+            }
+            // the hashes in the manifest are only worth anything once we
+            // know we wrote it
+            byte[] manifestBytes = readAll(manifestURL);
+            byte[] signature = readAll(signatureURL);
+            if (!MessageDigest.isEqual(sign(secret, manifestBytes).getBytes(StandardCharsets.US_ASCII), signature)) {
+                return null;
+            }
+
+            Properties manifest = new Properties();
+            manifest.load(new ByteArrayInputStream(manifestBytes));
+            for (Map.Entry<Object, Object> expected : engineManifest().entrySet()) {
+                if (!expected.getValue().equals(manifest.getProperty((String) expected.getKey()))) {
+                    return null;
+                }
+            }
+
+            Map<String, byte[]> classes = new HashMap<>();
+            for (String key : manifest.stringPropertyNames()) {
+                if (key.startsWith("lambda.")) {
+                    String name = key.substring("lambda.".length());
+                    URL instrumented = factory.getTeamURL(INSTRUMENTED_PREFIX + name.replace('.', '/') + ".class");
+                    if (instrumented == null) {
+                        return null;
+                    }
+                    byte[] classBytes = readAll(instrumented);
+                    if (!manifest.getProperty(key).equals(sha256(classBytes))) {
+                        return null;
+                    }
+                    classes.put(name, classBytes);
+                    continue;
+                }
+                if (!key.startsWith("class.")) {
+                    continue;
+                }
+                String name = key.substring("class.".length());
+                String resource = name.replace('.', '/') + ".class";
+                String[] hashes = manifest.getProperty(key).split(" ");
+
+                URL original = factory.getTeamURL(resource);
+                URL instrumented = factory.getTeamURL(INSTRUMENTED_PREFIX + resource);
+                if (original == null || instrumented == null || hashes.length != 2) {
+                    return null;
+                }
+                byte[] classBytes = readAll(instrumented);
+                if (!hashes[0].equals(sha256(readAll(original))) || !hashes[1].equals(sha256(classBytes))) {
+                    return null;
+                }
+                classes.put(name, classBytes);
+            }
+            return classes;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return the manifest entries that must match for an artifact to be
+     *         used by the running engine
+     */
+    private static Properties engineManifest() throws IOException {
+        Config options = Config.getGlobalConfig();
+
+        Properties manifest = new Properties();
+        manifest.setProperty("format", FORMAT);
+        manifest.setProperty("instrumenter", instrumenterHash());
+        manifest.setProperty("method-costs", methodCostsHash());
+        manifest.setProperty("debug-methods", String.valueOf(options.getBoolean("bc.engine.debug-methods")));
+        manifest.setProperty("coalesce-bytecodes", String.valueOf(options.getBoolean("bc.engine.coalesce-bytecodes")));
+        manifest.setProperty("desugar-lambdas", String.valueOf(options.getBoolean("bc.engine.desugar-lambdas")));
+        return manifest;
+    }
+
+    /**
+     * @return a hash of every class and file under battlecode/instrumenter
+     */
+    static String instrumenterHash() throws IOException {
+        MessageDigest instrumenter = newDigest();
+        for (Map.Entry<String, byte[]> file : instrumenterFiles().entrySet()) {
+            instrumenter.update(file.getKey().getBytes(StandardCharsets.UTF_8));
+            instrumenter.update((byte) 0);
+            instrumenter.update(sha256(file.getValue()).getBytes(StandardCharsets.US_ASCII));
+        }
+        return toHex(instrumenter.digest());
+    }
+
+    /**
+     * @return every class and file under battlecode/instrumenter, nested
+     *         classes included, by resource name, besides the JdkBundle,
+     *         which is built from them
+     */
+    static SortedMap<String, byte[]> instrumenterFiles() throws IOException {
+        SortedMap<String, byte[]> files = new TreeMap<>();
+        URL anchor = normalURL(INSTRUMENTER_PACKAGE + "InstrumentedArtifact.class");
+        try {
+            if (anchor.getProtocol().equals("jar")) {
+                JarURLConnection connection = (JarURLConnection) anchor.openConnection();
+                connection.setUseCaches(false);
+                try (JarFile jar = connection.getJarFile()) {
+                    for (JarEntry entry : Collections.list(jar.entries())) {
+                        if (!entry.isDirectory() && entry.getName().startsWith(INSTRUMENTER_PACKAGE)) {
+                            try (InputStream in = jar.getInputStream(entry)) {
+                                files.put(entry.getName(), readAll(in));
+                            }
+                        }
+                    }
+                }
+            } else {
+                Path packageDir = Paths.get(anchor.toURI()).getParent();
+                Path root = packageDir.getParent().getParent();
+                List<Path> paths;
+                try (Stream<Path> walk = Files.walk(packageDir)) {
+                    paths = walk.filter(Files::isRegularFile).collect(Collectors.toList());
+                }
+                for (Path path : paths) {
+                    files.put(root.relativize(path).toString().replace(File.separatorChar, '/'),
+                            Files.readAllBytes(path));
+                }
+            }
+        } catch (URISyntaxException | ClassCastException e) {
+            throw new IOException("Can't list the instrumenter's classes at " + anchor, e);
+        }
+        for (String resource : INSTRUMENTER_RESOURCES) {
+            if (!files.containsKey(resource)) {
+                files.put(resource, readAll(normalURL(resource)));
+            }
+        }
+        files.remove(JdkBundle.RESOURCE);
+        files.remove(JdkBundle.DIGEST_RESOURCE);
+        return files;
+    }
+
+    /**
+     * @return a hash of MethodCosts.txt
+     */
+    static String methodCostsHash() throws IOException {
+        return sha256(readAll(normalURL(METHOD_COSTS)));
+    }
+
+    /**
+     * @return the secret artifacts are signed with, or null if there is none
+     */
+    private static byte[] signingKey() throws IOException {
+        String keyFile = Config.getGlobalConfig().get("bc.engine.artifact-key");
+        if (keyFile == null || keyFile.isEmpty()) {
+            return null;
+        }
+        byte[] key = Files.readAllBytes(Paths.get(keyFile));
+        return key.length == 0 ? null : key;
+    }
+
+    /**
+     * @return the HMAC of a manifest, in hex
+     */
+    private static String sign(byte[] key, byte[] manifest) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return toHex(mac.doFinal(manifest));
+        } catch (NoSuchAlgorithmException | InvalidKeyException e) {
+            throw new IllegalStateException("Every JVM has HmacSHA256", e);
+        }
+    }
+
+    private static URL normalURL(String resource) throws IOException {
+        URL url = TeamClassLoaderFactory.getNormalURL(resource);
+        if (url == null) {
+            throw new FileNotFoundException(resource);
+        }
+        return url;
+    }
+
+    private static void writeEntry(JarOutputStream jar, String name, byte[] bytes) throws IOException {
+        jar.putNextEntry(new JarEntry(name));
+        jar.write(bytes);
+        jar.closeEntry();
+    }
+
+    static byte[] readAll(URL url) throws IOException {
+        try (InputStream in = url.openStream()) {
+            return readAll(in);
+        }
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int read;
+        while ((read = in.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM has SHA-256", e);
+        }
+    }
+
+    private static String sha256(byte[] bytes) {
+        return toHex(newDigest().digest(bytes));
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder();
+        for (byte b : bytes) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,362 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+
+import java.io.*;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Collectors;
+
+/**
+ * The JDK library classes, instrumented when the engine is built, so that
+ * every team in every game doesn't have to instrument them again.
+ * <p/>
+ * Usage:<br>
+ * <code>java JdkBundle output.bin</code><br>
+ * This instruments every class in java.util and java.math that robots get
+ * instrumented copies of, and writes them to one file, with its SHA-256
+ * digest next to it. The build puts both in engine.jar, at RESOURCE and
+ * DIGEST_RESOURCE.
+ * <p/>
+ * The file starts with a key naming the JDK, the instrumenter and the
+ * settings it was built with, followed by an index of the classes and
+ * then the classes themselves. It's memory-mapped, and only used if its
+ * contents match the digest and the key matches the running engine;
+ * classes it doesn't have, or every class if it doesn't match, are
+ * instrumented as usual.
+ */
+public final class JdkBundle {
+
+    /**
+     * Where the bundle is kept on the classpath.
+     */
+    public static final String RESOURCE = "battlecode/instrumenter/instrumented-jdk.bin";
+    public static final String DIGEST_RESOURCE = RESOURCE + ".sha256";
+
+    private static final int MAGIC = 0xBC1DB0D1;
+
+    /**
+     * The packages whose classes are bundled.
+     */
+    private static final String[] PACKAGES = {"java/util/", "java/math/"};
+
+    /**
+     * The bundle in the engine, once opened; EMPTY if there is none, or it
+     * doesn't match.
+     */
+    private static JdkBundle engineBundle;
+
+    private static final JdkBundle EMPTY = new JdkBundle(ByteBuffer.allocate(0), Collections.emptyMap());
+
+    /**
+     * The classes in the bundle.
+     */
+    private final ByteBuffer data;
+
+    /**
+     * The offset and length of each class in data, by internal name.
+     */
+    private final Map<String, long[]> index;
+
+    private JdkBundle(ByteBuffer data, Map<String, long[]> index) {
+        this.data = data;
+        this.index = index;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.err.println("Usage: battlecode.instrumenter.JdkBundle ${output.bin}");
+            System.exit(1);
+        }
+        try {
+            List<String> classNames = jdkClasses();
+            int written = write(new File(args[0]), classNames);
+            System.out.println("Bundled " + written + " of " + classNames.size() + " JDK classes");
+        } catch (IOException e) {
+            e.printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * @return the bundle in the engine, or an empty one if there is none
+     *         or it doesn't match the running engine
+     */
+    public static synchronized JdkBundle get() {
+        if (engineBundle == null) {
+            engineBundle = EMPTY;
+            URL url = TeamClassLoaderFactory.getNormalURL(RESOURCE);
+            URL digestURL = TeamClassLoaderFactory.getNormalURL(DIGEST_RESOURCE);
+            if (url != null && digestURL != null) {
+                try {
+                    JdkBundle bundle = open(toFile(url), readDigest(digestURL));
+                    if (bundle != null) {
+                        engineBundle = bundle;
+                    }
+                } catch (IOException | URISyntaxException e) {
+                    // instrument everything as usual
+                }
+            }
+        }
+        return engineBundle;
+    }
+
+    /**
+     * @param className the name of a JDK class, in internal form, without
+     *                  instrumented/
+     * @return the instrumented class, or null if it isn't bundled
+     */
+    public byte[] lookup(String className) {
+        long[] entry = index.get(className);
+        if (entry == null) {
+            return null;
+        }
+        byte[] classBytes = new byte[(int) entry[1]];
+        ByteBuffer view = data.duplicate();
+        view.position((int) entry[0]);
+        view.get(classBytes);
+        return classBytes;
+    }
+
+    /**
+     * @return the number of classes in the bundle
+     */
+    public int size() {
+        return index.size();
+    }
+
+    /**
+     * Instrument classes and write them out as a bundle, with its digest
+     * in digestFile(file).
+     *
+     * @param file the file to write
+     * @param classNames the classes to instrument, in internal form
+     * @return the number of classes written; classes that can't be
+     *         instrumented are left out
+     */
+    static int write(File file, Collection<String> classNames) throws IOException {
+        // Library classes are instrumented the same for every team that
+        // doesn't have classes of its own in the bundled packages, so any
+        // such team will do.
+        Path emptyTeam = Files.createTempDirectory("battlecode-jdk-bundle");
+        try {
+            TeamClassLoaderFactory.Loader loader = new TeamClassLoaderFactory(emptyTeam.toString()).createLoader();
+
+            Map<String, byte[]> classes = new TreeMap<>();
+            for (String name : classNames) {
+                if (!loader.getRefUtil().classReference(name, false).equals("instrumented/" + name)) {
+                    // not one robots get a copy of
+                    continue;
+                }
+                try {
+                    classes.put(name, loader.instrument(TeamClassLoaderFactory.normalReader(name), false, false));
+                } catch (RuntimeException e) {
+                    // robots can't use it either, then
+                }
+            }
+
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+                out.writeInt(MAGIC);
+                out.writeUTF(key());
+                out.writeInt(classes.size());
+
+                long offset = 0;
+                for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+                    out.writeUTF(entry.getKey());
+                    out.writeLong(offset);
+                    out.writeInt(entry.getValue().length);
+                    offset += entry.getValue().length;
+                }
+                for (byte[] classBytes : classes.values()) {
+                    out.write(classBytes);
+                }
+            }
+            try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+                String digest = digest(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+                Files.write(digestFile(file).toPath(), digest.getBytes(StandardCharsets.US_ASCII));
+            }
+            return classes.size();
+        } finally {
+            Files.delete(emptyTeam);
+        }
+    }
+
+    /**
+     * Map a bundle, if it's the one that was built and it matches the
+     * running engine.
+     *
+     * @param file the bundle
+     * @param digest the SHA-256 digest it was built with, in hex
+     * @return the bundle, or null if it doesn't match
+     */
+    static JdkBundle open(File file, String digest) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            // checked on what we mapped, so it's what we'll read classes from
+            if (!MessageDigest.isEqual(digest(mapped.duplicate()).getBytes(StandardCharsets.US_ASCII),
+                    digest.getBytes(StandardCharsets.US_ASCII))) {
+                return null;
+            }
+
+            DataInputStream in = new DataInputStream(new ByteBufferInputStream(mapped.duplicate()));
+            if (in.readInt() != MAGIC || !in.readUTF().equals(key())) {
+                return null;
+            }
+            int numClasses = in.readInt();
+            Map<String, long[]> index = new HashMap<>(numClasses * 2);
+            for (int i = 0; i < numClasses; i++) {
+                String name = in.readUTF();
+                long offset = in.readLong();
+                int length = in.readInt();
+                index.put(name, new long[]{offset, length});
+            }
+
+            int dataStart = mapped.capacity() - in.available();
+            mapped.position(dataStart);
+            return new JdkBundle(mapped.slice(), index);
+        }
+    }
+
+    /**
+     * @return where write() puts the digest of a bundle
+     */
+    static File digestFile(File file) {
+        return new File(file.getPath() + ".sha256");
+    }
+
+    static String readDigest(URL url) throws IOException {
+        return new String(InstrumentedArtifact.readAll(url), StandardCharsets.US_ASCII).trim();
+    }
+
+    private static String digest(ByteBuffer data) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Every JVM has SHA-256", e);
+        }
+        digest.update(data);
+        StringBuilder hex = new StringBuilder();
+        for (byte b : digest.digest()) {
+            hex.append(String.format("%02x", b));
+        }
+        return hex.toString();
+    }
+
+    /**
+     * @return what a bundle must have been built with to be used
+     */
+    private static String key() throws IOException {
+        return "jdk=" + System.getProperty("java.vendor") + " " + System.getProperty("java.version")
+                + ";instrumenter=" + InstrumentedArtifact.instrumenterHash()
+                + ";method-costs=" + InstrumentedArtifact.methodCostsHash()
+                + ";coalesce-bytecodes=" + Config.getGlobalConfig().getBoolean("bc.engine.coalesce-bytecodes");
+    }
+
+    /**
+     * @return the classes in the bundled packages, in internal form
+     */
+    private static List<String> jdkClasses() throws IOException {
+        List<String> resources = new ArrayList<>();
+        File rt = new File(System.getProperty("java.home"), "lib/rt.jar");
+        if (rt.exists()) {
+            try (JarFile jar = new JarFile(rt)) {
+                for (JarEntry entry : Collections.list(jar.entries())) {
+                    resources.add(entry.getName());
+                }
+            }
+        } else {
+            // JDK 9 and up have modules instead
+            Path base = FileSystems.getFileSystem(URI.create("jrt:/")).getPath("/modules/java.base");
+            resources.addAll(Files.walk(base)
+                    .map(path -> base.relativize(path).toString())
+                    .collect(Collectors.toList()));
+        }
+
+        List<String> classNames = new ArrayList<>();
+        for (String resource : resources) {
+            if (!resource.endsWith(".class") || !inBundledPackage(resource)) {
+                continue;
+            }
+            String name = resource.substring(0, resource.length() - ".class".length());
+            classNames.add(name);
+        }
+        return classNames;
+    }
+
+    /**
+     * @param name a class or resource name, in internal form
+     * @return whether classes with the name are bundled
+     */
+    static boolean inBundledPackage(String name) {
+        for (String prefix : PACKAGES) {
+            if (name.startsWith(prefix)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Get a file for a resource, copying it out of the jar it's in if it
+     * needs to be, since only files can be mapped.
+     */
+    private static File toFile(URL url) throws IOException, URISyntaxException {
+        if (url.getProtocol().equals("file")) {
+            return Paths.get(url.toURI()).toFile();
+        }
+
+        // A fresh directory only we can get into (createTempDirectory makes
+        // it owner-only), so no one else can put a file where we look.
+        Path dir = Files.createTempDirectory("battlecode-jdk-");
+        dir.toFile().deleteOnExit();
+        Path copy = dir.resolve("instrumented-jdk.bin");
+        try (InputStream in = url.openStream()) {
+            Files.copy(in, copy);
+        }
+        copy.toFile().deleteOnExit();
+        return copy.toFile();
+    }
+
+    /**
+     * Reads a ByteBuffer as a stream.
+     */
+    private static final class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining()) {
+                return -1;
+            }
+            len = Math.min(len, buffer.remaining());
+            buffer.get(b, off, len);
+            return len;
+        }
+
+        @Override
+        public int available() {
+            return buffer.remaining();
+        }
+    }
+}
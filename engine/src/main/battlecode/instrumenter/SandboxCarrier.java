@@ -0,0 +1,120 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+import battlecode.server.ErrorReporter;
+
+/**
+ * A thread for robot players to run on, and the TurnHandoff used to trade
+ * control with it.
+ *
+ * A carrier runs one player at a time. When its player finishes, a
+ * reusable carrier goes idle and can be given another player, so robots
+ * spawned later in a match don't have to wait for a new thread.
+ *
+ * Like SandboxedRobotPlayer, this class must only be used from one thread
+ * at a time.
+ */
+public class SandboxCarrier {
+
+    /**
+     * Used to trade off control between threads.
+     */
+    private final TurnHandoff handoff;
+
+    /**
+     * The thread players run on.
+     */
+    private final Thread thread;
+
+    /**
+     * Whether the carrier waits for another player after one finishes.
+     */
+    private final boolean reusable;
+
+    /**
+     * The player to run next, or null if the carrier should exit.
+     */
+    private Runnable player;
+
+    /**
+     * Create a carrier and start its thread, which waits for a player.
+     *
+     * @param name the name of the thread while it has no player
+     * @param reusable whether the carrier may run more than one player
+     */
+    public SandboxCarrier(String name, boolean reusable) {
+        this.handoff = TurnHandoff.create(Config.getGlobalConfig().get("bc.engine.turn-handoff"));
+        this.reusable = reusable;
+        this.thread = handoff.newThread(this::run, name);
+
+        try {
+            handoff.start(thread);
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Unexpected interruption starting sandbox thread", e);
+        }
+    }
+
+    /**
+     * @return the handoff for the player to pause with
+     */
+    TurnHandoff getHandoff() {
+        return handoff;
+    }
+
+    /**
+     * @return whether the carrier's thread is still around to run players
+     */
+    boolean isAlive() {
+        return thread.isAlive();
+    }
+
+    /**
+     * Start running a player, blocking until it first pauses or finishes.
+     *
+     * @param player the player to run
+     * @param name the name of the thread while it runs this player
+     */
+    void runPlayer(Runnable player, String name) {
+        this.player = player;
+        thread.setName(name);
+        try {
+            handoff.runPlayer();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Unexpected interruption initializing sandbox", e);
+        }
+    }
+
+    /**
+     * Stop the thread of an idle carrier.
+     */
+    public void retire() {
+        if (!thread.isAlive()) {
+            return;
+        }
+        this.player = null;
+        try {
+            handoff.runPlayer();
+        } catch (InterruptedException e) {
+            throw new RuntimeException("Unexpected interruption retiring sandbox thread", e);
+        }
+    }
+
+    private void run() {
+        try {
+            do {
+                // Wait for a player
+                handoff.pausePlayer();
+                if (player == null) {
+                    return;
+                }
+                player.run();
+                player = null;
+            } while (reusable);
+        } catch (InterruptedException e) {
+            ErrorReporter.report("Sandbox thread interrupted while idle");
+        } finally {
+            // Unpause the main thread, which is waiting on this thread.
+            handoff.finishPlayer();
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package battlecode.instrumenter;
+
+import java.util.ArrayDeque;
+
+/**
+ * Keeps warm sandboxes for a team, so that spawning a robot doesn't stall
+ * on starting a thread and setting up a loader.
+ *
+ * A warm sandbox is an idle carrier plus a fresh Loader that has already
+ * loaded RobotMonitor and System. Carriers return to the pool when their
+ * players terminate; loaders don't, since they hold their player's static
+ * state.
+ *
+ * The number of warm sandboxes follows the team's recent spawn rate,
+ * between the given minimum and maximum, and is topped up between rounds.
+ *
+ * Like SandboxedRobotPlayer, this class must only be used from one thread
+ * at a time.
+ */
+public class SandboxPool {
+
+    /**
+     * How much of the spawn rate estimate comes from the latest round.
+     */
+    private static final double SPAWN_RATE_WEIGHT = 0.25;
+
+    private final TeamClassLoaderFactory factory;
+    private final String teamName;
+    private final int minSize;
+    private final int maxSize;
+
+    private final ArrayDeque<Sandbox> warm;
+    private final ArrayDeque<SandboxCarrier> idle;
+
+    /**
+     * The number of robots spawned this round.
+     */
+    private int spawnsThisRound;
+
+    /**
+     * A moving average of robots spawned per round.
+     */
+    private double spawnRate;
+
+    /**
+     * Create a pool, warming up the minimum number of sandboxes.
+     *
+     * @param factory the factory to create loaders with
+     * @param teamName the name of the team the sandboxes are for
+     * @param minSize the least number of warm sandboxes to keep
+     * @param maxSize the most number of warm sandboxes or idle carriers to keep
+     */
+    public SandboxPool(TeamClassLoaderFactory factory, String teamName, int minSize, int maxSize) {
+        this.factory = factory;
+        this.teamName = teamName;
+        this.minSize = minSize;
+        this.maxSize = Math.max(minSize, maxSize);
+        this.warm = new ArrayDeque<>();
+        this.idle = new ArrayDeque<>();
+
+        refill(minSize);
+    }
+
+    /**
+     * Take a warm sandbox for a newly spawned robot, creating one if
+     * none are left.
+     *
+     * @return the sandbox, which the caller now owns
+     */
+    public Sandbox take() {
+        spawnsThisRound++;
+        Sandbox sandbox = warm.poll();
+        return sandbox != null ? sandbox : prepare();
+    }
+
+    /**
+     * Return the carrier of a terminated player to the pool.
+     *
+     * @param player the player, which is left alone if not terminated
+     */
+    public void release(SandboxedRobotPlayer player) {
+        SandboxCarrier carrier = player.getCarrier();
+        if (player.getTerminated() && carrier.isAlive()) {
+            recycle(carrier);
+        }
+    }
+
+    /**
+     * Update the spawn rate and resize the pool to match it.
+     */
+    public void roundEnded() {
+        spawnRate += SPAWN_RATE_WEIGHT * (spawnsThisRound - spawnRate);
+        spawnsThisRound = 0;
+
+        // keep enough for two rounds at the current rate
+        int target = Math.max(minSize, Math.min(maxSize, (int) Math.ceil(2 * spawnRate)));
+        while (warm.size() > target) {
+            recycle(warm.pop().carrier);
+        }
+        refill(target);
+    }
+
+    /**
+     * Stop every thread the pool holds.
+     */
+    public void shutdown() {
+        while (!warm.isEmpty()) {
+            warm.pop().carrier.retire();
+        }
+        while (!idle.isEmpty()) {
+            idle.pop().retire();
+        }
+    }
+
+    /**
+     * @return the number of warm sandboxes ready to be taken
+     */
+    public int getNumWarm() {
+        return warm.size();
+    }
+
+    /**
+     * @return the number of idle carriers without a loader
+     */
+    public int getNumIdle() {
+        return idle.size();
+    }
+
+    private void recycle(SandboxCarrier carrier) {
+        if (idle.size() < maxSize) {
+            idle.push(carrier);
+        } else {
+            carrier.retire();
+        }
+    }
+
+    private void refill(int target) {
+        while (warm.size() < target) {
+            warm.add(prepare());
+        }
+    }
+
+    private Sandbox prepare() {
+        SandboxCarrier carrier = idle.poll();
+        if (carrier == null) {
+            carrier = new SandboxCarrier(teamName + "." + SandboxedRobotPlayer.PLAYER_CLASS_NAME + " (idle)", true);
+        }
+
+        TeamClassLoaderFactory.Loader loader = factory.createLoader();
+        try {
+            loader.loadClass("battlecode.instrumenter.inject.RobotMonitor");
+            loader.loadClass("battlecode.instrumenter.inject.System");
+        } catch (ClassNotFoundException | InstrumentationException e) {
+            // SandboxedRobotPlayer will try again and report it
+        }
+        return new Sandbox(loader, carrier);
+    }
+
+    /**
+     * A loader and an idle carrier, ready for a new SandboxedRobotPlayer.
+     */
+    public static class Sandbox {
+        private final TeamClassLoaderFactory.Loader loader;
+        private final SandboxCarrier carrier;
+
+        private Sandbox(TeamClassLoaderFactory.Loader loader, SandboxCarrier carrier) {
+            this.loader = loader;
+            this.carrier = carrier;
+        }
+
+        public TeamClassLoaderFactory.Loader getLoader() {
+            return loader;
+        }
+
+        public SandboxCarrier getCarrier() {
+            return carrier;
+        }
+    }
+}
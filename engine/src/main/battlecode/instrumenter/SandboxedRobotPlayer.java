@@ -10,6 +10,9 @@ import battlecode.server.Config;
 import java.io.OutputStream;
 import java.io.PrintStream;
 import java.io.UnsupportedEncodingException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Modifier;
@@ -59,29 +62,34 @@ public class SandboxedRobotPlayer {
     private final TeamClassLoaderFactory.Loader individualLoader;
 
     /**
-     * The main thread the player is running on.
+     * The carrier whose thread the player is running on.
+     */
+    private final SandboxCarrier carrier;
+
+    /*
+     * The monitor methods called every turn are bound as method handles,
+     * so that calling them doesn't box their arguments or results.
      */
-    private final Thread mainThread;
 
     /**
      * The cached 'killRobot' method of the monitor.
      */
-    private final Method killMethod;
+    private final MethodHandle killHandle;
 
     /**
      * The cached 'setBytecodeLimit' method of the monitor.
      */
-    private final Method setBytecodeLimitMethod;
+    private final MethodHandle setBytecodeLimitHandle;
 
     /**
      * The cached 'getBytecodeNum' method of the monitor.
      */
-    private final Method getBytecodeNumMethod;
+    private final MethodHandle getBytecodeNumHandle;
 
     /**
-     * The object used to trade of control between threads.
+     * Used to trade off control between threads.
      */
-    private final Object notifier;
+    private final TurnHandoff handoff;
 
     /**
      * Whether or not we are currently running, i.e. in "step".
@@ -95,12 +103,35 @@ public class SandboxedRobotPlayer {
     private OutputStream systemOut;
 
     /**
-     * Create a new sandboxed robot player.
+     * Create a new sandboxed robot player, running on a thread of its own.
+     *
+     * @param teamName          the name of the team to create a player for
+     * @param robotController   the robot we're loading a player for
+     * @param seed              the seed the robot should use for random operations
+     * @param loader            the classloader to load classes with
+     * @param robotOut          the output to write robot output to (with headers)
+     * @throws InstrumentationException if the player doesn't work for some reason
+     * @throws RuntimeException if our code fails for some reason
+     */
+    public SandboxedRobotPlayer(String teamName,
+                                RobotController robotController,
+                                int seed,
+                                TeamClassLoaderFactory.Loader loader,
+                                OutputStream robotOut)
+            throws InstrumentationException {
+        this(teamName, robotController, seed, loader,
+                new SandboxCarrier(teamName + "." + PLAYER_CLASS_NAME + " #" + robotController.getID(), false),
+                robotOut);
+    }
+
+    /**
+     * Create a new sandboxed robot player on an idle carrier.
      *
      * @param teamName          the name of the team to create a player for
      * @param robotController   the robot we're loading a player for
      * @param seed              the seed the robot should use for random operations
      * @param loader            the classloader to load classes with
+     * @param carrier           the idle carrier to run the player on
      * @param robotOut          the output to write robot output to (with headers)
      * @throws InstrumentationException if the player doesn't work for some reason
      * @throws RuntimeException if our code fails for some reason
@@ -109,12 +140,14 @@ public class SandboxedRobotPlayer {
                                 RobotController robotController,
                                 int seed,
                                 TeamClassLoaderFactory.Loader loader,
+                                SandboxCarrier carrier,
                                 OutputStream robotOut)
             throws InstrumentationException {
         this.robotController = robotController;
         this.seed = seed;
         this.terminated = false;
-        this.notifier = new Object();
+        this.carrier = carrier;
+        this.handoff = carrier.getHandoff();
 
         // Create classloader sandbox
         individualLoader = loader;
@@ -129,9 +162,13 @@ public class SandboxedRobotPlayer {
             Class<?> monitor = individualLoader
                     .loadClass("battlecode.instrumenter.inject.RobotMonitor");
 
-            killMethod = monitor.getMethod("killRobot");
-            setBytecodeLimitMethod = monitor.getMethod("setBytecodeLimit", int.class);
-            getBytecodeNumMethod = monitor.getMethod("getBytecodeNum");
+            MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+            killHandle = lookup.findStatic(monitor, "killRobot",
+                    MethodType.methodType(void.class));
+            setBytecodeLimitHandle = lookup.findStatic(monitor, "setBytecodeLimit",
+                    MethodType.methodType(void.class, int.class));
+            getBytecodeNumHandle = lookup.findStatic(monitor, "getBytecodeNum",
+                    MethodType.methodType(int.class));
             pauseMethod = monitor.getMethod("pause");
             initMethod = monitor.getMethod("init", Pauser.class, Killer.class, int.class);
 
@@ -144,19 +181,16 @@ public class SandboxedRobotPlayer {
             system.getMethod("setSystemOut", PrintStream.class).invoke(null, this.systemOut);
 
         } catch (ReflectiveOperationException e) {
+            carrier.retire();
             throw new RuntimeException("Couldn't load RobotMonitor", e);
         }
 
         // Used to pause the RobotPlayer main thread.
         final Pauser pauser = () -> {
             try {
-                synchronized (notifier) {
-                    // Unpause the main thread, which is waiting on the player thread
-                    notifier.notifyAll();
-
-                    // Wait for the main thread to restart us
-                    notifier.wait();
-                }
+                // Unpause the main thread, which is waiting on the player thread,
+                // and wait for it to restart us
+                handoff.pausePlayer();
             } catch (InterruptedException e) {
                 ErrorReporter.report("RobotPlayer thread interrupted while paused");
                 throw new RobotDeathException();
@@ -170,8 +204,10 @@ public class SandboxedRobotPlayer {
             throw new RobotDeathException();
         };
 
-        mainThread = new Thread(() -> {
+        final Runnable player = () -> {
             try {
+                // Let the classes the team shares know who's running them
+                individualLoader.bindSharedClasses();
                 // Init RobotMonitor
                 initMethod.invoke(null, pauser, killer, this.seed);
                 // Pause immediately
@@ -200,28 +236,15 @@ public class SandboxedRobotPlayer {
             } catch (final RobotDeathException e) {
                 return;
             } finally {
+                individualLoader.unbindSharedClasses();
                 // Ensure that we know we're terminated.
+                // The carrier unpauses the main thread once we return.
                 this.terminated = true;
-
-                // Unpause the main thread, which is waiting on the player thread.
-                synchronized (notifier) {
-                    notifier.notifyAll();
-                }
             }
-        }, teamName + "." + PLAYER_CLASS_NAME + " #"+ robotController.getID());
-
-
-        // Wait for thread to tell us it's ready
-        try {
-            synchronized (notifier) {
-                // Doesn't do anything besides initialize the sandbox, since thread pauses immediately
-                mainThread.start();
+        };
 
-                notifier.wait();
-            }
-        } catch (InterruptedException e) {
-            throw new RuntimeException("Unexpected interruption initializing sandbox", e);
-        }
+        // Doesn't do anything besides initialize the sandbox, since the player pauses immediately
+        carrier.runPlayer(player, teamName + "." + PLAYER_CLASS_NAME + " #" + robotController.getID());
     }
 
     /**
@@ -266,8 +289,8 @@ public class SandboxedRobotPlayer {
      */
     public void setBytecodeLimit(int limit) {
         try {
-            setBytecodeLimitMethod.invoke(null, limit);
-        } catch (ReflectiveOperationException e) {
+            setBytecodeLimitHandle.invokeExact(limit);
+        } catch (Throwable e) {
             ErrorReporter.report(e, true);
         }
     }
@@ -284,19 +307,15 @@ public class SandboxedRobotPlayer {
         updateOut();
 
         try {
-            synchronized (notifier) {
-                // We are now running the robot!
-                running = true;
-
-                // Unpause the robot's thread
-                notifier.notifyAll();
+            // We are now running the robot!
+            running = true;
 
-                // Pause this thread until the robot ends turn or dies
-                notifier.wait();
+            // Unpause the robot's thread, and pause this thread until
+            // the robot ends turn or dies
+            handoff.runPlayer();
 
-                // Main thread reactivated: no longer running.
-                running = false;
-            }
+            // Main thread reactivated: no longer running.
+            running = false;
         } catch (InterruptedException e) {
             throw new RuntimeException("Unexpected interruption", e);
         }
@@ -324,20 +343,12 @@ public class SandboxedRobotPlayer {
             // execute zero-cost actions after "dying", like (maybe?) returning
             // from run(), which could issue nonsensical warnings. However, it's
             // the best solution I can think of.
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            kill();
         } else {
             // We're not running.
             // Set the "shouldDie" flag and then step to finish the job.
 
-            try {
-                killMethod.invoke(null);
-            } catch (ReflectiveOperationException e) {
-                ErrorReporter.report(e, true);
-            }
+            kill();
 
             // Step to make the robot die.
             step();
@@ -349,13 +360,24 @@ public class SandboxedRobotPlayer {
      */
     public int getBytecodesUsed() {
         try {
-            return (Integer) getBytecodeNumMethod.invoke(null);
-        } catch (ReflectiveOperationException e) {
+            return (int) getBytecodeNumHandle.invokeExact();
+        } catch (Throwable e) {
             ErrorReporter.report(e, true);
             return 0;
         }
     }
 
+    /**
+     * Set the monitor's "shouldDie" flag.
+     */
+    private void kill() {
+        try {
+            killHandle.invokeExact();
+        } catch (Throwable e) {
+            ErrorReporter.report(e, true);
+        }
+    }
+
     /**
      * Whether the player controlling this robot is terminated.
      */
@@ -363,6 +385,14 @@ public class SandboxedRobotPlayer {
         return terminated;
     }
 
+    /**
+     * @return the carrier the player runs on, which is idle again once the
+     *         player is terminated
+     */
+    public SandboxCarrier getCarrier() {
+        return carrier;
+    }
+
     /**
      * Injected into RobotMonitor; used to synchronize it and the main thread.
      */
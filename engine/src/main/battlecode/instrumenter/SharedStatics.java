@@ -0,0 +1,364 @@
+package battlecode.instrumenter;
+
+import battlecode.instrumenter.bytecode.ClassReferenceUtil;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.tree.AbstractInsnNode;
+import org.objectweb.asm.tree.ClassNode;
+import org.objectweb.asm.tree.FieldInsnNode;
+import org.objectweb.asm.tree.FieldNode;
+import org.objectweb.asm.tree.MethodNode;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.util.*;
+
+/**
+ * Decides which static fields of a team's shared classes are kept per robot,
+ * and creates each robot's holders for them.
+ *
+ * A static field of a shared class stays an ordinary, shared static field
+ * if it can't carry state from one robot to another: compile-time constants,
+ * $assertionsDisabled, and final fields holding a primitive, a String, a
+ * zero-length array, or (in an enum) the enum's own constants. Every other
+ * static field is per-robot; the instrumenter turns uses of it into calls to
+ * SharedDispatch, which keeps each robot's values in an Object[] holder.
+ *
+ * A shared class's static initializer is run once, when the class is
+ * defined, without charging anyone, and only sets the shared fields. A copy
+ * of it that only sets the per-robot fields (ROBOT_INIT) is run, and
+ * charged, for each robot the first time it uses them.
+ *
+ * The layouts of the classes are memoized, since every robot on the team
+ * uses the same ones.
+ */
+public final class SharedStatics {
+
+    /**
+     * The name of the per-robot copy of a shared class's static initializer.
+     */
+    public static final String ROBOT_INIT = "$robotinit";
+
+    /**
+     * The static fields of a class, as seen by field resolution.
+     */
+    private static final class Layout {
+        final String name;
+        final boolean shared;
+        final String superName;
+        final String[] interfaces;
+        final Set<String> staticFields;
+
+        /**
+         * The class's per-robot fields, in holder order, and their
+         * descriptors.
+         */
+        final List<String> robotFields;
+        final List<String> robotDescs;
+
+        /**
+         * Whether the class needs ROBOT_INIT.
+         */
+        final boolean robotInit;
+
+        /**
+         * The id of the class, if it has per-robot fields, or -1.
+         */
+        int id;
+
+        /**
+         * The bound ROBOT_INIT method, once the class has been defined.
+         */
+        MethodHandle robotInitHandle;
+
+        @SuppressWarnings("unchecked")	// cn.interfaces is a raw List of Strings
+        Layout(ClassNode cn, boolean shared) {
+            this.name = cn.name;
+            this.shared = shared;
+            this.superName = cn.superName;
+            this.interfaces = (String[]) cn.interfaces.toArray(new String[cn.interfaces.size()]);
+            this.staticFields = new HashSet<>();
+            this.robotFields = new ArrayList<>();
+            this.robotDescs = new ArrayList<>();
+            this.id = -1;
+
+            Set<String> emptyArrays = emptyArrayFields(cn);
+            boolean hasClinit = false;
+            for (Object o : cn.methods) {
+                MethodNode method = (MethodNode) o;
+                hasClinit |= method.name.equals("<clinit>");
+            }
+
+            for (Object o : cn.fields) {
+                FieldNode field = (FieldNode) o;
+                if ((field.access & Opcodes.ACC_STATIC) == 0) {
+                    continue;
+                }
+                staticFields.add(field.name);
+                if (shared && !isSharedField(cn, field, emptyArrays)) {
+                    robotFields.add(field.name);
+                    robotDescs.add(field.desc);
+                }
+            }
+            this.robotInit = hasClinit && !robotFields.isEmpty();
+        }
+    }
+
+    /**
+     * A per-robot static field, as the instrumenter refers to it.
+     */
+    public static final class FieldRef {
+        public final int classId;
+        public final int index;
+
+        private FieldRef(int classId, int index) {
+            this.classId = classId;
+            this.index = index;
+        }
+    }
+
+    private final TeamClassLoaderFactory factory;
+    private final ClassReferenceUtil refUtil;
+
+    /**
+     * The loader defining the shared classes.
+     */
+    private final ClassLoader sharedLoader;
+
+    /**
+     * Layouts by (uninstrumented) internal class name; null values are
+     * classes that couldn't be read.
+     */
+    private final Map<String, Layout> layouts;
+
+    /**
+     * Layouts with per-robot fields, by id.
+     */
+    private final List<Layout> ids;
+
+    SharedStatics(TeamClassLoaderFactory factory, ClassReferenceUtil refUtil, ClassLoader sharedLoader) {
+        this.factory = factory;
+        this.refUtil = refUtil;
+        this.sharedLoader = sharedLoader;
+        this.layouts = new HashMap<>();
+        this.ids = new ArrayList<>();
+    }
+
+    /**
+     * @param className a class name in internal form
+     * @return whether the class is loaded individually for every robot, so
+     *         shared classes must reach it through SharedDispatch
+     */
+    public boolean isPerRobotClass(String className) {
+        return TeamClassLoaderFactory.alwaysRedefine.contains(className.replace('/', '.'));
+    }
+
+    /**
+     * Find the per-robot static field a GETSTATIC or PUTSTATIC refers to.
+     *
+     * @param owner the owner of the instruction, in internal form
+     * @param name the name of the field
+     * @return the field, or null if it's an ordinary static field
+     */
+    public synchronized FieldRef resolvePerRobotField(String owner, String name) {
+        if (!owner.startsWith("instrumented/") && !factory.hasTeamClass(owner)) {
+            return null;
+        }
+
+        Layout declaring = resolve(uninstrumented(owner), name);
+        if (declaring == null || !declaring.shared) {
+            return null;
+        }
+        int index = declaring.robotFields.indexOf(name);
+        if (index == -1) {
+            return null;
+        }
+        if (declaring.id == -1) {
+            declaring.id = ids.size();
+            ids.add(declaring);
+        }
+        return new FieldRef(declaring.id, index);
+    }
+
+    /**
+     * @param className the name of a shared class, in internal form
+     * @param name the name of one of its static fields
+     * @return whether the field is kept per-robot
+     */
+    public synchronized boolean isPerRobotField(String className, String name) {
+        Layout layout = layout(uninstrumented(className));
+        return layout != null && layout.robotFields.contains(name);
+    }
+
+    /**
+     * @param className the name of a shared class, in internal form
+     * @return whether the class needs a ROBOT_INIT method
+     */
+    public synchronized boolean needsRobotInit(String className) {
+        Layout layout = layout(uninstrumented(className));
+        return layout != null && layout.robotInit;
+    }
+
+    /**
+     * Create a robot's holder for the per-robot fields of a class, with
+     * every field set to its default value.
+     *
+     * @param classId the id of the class
+     * @return the new holder
+     */
+    public synchronized Object[] newHolder(int classId) {
+        List<String> descs = ids.get(classId).robotDescs;
+        Object[] holder = new Object[descs.size()];
+        for (int i = 0; i < holder.length; i++) {
+            holder[i] = defaultValue(descs.get(i));
+        }
+        return holder;
+    }
+
+    /**
+     * Run ROBOT_INIT of a class for the robot bound to the current thread,
+     * after making sure the class itself is initialized.
+     *
+     * @param classId the id of the class
+     */
+    public void initializeForRobot(int classId) {
+        MethodHandle handle;
+        synchronized (this) {
+            Layout layout = ids.get(classId);
+            if (!layout.robotInit) {
+                return;
+            }
+            if (layout.robotInitHandle == null) {
+                try {
+                    Class<?> c = Class.forName("instrumented." + layout.name.replace('/', '.'), true, sharedLoader);
+                    Method method = c.getDeclaredMethod(ROBOT_INIT);
+                    method.setAccessible(true);
+                    layout.robotInitHandle = MethodHandles.lookup().unreflect(method);
+                } catch (ReflectiveOperationException e) {
+                    throw new InstrumentationException(InstrumentationException.Type.MISSING,
+                            "Can't initialize shared class " + layout.name, e);
+                }
+            }
+            handle = layout.robotInitHandle;
+        }
+
+        try {
+            handle.invokeExact();
+        } catch (RuntimeException | Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(t);
+        }
+    }
+
+    private static String uninstrumented(String className) {
+        return className.startsWith("instrumented/") ? className.substring(13) : className;
+    }
+
+    /**
+     * Resolve a static field the way the JVM does: the class itself, then
+     * its superinterfaces, then its superclass.
+     */
+    private Layout resolve(String className, String name) {
+        Layout layout = layout(className);
+        if (layout == null) {
+            return null;
+        }
+        if (layout.staticFields.contains(name)) {
+            return layout;
+        }
+        for (String i : layout.interfaces) {
+            Layout declaring = resolve(i, name);
+            if (declaring != null) {
+                return declaring;
+            }
+        }
+        return layout.superName == null ? null : resolve(layout.superName, name);
+    }
+
+    private Layout layout(String className) {
+        if (layouts.containsKey(className)) {
+            return layouts.get(className);
+        }
+
+        Layout layout = null;
+        try {
+            ClassNode cn = new ClassNode();
+            TeamClassLoaderFactory.teamOrSystemReader(factory, className).accept(cn, ClassReader.SKIP_DEBUG);
+            boolean shared = !factory.hasTeamClass(className)
+                    && refUtil.classReference(className, false).equals("instrumented/" + className);
+            layout = new Layout(cn, shared);
+        } catch (InstrumentationException e) {
+            // not readable, so not ours
+        }
+        layouts.put(className, layout);
+        return layout;
+    }
+
+    private static boolean isSharedField(ClassNode cn, FieldNode field, Set<String> emptyArrays) {
+        if (field.value != null || field.name.equals("$assertionsDisabled")) {
+            return true;
+        }
+        if ((field.access & Opcodes.ACC_FINAL) == 0) {
+            return false;
+        }
+        if (field.desc.length() == 1 || field.desc.equals("Ljava/lang/String;")) {
+            return true;
+        }
+        if (emptyArrays.contains(field.name)) {
+            return true;
+        }
+        return (cn.access & Opcodes.ACC_ENUM) != 0
+                && (field.desc.equals("L" + cn.name + ";") || field.name.equals("$VALUES"));
+    }
+
+    /**
+     * @return the final static fields the static initializer sets to a
+     *         newly created zero-length array
+     */
+    private static Set<String> emptyArrayFields(ClassNode cn) {
+        Set<String> fields = new HashSet<>();
+        for (Object o : cn.methods) {
+            MethodNode method = (MethodNode) o;
+            if (!method.name.equals("<clinit>")) {
+                continue;
+            }
+            for (AbstractInsnNode insn : method.instructions.toArray()) {
+                if (insn.getOpcode() != Opcodes.PUTSTATIC || !((FieldInsnNode) insn).owner.equals(cn.name)) {
+                    continue;
+                }
+                AbstractInsnNode newArray = insn.getPrevious();
+                AbstractInsnNode length = newArray == null ? null : newArray.getPrevious();
+                if (newArray != null && length != null && length.getOpcode() == Opcodes.ICONST_0
+                        && (newArray.getOpcode() == Opcodes.ANEWARRAY || newArray.getOpcode() == Opcodes.NEWARRAY)) {
+                    fields.add(((FieldInsnNode) insn).name);
+                }
+            }
+        }
+        return fields;
+    }
+
+    private static Object defaultValue(String desc) {
+        switch (desc.charAt(0)) {
+            case 'Z':
+                return Boolean.FALSE;
+            case 'B':
+                return (byte) 0;
+            case 'C':
+                return (char) 0;
+            case 'S':
+                return (short) 0;
+            case 'I':
+                return 0;
+            case 'J':
+                return 0L;
+            case 'F':
+                return 0f;
+            case 'D':
+                return 0d;
+            default:
+                return null;
+        }
+    }
+}
@@ -2,6 +2,9 @@ package battlecode.instrumenter;
 
 import battlecode.instrumenter.bytecode.ClassReferenceUtil;
 import battlecode.instrumenter.bytecode.InstrumentingClassVisitor;
+import battlecode.instrumenter.bytecode.LambdaDesugarer;
+import battlecode.instrumenter.bytecode.SharedClassRewriter;
+import battlecode.instrumenter.inject.SharedDispatch;
 import battlecode.server.Config;
 import org.objectweb.asm.ClassReader;
 import org.objectweb.asm.ClassVisitor;
@@ -9,6 +12,8 @@ import org.objectweb.asm.ClassWriter;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
 import java.net.MalformedURLException;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -16,6 +21,11 @@ import java.net.URLClassLoader;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -84,6 +94,7 @@ public final class TeamClassLoaderFactory {
             "battlecode.instrumenter.inject.InstrumentableFunctions",
             "battlecode.instrumenter.inject.System",
             "battlecode.instrumenter.inject.RobotMonitor",
+            "battlecode.instrumenter.inject.RobotDispatch",
             "battlecode.common.Clock"
     )));
 
@@ -95,14 +106,25 @@ public final class TeamClassLoaderFactory {
      */
     private final ClassLoader teamResourceLookup;
 
+    /**
+     * The URL the team's classes come from.
+     */
+    private final URL teamURL;
+
     /**
      * Caches the binary format of classes that have been instrumented.
      * The values are byte arrays, not Classes, because each instance of
      * InstrumentingClassLoader should define its own class, even if another
      * InstrumentingClassLoader has already loaded a class from the same class file.
+     * Concurrent, since preinstrument fills it from several threads.
      */
     private final Map<String, byte[]> instrumentedClasses;
 
+    /**
+     * Memoized results of hasTeamClass.
+     */
+    private final Map<String, Boolean> teamClasses;
+
     /**
      * If this team has an error, don't bother trying to cache again.
      */
@@ -113,6 +135,69 @@ public final class TeamClassLoaderFactory {
      */
     private final ClassReferenceUtil refUtil;
 
+    /**
+     * The loader defining the instrumented library classes shared by every
+     * robot on the team, or null if each robot defines its own
+     * (see bc.engine.share-classes).
+     */
+    private final SharedLoader sharedLoader;
+
+    /**
+     * The per-robot static fields of the shared classes, or null.
+     */
+    private final SharedStatics sharedStatics;
+
+    /**
+     * The number of loaders that used a shared class, for getSharingReport().
+     */
+    private int numSharingLoaders;
+
+    /**
+     * How many classes have been instrumented, and how long it took,
+     * summed over every thread that instrumented them.
+     */
+    private final AtomicInteger numInstrumented = new AtomicInteger();
+    private final AtomicLong instrumentNanos = new AtomicLong();
+
+    /**
+     * How many classes preinstrument instrumented, how long it took from
+     * start to finish, and on how many threads.
+     */
+    private int numPreinstrumented;
+    private long preinstrumentNanos;
+    private int preinstrumentThreads;
+
+    /**
+     * How many classes came already instrumented (see InstrumentedArtifact).
+     */
+    private int numFromArtifact;
+
+    /**
+     * Whether library classes can come from the JdkBundle: only if the team
+     * doesn't have classes of its own in the bundled packages, which would
+     * change how the library classes refer to them.
+     */
+    private final boolean useJdkBundle;
+
+    /**
+     * How many library classes came from the JdkBundle.
+     */
+    private final AtomicInteger numFromJdkBundle = new AtomicInteger();
+
+    /**
+     * Whether the team's lambdas are turned into classes of their own
+     * before they're instrumented (see LambdaDesugarer).
+     */
+    private final boolean desugarLambdas;
+
+    /**
+     * The team's classes that had lambdas, with the lambdas desugared, and
+     * the classes generated for the lambdas, by binary name; both are read
+     * from here instead of the team's URL.
+     */
+    private final Map<String, byte[]> desugaredClasses;
+    private final Map<String, byte[]> lambdaClasses;
+
     /**
      * Create a cache for classes loaded from a URL (or local file).
      * The URL can point to a jar file or a directory containing class
@@ -128,9 +213,17 @@ public final class TeamClassLoaderFactory {
             url = getFilesystemURL(classURL);
         } catch (InstrumentationException e) {
             this.teamResourceLookup = null;
+            this.teamURL = null;
             this.hasError = true;
             this.instrumentedClasses = null;
+            this.teamClasses = null;
             this.refUtil = null;
+            this.sharedLoader = null;
+            this.sharedStatics = null;
+            this.useJdkBundle = false;
+            this.desugarLambdas = false;
+            this.desugaredClasses = null;
+            this.lambdaClasses = null;
             return;
         }
 
@@ -147,9 +240,35 @@ public final class TeamClassLoaderFactory {
                 return findResource(name);
             }
         };
-        this.instrumentedClasses = new HashMap<>();
+        this.teamURL = url;
+        this.instrumentedClasses = new ConcurrentHashMap<>();
+        this.teamClasses = new ConcurrentHashMap<>();
         this.hasError = false;
         this.refUtil = new ClassReferenceUtil(this);
+
+        if (Config.getGlobalConfig().getBoolean("bc.engine.share-classes")) {
+            this.sharedLoader = new SharedLoader();
+            this.sharedStatics = new SharedStatics(this, refUtil, sharedLoader);
+        } else {
+            this.sharedLoader = null;
+            this.sharedStatics = null;
+        }
+
+        this.useJdkBundle = Config.getGlobalConfig().getBoolean("bc.engine.jdk-bundle") && !hasJdkClasses();
+
+        this.desugarLambdas = Config.getGlobalConfig().getBoolean("bc.engine.desugar-lambdas");
+        this.desugaredClasses = new ConcurrentHashMap<>();
+        this.lambdaClasses = new ConcurrentHashMap<>();
+
+        // Classes rewritten for sharing depend on the order they're loaded
+        // in, so they can't be instrumented ahead of time.
+        if (sharedStatics == null && Config.getGlobalConfig().getBoolean("bc.engine.instrumented-artifacts")) {
+            Map<String, byte[]> instrumented = InstrumentedArtifact.read(this);
+            if (instrumented != null) {
+                this.instrumentedClasses.putAll(instrumented);
+                this.numFromArtifact = instrumented.size();
+            }
+        }
     }
 
     /**
@@ -192,12 +311,316 @@ public final class TeamClassLoaderFactory {
         return this.hasError;
     }
 
+    /**
+     * @return whether the team's robots share their instrumented library classes
+     */
+    public boolean isSharingClasses() {
+        return sharedLoader != null;
+    }
+
+    /**
+     * @return the number of classes defined once for the whole team
+     */
+    public int getNumSharedClasses() {
+        return sharedLoader == null ? 0 : sharedLoader.numDefined;
+    }
+
+    /**
+     * @return the total size of the class files defined once for the whole team
+     */
+    public long getSharedClassBytes() {
+        return sharedLoader == null ? 0 : sharedLoader.definedBytes;
+    }
+
+    /**
+     * @return the size of the class files each robot using shared classes
+     *         didn't have to define, less its part of the shared copy; this
+     *         roughly tracks the Metaspace each robot saves, assuming every
+     *         robot uses the same classes
+     */
+    public long getSharedBytesSavedPerRobot() {
+        if (numSharingLoaders == 0) {
+            return 0;
+        }
+        return getSharedClassBytes() - getSharedClassBytes() / numSharingLoaders;
+    }
+
+    /**
+     * @return a summary of what sharing classes saved, with the current
+     *         Metaspace usage for comparison
+     */
+    public String getSharingReport() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%d classes (%d KB) shared by %d robots; %d KB of classes saved per robot",
+                getNumSharedClasses(), getSharedClassBytes() / 1024, numSharingLoaders,
+                getSharedBytesSavedPerRobot() / 1024));
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getName().equals("Metaspace")) {
+                report.append(String.format("; Metaspace in use: %d KB", pool.getUsage().getUsed() / 1024));
+            }
+        }
+        return report.toString();
+    }
+
+    /**
+     * @return the number of classes this team has instrumented
+     */
+    public int getNumInstrumented() {
+        return numInstrumented.get();
+    }
+
+    /**
+     * @return the time spent instrumenting this team's classes, summed
+     *         over every thread that instrumented them, in nanoseconds
+     */
+    public long getInstrumentNanos() {
+        return instrumentNanos.get();
+    }
+
+    /**
+     * @return the number of classes preinstrument instrumented
+     */
+    public int getNumPreinstrumented() {
+        return numPreinstrumented;
+    }
+
+    /**
+     * @return the number of classes that came already instrumented
+     */
+    public int getNumFromArtifact() {
+        return numFromArtifact;
+    }
+
+    /**
+     * @return the number of library classes that came from the JdkBundle
+     */
+    public int getNumFromJdkBundle() {
+        return numFromJdkBundle.get();
+    }
+
+    /**
+     * @return the binary names of the classes generated for the team's
+     *         lambdas so far
+     */
+    public Set<String> getLambdaClasses() {
+        return lambdaClasses == null ? Collections.emptySet() : Collections.unmodifiableSet(lambdaClasses.keySet());
+    }
+
+    /**
+     * @return a summary of the time spent instrumenting the team's classes
+     */
+    public String getInstrumentationReport() {
+        return String.format("%d classes came instrumented, %d from the JDK bundle; instrumented %d classes in %d ms; " +
+                        "%d of them beforehand, in %d ms on %d threads; %d lambdas desugared",
+                numFromArtifact, getNumFromJdkBundle(), getNumInstrumented(),
+                TimeUnit.NANOSECONDS.toMillis(getInstrumentNanos()),
+                numPreinstrumented, TimeUnit.NANOSECONDS.toMillis(preinstrumentNanos), preinstrumentThreads,
+                getLambdaClasses().size());
+    }
+
+    /**
+     * Instrument every class in the team's package ahead of time, on several
+     * threads, so that robots don't have to wait for it during the first
+     * rounds of the match.
+     *
+     * Classes that can't be instrumented are skipped, and fail as usual when
+     * a robot loads them, so errors are still reported in the same place.
+     *
+     * @param teamPackage the team's package
+     * @param numThreads the number of threads to use, or 0 for one per processor
+     */
+    public void preinstrument(String teamPackage, int numThreads) {
+        if (getError()) {
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<String> classNames;
+        try {
+            classNames = listTeamClasses(teamPackage.replace('.', '/') + "/");
+        } catch (IOException | URISyntaxException e) {
+            // leave it to the robots
+            return;
+        }
+        if (numThreads <= 0) {
+            numThreads = Runtime.getRuntime().availableProcessors();
+        }
+
+        final Loader instrumenter = new Loader();
+        final AtomicInteger numDone = new AtomicInteger();
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (final String name : classNames) {
+            if (hasCached(name)) {
+                continue;
+            }
+            tasks.add(() -> {
+                try {
+                    setCached(name, instrumentTeamClass(instrumenter, name));
+                    numDone.incrementAndGet();
+                } catch (RuntimeException e) {
+                    // the robot that loads it will fail in its place
+                }
+                return null;
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(numThreads, r -> {
+            Thread thread = new Thread(r, "Instrumenter: " + teamPackage);
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            executor.invokeAll(tasks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        this.numPreinstrumented = numDone.get();
+        this.preinstrumentNanos = System.nanoTime() - start;
+        this.preinstrumentThreads = numThreads;
+    }
+
+    /**
+     * @param packagePath the path of the package within the team's URL,
+     *                    ending in a /, or "" for every package
+     * @return the binary names of the classes in the package and its
+     *         subpackages, leaving out anything in META-INF
+     */
+    List<String> listTeamClasses(String packagePath) throws IOException, URISyntaxException {
+        List<String> classNames = new ArrayList<>();
+        File file = Paths.get(teamURL.toURI()).toFile();
+        if (file.isDirectory()) {
+            File packageDir = new File(file, packagePath);
+            if (packageDir.isDirectory()) {
+                Files.walk(packageDir.toPath())
+                        .map(path -> file.toPath().relativize(path).toString().replace(File.separatorChar, '/'))
+                        .filter(path -> path.endsWith(".class") && !path.startsWith(InstrumentedArtifact.META_INF))
+                        .forEach(path -> classNames.add(toClassName(path)));
+            }
+        } else {
+            try (JarFile jar = new JarFile(file)) {
+                for (JarEntry entry : Collections.list(jar.entries())) {
+                    if (entry.getName().startsWith(packagePath) && entry.getName().endsWith(".class")
+                            && !entry.getName().startsWith(InstrumentedArtifact.META_INF)) {
+                        classNames.add(toClassName(entry.getName()));
+                    }
+                }
+            }
+        }
+        return classNames;
+    }
+
+    /**
+     * @return whether the team has classes in the packages in the JdkBundle,
+     *         or we can't tell
+     */
+    private boolean hasJdkClasses() {
+        try {
+            for (String name : listTeamClasses("java/")) {
+                if (JdkBundle.inBundledPackage(name.replace('.', '/'))) {
+                    return true;
+                }
+            }
+            return false;
+        } catch (IOException | URISyntaxException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Instrument a library class, or get it from the JdkBundle.
+     *
+     * @param instrumenter the Loader to instrument with
+     * @param name the binary name of the class, starting with instrumented.
+     * @return the instrumented class
+     * @throws InstrumentationException if the class can't be instrumented
+     */
+    private byte[] instrumentLibraryClass(Loader instrumenter, String name) throws InstrumentationException {
+        if (useJdkBundle) {
+            byte[] classBytes = JdkBundle.get().lookup(name.substring("instrumented.".length()).replace('.', '/'));
+            if (classBytes != null) {
+                numFromJdkBundle.incrementAndGet();
+                return classBytes;
+            }
+        }
+        return instrumenter.instrument(normalReader(name), false, false);
+    }
+
+    /**
+     * @param resourceName a class name in the form java/lang/Double.class
+     * @return the class name in the form java.lang.Double
+     */
+    private static String toClassName(String resourceName) {
+        return resourceName.substring(0, resourceName.length() - ".class".length()).replace('/', '.');
+    }
+
+    /**
+     * Instrument one of the team's classes. Safe to call from several
+     * threads at once.
+     *
+     * @param instrumenter the Loader to instrument with
+     * @param name the binary name of the class
+     * @return the instrumented class
+     * @throws InstrumentationException if the class isn't allowed
+     */
+    byte[] instrumentTeamClass(Loader instrumenter, String name) throws InstrumentationException {
+        assertAllowedPackage(name);
+
+        byte[] classBytes = instrumenter.instrument(
+                desugarLambdas ? desugar(name) : teamReader(name),
+                true,
+                Config.getGlobalConfig().getBoolean("bc.engine.debug-methods")
+        );
+        if (sharedStatics != null) {
+            classBytes = SharedClassRewriter.rewrite(classBytes, sharedStatics, false);
+        }
+        return classBytes;
+    }
+
+    /**
+     * Desugar the lambdas in one of the team's classes, if it has any and
+     * hasn't been already. The classes generated for them become team
+     * classes.
+     *
+     * @param name the binary name of the class
+     * @return a Reader for the desugared class
+     * @throws InstrumentationException if the class cannot be read
+     */
+    private ClassReader desugar(String name) throws InstrumentationException {
+        ClassReader reader = teamReader(name);
+        if (desugaredClasses.containsKey(name) || lambdaClasses.containsKey(name)) {
+            return reader;
+        }
+
+        LambdaDesugarer.Result result = LambdaDesugarer.desugar(reader, this);
+        if (result == null) {
+            return reader;
+        }
+        // Lambda classes first, so they're there by the time anything can
+        // refer to them.
+        for (Map.Entry<String, byte[]> lambda : result.lambdaClasses.entrySet()) {
+            lambdaClasses.put(lambda.getKey().replace('/', '.'), lambda.getValue());
+        }
+        desugaredClasses.put(name, result.classBytes);
+        return new ClassReader(result.classBytes);
+    }
+
     /**
      * @param className the name of the class
      * @return whether or not the team has the class
      */
     public boolean hasTeamClass(String className) {
-        return getTeamURL(toResourceName(className)) != null;
+        if (lambdaClasses != null && lambdaClasses.containsKey(className.replace('/', '.'))) {
+            return true;
+        }
+        Boolean hasClass = teamClasses.get(className);
+        if (hasClass == null) {
+            hasClass = getTeamURL(toResourceName(className)) != null;
+            teamClasses.put(className, hasClass);
+        }
+        return hasClass;
     }
 
     /**
@@ -246,6 +669,17 @@ public final class TeamClassLoaderFactory {
      * @throws InstrumentationException if the class cannot be read
      */
     public ClassReader teamReader(String className) throws InstrumentationException {
+        if (desugaredClasses != null) {
+            String binaryName = className.replace('/', '.');
+            byte[] classBytes = desugaredClasses.get(binaryName);
+            if (classBytes == null) {
+                classBytes = lambdaClasses.get(binaryName);
+            }
+            if (classBytes != null) {
+                return new ClassReader(classBytes);
+            }
+        }
+
         URL resURL = getTeamURL(toResourceName(className));
         if (resURL != null) {
             try {
@@ -364,6 +798,11 @@ public final class TeamClassLoaderFactory {
          */
         private final Map<String, Class<?>> loadedCache;
 
+        /**
+         * Whether this Loader has used a shared class.
+         */
+        private boolean usedSharedClass;
+
         /**
          * Create a loader.
          *
@@ -416,7 +855,14 @@ public final class TeamClassLoaderFactory {
             // this is the class we'll return
             Class finishedClass;
 
-            if (TeamClassLoaderFactory.this.hasCached(name)) {
+            if (sharedLoader != null && name.startsWith("instrumented.")) {
+                // Everyone on the team uses the same copy; see SharedStatics.
+                finishedClass = sharedLoader.loadClass(name);
+                if (!usedSharedClass) {
+                    usedSharedClass = true;
+                    numSharingLoaders++;
+                }
+            } else if (TeamClassLoaderFactory.this.hasCached(name)) {
                 byte[] classBytes = TeamClassLoaderFactory.this.getCached(name);
                 finishedClass = defineClass(null, classBytes, 0, classBytes.length);
             } else if (alwaysRedefine.contains(name)) {
@@ -436,20 +882,9 @@ public final class TeamClassLoaderFactory {
                 // loading team classes, which keeps the engine consistent
                 // in where its failures happen.
 
+                byte[] classBytes;
                 try {
-                    assertAllowedPackage(name);
-                } catch (InstrumentationException e) {
-                    TeamClassLoaderFactory.this.hasError = true;
-                    throw e;
-                }
-
-                final byte[] classBytes;
-                try {
-                    classBytes = instrument(
-                            TeamClassLoaderFactory.this.teamReader(name),
-                            true,
-                            Config.getGlobalConfig().getBoolean("bc.engine.debug-methods")
-                    );
+                    classBytes = instrumentTeamClass(this, name);
                 } catch (InstrumentationException e) {
                     TeamClassLoaderFactory.this.hasError = true;
                     throw e;
@@ -457,16 +892,12 @@ public final class TeamClassLoaderFactory {
 
                 finishedClass = saveAndDefineClass(name, classBytes);
             } else if (name.startsWith("instrumented.")) {
-                // Each robot has its own version of java.util classes.
+                // Unless the team shares them, each robot has its own
+                // version of java.util classes.
                 // We don't check them for disallowed or debug methods.
-                // If permgen space becomes a problem, we could make it so
-                // that only one copy of these classes is loaded, but
-                // we would need to modify ObjectHashCode.
                 byte[] classBytes;
                 try {
-                    classBytes = instrument(
-                            TeamClassLoaderFactory.normalReader(name),
-                            false, false);
+                    classBytes = instrumentLibraryClass(this, name);
                 } catch (InstrumentationException ie) {
                     TeamClassLoaderFactory.this.hasError = true;
                     throw ie;
@@ -486,6 +917,35 @@ public final class TeamClassLoaderFactory {
             return finishedClass;
         }
 
+        /**
+         * Bind this Loader's robot to the current thread, so that the shared
+         * classes it uses run as that robot. Does nothing if the team doesn't
+         * share classes.
+         *
+         * @throws InstrumentationException if the robot can't be bound
+         */
+        public void bindSharedClasses() throws InstrumentationException {
+            if (sharedStatics == null) {
+                return;
+            }
+            try {
+                SharedDispatch.Robot robot = (SharedDispatch.Robot)
+                        loadClass("battlecode.instrumenter.inject.RobotDispatch").newInstance();
+                SharedDispatch.bind(new SharedDispatch.Binding(Thread.currentThread(), robot, sharedStatics));
+            } catch (ReflectiveOperationException e) {
+                throw new InstrumentationException(MISSING, "Can't load RobotDispatch", e);
+            }
+        }
+
+        /**
+         * Unbind this Loader's robot from the current thread.
+         */
+        public void unbindSharedClasses() {
+            if (sharedStatics != null) {
+                SharedDispatch.unbind();
+            }
+        }
+
         @Override
         public URL getResource(String name) {
             throw new RuntimeException("You can't use getResource() from a player class!");
@@ -516,16 +976,26 @@ public final class TeamClassLoaderFactory {
                                  boolean checkDisallowed,
                                  boolean debugMethodsEnabled) throws InstrumentationException {
 
+            // coalescing adds a local variable, which every stack map frame
+            // has to mention, so it needs the frames expanded
+            boolean coalesceBytecodes = Config.getGlobalConfig().getBoolean("bc.engine.coalesce-bytecodes");
+
+            long start = System.nanoTime();
             ClassWriter cw = new ClassWriter(COMPUTE_MAXS); // passing true sets maxLocals and maxStack, so we don't have to
             ClassVisitor cv = new InstrumentingClassVisitor(
                     cw,
                     this,
                     false,
                     checkDisallowed,
-                    debugMethodsEnabled
+                    debugMethodsEnabled,
+                    coalesceBytecodes
             );
-            reader.accept(cv, 0);        //passing false lets debug info be included in the transformation, so players get line numbers in stack traces
-            return cw.toByteArray();
+            reader.accept(cv, coalesceBytecodes ? ClassReader.EXPAND_FRAMES : 0);        //passing false lets debug info be included in the transformation, so players get line numbers in stack traces
+            byte[] classBytes = cw.toByteArray();
+
+            numInstrumented.incrementAndGet();
+            instrumentNanos.addAndGet(System.nanoTime() - start);
+            return classBytes;
         }
 
         @SuppressWarnings("unused")
@@ -538,4 +1008,71 @@ public final class TeamClassLoaderFactory {
         }
 
     }
+
+    /**
+     * Defines the instrumented library classes shared by a team's robots.
+     *
+     * Shared classes are rewritten so that they don't refer to anything
+     * loaded individually for every robot (see SharedClassRewriter), and
+     * this refuses to load such classes, just in case.
+     */
+    private class SharedLoader extends ClassLoader {
+
+        /**
+         * Only used to instrument classes; never defines any.
+         */
+        private final Loader instrumenter;
+
+        private int numDefined;
+        private long definedBytes;
+
+        private SharedLoader() {
+            super(NORMAL_CLASS_LOADER);
+
+            // robot loaders enable assertions, so we do too
+            this.clearAssertionStatus();
+            this.setDefaultAssertionStatus(true);
+
+            this.instrumenter = new Loader();
+        }
+
+        @Override
+        protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+            if (TeamClassLoaderFactory.this.getError()) {
+                throw new InstrumentationException(ILLEGAL, "Team is known to have errors");
+            }
+
+            Class<?> finishedClass = findLoadedClass(name);
+            if (finishedClass != null) {
+                return finishedClass;
+            }
+
+            if (name.startsWith("instrumented.")) {
+                byte[] classBytes;
+                try {
+                    classBytes = SharedClassRewriter.rewrite(
+                            instrumentLibraryClass(instrumenter, name),
+                            sharedStatics,
+                            true
+                    );
+                } catch (InstrumentationException e) {
+                    TeamClassLoaderFactory.this.hasError = true;
+                    throw e;
+                }
+
+                finishedClass = defineClass(null, classBytes, 0, classBytes.length);
+                numDefined++;
+                definedBytes += classBytes.length;
+            } else if (alwaysRedefine.contains(name) || TeamClassLoaderFactory.this.hasTeamClass(name)) {
+                throw new InstrumentationException(ILLEGAL, "Shared classes can't use " + name);
+            } else {
+                return super.loadClass(name, resolve);
+            }
+
+            if (resolve)
+                resolveClass(finishedClass);
+
+            return finishedClass;
+        }
+    }
 }
@@ -0,0 +1,246 @@
+package battlecode.instrumenter;
+
+import battlecode.server.ErrorReporter;
+import battlecode.server.Server;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Trades control between the engine thread and the thread running a robot
+ * player, so that exactly one of them runs at any time.
+ *
+ * The engine thread calls start() once and then runPlayer() once per turn;
+ * the player thread calls pausePlayer() at the end of each turn and
+ * finishPlayer() when it exits.
+ *
+ * Strategies, chosen with bc.engine.turn-handoff:
+ * <ul>
+ *     <li>"monitor" - wait / notifyAll on a shared monitor</li>
+ *     <li>"park" - LockSupport.park / unpark on a volatile turn flag</li>
+ *     <li>"spin" - spin on the turn flag for a while, then park</li>
+ *     <li>"virtual" - park / unpark, with players on virtual threads
+ *     when the JVM has them</li>
+ * </ul>
+ */
+public abstract class TurnHandoff {
+
+    /**
+     * How many times the "spin" strategy checks the turn flag before
+     * parking. Spinning only helps if the other thread has a core to run
+     * on, so on a single core it parks straight away.
+     */
+    public static final int SPIN_LIMIT = 1 << 14;
+
+    /**
+     * Create a handoff using the given strategy.
+     *
+     * @param strategy one of "monitor", "park", "spin" or "virtual"
+     * @return the new handoff
+     * @throws IllegalArgumentException if the strategy is unknown
+     */
+    public static TurnHandoff create(String strategy) {
+        switch (strategy) {
+            case "monitor":
+                return new MonitorHandoff();
+            case "park":
+                return new ParkHandoff(0, false);
+            case "spin":
+                return new ParkHandoff(
+                        Runtime.getRuntime().availableProcessors() > 1 ? SPIN_LIMIT : 0, false);
+            case "virtual":
+                return new ParkHandoff(0, true);
+            default:
+                throw new IllegalArgumentException("Unknown turn handoff: " + strategy);
+        }
+    }
+
+    /**
+     * Create the thread a player runs on; it is passed to start().
+     *
+     * @param player the player's main loop
+     * @param name the name of the thread
+     * @return an unstarted thread
+     */
+    public Thread newThread(Runnable player, String name) {
+        return new Thread(player, name);
+    }
+
+    /**
+     * Start the player thread, blocking until the player first pauses or
+     * finishes. Called from the engine thread.
+     *
+     * @param playerThread a thread from newThread()
+     */
+    public abstract void start(Thread playerThread) throws InterruptedException;
+
+    /**
+     * Let the player run, blocking until it pauses or finishes.
+     * Called from the engine thread.
+     */
+    public abstract void runPlayer() throws InterruptedException;
+
+    /**
+     * Hand control back to the engine, blocking until the next runPlayer().
+     * Called from the player thread.
+     */
+    public abstract void pausePlayer() throws InterruptedException;
+
+    /**
+     * Hand control back to the engine for good.
+     * Called from the player thread as it exits.
+     */
+    public abstract void finishPlayer();
+
+    /**
+     * The classic handoff: both threads wait on this object.
+     */
+    private static class MonitorHandoff extends TurnHandoff {
+        private boolean playerTurn;
+
+        @Override
+        public synchronized void start(Thread playerThread) throws InterruptedException {
+            playerTurn = true;
+            playerThread.start();
+            while (playerTurn) wait();
+        }
+
+        @Override
+        public synchronized void runPlayer() throws InterruptedException {
+            playerTurn = true;
+            notifyAll();
+            while (playerTurn) wait();
+        }
+
+        @Override
+        public synchronized void pausePlayer() throws InterruptedException {
+            playerTurn = false;
+            notifyAll();
+            while (!playerTurn) wait();
+        }
+
+        @Override
+        public synchronized void finishPlayer() {
+            playerTurn = false;
+            notifyAll();
+        }
+    }
+
+    /**
+     * Hands off by flipping a volatile flag and unparking the other thread,
+     * which skips the monitor entirely. With a spin limit, the waiting
+     * thread checks the flag that many times before parking, which pays off
+     * when turns are shorter than a park / unpark round trip.
+     */
+    private static class ParkHandoff extends TurnHandoff {
+        private final int spinLimit;
+        private final boolean virtualThreads;
+
+        private volatile boolean playerTurn;
+        // written before each handoff to the other thread, so the volatile
+        // flag publishes them
+        private Thread engineThread;
+        private Thread playerThread;
+
+        ParkHandoff(int spinLimit, boolean virtualThreads) {
+            this.spinLimit = spinLimit;
+            this.virtualThreads = virtualThreads;
+        }
+
+        @Override
+        public Thread newThread(Runnable player, String name) {
+            if (virtualThreads) {
+                Thread thread = VirtualThreads.newThread(player, name);
+                if (thread != null) {
+                    return thread;
+                }
+            }
+            return super.newThread(player, name);
+        }
+
+        @Override
+        public void start(Thread playerThread) throws InterruptedException {
+            this.playerThread = playerThread;
+            this.engineThread = Thread.currentThread();
+            playerTurn = true;
+            playerThread.start();
+            awaitTurn(false);
+        }
+
+        @Override
+        public void runPlayer() throws InterruptedException {
+            engineThread = Thread.currentThread();
+            playerTurn = true;
+            LockSupport.unpark(playerThread);
+            awaitTurn(false);
+        }
+
+        @Override
+        public void pausePlayer() throws InterruptedException {
+            playerTurn = false;
+            LockSupport.unpark(engineThread);
+            awaitTurn(true);
+        }
+
+        @Override
+        public void finishPlayer() {
+            playerTurn = false;
+            LockSupport.unpark(engineThread);
+        }
+
+        private void awaitTurn(boolean player) throws InterruptedException {
+            for (int spins = spinLimit; playerTurn != player; ) {
+                if (spins > 0) {
+                    spins--;
+                } else {
+                    LockSupport.park(this);
+                    if (Thread.interrupted()) {
+                        throw new InterruptedException();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Creates virtual threads through reflection, so that the engine still
+     * builds and runs on JVMs without them.
+     */
+    private static class VirtualThreads {
+        private static final Method ofVirtual;
+        private static final Method name;
+        private static final Method unstarted;
+
+        static {
+            Method ofVirtualMethod = null, nameMethod = null, unstartedMethod = null;
+            try {
+                Class<?> builder = Class.forName("java.lang.Thread$Builder");
+                ofVirtualMethod = Thread.class.getMethod("ofVirtual");
+                nameMethod = builder.getMethod("name", String.class);
+                unstartedMethod = builder.getMethod("unstarted", Runnable.class);
+            } catch (ReflectiveOperationException e) {
+                Server.warn("Virtual threads are not supported by this JVM; " +
+                        "running robot players on platform threads");
+            }
+            ofVirtual = ofVirtualMethod;
+            name = nameMethod;
+            unstarted = unstartedMethod;
+        }
+
+        /**
+         * @return an unstarted virtual thread, or null if they aren't available
+         */
+        static Thread newThread(Runnable player, String threadName) {
+            if (ofVirtual == null) {
+                return null;
+            }
+            try {
+                Object builder = name.invoke(ofVirtual.invoke(null), threadName);
+                return (Thread) unstarted.invoke(builder, player);
+            } catch (ReflectiveOperationException e) {
+                ErrorReporter.report(e, true);
+                return null;
+            }
+        }
+    }
+}
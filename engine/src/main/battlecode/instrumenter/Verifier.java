@@ -55,7 +55,7 @@ public class Verifier {
             if (entry == null) break;
             String name = entry.getName();
 
-            if (name.endsWith(".class")) {
+            if (name.endsWith(".class") && !name.startsWith(InstrumentedArtifact.META_INF)) {
                 String className = name.substring(0, name.length()-6).replace("/",".");
                 if (className.equals(rpName)) continue;
                 loader.loadClass(className);
@@ -67,7 +67,7 @@ public class Verifier {
         Path root = Paths.get(folder);
         Files.walk(root).forEach((path) -> {
             String innerPath = root.relativize(path).toString();
-            if (innerPath.endsWith(".class")) {
+            if (innerPath.endsWith(".class") && !innerPath.startsWith(InstrumentedArtifact.META_INF)) {
                 String className = innerPath.substring(0, innerPath.length() - 6).replace("/", ".");
                 if (className.equals(rpName)) return;
                 try {
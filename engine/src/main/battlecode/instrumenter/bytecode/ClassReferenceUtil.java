@@ -10,7 +10,9 @@ import org.objectweb.asm.signature.SignatureWriter;
 import java.io.BufferedReader;
 import java.io.InputStreamReader;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
 import static battlecode.instrumenter.InstrumentationException.Type.MISSING;
@@ -52,6 +54,17 @@ public class ClassReferenceUtil {
 
     private final TeamClassLoaderFactory factory;
 
+    /**
+     * Memoized results of classReference and methodDescReference, with and
+     * without checkDisallowed. The answers only depend on the team, and the
+     * same few classes and descriptors come up in nearly every instruction.
+     * References that were refused aren't memoized, so they keep throwing.
+     */
+    private final Map<String, String> checkedReferences = new ConcurrentHashMap<>();
+    private final Map<String, String> uncheckedReferences = new ConcurrentHashMap<>();
+    private final Map<String, String> checkedMethodDescs = new ConcurrentHashMap<>();
+    private final Map<String, String> uncheckedMethodDescs = new ConcurrentHashMap<>();
+
     public ClassReferenceUtil(TeamClassLoaderFactory factory) {
         this.factory = factory;
     }
@@ -148,6 +161,16 @@ public class ClassReferenceUtil {
     public String classReference(String className, boolean checkDisallowed) {
         if (className == null) return null;
 
+        Map<String, String> references = checkDisallowed ? checkedReferences : uncheckedReferences;
+        String reference = references.get(className);
+        if (reference == null) {
+            reference = resolveClassReference(className, checkDisallowed);
+            references.put(className, reference);
+        }
+        return reference;
+    }
+
+    private String resolveClassReference(String className, boolean checkDisallowed) {
         if (className.charAt(0) == '[') {
             int arrayIndex = className.lastIndexOf('[');
             if (className.charAt(arrayIndex + 1) == 'L') {
@@ -217,6 +240,16 @@ public class ClassReferenceUtil {
      * @throws InstrumentationException if any of the class references contained the the method descriptor are not allowed.
      */
     public String methodDescReference(String methodDesc, boolean checkDisallowed) {
+        Map<String, String> references = checkDisallowed ? checkedMethodDescs : uncheckedMethodDescs;
+        String reference = references.get(methodDesc);
+        if (reference == null) {
+            reference = resolveMethodDescReference(methodDesc, checkDisallowed);
+            references.put(methodDesc, reference);
+        }
+        return reference;
+    }
+
+    private String resolveMethodDescReference(String methodDesc, boolean checkDisallowed) {
         String ret = "(";
 
         Type[] argTypes = Type.getArgumentTypes(methodDesc);
@@ -21,6 +21,7 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
     private String className;
     private final boolean silenced;
     private final boolean debugMethodsEnabled;
+    private final boolean coalesceBytecodes;
 
     // Used to find other class files, which is occasionally necessary.
     private TeamClassLoaderFactory.Loader loader;
@@ -35,17 +36,21 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
      *  @param cv                  the ClassVisitor that should be used to read the class
      * @param silenced            whether System.out should be silenced for this class
      * @param checkDisallowed     whether to check for disallowed classes and methods
+     * @param coalesceBytecodes   whether to coalesce bytecode counting; the
+     *                            class must be read with expanded frames
      */
     public InstrumentingClassVisitor(final ClassVisitor cv,
                                      final TeamClassLoaderFactory.Loader loader,
                                      boolean silenced,
                                      boolean checkDisallowed,
-                                     boolean debugMethodsEnabled) throws InstrumentationException {
+                                     boolean debugMethodsEnabled,
+                                     boolean coalesceBytecodes) throws InstrumentationException {
         super(Opcodes.ASM5, cv);
         this.loader = loader;
         this.silenced = silenced;
         this.checkDisallowed = checkDisallowed;
         this.debugMethodsEnabled = debugMethodsEnabled;
+        this.coalesceBytecodes = coalesceBytecodes;
     }
 
     /**
@@ -106,7 +111,8 @@ public class InstrumentingClassVisitor extends ClassVisitor implements Opcodes {
                 exceptions,
                 silenced,
                 checkDisallowed,
-                debugMethodsEnabled
+                debugMethodsEnabled,
+                coalesceBytecodes
         );
     }
 
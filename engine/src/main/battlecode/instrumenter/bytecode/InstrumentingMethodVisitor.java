@@ -8,9 +8,12 @@ import org.objectweb.asm.*;
 import org.objectweb.asm.tree.*;
 
 import java.lang.reflect.Method;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
@@ -20,7 +23,10 @@ import static org.objectweb.asm.tree.AbstractInsnNode.*;
  * The class where the bulk of instrumentation happens.
  * Takes in the bytecode for a method and modifies it to do a few things:
  *  - Call RobotMonitor.incrementBytecodes() at the end of every basic block
+ *    (or, when coalescing, add to a local counter that is flushed to
+ *    RobotMonitor only where the robot could notice the difference)
  *  - Overrides class references with our injected / instrumented class references
+ *  - Charges intrinsic JDK methods a cost formula instead (see IntrinsicCostUtil)
  *  - Modifies some particularly finnicky method calls so that they behave correctly
  *    (e.g. Object.hashCode(), Math.random(), Throwable.printStackTrace())
  */
@@ -31,6 +37,15 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private final String className;    // the class to which this method belongs
     private final boolean checkDisallowed;
     private final boolean debugMethodsEnabled;
+    // whether the class was read with expanded frames, so that we may coalesce
+    private final boolean coalesceBytecodes;
+    // whether the class's code is free inside intrinsic methods
+    private final boolean intrinsicClass;
+    // the RobotMonitor methods to count bytecodes with
+    private final String incrementMethod;
+    private final String incrementWithoutInterruptMethod;
+    // the RobotMonitor method to call before returning, if any
+    private String exitMethod;
 
     // used to load other class files
     private final TeamClassLoaderFactory.Loader loader;
@@ -52,6 +67,20 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
     private int bytecodeCtr = 0;
 
+    // Coalescing: instead of calling incrementBytecodes at the end of every
+    // basic block, add the block's cost to a local variable, and only pass
+    // the total on to RobotMonitor before anything that could run other
+    // instrumented code or observe the count (invokes, static initializers),
+    // before returns and before backward jumps, so that loops still pause.
+    // Exceptions leaving the method flush the total through a catch-all
+    // handler. The robot is charged the same amount at each of those points,
+    // so it pauses in the same places as far as anything outside it can tell.
+    private boolean coalescing = false;
+    // the local variable holding the bytecodes not yet passed on
+    private int counterVar;
+    // the position of every label, to spot backward jumps
+    private final Map<LabelNode, Integer> labelPositions = new HashMap<>();
+
     private MethodVisitor methodWriter;
 
     public InstrumentingMethodVisitor(final MethodVisitor mv,
@@ -64,7 +93,8 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                                       final String[] exceptions,
                                       boolean silenced,
                                       boolean checkDisallowed,
-                                      boolean debugMethodsEnabled) {
+                                      boolean debugMethodsEnabled,
+                                      boolean coalesceBytecodes) {
         super(ASM5, access, methodName, methodDesc, signature, exceptions);
         this.methodWriter = mv;
 
@@ -72,6 +102,12 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         this.className = className;
         this.checkDisallowed = checkDisallowed;
         this.debugMethodsEnabled = debugMethodsEnabled;
+        this.coalesceBytecodes = coalesceBytecodes;
+        this.intrinsicClass = !checkDisallowed && className.startsWith("instrumented/")
+                && IntrinsicCostUtil.isIntrinsicClass(className.substring("instrumented/".length()));
+        this.incrementMethod = intrinsicClass ? "incrementIntrinsicBytecodes" : "incrementBytecodes";
+        this.incrementWithoutInterruptMethod = intrinsicClass
+                ? "incrementIntrinsicBytecodesWithoutInterrupt" : "incrementBytecodesWithoutInterrupt";
     }
 
     protected String classReference(String name) {
@@ -98,7 +134,23 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         for (Object o : tryCatchBlocks) {
             visitTryCatchBlockNode((TryCatchBlockNode) o);
         }
-        for (AbstractInsnNode node : instructions.toArray()) {
+        InsnList intrinsicPrologue = null;
+        if (intrinsicClass && !name.startsWith("<")) {
+            intrinsicPrologue = intrinsicPrologue();
+        }
+
+        AbstractInsnNode[] nodes = instructions.toArray();
+        if (coalesceBytecodes && canCoalesce(nodes, maxLocals)) {
+            coalescing = true;
+            counterVar = maxLocals;
+            for (int i = 0; i < nodes.length; i++) {
+                if (nodes[i].getType() == LABEL) {
+                    labelPositions.put((LabelNode) nodes[i], i);
+                }
+            }
+        }
+        for (int i = 0; i < nodes.length; i++) {
+            AbstractInsnNode node = nodes[i];
             // node could be taken out of the list
             // or have stuff inserted after it,
             // so node.getNext() might not be valid
@@ -138,7 +190,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 case LOOKUPSWITCH_INSN:
                 case TABLESWITCH_INSN:
                     bytecodeCtr++;
-                    endOfBasicBlock(node);
+                    endOfBasicBlock(node, jumpsBackward(node, i));
                     break;
                 case INT_INSN:
 		    visitIntInsnNode((IntInsnNode) node);
@@ -153,12 +205,28 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
         boolean anyTryCatch = tryCatchBlocks.size() > 0;
 
+        // comes before the handlers below, so that exceptions they rethrow
+        // leave the method without charging the counter again
+        LabelNode bodyEndLabel = null;
+        if (coalescing) {
+            bodyEndLabel = new LabelNode(new Label());
+            instructions.add(bodyEndLabel);
+        }
+
         if (debugMethodsEnabled && name.startsWith(DEBUG_PREFIX) && desc.endsWith("V")) {
             addDebugHandler();
         }
+        if (intrinsicPrologue != null) {
+            // outside the try, so that the handler only exits once entered
+            instructions.insertBefore(startLabel, intrinsicPrologue);
+            addFinallyHandler(exitMethod);
+        }
         if (anyTryCatch) {
             addRobotDeathHandler();
         }
+        if (coalescing) {
+            addCounterHandler(bodyEndLabel);
+        }
         for (Object o : localVariables) {
             visitLocalVariableNode((LocalVariableNode) o);
         }
@@ -208,21 +276,38 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 )
         );
 
-        // add debug label to the end
-        instructions.add(debugEndLabel);
+        addFinallyHandler(debugEndLabel, "decrementDebugLevel");
+    }
+
+    /**
+     * Wraps the method in a try / catch that calls the given RobotMonitor
+     * method on the way out.
+     *
+     * @param exitMethod the method to call
+     */
+    @SuppressWarnings("unchecked")
+    private void addFinallyHandler(String exitMethod) {
+        final LabelNode endLabel = new LabelNode(new Label());
+        tryCatchBlocks.add(new TryCatchBlockNode(startLabel, endLabel, endLabel, null));
+        addFinallyHandler(endLabel, exitMethod);
+    }
+
+    private void addFinallyHandler(LabelNode endLabel, String exitMethod) {
+        // add the label to the end
+        instructions.add(endLabel);
 
         // create a new stack frame
         instructions.add(new FrameNode(
-                F_FULL, // a full new one
+                coalesceBytecodes ? F_NEW : F_FULL, // a full new one
                 0, new Object[0], // with no local variables
                 1, new Object[]{"java/lang/Throwable"} // but an exception on the stack
         ));
 
-        // call decrementDebugLevel
+        // call the exit method
         instructions.add(new MethodInsnNode(
                 INVOKESTATIC,
                 "battlecode/instrumenter/inject/RobotMonitor",
-                "decrementDebugLevel", "()V",
+                exitMethod, "()V",
                 false
         ));
 
@@ -230,6 +315,84 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         instructions.add(new InsnNode(ATHROW));
     }
 
+    /**
+     * Works out how a method of an intrinsic class is charged, and sets
+     * exitMethod to match.
+     *
+     * @return the code to run on entry, or null for none
+     */
+    private InsnList intrinsicPrologue() {
+        InsnList prologue = new InsnList();
+        IntrinsicCostUtil.IntrinsicData data = IntrinsicCostUtil.getIntrinsicData(
+                className.substring("instrumented/".length()), name, desc);
+
+        if (data != null) {
+            prologue.add(new LdcInsnNode(data.base));
+            prologue.add(new LdcInsnNode(data.perElement));
+            prologue.add(new LdcInsnNode(data.scaling.ordinal()));
+            if (pushIntrinsicSize(prologue, data.size)) {
+                prologue.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "enterIntrinsic", "(IIII)V", false));
+                exitMethod = "exitIntrinsic";
+                return prologue;
+            }
+            ErrorReporter.report("Bad size for intrinsic " + className + "." + name + desc, true);
+            prologue.clear();
+        }
+
+        // public methods without a formula are counted as usual, even when
+        // an intrinsic calls back into one
+        if ((access & (ACC_PUBLIC | ACC_PROTECTED)) != 0) {
+            prologue.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "suspendIntrinsics", "()V", false));
+            exitMethod = "resumeIntrinsics";
+            return prologue;
+        }
+        return null;
+    }
+
+    /**
+     * Adds code pushing the n of an intrinsic's cost formula.
+     *
+     * @return false if the size can't be found for this method
+     */
+    private boolean pushIntrinsicSize(InsnList insns, int size) {
+        boolean isStatic = (access & ACC_STATIC) != 0;
+        if (size == IntrinsicCostUtil.SIZE_NONE) {
+            insns.add(new InsnNode(ICONST_0));
+            return true;
+        }
+        if (size == IntrinsicCostUtil.SIZE_THIS) {
+            if (isStatic)
+                return false;
+            // not virtual, so that player subclasses can't override size()
+            // to make the call cheaper
+            insns.add(new VarInsnNode(ALOAD, 0));
+            insns.add(new MethodInsnNode(INVOKESPECIAL, className, "size", "()I", false));
+            return true;
+        }
+
+        Type[] args = Type.getArgumentTypes(desc);
+        if (size >= args.length)
+            return false;
+        int local = isStatic ? 0 : 1;
+        for (int i = 0; i < size; i++) {
+            local += args[i].getSize();
+        }
+        switch (args[size].getSort()) {
+            case Type.INT:
+            case Type.SHORT:
+            case Type.CHAR:
+            case Type.BYTE:
+                insns.add(new VarInsnNode(ILOAD, local));
+                return true;
+            case Type.ARRAY:
+                insns.add(new VarInsnNode(ALOAD, local));
+                insns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "intrinsicArrayLength", "(Ljava/lang/Object;)I", false));
+                return true;
+            default:
+                return false;
+        }
+    }
+
     @SuppressWarnings("unchecked")	// This is to fix the warning from the add() to tryCatchBlocks
     private void addRobotDeathHandler() {
         LabelNode robotDeathLabel = new LabelNode(new Label());
@@ -242,12 +405,15 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         }
         tryCatchBlocks.add(0, new TryCatchBlockNode(firstTryCatch, robotDeathLabel, robotDeathLabel, "java/lang/VirtualMachineError"));
         instructions.add(robotDeathLabel);
-        instructions.add(new FrameNode(F_FULL, 0, new Object[0], 1, new Object[]{"java/lang/VirtualMachineError"}));
+        instructions.add(new FrameNode(coalesceBytecodes ? F_NEW : F_FULL, 0, new Object[0], 1, new Object[]{"java/lang/VirtualMachineError"}));
         instructions.add(new InsnNode(ATHROW));
     }
 
     private void visitFieldInsnNode(FieldInsnNode n) {
         bytecodeCtr++;
+        if (n.getOpcode() == GETSTATIC || n.getOpcode() == PUTSTATIC) {
+            flushIfInitializes(n, n.owner);
+        }
         n.owner = classReference(n.owner);
         n.desc = classDescReference(n.desc);
     }
@@ -261,7 +427,10 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
             case DRETURN:
             case ARETURN:
             case RETURN:
-                endOfBasicBlock(n);
+                endOfBasicBlock(n, true);
+                if (exitMethod != null) {
+                    instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", exitMethod, "()V", false));
+                }
                 if (name.startsWith("debug_") && desc.endsWith("V")) {
                     instructions.insertBefore(n, new MethodInsnNode(
                             INVOKESTATIC,
@@ -272,7 +441,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 }
                 break;
             case ATHROW:
-                endOfBasicBlock(n);
+                endOfBasicBlock(n, false);
                 break;
             case MONITORENTER:
             case MONITOREXIT:
@@ -293,6 +462,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     }
 
     private void visitInvokeDynamicInsnNode(InvokeDynamicInsnNode n) {
+        flushBytecodes(n);
         // should only be used for creating lambdas in java 8 (not scala)
         n.desc = methodDescReference(n.desc);
         for (int i = 0; i < n.bsmArgs.length; i++) {
@@ -358,7 +528,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         // do various function replacements
         if (n.name.equals("hashCode") && n.desc.equals("()I") && n.getOpcode() != INVOKESTATIC) {
             bytecodeCtr++;
-            endOfBasicBlock(n);
+            endOfBasicBlock(n, true);
             // replace hashCode with deterministic version
             // send the object, its hash code, and the hash code method owner to
             // ObjectMethods for analysis
@@ -371,7 +541,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
         if (n.name.equals("toString") && n.desc.equals("()Ljava/lang/String;") && n.getOpcode() != INVOKESTATIC) {
             bytecodeCtr++;
-            endOfBasicBlock(n);
+            endOfBasicBlock(n, true);
             n.owner = "battlecode/instrumenter/inject/ObjectMethods";
             n.desc = "(Ljava/lang/Object;)Ljava/lang/String;";
             n.itf = false;
@@ -384,6 +554,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
             instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "getRandomSeed", "()J", false));
             n.owner = "instrumented/java/util/Random";
             n.desc = "(J)V";
+            flushBytecodes(n);
             return;
         }
 
@@ -402,6 +573,10 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
         }
 
         boolean endBasicBlock = loader.getFactory().hasTeamClass(n.owner) || classReference(n.owner).startsWith("instrumented") || n.owner.startsWith("battlecode");
+        // whether the call could end up running instrumented code; the
+        // Math functions never call back into player code
+        boolean mayCallBack = !(n.owner.equals("java/lang/Math") || n.owner.equals("java/lang/StrictMath"))
+                || n.name.equals("random");
 
         MethodCostUtil.MethodData data = getMethodData(n.owner, n.name);
         if (data != null) {
@@ -467,12 +642,14 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
                 instructions.insertBefore(n, newInsns);
                 instructions.remove(n);
                 // no function was called so don't end the basic block
-                endBasicBlock = false;
+                return;
             }
         }
 
         if (endBasicBlock)
-            endOfBasicBlock(n);
+            endOfBasicBlock(n, true);
+        else if (mayCallBack)
+            flushBytecodes(n);
 
     }
 
@@ -556,7 +733,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 
         newInsns.add(new InsnNode(DUP));
         newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "calculateMultiArrayCost", "([I)I"));
-        newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "incrementBytecodesWithoutInterrupt", "(I)V"));
+        newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementWithoutInterruptMethod, "(I)V"));
 
         newInsns.add(new LdcInsnNode(n.dims - 1));
         for (int i = 0; i < n.dims; i++) {
@@ -573,18 +750,21 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     }
 
     private void visitLabelNode(LabelNode n) {
-        endOfBasicBlock(n);
+        endOfBasicBlock(n, false);
         if (exceptionHandlers.contains(n))
             bytecodeCtr += GameConstants.EXCEPTION_BYTECODE_PENALTY;
     }
 
     private void visitTypeInsnNode(TypeInsnNode n) {
+        if (n.getOpcode() == NEW) {
+            flushIfInitializes(n, n.desc);
+        }
         n.desc = classReference(n.desc);
 	if (n.getOpcode() == ANEWARRAY) {
 	    InsnList newInsns = new InsnList();
 	    newInsns.add(new InsnNode(DUP));
         newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "sanitizeArrayIndex", "(I)I"));
-	    newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "incrementBytecodesWithoutInterrupt", "(I)V"));
+	    newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementWithoutInterruptMethod, "(I)V"));
 	    instructions.insertBefore(n, newInsns);
 	} else {
 	    bytecodeCtr++;
@@ -594,7 +774,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private void visitVarInsnNode(VarInsnNode n) {
         bytecodeCtr++;
         if (n.getOpcode() == RET)
-            endOfBasicBlock(n);
+            endOfBasicBlock(n, true);
     }
 
     private void visitIntInsnNode(IntInsnNode n) {
@@ -602,7 +782,7 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
 	    InsnList newInsns = new InsnList();
 	    newInsns.add(new InsnNode(DUP));
         newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "sanitizeArrayIndex", "(I)I"));
-	    newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "incrementBytecodesWithoutInterrupt", "(I)V"));
+	    newInsns.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementWithoutInterruptMethod, "(I)V"));
 	    instructions.insertBefore(n, newInsns);
 	} else {
 	    bytecodeCtr++;
@@ -628,14 +808,159 @@ public class InstrumentingMethodVisitor extends MethodNode implements Opcodes {
     private void visitFrameNode(FrameNode n) {
         replaceVars(n.local);
         replaceVars(n.stack);
+        if (coalescing) {
+            n.local = withCounter(n.local);
+        }
     }
 
-    private void endOfBasicBlock(AbstractInsnNode n) {
-        if (bytecodeCtr == 0)
+    /**
+     * Ends a basic block, charging its bytecodes.
+     *
+     * @param n the instruction to charge before
+     * @param flush whether a coalesced counter has to be passed on to
+     *              RobotMonitor here
+     */
+    private void endOfBasicBlock(AbstractInsnNode n, boolean flush) {
+        if (!coalescing) {
+            if (bytecodeCtr == 0)
+                return;
+            instructions.insertBefore(n, new LdcInsnNode(bytecodeCtr));
+            instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementMethod, "(I)V", false));
+            bytecodeCtr = 0;
             return;
-        instructions.insertBefore(n, new LdcInsnNode(bytecodeCtr));
-        instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", "incrementBytecodes", "(I)V", false));
+        }
+
+        if (bytecodeCtr <= Short.MAX_VALUE) {
+            if (bytecodeCtr != 0)
+                instructions.insertBefore(n, new IincInsnNode(counterVar, bytecodeCtr));
+        } else {
+            instructions.insertBefore(n, new VarInsnNode(ILOAD, counterVar));
+            instructions.insertBefore(n, new LdcInsnNode(bytecodeCtr));
+            instructions.insertBefore(n, new InsnNode(IADD));
+            instructions.insertBefore(n, new VarInsnNode(ISTORE, counterVar));
+        }
         bytecodeCtr = 0;
+        if (flush)
+            flushBytecodes(n);
+    }
+
+    /**
+     * Passes the coalesced counter on to RobotMonitor, which may pause the
+     * robot. Leaves the current basic block's bytecodes alone.
+     *
+     * @param n the instruction to flush before
+     */
+    private void flushBytecodes(AbstractInsnNode n) {
+        if (!coalescing)
+            return;
+        // zero the counter before the call, in case the robot dies in it
+        instructions.insertBefore(n, new VarInsnNode(ILOAD, counterVar));
+        instructions.insertBefore(n, new InsnNode(ICONST_0));
+        instructions.insertBefore(n, new VarInsnNode(ISTORE, counterVar));
+        instructions.insertBefore(n, new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementMethod, "(I)V", false));
+    }
+
+    /**
+     * Flushes the coalesced counter before an instruction that may run the
+     * static initializer of an instrumented class.
+     *
+     * @param n the instruction
+     * @param owner the class it may initialize
+     */
+    private void flushIfInitializes(AbstractInsnNode n, String owner) {
+        if (!coalescing)
+            return;
+        // the class we're in is already initialized, or being initialized
+        String reference = classReference(owner);
+        if (!reference.equals(className) && (reference.startsWith("instrumented")
+                || loader.getFactory().hasTeamClass(owner))) {
+            flushBytecodes(n);
+        }
+    }
+
+    /**
+     * @return whether the jump or switch at position i can go backward, and so
+     *         may close a loop
+     */
+    @SuppressWarnings("unchecked")	// the switch labels are List<LabelNode>, but ASM gives them raw
+    private boolean jumpsBackward(AbstractInsnNode n, int i) {
+        if (!coalescing)
+            return false;
+        List<LabelNode> targets = new ArrayList<>();
+        if (n instanceof JumpInsnNode) {
+            targets.add(((JumpInsnNode) n).label);
+        } else if (n instanceof TableSwitchInsnNode) {
+            targets.add(((TableSwitchInsnNode) n).dflt);
+            targets.addAll(((TableSwitchInsnNode) n).labels);
+        } else {
+            targets.add(((LookupSwitchInsnNode) n).dflt);
+            targets.addAll(((LookupSwitchInsnNode) n).labels);
+        }
+        for (LabelNode target : targets) {
+            if (labelPositions.get(target) < i)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Whether we can coalesce this method's bytecode counts. We don't for
+     * constructors, where the catch-all handler could cover the code before
+     * super() is called; for subroutines; for intrinsic classes, whose
+     * handlers would need ordering with the counter's; or if there's no room
+     * for a local.
+     */
+    private boolean canCoalesce(AbstractInsnNode[] nodes, int maxLocals) {
+        if (name.equals("<init>") || intrinsicClass || maxLocals >= 0xFFFF)
+            return false;
+        for (AbstractInsnNode node : nodes) {
+            if (node.getOpcode() == JSR || node.getOpcode() == RET)
+                return false;
+            if (node.getType() == FRAME && ((FrameNode) node).type != F_NEW)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return a frame's locals, with the counter added after them
+     */
+    private List<Object> withCounter(List<Object> locals) {
+        List<Object> result = new ArrayList<>(locals == null ? 0 : locals.size() + 1);
+        int slots = 0;
+        if (locals != null) {
+            for (Object local : locals) {
+                result.add(local);
+                slots += (local == LONG || local == DOUBLE) ? 2 : 1;
+            }
+        }
+        for (; slots < counterVar; slots++) {
+            result.add(TOP);
+        }
+        result.add(INTEGER);
+        return result;
+    }
+
+    /**
+     * Starts the counter at zero, and flushes it when an exception leaves
+     * the method.
+     */
+    @SuppressWarnings("unchecked")
+    private void addCounterHandler(LabelNode bodyEndLabel) {
+        InsnList init = new InsnList();
+        init.add(new InsnNode(ICONST_0));
+        init.add(new VarInsnNode(ISTORE, counterVar));
+        instructions.insert(init);
+
+        LabelNode handlerLabel = new LabelNode(new Label());
+        // last, so that it only catches what nothing else in the method does
+        tryCatchBlocks.add(new TryCatchBlockNode(startLabel, bodyEndLabel, handlerLabel, null));
+        instructions.add(handlerLabel);
+        instructions.add(new FrameNode(F_NEW, counterVar + 1, withCounter(null).toArray(),
+                1, new Object[]{"java/lang/Throwable"}));
+        instructions.add(new VarInsnNode(ILOAD, counterVar));
+        instructions.add(new MethodInsnNode(INVOKESTATIC, "battlecode/instrumenter/inject/RobotMonitor", incrementMethod, "(I)V", false));
+        instructions.add(new InsnNode(ATHROW));
     }
 
     /**
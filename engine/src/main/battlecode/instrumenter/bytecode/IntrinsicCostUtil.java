@@ -0,0 +1,150 @@
+package battlecode.instrumenter.bytecode;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringTokenizer;
+
+/**
+ * IntrinsicCostUtil is a singleton used for looking up the costs of
+ * intrinsic JDK methods.
+ *
+ * An intrinsic method runs without bytecode counting, and is instead charged
+ * a fixed formula when it is entered:
+ *
+ *     base + perElement * f(n)
+ *
+ * where f is one of const (0), n, logn or nlogn (logn being the number of
+ * bits in n), and n is the size of the collection it is called on, the
+ * length of an array argument, or the value of an int argument. The formula
+ * is charged on every entry, so methods that just delegate to another
+ * intrinsic cost 0.
+ *
+ * Everything run inside an intrinsic method by an intrinsic class (the
+ * owners of the methods in the table, their nested classes, and the helper
+ * classes listed on their own) is free. Anything else it calls, such as
+ * player equals(), hashCode() or compareTo() methods, is counted as usual.
+ * Public methods of intrinsic classes that aren't in the table are counted
+ * as usual too, even when called from an intrinsic.
+ *
+ * The table is loaded from IntrinsicCosts.txt, one method per line:
+ *
+ *     owner/name(desc)  base  perElement  scaling  size
+ *
+ * where size is "-", "this" (for the owner's own size(), whatever subclasses
+ * override it with), or the index of an argument.
+ *
+ * It is never used to load player classes.
+ */
+public class IntrinsicCostUtil {
+
+    private IntrinsicCostUtil() {
+    }
+
+    /**
+     * The file to load intrinsic costs from.
+     */
+    private final static String RESOURCE_FILE = "resources/IntrinsicCosts.txt";
+
+    /**
+     * The values of IntrinsicData.size that don't refer to an argument.
+     */
+    public final static int SIZE_NONE = -2;
+    public final static int SIZE_THIS = -1;
+
+    /**
+     * The scalings a cost formula can have, in the order RobotMonitor
+     * numbers them.
+     */
+    public enum Scaling {
+        CONST, N, LOGN, NLOGN
+    }
+
+    /**
+     * This is a map from methods (in the format 'ClassName/methodNameDesc'), to their costs.
+     */
+    private final static Map<String, IntrinsicData> intrinsicCosts;
+
+    /**
+     * The classes whose code runs for free inside intrinsic methods.
+     */
+    private final static Set<String> intrinsicClasses;
+
+    /**
+     * A struct that stores the cost formula of an intrinsic method.
+     */
+    public static class IntrinsicData {
+        public final int base;
+        public final int perElement;
+        public final Scaling scaling;
+        public final int size;
+
+        public IntrinsicData(int base, int perElement, Scaling scaling, int size) {
+            this.base = base;
+            this.perElement = perElement;
+            this.scaling = scaling;
+            this.size = size;
+        }
+    }
+
+    static {
+        BufferedReader reader;
+        String line;
+
+        intrinsicCosts = new HashMap<>();
+        intrinsicClasses = new HashSet<>();
+        try {
+            reader = new BufferedReader(new InputStreamReader(
+                    IntrinsicCostUtil.class.getResourceAsStream(RESOURCE_FILE)
+            ));
+            while ((line = reader.readLine()) != null) {
+                StringTokenizer st = new StringTokenizer(line);
+                if (st.countTokens() == 1) {
+                    intrinsicClasses.add(st.nextToken());
+                    continue;
+                }
+                if (st.countTokens() != 5)
+                    ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
+
+                String method = st.nextToken();
+                int base = Integer.parseInt(st.nextToken());
+                int perElement = Integer.parseInt(st.nextToken());
+                Scaling scaling = Scaling.valueOf(st.nextToken().toUpperCase());
+                String size = st.nextToken();
+                intrinsicCosts.put(method, new IntrinsicData(base, perElement, scaling,
+                        size.equals("-") ? SIZE_NONE : size.equals("this") ? SIZE_THIS : Integer.parseInt(size)));
+
+                String owner = method.substring(0, method.lastIndexOf('/', method.indexOf('(')));
+                int nested = owner.indexOf('$');
+                intrinsicClasses.add(nested == -1 ? owner : owner.substring(0, nested));
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
+        }
+    }
+
+    /**
+     * Returns whether the given class's code runs for free inside intrinsic methods.
+     *
+     * @param className the binary name of the class, without the instrumented/ prefix
+     */
+    public static boolean isIntrinsicClass(String className) {
+        int nested = className.indexOf('$');
+        return intrinsicClasses.contains(nested == -1 ? className : className.substring(0, nested));
+    }
+
+    /**
+     * Returns the IntrinsicData of the given method, or null if it isn't intrinsic.
+     *
+     * @param className  the binary name of the class, without the instrumented/ prefix
+     * @param methodName the name of the method
+     * @param methodDesc the method's original descriptor
+     */
+    public static IntrinsicData getIntrinsicData(String className, String methodName, String methodDesc) {
+        return intrinsicCosts.get(className + "/" + methodName + methodDesc);
+    }
+}
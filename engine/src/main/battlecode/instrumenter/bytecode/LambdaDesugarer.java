@@ -0,0 +1,529 @@
+package battlecode.instrumenter.bytecode;
+
+import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.TeamClassLoaderFactory;
+import org.objectweb.asm.*;
+import org.objectweb.asm.tree.*;
+
+import java.util.*;
+
+/**
+ * Turns the lambdas and method references in a team class into ordinary
+ * classes, the way retrolambda does, before the class is instrumented.
+ *
+ * Each invokedynamic that would have LambdaMetafactory spin a class at
+ * runtime becomes a call to the static lambdaFactory$ method of a class
+ * generated here, named Host$$Lambda$N, which implements the functional
+ * interface by calling the lambda's body. The generated classes are team
+ * classes like any other, so they're instrumented and cached with the
+ * rest of the team, and their code is charged.
+ *
+ * Lambda bodies (the private lambda$ methods javac writes) are made
+ * package-private so the generated classes can call them; instance ones
+ * are renamed after their class as well, so that a subclass's lambda$
+ * methods don't override them. A method reference the generated class
+ * couldn't call (private methods other than lambda bodies, super::method,
+ * protected methods of another package, arrays) and serializable lambdas
+ * are left to LambdaMetafactory.
+ */
+public class LambdaDesugarer implements Opcodes {
+
+    private static final String METAFACTORY = "java/lang/invoke/LambdaMetafactory";
+
+    // from LambdaMetafactory
+    private static final int FLAG_SERIALIZABLE = 1;
+    private static final int FLAG_MARKERS = 2;
+    private static final int FLAG_BRIDGES = 4;
+
+    private static final String FACTORY = "lambdaFactory$";
+    private static final String INSTANCE = "instance$";
+
+    /**
+     * A desugared class and the lambda classes it needs.
+     */
+    public static class Result {
+        public final byte[] classBytes;
+
+        /**
+         * The generated classes, by internal name.
+         */
+        public final Map<String, byte[]> lambdaClasses;
+
+        private Result(byte[] classBytes, Map<String, byte[]> lambdaClasses) {
+            this.classBytes = classBytes;
+            this.lambdaClasses = lambdaClasses;
+        }
+    }
+
+    private final TeamClassLoaderFactory factory;
+    private final ClassNode host;
+    private final boolean hostIsInterface;
+    private final Map<String, MethodNode> hostMethods = new HashMap<>();
+    private final Map<String, byte[]> lambdaClasses = new LinkedHashMap<>();
+
+    private LambdaDesugarer(TeamClassLoaderFactory factory, ClassNode host) {
+        this.factory = factory;
+        this.host = host;
+        this.hostIsInterface = (host.access & ACC_INTERFACE) != 0;
+        for (Object o : host.methods) {
+            MethodNode method = (MethodNode) o;
+            hostMethods.put(method.name + method.desc, method);
+        }
+    }
+
+    /**
+     * @param reader the class to desugar, uninstrumented
+     * @param factory the team's factory, used to look up the targets of
+     *                method references
+     * @return the desugared class and its lambda classes, or null if the
+     *         class has no lambdas to desugar
+     */
+    public static Result desugar(ClassReader reader, TeamClassLoaderFactory factory) {
+        ClassNode host = new ClassNode();
+        reader.accept(host, 0);
+
+        LambdaDesugarer desugarer = new LambdaDesugarer(factory, host);
+        for (Object o : host.methods) {
+            desugarer.desugarMethod((MethodNode) o);
+        }
+        if (desugarer.lambdaClasses.isEmpty()) {
+            return null;
+        }
+
+        ClassWriter cw = new ClassWriter(0);
+        host.accept(cw);
+        return new Result(cw.toByteArray(), desugarer.lambdaClasses);
+    }
+
+    private void desugarMethod(MethodNode method) {
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (!(insn instanceof InvokeDynamicInsnNode)) {
+                continue;
+            }
+            InvokeDynamicInsnNode indy = (InvokeDynamicInsnNode) insn;
+            if (!indy.bsm.getOwner().equals(METAFACTORY)) {
+                continue;
+            }
+
+            String lambdaClass = desugarSite(indy);
+            if (lambdaClass != null) {
+                method.instructions.set(indy,
+                        new MethodInsnNode(INVOKESTATIC, lambdaClass, FACTORY, indy.desc, false));
+            }
+        }
+    }
+
+    /**
+     * Generate the class for a lambda.
+     *
+     * @return the name of the class, or null if the lambda is left to
+     *         LambdaMetafactory
+     */
+    private String desugarSite(InvokeDynamicInsnNode indy) {
+        Object[] args = indy.bsmArgs;
+        Type samType = (Type) args[0];
+        Handle impl = (Handle) args[1];
+        Type instantiatedType = (Type) args[2];
+
+        List<Type> markers = new ArrayList<>();
+        List<Type> bridges = new ArrayList<>();
+        if (indy.bsm.getName().equals("altMetafactory")) {
+            int flags = (Integer) args[3];
+            if ((flags & FLAG_SERIALIZABLE) != 0) {
+                return null;
+            }
+            int i = 4;
+            if ((flags & FLAG_MARKERS) != 0) {
+                int count = (Integer) args[i++];
+                for (int j = 0; j < count; j++) {
+                    markers.add((Type) args[i++]);
+                }
+            }
+            if ((flags & FLAG_BRIDGES) != 0) {
+                int count = (Integer) args[i++];
+                for (int j = 0; j < count; j++) {
+                    bridges.add((Type) args[i++]);
+                }
+            }
+        } else if (!indy.bsm.getName().equals("metafactory")) {
+            return null;
+        }
+
+        Target target = resolve(impl);
+        if (target == null) {
+            return null;
+        }
+
+        String name = host.name + "$$Lambda$" + lambdaClasses.size();
+        lambdaClasses.put(name, generate(name, indy, samType, instantiatedType, target, markers, bridges));
+        return name;
+    }
+
+    /**
+     * How the generated class calls a lambda's body.
+     */
+    private static class Target {
+        final int tag;
+        final String owner;
+        final String name;
+        final String desc;
+        final boolean ownerIsInterface;
+
+        Target(int tag, String owner, String name, String desc, boolean ownerIsInterface) {
+            this.tag = tag;
+            this.owner = owner;
+            this.name = name;
+            this.desc = desc;
+            this.ownerIsInterface = ownerIsInterface;
+        }
+    }
+
+    /**
+     * @return how to call the method a handle refers to from another class
+     *         in the host's package, making a lambda body accessible if it
+     *         needs to be, or null if it can't be called
+     */
+    private Target resolve(Handle impl) {
+        if (impl.getOwner().charAt(0) == '[') {
+            return null;
+        }
+
+        if (impl.getOwner().equals(host.name)) {
+            MethodNode method = hostMethods.get(impl.getName() + impl.getDesc());
+            if (method == null) {
+                return null;
+            }
+            if ((method.access & ACC_PRIVATE) == 0) {
+                return impl.getTag() == H_INVOKESPECIAL ? null : new Target(
+                        impl.getTag(), host.name, impl.getName(), impl.getDesc(), hostIsInterface);
+            }
+            if (!method.name.startsWith("lambda$")) {
+                return null;
+            }
+
+            // Lambda bodies are only ever used by their lambdas.
+            method.access &= ~ACC_PRIVATE;
+            if (hostIsInterface) {
+                method.access |= ACC_PUBLIC;
+            }
+            if ((method.access & ACC_STATIC) != 0) {
+                return new Target(H_INVOKESTATIC, host.name, method.name, method.desc, hostIsInterface);
+            }
+            if (!method.name.endsWith("$" + host.name.replace('/', '$'))) {
+                method.name = method.name + "$" + host.name.replace('/', '$');
+            }
+            return new Target(hostIsInterface ? H_INVOKEINTERFACE : H_INVOKEVIRTUAL,
+                    host.name, method.name, method.desc, hostIsInterface);
+        }
+
+        if (impl.getTag() == H_INVOKESPECIAL) {
+            return null;
+        }
+
+        ClassNode owner = new ClassNode();
+        try {
+            TeamClassLoaderFactory.teamOrSystemReader(factory, impl.getOwner())
+                    .accept(owner, ClassReader.SKIP_CODE | ClassReader.SKIP_DEBUG | ClassReader.SKIP_FRAMES);
+        } catch (InstrumentationException e) {
+            return null;
+        }
+        MethodNode method = null;
+        for (Object o : owner.methods) {
+            MethodNode m = (MethodNode) o;
+            if (m.name.equals(impl.getName()) && m.desc.equals(impl.getDesc())) {
+                method = m;
+            }
+        }
+        if (method == null) {
+            // inherited; finding out whether we can call it isn't worth it
+            return null;
+        }
+
+        boolean samePackage = packageOf(owner.name).equals(packageOf(host.name));
+        boolean classAccessible = (owner.access & ACC_PUBLIC) != 0 || samePackage;
+        boolean methodAccessible = (method.access & ACC_PUBLIC) != 0
+                || (samePackage && (method.access & ACC_PRIVATE) == 0);
+        if (!classAccessible || !methodAccessible) {
+            return null;
+        }
+        return new Target(impl.getTag(), impl.getOwner(), impl.getName(), impl.getDesc(),
+                (owner.access & ACC_INTERFACE) != 0);
+    }
+
+    private static String packageOf(String className) {
+        int slash = className.lastIndexOf('/');
+        return slash == -1 ? "" : className.substring(0, slash);
+    }
+
+    /**
+     * Write the class for one lambda.
+     */
+    private byte[] generate(String name, InvokeDynamicInsnNode indy, Type samType, Type instantiatedType,
+                            Target target, List<Type> markers, List<Type> bridges) {
+        Type factoryType = Type.getMethodType(indy.desc);
+        Type[] captured = factoryType.getArgumentTypes();
+        String iface = factoryType.getReturnType().getInternalName();
+
+        List<String> interfaces = new ArrayList<>();
+        interfaces.add(iface);
+        for (Type marker : markers) {
+            interfaces.add(marker.getInternalName());
+        }
+
+        ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_MAXS);
+        cw.visit(host.version, ACC_FINAL | ACC_SUPER | ACC_SYNTHETIC, name, null, "java/lang/Object",
+                interfaces.toArray(new String[interfaces.size()]));
+
+        for (int i = 0; i < captured.length; i++) {
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "arg$" + (i + 1), captured[i].getDescriptor(), null, null)
+                    .visitEnd();
+        }
+
+        // constructor
+        MethodVisitor mv = cw.visitMethod(ACC_PRIVATE,
+                "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, captured), null, null);
+        mv.visitCode();
+        mv.visitVarInsn(ALOAD, 0);
+        mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+        int local = 1;
+        for (int i = 0; i < captured.length; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(captured[i].getOpcode(ILOAD), local);
+            mv.visitFieldInsn(PUTFIELD, name, "arg$" + (i + 1), captured[i].getDescriptor());
+            local += captured[i].getSize();
+        }
+        mv.visitInsn(RETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // factory; lambdas that don't capture anything are only created
+        // once, as LambdaMetafactory would
+        String classDesc = "L" + name + ";";
+        if (captured.length == 0) {
+            cw.visitField(ACC_PRIVATE | ACC_STATIC | ACC_FINAL, INSTANCE, classDesc, null, null).visitEnd();
+
+            mv = cw.visitMethod(ACC_STATIC, "<clinit>", "()V", null, null);
+            mv.visitCode();
+            mv.visitTypeInsn(NEW, name);
+            mv.visitInsn(DUP);
+            mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", "()V", false);
+            mv.visitFieldInsn(PUTSTATIC, name, INSTANCE, classDesc);
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+        }
+
+        mv = cw.visitMethod(ACC_STATIC, FACTORY, indy.desc, null, null);
+        mv.visitCode();
+        if (captured.length == 0) {
+            mv.visitFieldInsn(GETSTATIC, name, INSTANCE, classDesc);
+        } else {
+            mv.visitTypeInsn(NEW, name);
+            mv.visitInsn(DUP);
+            local = 0;
+            for (Type type : captured) {
+                mv.visitVarInsn(type.getOpcode(ILOAD), local);
+                local += type.getSize();
+            }
+            mv.visitMethodInsn(INVOKESPECIAL, name, "<init>", Type.getMethodDescriptor(Type.VOID_TYPE, captured), false);
+        }
+        mv.visitInsn(ARETURN);
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+
+        // the interface method, and any bridges to it
+        generateMethod(cw, name, indy.name, samType, instantiatedType, captured, target, 0);
+        for (Type bridge : bridges) {
+            if (!bridge.getDescriptor().equals(samType.getDescriptor())) {
+                generateMethod(cw, name, indy.name, bridge, instantiatedType, captured, target, ACC_BRIDGE);
+            }
+        }
+
+        cw.visitEnd();
+        return cw.toByteArray();
+    }
+
+    /**
+     * Write an implementation of the interface method that passes the
+     * captured values and its arguments on to the lambda's body.
+     */
+    private static void generateMethod(ClassWriter cw, String name, String methodName, Type methodType,
+                                       Type instantiatedType, Type[] captured, Target target, int access) {
+        MethodVisitor mv = cw.visitMethod(ACC_PUBLIC | ACC_SYNTHETIC | access,
+                methodName, methodType.getDescriptor(), null, null);
+        mv.visitCode();
+
+        if (target.tag == H_NEWINVOKESPECIAL) {
+            mv.visitTypeInsn(NEW, target.owner);
+            mv.visitInsn(DUP);
+        }
+
+        // what the body takes, including the receiver if it has one
+        List<Type> implParams = new ArrayList<>();
+        if (target.tag == H_INVOKEVIRTUAL || target.tag == H_INVOKEINTERFACE) {
+            implParams.add(Type.getObjectType(target.owner));
+        }
+        Collections.addAll(implParams, Type.getArgumentTypes(target.desc));
+
+        for (int i = 0; i < captured.length; i++) {
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitFieldInsn(GETFIELD, name, "arg$" + (i + 1), captured[i].getDescriptor());
+            convert(mv, captured[i], implParams.get(i));
+        }
+        Type[] params = methodType.getArgumentTypes();
+        Type[] instantiatedParams = instantiatedType.getArgumentTypes();
+        int local = 1;
+        for (int i = 0; i < params.length; i++) {
+            mv.visitVarInsn(params[i].getOpcode(ILOAD), local);
+            local += params[i].getSize();
+            convert(mv, params[i], instantiatedParams[i]);
+            convert(mv, instantiatedParams[i], implParams.get(captured.length + i));
+        }
+
+        Type implReturn;
+        switch (target.tag) {
+            case H_INVOKESTATIC:
+                mv.visitMethodInsn(INVOKESTATIC, target.owner, target.name, target.desc, target.ownerIsInterface);
+                implReturn = Type.getReturnType(target.desc);
+                break;
+            case H_INVOKEVIRTUAL:
+                mv.visitMethodInsn(INVOKEVIRTUAL, target.owner, target.name, target.desc, false);
+                implReturn = Type.getReturnType(target.desc);
+                break;
+            case H_INVOKEINTERFACE:
+                mv.visitMethodInsn(INVOKEINTERFACE, target.owner, target.name, target.desc, true);
+                implReturn = Type.getReturnType(target.desc);
+                break;
+            case H_NEWINVOKESPECIAL:
+                mv.visitMethodInsn(INVOKESPECIAL, target.owner, "<init>", target.desc, false);
+                implReturn = Type.getObjectType(target.owner);
+                break;
+            default:
+                throw new IllegalStateException("Unexpected method handle: " + target.tag);
+        }
+
+        Type returnType = methodType.getReturnType();
+        if (returnType.getSort() == Type.VOID) {
+            if (implReturn.getSort() != Type.VOID) {
+                mv.visitInsn(implReturn.getSize() == 2 ? POP2 : POP);
+            }
+        } else {
+            convert(mv, implReturn, instantiatedType.getReturnType());
+            convert(mv, instantiatedType.getReturnType(), returnType);
+        }
+        mv.visitInsn(returnType.getOpcode(IRETURN));
+        mv.visitMaxs(0, 0);
+        mv.visitEnd();
+    }
+
+    /**
+     * Convert the value on top of the stack from one type to another, as
+     * LambdaMetafactory would: casting, boxing, unboxing and widening.
+     */
+    private static void convert(MethodVisitor mv, Type from, Type to) {
+        if (from.equals(to) || to.getSort() == Type.VOID) {
+            return;
+        }
+        boolean fromPrimitive = from.getSort() < Type.ARRAY;
+        boolean toPrimitive = to.getSort() < Type.ARRAY;
+
+        if (fromPrimitive && toPrimitive) {
+            widen(mv, from, to);
+        } else if (fromPrimitive) {
+            Type boxed = boxedType(from);
+            mv.visitMethodInsn(INVOKESTATIC, boxed.getInternalName(), "valueOf",
+                    Type.getMethodDescriptor(boxed, from), false);
+            if (!to.equals(boxed) && !to.getInternalName().equals("java/lang/Object")) {
+                mv.visitTypeInsn(CHECKCAST, to.getInternalName());
+            }
+        } else if (toPrimitive) {
+            Type unboxed = unboxedType(from);
+            if (unboxed == null) {
+                // Object, Number and the like; the box has to be of the right type
+                unboxed = to;
+                mv.visitTypeInsn(CHECKCAST, boxedType(to).getInternalName());
+            }
+            mv.visitMethodInsn(INVOKEVIRTUAL, boxedType(unboxed).getInternalName(),
+                    unboxed.getClassName() + "Value", Type.getMethodDescriptor(unboxed), false);
+            widen(mv, unboxed, to);
+        } else if (!to.getInternalName().equals("java/lang/Object")) {
+            mv.visitTypeInsn(CHECKCAST, to.getInternalName());
+        }
+    }
+
+    private static void widen(MethodVisitor mv, Type from, Type to) {
+        int fromSort = from.getSort() < Type.INT ? Type.INT : from.getSort();
+        switch (fromSort * 16 + to.getSort()) {
+            case Type.INT * 16 + Type.LONG:
+                mv.visitInsn(I2L);
+                break;
+            case Type.INT * 16 + Type.FLOAT:
+                mv.visitInsn(I2F);
+                break;
+            case Type.INT * 16 + Type.DOUBLE:
+                mv.visitInsn(I2D);
+                break;
+            case Type.LONG * 16 + Type.FLOAT:
+                mv.visitInsn(L2F);
+                break;
+            case Type.LONG * 16 + Type.DOUBLE:
+                mv.visitInsn(L2D);
+                break;
+            case Type.FLOAT * 16 + Type.DOUBLE:
+                mv.visitInsn(F2D);
+                break;
+            default:
+                // byte, short and char are already ints
+                break;
+        }
+    }
+
+    private static Type boxedType(Type primitive) {
+        switch (primitive.getSort()) {
+            case Type.BOOLEAN:
+                return Type.getObjectType("java/lang/Boolean");
+            case Type.BYTE:
+                return Type.getObjectType("java/lang/Byte");
+            case Type.CHAR:
+                return Type.getObjectType("java/lang/Character");
+            case Type.SHORT:
+                return Type.getObjectType("java/lang/Short");
+            case Type.INT:
+                return Type.getObjectType("java/lang/Integer");
+            case Type.LONG:
+                return Type.getObjectType("java/lang/Long");
+            case Type.FLOAT:
+                return Type.getObjectType("java/lang/Float");
+            case Type.DOUBLE:
+                return Type.getObjectType("java/lang/Double");
+            default:
+                throw new IllegalArgumentException("Not a primitive type: " + primitive);
+        }
+    }
+
+    /**
+     * @return the primitive type a box holds, or null if it isn't a box
+     */
+    private static Type unboxedType(Type boxed) {
+        switch (boxed.getInternalName()) {
+            case "java/lang/Boolean":
+                return Type.BOOLEAN_TYPE;
+            case "java/lang/Byte":
+                return Type.BYTE_TYPE;
+            case "java/lang/Character":
+                return Type.CHAR_TYPE;
+            case "java/lang/Short":
+                return Type.SHORT_TYPE;
+            case "java/lang/Integer":
+                return Type.INT_TYPE;
+            case "java/lang/Long":
+                return Type.LONG_TYPE;
+            case "java/lang/Float":
+                return Type.FLOAT_TYPE;
+            case "java/lang/Double":
+                return Type.DOUBLE_TYPE;
+            default:
+                return null;
+        }
+    }
+}
@@ -9,6 +9,7 @@ import java.io.InputStreamReader;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 import static org.objectweb.asm.ClassReader.SKIP_DEBUG;
 
@@ -36,9 +37,20 @@ public class MethodCostUtil {
 
     /**
      * This is a map from binary class names, to all the classes/interfaces that the class transitively implements/extends.
+     * Classes may be instrumented on several threads at once, so this is concurrent.
      */
     private final static Map<String, String[]> interfacesMap;
 
+    /**
+     * Memoized results of getMethodData, by class name and then method name.
+     */
+    private final static Map<String, Map<String, MethodData>> lookups;
+
+    /**
+     * Stands in for null in lookups.
+     */
+    private final static MethodData NO_DATA = new MethodData(0, false);
+
     /**
      * A struct that stores data about a method -- what its lookup bytecode cost is, and whether it should end the basic block or not.
      */
@@ -72,7 +84,8 @@ public class MethodCostUtil {
             ClassReferenceUtil.fileLoadError(RESOURCE_FILE);
         }
 
-        interfacesMap = new HashMap<>();
+        interfacesMap = new ConcurrentHashMap<>();
+        lookups = new ConcurrentHashMap<>();
     }
 
     /**
@@ -84,6 +97,23 @@ public class MethodCostUtil {
     public static MethodData getMethodData(String className, String methodName) {
         if (className.charAt(0) == '[')
             return null;
+
+        Map<String, MethodData> classLookups = lookups.get(className);
+        if (classLookups == null) {
+            classLookups = new ConcurrentHashMap<>();
+            Map<String, MethodData> existing = lookups.putIfAbsent(className, classLookups);
+            if (existing != null)
+                classLookups = existing;
+        }
+        MethodData data = classLookups.get(methodName);
+        if (data == null) {
+            data = lookupMethodData(className, methodName);
+            classLookups.put(methodName, data == null ? NO_DATA : data);
+        }
+        return data == NO_DATA ? null : data;
+    }
+
+    private static MethodData lookupMethodData(String className, String methodName) {
         String key = className + "/" + methodName;
 
         if (methodCosts.containsKey(key))
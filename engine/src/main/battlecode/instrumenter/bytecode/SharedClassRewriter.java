@@ -0,0 +1,256 @@
+package battlecode.instrumenter.bytecode;
+
+import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.SharedStatics;
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+import org.objectweb.asm.tree.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static battlecode.instrumenter.InstrumentationException.Type.ILLEGAL;
+import static org.objectweb.asm.ClassWriter.COMPUTE_MAXS;
+
+/**
+ * Rewrites instrumented classes for a team that shares its instrumented
+ * library classes between robots (see SharedStatics).
+ *
+ * In every class, uses of per-robot static fields of shared classes become
+ * calls to SharedDispatch. In the shared classes themselves, calls to the
+ * per-robot RobotMonitor, ObjectMethods and System go through SharedDispatch
+ * as well, and the static initializer is split into a shared part and a
+ * per-robot part.
+ *
+ * This runs after InstrumentingClassVisitor, so the instructions it adds
+ * aren't charged.
+ */
+public class SharedClassRewriter implements Opcodes {
+
+    private static final String DISPATCH = "battlecode/instrumenter/inject/SharedDispatch";
+
+    private SharedClassRewriter() {
+    }
+
+    /**
+     * @param classBytes the instrumented class
+     * @param statics the team's SharedStatics
+     * @param shared whether the class is one of the shared classes
+     * @return the rewritten class
+     */
+    @SuppressWarnings("unchecked")	// ASM's lists are raw; this is for the add() to cn.methods
+    public static byte[] rewrite(byte[] classBytes, SharedStatics statics, boolean shared) {
+        ClassNode cn = new ClassNode();
+        new ClassReader(classBytes).accept(cn, 0);
+
+        MethodNode clinit = null;
+        for (Object o : cn.methods) {
+            MethodNode method = (MethodNode) o;
+            if (method.name.equals("<clinit>")) {
+                clinit = method;
+            }
+        }
+
+        MethodNode robotInit = null;
+        if (shared && clinit != null) {
+            if (statics.needsRobotInit(cn.name)) {
+                robotInit = copy(clinit, SharedStatics.ROBOT_INIT);
+                dropStaticPuts(robotInit, cn.name, statics, false);
+            }
+            dropStaticPuts(clinit, cn.name, statics, true);
+        }
+
+        for (Object o : cn.methods) {
+            MethodNode method = (MethodNode) o;
+            rewriteMethod(method, statics, shared);
+        }
+        if (robotInit != null) {
+            rewriteMethod(robotInit, statics, shared);
+            cn.methods.add(robotInit);
+        }
+        if (shared && clinit != null) {
+            wrapSharedInit(clinit);
+        }
+
+        ClassWriter cw = new ClassWriter(COMPUTE_MAXS);
+        cn.accept(cw);
+        return cw.toByteArray();
+    }
+
+    /**
+     * Copy a static initializer into a new private static method.
+     */
+    @SuppressWarnings("unchecked")	// ASM's lists are raw; this is for the add() to tryCatchBlocks
+    private static MethodNode copy(MethodNode clinit, String name) {
+        MethodNode copy = new MethodNode(ACC_PRIVATE | ACC_STATIC | ACC_SYNTHETIC, name, "()V", null, null);
+
+        Map<LabelNode, LabelNode> labels = new HashMap<>();
+        for (AbstractInsnNode insn : clinit.instructions.toArray()) {
+            if (insn instanceof LabelNode) {
+                labels.put((LabelNode) insn, new LabelNode());
+            }
+        }
+        for (AbstractInsnNode insn : clinit.instructions.toArray()) {
+            copy.instructions.add(insn.clone(labels));
+        }
+        for (Object o : clinit.tryCatchBlocks) {
+            TryCatchBlockNode block = (TryCatchBlockNode) o;
+            copy.tryCatchBlocks.add(new TryCatchBlockNode(
+                    labels.get(block.start), labels.get(block.end), labels.get(block.handler), block.type));
+        }
+        copy.maxLocals = clinit.maxLocals;
+        copy.maxStack = clinit.maxStack;
+        return copy;
+    }
+
+    /**
+     * Replace the static initializer's writes to the class's own per-robot
+     * fields (in the shared initializer) or shared fields (in ROBOT_INIT)
+     * with pops, so each only sets its own half.
+     */
+    private static void dropStaticPuts(MethodNode method, String className,
+                                       SharedStatics statics, boolean perRobot) {
+        for (AbstractInsnNode insn : method.instructions.toArray()) {
+            if (insn.getOpcode() != PUTSTATIC) {
+                continue;
+            }
+            FieldInsnNode field = (FieldInsnNode) insn;
+            if (field.owner.equals(className)
+                    && statics.isPerRobotField(className, field.name) == perRobot) {
+                method.instructions.set(insn, new InsnNode(Type.getType(field.desc).getSize() == 2 ? POP2 : POP));
+            }
+        }
+    }
+
+    private static void rewriteMethod(MethodNode method, SharedStatics statics, boolean shared) {
+        InsnList insns = method.instructions;
+        for (AbstractInsnNode insn : insns.toArray()) {
+            if (insn instanceof FieldInsnNode) {
+                FieldInsnNode field = (FieldInsnNode) insn;
+                if (field.getOpcode() != GETSTATIC && field.getOpcode() != PUTSTATIC) {
+                    continue;
+                }
+
+                SharedStatics.FieldRef ref = statics.resolvePerRobotField(field.owner, field.name);
+                if (ref != null) {
+                    insns.insert(insn, fieldAccess(field, ref));
+                    insns.remove(insn);
+                } else if (shared && statics.isPerRobotClass(field.owner)) {
+                    if (field.getOpcode() == PUTSTATIC) {
+                        throw new InstrumentationException(ILLEGAL,
+                                "Shared classes can't set " + field.owner + "." + field.name);
+                    }
+                    insns.set(insn, new MethodInsnNode(INVOKESTATIC, DISPATCH, field.name, "()" + field.desc, false));
+                }
+            } else if (shared && insn instanceof MethodInsnNode) {
+                MethodInsnNode call = (MethodInsnNode) insn;
+                if (statics.isPerRobotClass(call.owner)) {
+                    call.owner = DISPATCH;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return the instructions replacing a GETSTATIC or PUTSTATIC of a
+     *         per-robot field
+     */
+    private static InsnList fieldAccess(FieldInsnNode field, SharedStatics.FieldRef ref) {
+        InsnList insns = new InsnList();
+        Type type = Type.getType(field.desc);
+        if (field.getOpcode() == GETSTATIC) {
+            insns.add(pushInt(ref.classId));
+            insns.add(pushInt(ref.index));
+            insns.add(new MethodInsnNode(INVOKESTATIC, DISPATCH, "getStatic", "(II)Ljava/lang/Object;", false));
+            unbox(insns, type);
+        } else {
+            box(insns, type);
+            insns.add(pushInt(ref.classId));
+            insns.add(pushInt(ref.index));
+            insns.add(new MethodInsnNode(INVOKESTATIC, DISPATCH, "putStatic", "(Ljava/lang/Object;II)V", false));
+        }
+        return insns;
+    }
+
+    private static void box(InsnList insns, Type type) {
+        String boxed = boxedType(type);
+        if (boxed != null) {
+            insns.add(new MethodInsnNode(INVOKESTATIC, boxed, "valueOf",
+                    "(" + type.getDescriptor() + ")L" + boxed + ";", false));
+        }
+    }
+
+    private static void unbox(InsnList insns, Type type) {
+        String boxed = boxedType(type);
+        if (boxed != null) {
+            insns.add(new TypeInsnNode(CHECKCAST, boxed));
+            insns.add(new MethodInsnNode(INVOKEVIRTUAL, boxed, type.getClassName() + "Value",
+                    "()" + type.getDescriptor(), false));
+        } else if (!type.getInternalName().equals("java/lang/Object")) {
+            insns.add(new TypeInsnNode(CHECKCAST, type.getInternalName()));
+        }
+    }
+
+    private static String boxedType(Type type) {
+        switch (type.getSort()) {
+            case Type.BOOLEAN:
+                return "java/lang/Boolean";
+            case Type.BYTE:
+                return "java/lang/Byte";
+            case Type.CHAR:
+                return "java/lang/Character";
+            case Type.SHORT:
+                return "java/lang/Short";
+            case Type.INT:
+                return "java/lang/Integer";
+            case Type.LONG:
+                return "java/lang/Long";
+            case Type.FLOAT:
+                return "java/lang/Float";
+            case Type.DOUBLE:
+                return "java/lang/Double";
+            default:
+                return null;
+        }
+    }
+
+    private static AbstractInsnNode pushInt(int value) {
+        if (value <= 5) {
+            return new InsnNode(ICONST_0 + value);
+        } else if (value <= Short.MAX_VALUE) {
+            return new IntInsnNode(value <= Byte.MAX_VALUE ? BIPUSH : SIPUSH, value);
+        } else {
+            return new LdcInsnNode(value);
+        }
+    }
+
+    /**
+     * Make the shared static initializer free, by bracketing it with
+     * beginSharedInit and endSharedInit.
+     */
+    @SuppressWarnings("unchecked")	// ASM's lists are raw; this is for the add() to tryCatchBlocks
+    private static void wrapSharedInit(MethodNode clinit) {
+        InsnList insns = clinit.instructions;
+        for (AbstractInsnNode insn : insns.toArray()) {
+            if (insn.getOpcode() == RETURN) {
+                insns.insertBefore(insn, new MethodInsnNode(INVOKESTATIC, DISPATCH, "endSharedInit", "()V", false));
+            }
+        }
+
+        LabelNode start = new LabelNode();
+        LabelNode end = new LabelNode();
+        LabelNode handler = new LabelNode();
+        insns.insert(start);
+        insns.insert(new MethodInsnNode(INVOKESTATIC, DISPATCH, "beginSharedInit", "()V", false));
+        insns.add(end);
+        insns.add(handler);
+        insns.add(new FrameNode(F_FULL, 0, new Object[0], 1, new Object[]{"java/lang/Throwable"}));
+        insns.add(new MethodInsnNode(INVOKESTATIC, DISPATCH, "endSharedInit", "()V", false));
+        insns.add(new InsnNode(ATHROW));
+
+        // last, so that the initializer's own handlers come first
+        clinit.tryCatchBlocks.add(new TryCatchBlockNode(start, end, handler, null));
+    }
+}
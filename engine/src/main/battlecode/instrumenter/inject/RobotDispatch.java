@@ -0,0 +1,179 @@
+package battlecode.instrumenter.inject;
+
+import java.io.Console;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channel;
+
+/**
+ * Forwards calls from shared instrumented classes to this robot's
+ * RobotMonitor, ObjectMethods and System; see SharedDispatch.
+ *
+ * Reloaded individually for every robot.
+ */
+@SuppressWarnings("unused")
+public final class RobotDispatch implements SharedDispatch.Robot {
+
+    public RobotDispatch() {
+    }
+
+    @Override
+    public void incrementBytecodes(int numBytecodes) {
+        RobotMonitor.incrementBytecodes(numBytecodes);
+    }
+
+    @Override
+    public void incrementBytecodesWithoutInterrupt(int numBytecodes) {
+        RobotMonitor.incrementBytecodesWithoutInterrupt(numBytecodes);
+    }
+
+    @Override
+    public int sanitizeArrayIndex(int index) {
+        return RobotMonitor.sanitizeArrayIndex(index);
+    }
+
+    @Override
+    public int calculateMultiArrayCost(int[] dims) {
+        return RobotMonitor.calculateMultiArrayCost(dims);
+    }
+
+    @Override
+    public void incrementDebugLevel() {
+        RobotMonitor.incrementDebugLevel();
+    }
+
+    @Override
+    public void decrementDebugLevel() {
+        RobotMonitor.decrementDebugLevel();
+    }
+
+    @Override
+    public void enterIntrinsic(int base, int perElement, int scaling, int n) {
+        RobotMonitor.enterIntrinsic(base, perElement, scaling, n);
+    }
+
+    @Override
+    public int intrinsicArrayLength(Object array) {
+        return RobotMonitor.intrinsicArrayLength(array);
+    }
+
+    @Override
+    public void exitIntrinsic() {
+        RobotMonitor.exitIntrinsic();
+    }
+
+    @Override
+    public void suspendIntrinsics() {
+        RobotMonitor.suspendIntrinsics();
+    }
+
+    @Override
+    public void resumeIntrinsics() {
+        RobotMonitor.resumeIntrinsics();
+    }
+
+    @Override
+    public void incrementIntrinsicBytecodes(int numBytecodes) {
+        RobotMonitor.incrementIntrinsicBytecodes(numBytecodes);
+    }
+
+    @Override
+    public void incrementIntrinsicBytecodesWithoutInterrupt(int numBytecodes) {
+        RobotMonitor.incrementIntrinsicBytecodesWithoutInterrupt(numBytecodes);
+    }
+
+    @Override
+    public long getRandomSeed() {
+        return RobotMonitor.getRandomSeed();
+    }
+
+    @Override
+    public int hashCode(Object o) throws NoSuchMethodException {
+        return ObjectMethods.hashCode(o);
+    }
+
+    @Override
+    public String toString(Object o) throws NoSuchMethodException {
+        return ObjectMethods.toString(o);
+    }
+
+    @Override
+    public int identityHashCode(Object o) {
+        return ObjectMethods.identityHashCode(o);
+    }
+
+    @Override
+    public PrintStream out() {
+        return System.out;
+    }
+
+    @Override
+    public PrintStream err() {
+        return System.err;
+    }
+
+    @Override
+    public InputStream in() {
+        return System.in;
+    }
+
+    @Override
+    public void setIn(InputStream newIn) {
+        System.setIn(newIn);
+    }
+
+    @Override
+    public void setOut(PrintStream newOut) {
+        System.setOut(newOut);
+    }
+
+    @Override
+    public void setErr(PrintStream newErr) {
+        System.setErr(newErr);
+    }
+
+    @Override
+    public Console console() {
+        return System.console();
+    }
+
+    @Override
+    public Channel inheritedChannel() {
+        return System.inheritedChannel();
+    }
+
+    @Override
+    public String lineSeparator() {
+        return System.lineSeparator();
+    }
+
+    @Override
+    public void arraycopy(Object src, int srcPos, Object dest, int destPos, int length) {
+        System.arraycopy(src, srcPos, dest, destPos, length);
+    }
+
+    @Override
+    public String getProperty(String key) {
+        return System.getProperty(key);
+    }
+
+    @Override
+    public String getProperty(String key, String def) {
+        return System.getProperty(key, def);
+    }
+
+    @Override
+    public String setProperty(String key, String value) {
+        return System.setProperty(key, value);
+    }
+
+    @Override
+    public String clearProperty(String key) {
+        return System.clearProperty(key);
+    }
+
+    @Override
+    public void exit(int status) {
+        System.exit(status);
+    }
+}
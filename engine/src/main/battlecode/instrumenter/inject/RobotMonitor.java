@@ -4,6 +4,8 @@ import battlecode.instrumenter.SandboxedRobotPlayer;
 import battlecode.server.ErrorReporter;
 
 import java.io.PrintStream;
+import java.lang.reflect.Array;
+import java.util.Arrays;
 
 /**
  * The class used to count bytecodes and debug levels at player runtime; calls to its methods are injected
@@ -26,6 +28,12 @@ public final class RobotMonitor {
     private static boolean shouldDie;
     private static int debugLevel;
 
+    // how many intrinsic methods we're inside; see IntrinsicCostUtil
+    private static int intrinsicLevel;
+    // the intrinsic levels set aside by public methods of intrinsic classes
+    private static int[] suspendedLevels;
+    private static int numSuspended;
+
     private static SandboxedRobotPlayer.Pauser pauser;
     private static SandboxedRobotPlayer.Killer killer;
 
@@ -46,6 +54,9 @@ public final class RobotMonitor {
         shouldDie = false;
         bytecodesLeft = 0;
         debugLevel = 0;
+        intrinsicLevel = 0;
+        suspendedLevels = new int[8];
+        numSuspended = 0;
 
         randomSeed = seed;
         pauser = thePauser;
@@ -214,6 +225,118 @@ public final class RobotMonitor {
     }
 
 
+    /**
+     * Called when entering an intrinsic method, to charge its cost formula.
+     * The code of intrinsic classes is free until the method exits.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param base the cost of any call
+     * @param perElement the cost per unit of the scaling
+     * @param scaling how the cost grows with n: 0 for not at all, 1 for n,
+     *                2 for log n, 3 for n log n
+     * @param n the size the cost depends on
+     */
+    @SuppressWarnings("unused")
+    public static void enterIntrinsic(int base, int perElement, int scaling, int n) {
+        n = Math.max(0, n);
+        int log = 32 - Integer.numberOfLeadingZeros(n);
+        long units;
+        switch (scaling) {
+            case 1:
+                units = n;
+                break;
+            case 2:
+                units = log;
+                break;
+            case 3:
+                units = (long) n * log;
+                break;
+            default:
+                units = 0;
+        }
+        incrementBytecodesWithoutInterrupt((int) Math.min(Integer.MAX_VALUE, base + perElement * units));
+        intrinsicLevel++;
+    }
+
+    /**
+     * Measures an array argument of an intrinsic method, for its cost formula.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param array the array, which may be null
+     * @return its length, or 0 if it is null
+     */
+    @SuppressWarnings("unused")
+    public static int intrinsicArrayLength(Object array) {
+        return array == null ? 0 : Array.getLength(array);
+    }
+
+    /**
+     * Called when exiting an intrinsic method.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void exitIntrinsic() {
+        intrinsicLevel--;
+    }
+
+    /**
+     * Called when entering a public method of an intrinsic class that has
+     * no cost formula, so that it's counted even if an intrinsic calls it.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void suspendIntrinsics() {
+        if (numSuspended == suspendedLevels.length) {
+            suspendedLevels = Arrays.copyOf(suspendedLevels, numSuspended * 2);
+        }
+        suspendedLevels[numSuspended++] = intrinsicLevel;
+        intrinsicLevel = 0;
+    }
+
+    /**
+     * Called when exiting a method that called suspendIntrinsics.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    @SuppressWarnings("unused")
+    public static void resumeIntrinsics() {
+        intrinsicLevel = suspendedLevels[--numSuspended];
+    }
+
+    /**
+     * Used instead of incrementBytecodes in the code of intrinsic classes,
+     * which is free inside intrinsic methods.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param numBytecodes the number of bytecodes the robot just executed
+     */
+    @SuppressWarnings("unused")
+    public static void incrementIntrinsicBytecodes(int numBytecodes) {
+        if (intrinsicLevel == 0) {
+            incrementBytecodes(numBytecodes);
+        }
+    }
+
+    /**
+     * Used instead of incrementBytecodesWithoutInterrupt in the code of
+     * intrinsic classes, which is free inside intrinsic methods.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param numBytecodes the number of bytecodes the robot just executed
+     */
+    @SuppressWarnings("unused")
+    public static void incrementIntrinsicBytecodesWithoutInterrupt(int numBytecodes) {
+        if (intrinsicLevel == 0) {
+            incrementBytecodesWithoutInterrupt(numBytecodes);
+        }
+    }
+
     /**
      * Used to construct new Random instances.
      *
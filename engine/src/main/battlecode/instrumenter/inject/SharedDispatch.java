@@ -0,0 +1,371 @@
+package battlecode.instrumenter.inject;
+
+import battlecode.instrumenter.SharedStatics;
+
+import java.io.Console;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.nio.channels.Channel;
+
+/**
+ * The entry point of shared instrumented classes into the robot running them.
+ *
+ * Instrumented library classes shared between a team's robots (see
+ * bc.engine.share-classes) are defined once, so they can't link against
+ * the per-robot RobotMonitor, ObjectMethods and System. The instrumenter
+ * points their calls here instead, and this class, which is only ever
+ * loaded once, forwards them to the robot bound to the current thread.
+ *
+ * The static fields of shared classes that could hold per-robot state are
+ * also kept here, in holders for each robot, and are initialized for each
+ * robot the first time it uses them; see SharedStatics.
+ */
+@SuppressWarnings("unused")
+public final class SharedDispatch {
+
+    /**
+     * The per-robot classes a shared class may call into; implemented by
+     * RobotDispatch, which is loaded individually for every robot.
+     */
+    public interface Robot {
+        void incrementBytecodes(int numBytecodes);
+        void incrementBytecodesWithoutInterrupt(int numBytecodes);
+        int sanitizeArrayIndex(int index);
+        int calculateMultiArrayCost(int[] dims);
+        void incrementDebugLevel();
+        void decrementDebugLevel();
+        void enterIntrinsic(int base, int perElement, int scaling, int n);
+        int intrinsicArrayLength(Object array);
+        void exitIntrinsic();
+        void suspendIntrinsics();
+        void resumeIntrinsics();
+        void incrementIntrinsicBytecodes(int numBytecodes);
+        void incrementIntrinsicBytecodesWithoutInterrupt(int numBytecodes);
+        long getRandomSeed();
+
+        int hashCode(Object o) throws NoSuchMethodException;
+        String toString(Object o) throws NoSuchMethodException;
+        int identityHashCode(Object o);
+
+        PrintStream out();
+        PrintStream err();
+        InputStream in();
+        void setIn(InputStream newIn);
+        void setOut(PrintStream newOut);
+        void setErr(PrintStream newErr);
+        Console console();
+        Channel inheritedChannel();
+        String lineSeparator();
+        void arraycopy(Object src, int srcPos, Object dest, int destPos, int length);
+        String getProperty(String key);
+        String getProperty(String key, String def);
+        String setProperty(String key, String value);
+        String clearProperty(String key);
+        void exit(int status);
+    }
+
+    /**
+     * A robot, the thread it runs on, and its share of the static state of
+     * shared classes.
+     */
+    public static final class Binding {
+        private final java.lang.Thread thread;
+        private final Robot robot;
+        private final SharedStatics statics;
+
+        /**
+         * The robot's holders for the static fields of each shared class,
+         * indexed by SharedStatics class id; null until first used.
+         */
+        private Object[][] holders;
+
+        /**
+         * How many shared static initializers are running; while any are,
+         * the robot isn't charged for bytecodes, since it would only be
+         * charged for being the first robot to use the class.
+         */
+        private int sharedInit;
+
+        public Binding(java.lang.Thread thread, Robot robot, SharedStatics statics) {
+            this.thread = thread;
+            this.robot = robot;
+            this.statics = statics;
+            this.holders = new Object[0][];
+        }
+    }
+
+    private static final ThreadLocal<Binding> bindings = new ThreadLocal<>();
+
+    /**
+     * The most recently used binding; robots take whole turns, so this
+     * usually saves looking in the ThreadLocal.
+     */
+    private static Binding last;
+
+    private SharedDispatch() {
+    }
+
+    /**
+     * Bind a robot to the current thread. Called in the robot thread from
+     * SandboxedRobotPlayer.
+     *
+     * @param binding the robot to bind, created for the current thread
+     */
+    public static void bind(Binding binding) {
+        if (binding.thread != java.lang.Thread.currentThread()) {
+            throw new IllegalArgumentException("Binding created for another thread");
+        }
+        bindings.set(binding);
+        last = binding;
+    }
+
+    /**
+     * Unbind whatever robot is bound to the current thread, so that a
+     * reused thread doesn't keep it reachable.
+     */
+    public static void unbind() {
+        Binding binding = bindings.get();
+        bindings.remove();
+        if (last == binding) {
+            last = null;
+        }
+    }
+
+    private static Binding current() {
+        Binding binding = last;
+        if (binding != null && binding.thread == java.lang.Thread.currentThread()) {
+            return binding;
+        }
+        binding = bindings.get();
+        if (binding == null) {
+            throw new IllegalStateException("No robot is bound to thread " + java.lang.Thread.currentThread().getName());
+        }
+        last = binding;
+        return binding;
+    }
+
+    private static Robot robot() {
+        return current().robot;
+    }
+
+    // ****** STATIC FIELDS OF SHARED CLASSES ******
+
+    /**
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param classId the SharedStatics id of the class declaring the field
+     * @param field the index of the field among the class's per-robot fields
+     * @return the current robot's value of the field, boxed if primitive
+     */
+    public static Object getStatic(int classId, int field) {
+        return holder(classId)[field];
+    }
+
+    /**
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     *
+     * @param value the new value of the field, boxed if primitive
+     * @param classId the SharedStatics id of the class declaring the field
+     * @param field the index of the field among the class's per-robot fields
+     */
+    public static void putStatic(Object value, int classId, int field) {
+        holder(classId)[field] = value;
+    }
+
+    private static Object[] holder(int classId) {
+        Binding binding = current();
+        Object[][] holders = binding.holders;
+        if (classId < holders.length && holders[classId] != null) {
+            return holders[classId];
+        }
+
+        if (classId >= holders.length) {
+            Object[][] grown = new Object[Math.max(classId + 1, 2 * holders.length)][];
+            java.lang.System.arraycopy(holders, 0, grown, 0, holders.length);
+            binding.holders = holders = grown;
+        }
+
+        // Store the holder before initializing it, so that the initializer
+        // sees its own fields, as a recursive static initializer would.
+        Object[] holder = binding.statics.newHolder(classId);
+        holders[classId] = holder;
+        binding.statics.initializeForRobot(classId);
+        return holder;
+    }
+
+    /**
+     * Called at the start of the static initializer of a shared class.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    public static void beginSharedInit() {
+        current().sharedInit++;
+    }
+
+    /**
+     * Called whenever the static initializer of a shared class finishes.
+     *
+     * THIS METHOD IS CALLED BY THE INSTRUMENTER.
+     */
+    public static void endSharedInit() {
+        current().sharedInit--;
+    }
+
+    // ****** RobotMonitor ******
+
+    public static void incrementBytecodes(int numBytecodes) {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.incrementBytecodes(numBytecodes);
+        }
+    }
+
+    public static void incrementBytecodesWithoutInterrupt(int numBytecodes) {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.incrementBytecodesWithoutInterrupt(numBytecodes);
+        }
+    }
+
+    public static int sanitizeArrayIndex(int index) {
+        return robot().sanitizeArrayIndex(index);
+    }
+
+    public static int calculateMultiArrayCost(int[] dims) {
+        return robot().calculateMultiArrayCost(dims);
+    }
+
+    public static void incrementDebugLevel() {
+        robot().incrementDebugLevel();
+    }
+
+    public static void decrementDebugLevel() {
+        robot().decrementDebugLevel();
+    }
+
+    public static void enterIntrinsic(int base, int perElement, int scaling, int n) {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.enterIntrinsic(base, perElement, scaling, n);
+        }
+    }
+
+    public static int intrinsicArrayLength(Object array) {
+        return robot().intrinsicArrayLength(array);
+    }
+
+    public static void exitIntrinsic() {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.exitIntrinsic();
+        }
+    }
+
+    public static void suspendIntrinsics() {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.suspendIntrinsics();
+        }
+    }
+
+    public static void resumeIntrinsics() {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.resumeIntrinsics();
+        }
+    }
+
+    public static void incrementIntrinsicBytecodes(int numBytecodes) {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.incrementIntrinsicBytecodes(numBytecodes);
+        }
+    }
+
+    public static void incrementIntrinsicBytecodesWithoutInterrupt(int numBytecodes) {
+        Binding binding = current();
+        if (binding.sharedInit == 0) {
+            binding.robot.incrementIntrinsicBytecodesWithoutInterrupt(numBytecodes);
+        }
+    }
+
+    public static long getRandomSeed() {
+        return robot().getRandomSeed();
+    }
+
+    // ****** ObjectMethods ******
+
+    public static int hashCode(Object o) throws NoSuchMethodException {
+        return robot().hashCode(o);
+    }
+
+    public static String toString(Object o) throws NoSuchMethodException {
+        return robot().toString(o);
+    }
+
+    public static int identityHashCode(Object o) {
+        return robot().identityHashCode(o);
+    }
+
+    // ****** System ******
+
+    public static PrintStream out() {
+        return robot().out();
+    }
+
+    public static PrintStream err() {
+        return robot().err();
+    }
+
+    public static InputStream in() {
+        return robot().in();
+    }
+
+    public static void setIn(InputStream newIn) {
+        robot().setIn(newIn);
+    }
+
+    public static void setOut(PrintStream newOut) {
+        robot().setOut(newOut);
+    }
+
+    public static void setErr(PrintStream newErr) {
+        robot().setErr(newErr);
+    }
+
+    public static Console console() {
+        return robot().console();
+    }
+
+    public static Channel inheritedChannel() {
+        return robot().inheritedChannel();
+    }
+
+    public static String lineSeparator() {
+        return robot().lineSeparator();
+    }
+
+    public static void arraycopy(Object src, int srcPos, Object dest, int destPos, int length) {
+        robot().arraycopy(src, srcPos, dest, destPos, length);
+    }
+
+    public static String getProperty(String key) {
+        return robot().getProperty(key);
+    }
+
+    public static String getProperty(String key, String def) {
+        return robot().getProperty(key, def);
+    }
+
+    public static String setProperty(String key, String value) {
+        return robot().setProperty(key, value);
+    }
+
+    public static String clearProperty(String key) {
+        return robot().clearProperty(key);
+    }
+
+    public static void exit(int status) {
+        robot().exit(status);
+    }
+}
@@ -209,6 +209,17 @@ public final class Round extends Table {
   public int bytecodesUsed(int j) { int o = __offset(64); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
   public int bytecodesUsedLength() { int o = __offset(64); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer bytecodesUsedAsByteBuffer() { return __vector_as_bytebuffer(64, 4); }
+  /**
+   * The full state at the end of this round, if this round has a keyframe.
+   */
+  public Keyframe keyframe() { return keyframe(new Keyframe()); }
+  public Keyframe keyframe(Keyframe obj) { int o = __offset(66); return o != 0 ? obj.__init(__indirect(o + bb_pos), bb) : null; }
+  /**
+   * The moves, tile changes and bytecodes used, if the game was written
+   * with compact rounds; the fields it replaces are left out.
+   */
+  public CompactRound compact() { return compact(new CompactRound()); }
+  public CompactRound compact(CompactRound obj) { int o = __offset(68); return o != 0 ? obj.__init(__indirect(o + bb_pos), bb) : null; }
 
   public static int createRound(FlatBufferBuilder builder,
       int teamIDsOffset,
@@ -241,8 +252,12 @@ public final class Round extends Table {
       int logsOffset,
       int roundID,
       int bytecodeIDsOffset,
-      int bytecodesUsedOffset) {
-    builder.startObject(31);
+      int bytecodesUsedOffset,
+      int keyframeOffset,
+      int compactOffset) {
+    builder.startObject(33);
+    Round.addCompact(builder, compactOffset);
+    Round.addKeyframe(builder, keyframeOffset);
     Round.addBytecodesUsed(builder, bytecodesUsedOffset);
     Round.addBytecodeIDs(builder, bytecodeIDsOffset);
     Round.addRoundID(builder, roundID);
@@ -277,7 +292,7 @@ public final class Round extends Table {
     return Round.endRound(builder);
   }
 
-  public static void startRound(FlatBufferBuilder builder) { builder.startObject(31); }
+  public static void startRound(FlatBufferBuilder builder) { builder.startObject(33); }
   public static void addTeamIDs(FlatBufferBuilder builder, int teamIDsOffset) { builder.addOffset(0, teamIDsOffset, 0); }
   public static int createTeamIDsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startTeamIDsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -343,6 +358,8 @@ public final class Round extends Table {
   public static void addBytecodesUsed(FlatBufferBuilder builder, int bytecodesUsedOffset) { builder.addOffset(30, bytecodesUsedOffset, 0); }
   public static int createBytecodesUsedVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startBytecodesUsedVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addKeyframe(FlatBufferBuilder builder, int keyframeOffset) { builder.addOffset(31, keyframeOffset, 0); }
+  public static void addCompact(FlatBufferBuilder builder, int compactOffset) { builder.addOffset(32, compactOffset, 0); }
   public static int endRound(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
@@ -38,6 +38,30 @@ public class Config {
         defaults.setProperty("bc.server.robot-player-to-system-out", "true");
 
         defaults.setProperty("bc.server.save-file", "match.rms");
+        // Whether the replay is gzipped into the save file as the game runs,
+        // one size-prefixed event at a time, instead of being kept in memory
+        // as one GameWrapper until the game is over (see GameMaker)
+        defaults.setProperty("bc.server.stream-replay", "false");
+        // Every this many rounds, the round also carries the full state of
+        // the match, so viewers can seek without replaying the whole match;
+        // 0 for none
+        defaults.setProperty("bc.server.keyframe-interval", "0");
+        // Whether rounds write their moves, tile changes and bytecodes used
+        // compactly, relative to the rounds before them (see CompactRounds)
+        defaults.setProperty("bc.server.compact-rounds", "false");
+        // How replays are gzipped: the deflate level, how much is deflated
+        // at a time, and how many blocks are deflated at once (0 for one
+        // per processor, up to 4; see ParallelGzipOutputStream)
+        defaults.setProperty("bc.server.gzip-level", "6");
+        defaults.setProperty("bc.server.gzip-block-size", "131072");
+        defaults.setProperty("bc.server.gzip-threads", "0");
+        // How much debugging information replays keep: full (indicators,
+        // bytecodes used and logs), standard (no indicators) or minimal
+        // (none of them); and how many indicator dots and lines each robot
+        // may draw each round, 0 for any number
+        defaults.setProperty("bc.server.replay-detail", "full");
+        defaults.setProperty("bc.server.indicator-dots-per-robot", "0");
+        defaults.setProperty("bc.server.indicator-lines-per-robot", "0");
         defaults.setProperty("bc.server.transcribe-input", "match.rms");
         defaults.setProperty("bc.server.transcribe-output", "transcribed.txt");
         defaults.setProperty("bc.server.debug", "false");
@@ -53,6 +77,36 @@ public class Config {
         defaults.setProperty("bc.engine.silence-c", "false");
         defaults.setProperty("bc.engine.silence-d", "false");
         defaults.setProperty("bc.engine.debug-methods", "false");
+        // How control passes between the engine and robot player threads:
+        // "monitor", "park", "spin" or "virtual" (see TurnHandoff)
+        defaults.setProperty("bc.engine.turn-handoff", "monitor");
+        // How many warm robot sandboxes each team keeps; the pool grows
+        // with the spawn rate between these bounds (see SandboxPool)
+        defaults.setProperty("bc.engine.sandbox-pool-min", "2");
+        defaults.setProperty("bc.engine.sandbox-pool-max", "32");
+        // Whether instrumented code keeps its bytecode count in a local
+        // variable, only telling RobotMonitor at calls, returns and loop
+        // back-edges (see InstrumentingMethodVisitor)
+        defaults.setProperty("bc.engine.coalesce-bytecodes", "false");
+        // Whether a team's robots share one copy of the instrumented library
+        // classes, each keeping only its own static state (see SharedStatics)
+        defaults.setProperty("bc.engine.share-classes", "false");
+        // Whether each team's classes are instrumented before the match
+        // starts, and on how many threads (0 for one per processor)
+        defaults.setProperty("bc.engine.preinstrument", "true");
+        defaults.setProperty("bc.engine.instrument-threads", "0");
+        // Whether to use the classes in submissions instrumented ahead of
+        // time, if they match this engine and are signed with the secret in
+        // the bc.engine.artifact-key file (see InstrumentedArtifact)
+        defaults.setProperty("bc.engine.instrumented-artifacts", "false");
+        defaults.setProperty("bc.engine.artifact-key", "");
+        // Whether to use the JDK classes instrumented when the engine was
+        // built, if they match this JDK (see JdkBundle)
+        defaults.setProperty("bc.engine.jdk-bundle", "true");
+        // Whether team lambdas and method references are turned into
+        // ordinary classes when they're instrumented, instead of being
+        // spun at runtime by each robot (see LambdaDesugarer)
+        defaults.setProperty("bc.engine.desugar-lambdas", "false");
 
         defaults.setProperty("bc.game.team-a", "team000");
         defaults.setProperty("bc.game.team-b", "team000");
@@ -5,7 +5,9 @@ import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
 import battlecode.schema.*;
+import battlecode.util.CompactRounds;
 import battlecode.util.FlatHelpers;
+import battlecode.util.ParallelGzipOutputStream;
 import battlecode.util.TeamMapping;
 import battlecode.world.*;
 import com.google.flatbuffers.FlatBufferBuilder;
@@ -13,18 +15,37 @@ import gnu.trove.list.array.TByteArrayList;
 import gnu.trove.list.array.TFloatArrayList;
 import gnu.trove.list.array.TIntArrayList;
 import gnu.trove.list.array.TCharArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
 import org.apache.commons.io.FileUtils;
-import org.apache.commons.io.IOUtils;
 
 import java.io.*;
 import java.nio.ByteBuffer;
+import java.util.Locale;
 import java.util.function.ToIntFunction;
-import java.util.zip.GZIPOutputStream;
 
 import static battlecode.util.FlatHelpers.*;
 
 /**
  * Writes a game to a flatbuffer, hooray.
+ *
+ * By default the whole game is kept in one flatbuffer, a GameWrapper, and
+ * gzipped when the game is over. Given a replay sink, the game is streamed
+ * instead: each event is finished as its own flatbuffer and gzipped
+ * straight into the sink as it's made, prefixed with its size as a
+ * little-endian int, and the GameWrapper, with the indices of the match
+ * headers and footers but no events, follows the GameFooter the same way.
+ * Either way, replays are gzipped in blocks on several threads.
+ *
+ * Given a keyframe interval, every round whose number is a multiple of it
+ * also carries the full state of the match, so viewers can seek without
+ * replaying every round before it; the GameWrapper lists those rounds.
+ *
+ * With compact rounds, each round's moves, tile changes and bytecodes used
+ * are written as a CompactRound instead (see CompactRounds).
+ *
+ * The replay detail level and indicator limits decide how much of what
+ * robots do for debugging (indicators, bytecodes used and logs) is kept;
+ * the rest is left out, and counted.
  */
 public strictfp class GameMaker {
 
@@ -52,12 +73,42 @@ public strictfp class GameMaker {
     }
     private State state;
 
+    /**
+     * How much debugging information replays keep.
+     */
+    public enum ReplayDetail {
+        /**
+         * Indicator dots and lines, bytecodes used and logs.
+         */
+        FULL,
+        /**
+         * Bytecodes used and logs, but no indicators.
+         */
+        STANDARD,
+        /**
+         * None of them.
+         */
+        MINIMAL
+    }
+
     // this un-separation-of-concerns makes me uncomfortable
 
     /**
      * We write the whole match to this builder, then write it to a file.
+     * When streaming, it only holds one event at a time.
      */
-    private final FlatBufferBuilder fileBuilder;
+    private FlatBufferBuilder fileBuilder;
+
+    /**
+     * The gzipped replay sink events are streamed to, or null if the game
+     * is kept in fileBuilder until it's over.
+     */
+    private final OutputStream replayStream;
+
+    /**
+     * The size prefix of the event being streamed.
+     */
+    private final byte[] sizePrefix = new byte[4];
 
     /**
      * Null until the end of the match.
@@ -87,10 +138,32 @@ public strictfp class GameMaker {
      * We add a table called a GameWrapper to the front of the saved files
      * that lets you quickly navigate to events by index, and tells you the
      * indices of headers and footers.
+     * When streaming, events are written out as they're made, so only
+     * numEvents is kept.
      */
     private TIntArrayList events;
     private TIntArrayList matchHeaders;
     private TIntArrayList matchFooters;
+    private TIntArrayList keyframes;
+    private int numEvents;
+
+    /**
+     * Rounds whose numbers are multiples of this get keyframes; 0 for none.
+     */
+    private int keyframeInterval;
+
+    /**
+     * Whether rounds are written with CompactRounds.
+     */
+    private boolean compactRounds;
+
+    /**
+     * What debugging information to keep, and how many indicator dots and
+     * lines each robot may draw each round (0 for any number).
+     */
+    private ReplayDetail replayDetail = ReplayDetail.FULL;
+    private int indicatorDotsPerRobot;
+    private int indicatorLinesPerRobot;
 
     /**
      * The MatchMaker associated with this GameMaker.
@@ -102,20 +175,41 @@ public strictfp class GameMaker {
      * @param packetSink the NetServer to send packets to
      */
     public GameMaker(final GameInfo gameInfo, final NetServer packetSink){
+        this(gameInfo, packetSink, null);
+    }
+
+    /**
+     * @param gameInfo the mapping of teams to bytes
+     * @param packetSink the NetServer to send packets to
+     * @param replaySink where to stream the replay as it's made, or null to
+     *                   keep the game in memory until toBytes or writeGame
+     */
+    public GameMaker(final GameInfo gameInfo, final NetServer packetSink, final OutputStream replaySink){
         this.state = State.GAME_HEADER;
 
         this.gameInfo = gameInfo;
 
         this.packetSink = packetSink;
-        if (packetSink != null) {
+        if (packetSink != null && replaySink == null) {
             this.packetBuilder = new FlatBufferBuilder();
         }
 
         this.fileBuilder = new FlatBufferBuilder();
 
+        if (replaySink != null) {
+            try {
+                this.replayStream = gzip(replaySink);
+            } catch (IOException e) {
+                throw new RuntimeException("Can't start replay stream", e);
+            }
+        } else {
+            this.replayStream = null;
+        }
+
         this.events = new TIntArrayList();
         this.matchHeaders = new TIntArrayList();
         this.matchFooters = new TIntArrayList();
+        this.keyframes = new TIntArrayList();
 
         this.matchMaker = new MatchMaker();
     }
@@ -147,17 +241,25 @@ public strictfp class GameMaker {
      * @return game as a packed flatbuffer byte array.
      */
     public byte[] toBytes() {
+        if (replayStream != null) {
+            throw new RuntimeException("Streamed games are written to their replay sink");
+        }
         if (finishedGame == null) {
             assertState(State.DONE);
 
             int events = offsetVector(fileBuilder, this.events, GameWrapper::startEventsVector);
             int matchHeaders = offsetVector(fileBuilder, this.matchHeaders, GameWrapper::startMatchHeadersVector);
             int matchFooters = offsetVector(fileBuilder, this.matchFooters, GameWrapper::startMatchFootersVector);
+            int keyframes = this.keyframes.isEmpty() ? 0
+                    : intVector(fileBuilder, this.keyframes, GameWrapper::startKeyframesVector);
 
             GameWrapper.startGameWrapper(fileBuilder);
             GameWrapper.addEvents(fileBuilder, events);
             GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
             GameWrapper.addMatchFooters(fileBuilder, matchFooters);
+            if (keyframes != 0) {
+                GameWrapper.addKeyframes(fileBuilder, keyframes);
+            }
 
             fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
 
@@ -165,8 +267,8 @@ public strictfp class GameMaker {
 
             try {
                 ByteArrayOutputStream result = new ByteArrayOutputStream();
-                GZIPOutputStream zipper = new GZIPOutputStream(result);
-                IOUtils.copy(new ByteArrayInputStream(rawBytes), zipper);
+                OutputStream zipper = gzip(result);
+                zipper.write(rawBytes);
                 zipper.close();
                 zipper.flush();
                 result.flush();
@@ -178,6 +280,19 @@ public strictfp class GameMaker {
         return finishedGame;
     }
 
+    /**
+     * Gzip a replay on several threads, with the bc.server.gzip-* settings.
+     */
+    private static OutputStream gzip(OutputStream out) throws IOException {
+        Config options = Config.getGlobalConfig();
+        int threads = options.getInt("bc.server.gzip-threads");
+        if (threads == 0) {
+            threads = Math.min(4, Runtime.getRuntime().availableProcessors());
+        }
+        return new ParallelGzipOutputStream(out, options.getInt("bc.server.gzip-level"),
+                options.getInt("bc.server.gzip-block-size"), threads);
+    }
+
     /**
      * Write a match out to a file.
      *
@@ -195,15 +310,128 @@ public strictfp class GameMaker {
         }
     }
 
+    /**
+     * @param keyframeInterval write a keyframe with every round whose number
+     *                         is a multiple of this; 0 for none
+     */
+    public void setKeyframeInterval(int keyframeInterval) {
+        this.keyframeInterval = keyframeInterval;
+    }
+
+    /**
+     * @param compactRounds whether to write the matches started from now on
+     *                      with compact rounds
+     */
+    public void setCompactRounds(boolean compactRounds) {
+        this.compactRounds = compactRounds;
+    }
+
+    /**
+     * @param replayDetail what debugging information to keep in the replay
+     */
+    public void setReplayDetail(ReplayDetail replayDetail) {
+        this.replayDetail = replayDetail;
+    }
+
+    /**
+     * @param dotsPerRobot how many indicator dots each robot may draw each
+     *                     round; 0 for any number
+     * @param linesPerRobot how many indicator lines each robot may draw
+     *                      each round; 0 for any number
+     */
+    public void setIndicatorLimits(int dotsPerRobot, int linesPerRobot) {
+        this.indicatorDotsPerRobot = dotsPerRobot;
+        this.indicatorLinesPerRobot = linesPerRobot;
+    }
+
+    /**
+     * @return whether the game is streamed to a replay sink
+     */
+    public boolean isStreaming() {
+        return replayStream != null;
+    }
+
+    /**
+     * Finish a streamed replay: write the GameWrapper, if the game is over,
+     * and close the replay sink. A game that didn't finish is left without
+     * one.
+     */
+    public void closeReplay() {
+        if (replayStream == null) {
+            return;
+        }
+
+        try {
+            if (state == State.DONE) {
+                int events = offsetVector(fileBuilder, new TIntArrayList(), GameWrapper::startEventsVector);
+                int matchHeaders = intVector(fileBuilder, this.matchHeaders, GameWrapper::startMatchHeadersVector);
+                int matchFooters = intVector(fileBuilder, this.matchFooters, GameWrapper::startMatchFootersVector);
+                int keyframes = intVector(fileBuilder, this.keyframes, GameWrapper::startKeyframesVector);
+
+                GameWrapper.startGameWrapper(fileBuilder);
+                GameWrapper.addEvents(fileBuilder, events);
+                GameWrapper.addMatchHeaders(fileBuilder, matchHeaders);
+                GameWrapper.addMatchFooters(fileBuilder, matchFooters);
+                GameWrapper.addKeyframes(fileBuilder, keyframes);
+
+                fileBuilder.finish(GameWrapper.endGameWrapper(fileBuilder));
+                streamFinished();
+            }
+            replayStream.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Can't finish replay stream", e);
+        }
+    }
+
+    /**
+     * Write the finished file builder to the replay stream, prefixed with
+     * its size.
+     */
+    private void streamFinished() throws IOException {
+        ByteBuffer buffer = fileBuilder.dataBuffer();
+        int size = buffer.remaining();
+
+        sizePrefix[0] = (byte) size;
+        sizePrefix[1] = (byte) (size >>> 8);
+        sizePrefix[2] = (byte) (size >>> 16);
+        sizePrefix[3] = (byte) (size >>> 24);
+        replayStream.write(sizePrefix);
+        if (buffer.hasArray()) {
+            replayStream.write(buffer.array(), buffer.arrayOffset() + buffer.position(), size);
+        } else {
+            replayStream.write(fileBuilder.sizedByteArray());
+        }
+    }
+
     /**
      * Run the same logic for both builders.
      *
      * @param perBuilder called with each builder; return event id. Should not mutate state.
      */
     private void createEvent(ToIntFunction<FlatBufferBuilder> perBuilder) {
+        if (replayStream != null) {
+            // the event is the same for the file and the client, so only
+            // make it once
+            numEvents++;
+            fileBuilder.finish(perBuilder.applyAsInt(fileBuilder));
+            try {
+                streamFinished();
+            } catch (IOException e) {
+                throw new RuntimeException("Can't write to replay stream", e);
+            }
+            if (packetSink != null) {
+                packetSink.addEvent(fileBuilder.sizedByteArray());
+            }
+
+            // reset file builder
+            fileBuilder = new FlatBufferBuilder(fileBuilder.dataBuffer());
+            return;
+        }
+
         // make file event and add its offset to the list
         int eventAP = perBuilder.applyAsInt(fileBuilder);
         events.add(eventAP);
+        numEvents++;
 
         if (packetSink != null) {
             // make packet event and package it up
@@ -384,9 +612,37 @@ public strictfp class GameMaker {
         private TIntArrayList bytecodeIDs;
         private TIntArrayList bytecodesUsed;
 
+        // Keyframe, if this round has one
+        private TIntArrayList keyframeRobotIDs;
+        private TByteArrayList keyframeTeamIDs;
+        private TByteArrayList keyframeTypes;
+        private TIntArrayList keyframeLocsXs;
+        private TIntArrayList keyframeLocsYs;
+        private TIntArrayList keyframeSoupCarrying;
+        private TIntArrayList keyframeDirtCarrying;
+        private TIntArrayList keyframeHeldIDs;
+        private int[] keyframeDirt; // null if there's no keyframe
+        private boolean[] keyframeWater;
+        private int[] keyframePollution;
+        private int[] keyframeSoup;
+
+        // Moves, tile changes and bytecodes used go here instead, if the
+        // match is written with compact rounds
+        private CompactRounds.Encoder compactEncoder;
+
         // Used to write logs.
         private final ByteArrayOutputStream logger;
 
+        // The indicators each robot has drawn this round
+        private final TIntIntHashMap indicatorDotCounts;
+        private final TIntIntHashMap indicatorLineCounts;
+
+        // What was left out of the replay this match
+        private int droppedIndicatorDots;
+        private int droppedIndicatorLines;
+        private int droppedBytecodes;
+        private long droppedLogBytes;
+
         public MatchMaker() {
             this.movedIDs = new TIntArrayList();
             this.movedLocsXs = new TIntArrayList();
@@ -436,12 +692,28 @@ public strictfp class GameMaker {
             this.indicatorLineRGBsGreen = new TIntArrayList();
             this.bytecodeIDs = new TIntArrayList();
             this.bytecodesUsed = new TIntArrayList();
+            this.keyframeRobotIDs = new TIntArrayList();
+            this.keyframeTeamIDs = new TByteArrayList();
+            this.keyframeTypes = new TByteArrayList();
+            this.keyframeLocsXs = new TIntArrayList();
+            this.keyframeLocsYs = new TIntArrayList();
+            this.keyframeSoupCarrying = new TIntArrayList();
+            this.keyframeDirtCarrying = new TIntArrayList();
+            this.keyframeHeldIDs = new TIntArrayList();
             this.logger = new ByteArrayOutputStream();
+            this.indicatorDotCounts = new TIntIntHashMap();
+            this.indicatorLineCounts = new TIntIntHashMap();
         }
 
         public void makeMatchHeader(LiveMap gameMap) {
             changeState(State.IN_GAME, State.IN_MATCH);
 
+            compactEncoder = compactRounds ? new CompactRounds.Encoder(gameMap) : null;
+            droppedIndicatorDots = 0;
+            droppedIndicatorLines = 0;
+            droppedBytecodes = 0;
+            droppedLogBytes = 0;
+
             createEvent((builder) -> {
                 int map = GameMapIO.Serial.serialize(builder, gameMap);
 
@@ -449,7 +721,7 @@ public strictfp class GameMaker {
                         MatchHeader.createMatchHeader(builder, map, gameMap.getRounds()));
             });
 
-            matchHeaders.add(events.size() - 1);
+            matchHeaders.add(numEvents - 1);
 
             clearData();
         }
@@ -460,7 +732,9 @@ public strictfp class GameMaker {
             createEvent((builder) -> EventWrapper.createEventWrapper(builder, Event.MatchFooter,
                     MatchFooter.createMatchFooter(builder, TeamMapping.id(winTeam), totalRounds)));
 
-            matchFooters.add(events.size() - 1);
+            matchFooters.add(numEvents - 1);
+
+            compactEncoder = null;
         }
 
         public void makeRound(int roundNum) {
@@ -471,9 +745,20 @@ public strictfp class GameMaker {
             } catch (IOException e) {
                 throw new RuntimeException("Can't flush byte[]outputstream?", e);
             }
-            byte[] logs = this.logger.toByteArray();
+            byte[] logs;
+            if (replayDetail != ReplayDetail.MINIMAL) {
+                logs = this.logger.toByteArray();
+            } else {
+                droppedLogBytes += this.logger.size();
+                logs = new byte[0];
+            }
             this.logger.reset();
 
+            boolean compact = compactEncoder != null;
+            if (compact) {
+                compactEncoder.finishRound(keyframeDirt != null);
+            }
+
             createEvent((builder) -> {
                 // The bodies that spawned
                 int spawnedBodiesLocsP = createVecTable(builder, spawnedBodiesLocsXs, spawnedBodiesLocsYs);
@@ -492,8 +777,8 @@ public strictfp class GameMaker {
                 int teamSoupsP = intVector(builder, teamSoups, Round::startTeamSoupsVector);
 
                 // The bodies that moved
-                int movedIDsP = intVector(builder, movedIDs, Round::startMovedIDsVector);
-                int movedLocsP = createVecTable(builder, movedLocsXs, movedLocsYs);
+                int movedIDsP = compact ? 0 : intVector(builder, movedIDs, Round::startMovedIDsVector);
+                int movedLocsP = compact ? 0 : createVecTable(builder, movedLocsXs, movedLocsYs);
 
                 // The bodies that died
                 int diedIDsP = intVector(builder, diedIDs, Round::startDiedIDsVector);
@@ -504,11 +789,11 @@ public strictfp class GameMaker {
                 int actionTargetsP = intVector(builder, actionTargets, Round::startActionTargetsVector);
 
                 // The dirt changes on locations
-                int dirtChangedLocsP = createVecTable(builder, dirtChangedLocsXs, dirtChangedLocsYs);
-                int dirtChangesP = intVector(builder, dirtChanges, Round::startDirtChangesVector);
+                int dirtChangedLocsP = compact ? 0 : createVecTable(builder, dirtChangedLocsXs, dirtChangedLocsYs);
+                int dirtChangesP = compact ? 0 : intVector(builder, dirtChanges, Round::startDirtChangesVector);
 
                 // The water changes on locations
-                int waterChangedLocsP = createVecTable(builder, waterChangedLocsXs, waterChangedLocsYs);
+                int waterChangedLocsP = compact ? 0 : createVecTable(builder, waterChangedLocsXs, waterChangedLocsYs);
 
                 // The local pollution
                 int pollutionLocationsP = createVecTable(builder, pollutionLocsXs, pollutionLocsYs);
@@ -523,8 +808,8 @@ public strictfp class GameMaker {
                 int localPollutionsP = LocalPollutionTable.endLocalPollutionTable(builder);
 
                 // The soup changes on locations
-                int soupChangedLocsP = createVecTable(builder, soupChangedLocsXs, soupChangedLocsYs);
-                int soupChangesP = intVector(builder, soupChanges, Round::startSoupChangesVector);
+                int soupChangedLocsP = compact ? 0 : createVecTable(builder, soupChangedLocsXs, soupChangedLocsYs);
+                int soupChangesP = compact ? 0 : intVector(builder, soupChanges, Round::startSoupChangesVector);
 
                 // New message requests
                 int newMessagesCostsP = intVector(builder, newMessagesCosts, Round::startNewMessagesCostsVector);
@@ -546,11 +831,17 @@ public strictfp class GameMaker {
                 int indicatorLineRGBsP = createRGBTable(builder, indicatorLineRGBsRed, indicatorLineRGBsGreen, indicatorLineRGBsBlue);
 
                 // The bytecode usage
-                int bytecodeIDsP = intVector(builder, bytecodeIDs, Round::startBytecodeIDsVector);
-                int bytecodesUsedP = intVector(builder, bytecodesUsed, Round::startBytecodesUsedVector);
+                int bytecodeIDsP = compact ? 0 : intVector(builder, bytecodeIDs, Round::startBytecodeIDsVector);
+                int bytecodesUsedP = compact ? 0 : intVector(builder, bytecodesUsed, Round::startBytecodesUsedVector);
 
                 int logsP = builder.createString(ByteBuffer.wrap(logs));
 
+                // The full state, if this round has a keyframe
+                int keyframeP = keyframeDirt == null ? 0 : createKeyframe(builder);
+
+                // The moves, tile changes and bytecodes used, if compact
+                int compactP = compact ? compactEncoder.createCompactRound(builder) : 0;
+
                 Round.startRound(builder);
                 Round.addTeamIDs(builder, teamIDsP);
                 Round.addTeamSoups(builder, teamSoupsP);
@@ -583,13 +874,80 @@ public strictfp class GameMaker {
                 Round.addBytecodeIDs(builder, bytecodeIDsP);
                 Round.addBytecodesUsed(builder, bytecodesUsedP);
                 Round.addLogs(builder, logsP);
+                if (keyframeP != 0) {
+                    Round.addKeyframe(builder, keyframeP);
+                }
+                if (compactP != 0) {
+                    Round.addCompact(builder, compactP);
+                }
                 int round = Round.endRound(builder);
                 return EventWrapper.createEventWrapper(builder, Event.Round, round);
             });
 
+            if (keyframeDirt != null) {
+                keyframes.add(numEvents - 1);
+            }
+
             clearData();
         }
 
+        private int createKeyframe(FlatBufferBuilder builder) {
+            int bodiesLocsP = createVecTable(builder, keyframeLocsXs, keyframeLocsYs);
+            int bodiesRobotIDsP = intVector(builder, keyframeRobotIDs, SpawnedBodyTable::startRobotIDsVector);
+            int bodiesTeamIDsP = byteVector(builder, keyframeTeamIDs, SpawnedBodyTable::startTeamIDsVector);
+            int bodiesTypesP = byteVector(builder, keyframeTypes, SpawnedBodyTable::startTypesVector);
+            SpawnedBodyTable.startSpawnedBodyTable(builder);
+            SpawnedBodyTable.addLocs(builder, bodiesLocsP);
+            SpawnedBodyTable.addRobotIDs(builder, bodiesRobotIDsP);
+            SpawnedBodyTable.addTeamIDs(builder, bodiesTeamIDsP);
+            SpawnedBodyTable.addTypes(builder, bodiesTypesP);
+            int bodiesP = SpawnedBodyTable.endSpawnedBodyTable(builder);
+
+            int soupCarryingP = intVector(builder, keyframeSoupCarrying, Keyframe::startSoupCarryingVector);
+            int dirtCarryingP = intVector(builder, keyframeDirtCarrying, Keyframe::startDirtCarryingVector);
+            int heldIDsP = intVector(builder, keyframeHeldIDs, Keyframe::startHeldIDsVector);
+            int dirtP = Keyframe.createDirtVector(builder, keyframeDirt);
+            int waterP = Keyframe.createWaterVector(builder, keyframeWater);
+            int pollutionP = Keyframe.createPollutionVector(builder, keyframePollution);
+            int soupP = Keyframe.createSoupVector(builder, keyframeSoup);
+
+            return Keyframe.createKeyframe(builder, bodiesP, soupCarryingP, dirtCarryingP, heldIDsP,
+                    dirtP, waterP, pollutionP, soupP);
+        }
+
+        /**
+         * @return whether the round should have a keyframe; if so, the
+         *         world adds its robots and map before making the round
+         */
+        public boolean isKeyframe(int roundNum) {
+            return keyframeInterval > 0 && roundNum % keyframeInterval == 0;
+        }
+
+        public void addKeyframeRobot(InternalRobot robot) {
+            keyframeRobotIDs.add(robot.getID());
+            keyframeLocsXs.add(robot.getLocation().x);
+            keyframeLocsYs.add(robot.getLocation().y);
+            keyframeTeamIDs.add(TeamMapping.id(robot.getTeam()));
+            keyframeTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+            keyframeSoupCarrying.add(robot.getSoupCarrying());
+            keyframeDirtCarrying.add(robot.getDirtCarrying());
+            keyframeHeldIDs.add(robot.getIdOfUnitCurrentlyHeld());
+            if (compactEncoder != null) {
+                compactEncoder.addKeyframeBody(robot.getID(), robot.getLocation());
+            }
+        }
+
+        /**
+         * The arrays are written when the round is made, so they shouldn't
+         * change before then.
+         */
+        public void setKeyframeMap(int[] dirt, boolean[] water, int[] pollution, int[] soup) {
+            keyframeDirt = dirt;
+            keyframeWater = water;
+            keyframePollution = pollution;
+            keyframeSoup = soup;
+        }
+
         /**
          * @return an outputstream that will be baked into the output file
          */
@@ -598,6 +956,10 @@ public strictfp class GameMaker {
         }
 
         public void addMoved(int id, MapLocation newLocation) {
+            if (compactEncoder != null) {
+                compactEncoder.addMoved(id, newLocation);
+                return;
+            }
             movedIDs.add(id);
             movedLocsXs.add(newLocation.x);
             movedLocsYs.add(newLocation.y);
@@ -605,6 +967,9 @@ public strictfp class GameMaker {
 
         public void addDied(int id) {
             diedIDs.add(id);
+            if (compactEncoder != null) {
+                compactEncoder.addDied(id);
+            }
         }
 
         public void addAction(int userID, byte action, int targetID) {
@@ -614,12 +979,20 @@ public strictfp class GameMaker {
         }
 
         public void addDirtChanged(MapLocation loc, int change) {
+            if (compactEncoder != null) {
+                compactEncoder.addDirtChanged(loc, change);
+                return;
+            }
             dirtChangedLocsXs.add(loc.x);
             dirtChangedLocsYs.add(loc.y);
             dirtChanges.add(change);
         }
 
         public void addWaterChanged(MapLocation loc) {
+            if (compactEncoder != null) {
+                compactEncoder.addWaterChanged(loc);
+                return;
+            }
             waterChangedLocsXs.add(loc.x);
             waterChangedLocsYs.add(loc.y);
         }
@@ -637,23 +1010,45 @@ public strictfp class GameMaker {
         }
 
         public void addSoupChanged(MapLocation loc, int change) {
+            if (compactEncoder != null) {
+                compactEncoder.addSoupChanged(loc, change);
+                return;
+            }
             soupChangedLocsXs.add(loc.x);
             soupChangedLocsYs.add(loc.y);
             soupChanges.add(change);
         }
 
-        public void addNewMessage(int cost, String message) {
+        public void addNewMessage(int cost, int[] message, int offset, int length) {
             newMessagesCosts.add(cost);
-            for (char c : message.toCharArray())
-                newMessages.add(c);
-            newMessages.add(' ');
+            addMessage(newMessages, message, offset, length);
         }
 
-        public void addBroadcastedMessage(int cost, String message) {
+        public void addBroadcastedMessage(int cost, int[] message, int offset, int length) {
             broadcastedMessagesCosts.add(cost);
-            for (char c : message.toCharArray())
-                broadcastedMessages.add(c);
-            broadcastedMessages.add(' ');
+            addMessage(broadcastedMessages, message, offset, length);
+        }
+
+        /**
+         * Writes a message as its underscore-separated integers followed by
+         * a space, without building any strings.
+         */
+        private void addMessage(TCharArrayList messages, int[] message, int offset, int length) {
+            for (int i = offset; i < offset + length; i++) {
+                if (i > offset)
+                    messages.add('_');
+                long value = message[i];
+                if (value < 0) {
+                    messages.add('-');
+                    value = -value;
+                }
+                long divisor = 1;
+                while (divisor * 10 <= value)
+                    divisor *= 10;
+                for (; divisor > 0; divisor /= 10)
+                    messages.add((char) ('0' + value / divisor % 10));
+            }
+            messages.add(' ');
         }
 
         public void addTeamSoup(Team team, int soup) {
@@ -662,6 +1057,11 @@ public strictfp class GameMaker {
         }
 
         public void addIndicatorDot(int id, MapLocation loc, int red, int green, int blue) {
+            if (replayDetail != ReplayDetail.FULL
+                    || !underLimit(indicatorDotCounts, id, indicatorDotsPerRobot)) {
+                droppedIndicatorDots++;
+                return;
+            }
             indicatorDotIDs.add(id);
             indicatorDotLocsX.add(loc.x);
             indicatorDotLocsY.add(loc.y);
@@ -671,6 +1071,11 @@ public strictfp class GameMaker {
         }
 
         public void addIndicatorLine(int id, MapLocation startLoc, MapLocation endLoc, int red, int green, int blue) {
+            if (replayDetail != ReplayDetail.FULL
+                    || !underLimit(indicatorLineCounts, id, indicatorLinesPerRobot)) {
+                droppedIndicatorLines++;
+                return;
+            }
             indicatorLineIDs.add(id);
             indicatorLineStartLocsX.add(startLoc.x);
             indicatorLineStartLocsY.add(startLoc.y);
@@ -682,16 +1087,54 @@ public strictfp class GameMaker {
         }
 
         public void addBytecodes(int id, int bytecodes) {
+            if (replayDetail == ReplayDetail.MINIMAL) {
+                droppedBytecodes++;
+                return;
+            }
+            if (compactEncoder != null) {
+                compactEncoder.addBytecodes(id, bytecodes);
+                return;
+            }
             bytecodeIDs.add(id);
             bytecodesUsed.add(bytecodes);
         }
 
+        /**
+         * Count an indicator against a robot's limit for the round.
+         *
+         * @return whether the robot may draw it
+         */
+        private boolean underLimit(TIntIntHashMap counts, int id, int limit) {
+            if (limit <= 0) {
+                return true;
+            }
+            return counts.adjustOrPutValue(id, 1, 1) <= limit;
+        }
+
+        /**
+         * @return what was left out of the replay this match, or null if
+         *         nothing was
+         */
+        public String getDroppedSummary() {
+            if (droppedIndicatorDots == 0 && droppedIndicatorLines == 0
+                    && droppedBytecodes == 0 && droppedLogBytes == 0) {
+                return null;
+            }
+            return String.format("Left out of the replay (%s detail): %d indicator dots, %d indicator lines, " +
+                            "%d bytecode counts, %d bytes of logs",
+                    replayDetail.name().toLowerCase(Locale.ROOT), droppedIndicatorDots, droppedIndicatorLines,
+                    droppedBytecodes, droppedLogBytes);
+        }
+
         public void addSpawnedRobot(InternalRobot robot) {
             spawnedBodiesRobotIDs.add(robot.getID());
             spawnedBodiesLocsXs.add(robot.getLocation().x);
             spawnedBodiesLocsYs.add(robot.getLocation().y);
             spawnedBodiesTeamIDs.add(TeamMapping.id(robot.getTeam()));
             spawnedBodiesTypes.add(FlatHelpers.getBodyTypeFromRobotType(robot.getType()));
+            if (compactEncoder != null) {
+                compactEncoder.addSpawned(robot.getID(), robot.getLocation());
+            }
         }
 
         private void clearData() {
@@ -743,6 +1186,23 @@ public strictfp class GameMaker {
             indicatorLineRGBsGreen.clear();
             bytecodeIDs.clear();
             bytecodesUsed.clear();
+            indicatorDotCounts.clear();
+            indicatorLineCounts.clear();
+            keyframeRobotIDs.clear();
+            keyframeTeamIDs.clear();
+            keyframeTypes.clear();
+            keyframeLocsXs.clear();
+            keyframeLocsYs.clear();
+            keyframeSoupCarrying.clear();
+            keyframeDirtCarrying.clear();
+            keyframeHeldIDs.clear();
+            keyframeDirt = null;
+            keyframeWater = null;
+            keyframePollution = null;
+            keyframeSoup = null;
+            if (compactEncoder != null) {
+                compactEncoder.clearRound();
+            }
         }
     }
 }
@@ -6,7 +6,9 @@ import battlecode.world.*;
 import battlecode.world.control.*;
 
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.util.Locale;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -146,7 +148,14 @@ public strictfp class Server implements Runnable {
                 return;
             }
 
-            GameMaker gameMaker = new GameMaker(currentGame, netServer);
+            final GameMaker gameMaker;
+            try {
+                gameMaker = createGameMaker(currentGame, netServer);
+            } catch (IOException e) {
+                ErrorReporter.report(e);
+                this.state = ServerState.ERROR;
+                return;
+            }
             gameMaker.makeGameHeader();
 
             debug("Running: "+currentGame);
@@ -166,6 +175,7 @@ public strictfp class Server implements Runnable {
                 } catch (Exception e) {
                     ErrorReporter.report(e);
                     this.state = ServerState.ERROR;
+                    gameMaker.closeReplay();
                     return;
                 }
 
@@ -190,10 +200,46 @@ public strictfp class Server implements Runnable {
             }
             Team winner = aWins >= bWins ? Team.A : Team.B;
             gameMaker.makeGameFooter(winner);
-            gameMaker.writeGame(currentGame.getSaveFile());
+            if (gameMaker.isStreaming()) {
+                gameMaker.closeReplay();
+            } else {
+                gameMaker.writeGame(currentGame.getSaveFile());
+            }
         }
     }
 
+    /**
+     * Create the GameMaker for a game, streaming the replay straight to
+     * the game's save file if bc.server.stream-replay is set, and writing
+     * keyframes every bc.server.keyframe-interval rounds, compact rounds if
+     * bc.server.compact-rounds is set, and the debugging information the
+     * bc.server.replay-detail and indicator limits allow.
+     *
+     * @throws IOException if the save file can't be opened
+     */
+    private GameMaker createGameMaker(GameInfo game, NetServer netServer) throws IOException {
+        GameMaker gameMaker;
+        if (options.getBoolean("bc.server.stream-replay")) {
+            if (game.getSaveFile() == null) {
+                throw new IOException("Null file provided to stream the replay to");
+            }
+            gameMaker = new GameMaker(game, netServer, new FileOutputStream(game.getSaveFile()));
+        } else {
+            gameMaker = new GameMaker(game, netServer);
+        }
+        gameMaker.setKeyframeInterval(options.getInt("bc.server.keyframe-interval"));
+        gameMaker.setCompactRounds(options.getBoolean("bc.server.compact-rounds"));
+        try {
+            gameMaker.setReplayDetail(GameMaker.ReplayDetail.valueOf(
+                    options.get("bc.server.replay-detail").toUpperCase(Locale.ROOT)));
+        } catch (IllegalArgumentException e) {
+            warn("Unknown replay detail level " + options.get("bc.server.replay-detail") + ", keeping everything");
+        }
+        gameMaker.setIndicatorLimits(options.getInt("bc.server.indicator-dots-per-robot"),
+                options.getInt("bc.server.indicator-lines-per-robot"));
+        return gameMaker;
+    }
+
 
     /**
      * @return the winner of the match
@@ -261,6 +307,10 @@ public strictfp class Server implements Runnable {
         }
 
         say(getWinnerString(currentGame, currentWorld.getWinner(), currentWorld.getCurrentRound()));
+        String dropped = gameMaker.getMatchMaker().getDroppedSummary();
+        if (dropped != null) {
+            say(dropped);
+        }
         say("-------------------- Match Finished --------------------");
 
         double timeDiff = (System.currentTimeMillis() - startTime) / 1000.0;
@@ -0,0 +1,524 @@
+package battlecode.util;
+
+import battlecode.common.Direction;
+import battlecode.common.MapLocation;
+import battlecode.common.RobotInfo;
+import battlecode.schema.CompactRound;
+import battlecode.schema.GameMap;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
+import battlecode.schema.SpawnedBodyTable;
+import battlecode.schema.VecTable;
+import battlecode.world.LiveMap;
+import com.google.flatbuffers.FlatBufferBuilder;
+import gnu.trove.list.TByteList;
+import gnu.trove.list.array.TByteArrayList;
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+import static battlecode.util.FlatHelpers.*;
+
+/**
+ * Writes and reads CompactRounds, the compact encoding of a round's moves,
+ * tile changes and bytecodes used; see battlecode.fbs for the format.
+ *
+ * Moves are relative to where each body was, and bytecode IDs to the
+ * previous round's, so an Encoder and a Decoder each follow a match, one
+ * round at a time, keeping track of where every body is. Rounds with
+ * keyframes are written without reference to the rounds before them, and
+ * after one both go on from where its keyframe has every body, so a
+ * Decoder can also start from one of those.
+ */
+public final class CompactRounds {
+
+    /**
+     * The directions moves are written as, by index.
+     */
+    private static final Direction[] DIRECTIONS = {
+            Direction.NORTH, Direction.NORTHEAST, Direction.EAST, Direction.SOUTHEAST,
+            Direction.SOUTH, Direction.SOUTHWEST, Direction.WEST, Direction.NORTHWEST
+    };
+
+    private CompactRounds() {}
+
+    /**
+     * Encodes the rounds of a match, as the MatchMaker records them.
+     */
+    public static final class Encoder {
+        private final int originX, originY, width;
+
+        private TIntObjectHashMap<MapLocation> locations;
+        private TIntObjectHashMap<MapLocation> keyframeLocations;
+        private TIntArrayList lastBytecodeIDs;
+
+        private int lastMovedID;
+        private final TByteArrayList movedIDs;
+        private final TByteArrayList movedDirections;
+        private final TIntArrayList movedXs;
+        private final TIntArrayList movedYs;
+
+        private final TileChanges dirtChanges;
+        private final TileChanges waterChanges;
+        private final TileChanges soupChanges;
+
+        private TIntArrayList bytecodeIDs;
+        private final TIntArrayList bytecodesUsed;
+
+        // written by finishRound
+        private final TIntArrayList movedLocsXs;
+        private final TIntArrayList movedLocsYs;
+        private final TByteArrayList dirtChangedTilesBytes;
+        private final TByteArrayList dirtChangesBytes;
+        private final TByteArrayList waterChangedTilesBytes;
+        private final TByteArrayList soupChangedTilesBytes;
+        private final TByteArrayList soupChangesBytes;
+        private final TByteArrayList bytecodeIDsBytes;
+        private final TByteArrayList bytecodesUsedBytes;
+
+        /**
+         * @param map the match's map, with the bodies it starts with
+         */
+        public Encoder(LiveMap map) {
+            this.originX = map.getOrigin().x;
+            this.originY = map.getOrigin().y;
+            this.width = map.getWidth();
+            this.locations = new TIntObjectHashMap<>();
+            for (RobotInfo body : map.getInitialBodies()) {
+                locations.put(body.ID, body.location);
+            }
+            this.keyframeLocations = new TIntObjectHashMap<>();
+            this.lastBytecodeIDs = new TIntArrayList();
+
+            this.movedIDs = new TByteArrayList();
+            this.movedDirections = new TByteArrayList();
+            this.movedXs = new TIntArrayList();
+            this.movedYs = new TIntArrayList();
+            this.dirtChanges = new TileChanges();
+            this.waterChanges = new TileChanges();
+            this.soupChanges = new TileChanges();
+            this.bytecodeIDs = new TIntArrayList();
+            this.bytecodesUsed = new TIntArrayList();
+
+            this.movedLocsXs = new TIntArrayList();
+            this.movedLocsYs = new TIntArrayList();
+            this.dirtChangedTilesBytes = new TByteArrayList();
+            this.dirtChangesBytes = new TByteArrayList();
+            this.waterChangedTilesBytes = new TByteArrayList();
+            this.soupChangedTilesBytes = new TByteArrayList();
+            this.soupChangesBytes = new TByteArrayList();
+            this.bytecodeIDsBytes = new TByteArrayList();
+            this.bytecodesUsedBytes = new TByteArrayList();
+        }
+
+        public void addSpawned(int id, MapLocation loc) {
+            locations.put(id, loc);
+        }
+
+        public void addDied(int id) {
+            locations.remove(id);
+        }
+
+        /**
+         * Add a body in the round's keyframe, where the keyframe has it.
+         */
+        public void addKeyframeBody(int id, MapLocation loc) {
+            keyframeLocations.put(id, loc);
+        }
+
+        public void addMoved(int id, MapLocation newLocation) {
+            addZigzag(movedIDs, id - lastMovedID);
+            lastMovedID = id;
+
+            movedDirections.add(directionIndex(locations.put(id, newLocation), newLocation));
+            movedXs.add(newLocation.x);
+            movedYs.add(newLocation.y);
+        }
+
+        public void addDirtChanged(MapLocation loc, int change) {
+            dirtChanges.add(tile(loc), change);
+        }
+
+        public void addWaterChanged(MapLocation loc) {
+            waterChanges.add(tile(loc), 0);
+        }
+
+        public void addSoupChanged(MapLocation loc, int change) {
+            soupChanges.add(tile(loc), change);
+        }
+
+        public void addBytecodes(int id, int bytecodes) {
+            bytecodeIDs.add(id);
+            bytecodesUsed.add(bytecodes);
+        }
+
+        /**
+         * Encode everything added since the last round. Call once per round,
+         * before createCompactRound.
+         *
+         * @param keyframe whether the round has a keyframe, and so has to be
+         *                 decodable without the rounds before it; its bodies
+         *                 must have been added with addKeyframeBody
+         */
+        public void finishRound(boolean keyframe) {
+            for (int i = 0; i < movedDirections.size(); i++) {
+                if (keyframe) {
+                    movedDirections.set(i, (byte) -1);
+                }
+                if (movedDirections.get(i) == -1) {
+                    movedLocsXs.add(movedXs.get(i));
+                    movedLocsYs.add(movedYs.get(i));
+                }
+            }
+            if (keyframe) {
+                // a Decoder that starts here only knows what the keyframe
+                // says, which isn't always where the moves left each body
+                TIntObjectHashMap<MapLocation> swapLocations = locations;
+                locations = keyframeLocations;
+                keyframeLocations = swapLocations;
+                keyframeLocations.clear();
+            }
+
+            dirtChanges.write(dirtChangedTilesBytes, dirtChangesBytes);
+            waterChanges.write(waterChangedTilesBytes, null);
+            soupChanges.write(soupChangedTilesBytes, soupChangesBytes);
+
+            if (keyframe) {
+                lastBytecodeIDs.clear();
+            }
+            for (int i = 0; i < bytecodeIDs.size(); i++) {
+                int last = i < lastBytecodeIDs.size() ? lastBytecodeIDs.get(i) : 0;
+                addZigzag(bytecodeIDsBytes, bytecodeIDs.get(i) - last);
+                addVarint(bytecodesUsedBytes, bytecodesUsed.get(i));
+            }
+            TIntArrayList swap = lastBytecodeIDs;
+            lastBytecodeIDs = bytecodeIDs;
+            bytecodeIDs = swap;
+            bytecodeIDs.clear();
+            bytecodesUsed.clear();
+        }
+
+        /**
+         * Write the round finished by finishRound. May be called for more
+         * than one builder.
+         *
+         * @return the CompactRound
+         */
+        public int createCompactRound(FlatBufferBuilder builder) {
+            int movedIDsP = byteVector(builder, movedIDs, CompactRound::startMovedIDsVector);
+            int movedDirectionsP = byteVector(builder, movedDirections, CompactRound::startMovedDirectionsVector);
+            int movedLocsP = createVecTable(builder, movedLocsXs, movedLocsYs);
+            int dirtChangedTilesP = byteVector(builder, dirtChangedTilesBytes, CompactRound::startDirtChangedTilesVector);
+            int dirtChangesP = byteVector(builder, dirtChangesBytes, CompactRound::startDirtChangesVector);
+            int waterChangedTilesP = byteVector(builder, waterChangedTilesBytes, CompactRound::startWaterChangedTilesVector);
+            int soupChangedTilesP = byteVector(builder, soupChangedTilesBytes, CompactRound::startSoupChangedTilesVector);
+            int soupChangesP = byteVector(builder, soupChangesBytes, CompactRound::startSoupChangesVector);
+            int bytecodeIDsP = byteVector(builder, bytecodeIDsBytes, CompactRound::startBytecodeIDsVector);
+            int bytecodesUsedP = byteVector(builder, bytecodesUsedBytes, CompactRound::startBytecodesUsedVector);
+            return CompactRound.createCompactRound(builder, movedIDsP, movedDirectionsP, movedLocsP,
+                    dirtChangedTilesP, dirtChangesP, waterChangedTilesP, soupChangedTilesP, soupChangesP,
+                    bytecodeIDsP, bytecodesUsedP);
+        }
+
+        /**
+         * Start the next round.
+         */
+        public void clearRound() {
+            lastMovedID = 0;
+            movedIDs.clear();
+            movedDirections.clear();
+            movedXs.clear();
+            movedYs.clear();
+            movedLocsXs.clear();
+            movedLocsYs.clear();
+            dirtChanges.clear();
+            waterChanges.clear();
+            soupChanges.clear();
+            dirtChangedTilesBytes.clear();
+            dirtChangesBytes.clear();
+            waterChangedTilesBytes.clear();
+            soupChangedTilesBytes.clear();
+            soupChangesBytes.clear();
+            bytecodeIDsBytes.clear();
+            bytecodesUsedBytes.clear();
+        }
+
+        private int tile(MapLocation loc) {
+            return loc.x - originX + (loc.y - originY) * width;
+        }
+    }
+
+    /**
+     * The changes to tiles in one round, for one kind of change.
+     */
+    private static final class TileChanges {
+        // (tile << 32 | order), so sorting keeps the order of the changes
+        // to each tile
+        private long[] keys = new long[16];
+        private final TIntArrayList changes = new TIntArrayList();
+
+        void add(int tile, int change) {
+            int order = changes.size();
+            if (order == keys.length) {
+                keys = Arrays.copyOf(keys, order * 2);
+            }
+            keys[order] = (long) tile << 32 | order;
+            changes.add(change);
+        }
+
+        /**
+         * @param tilesOut gets the sorted tiles, as differences
+         * @param changesOut gets the changes, or null if there are none
+         */
+        void write(TByteList tilesOut, TByteList changesOut) {
+            int size = changes.size();
+            Arrays.sort(keys, 0, size);
+            int lastTile = 0;
+            for (int i = 0; i < size; i++) {
+                int tile = (int) (keys[i] >>> 32);
+                addVarint(tilesOut, tile - lastTile);
+                lastTile = tile;
+                if (changesOut != null) {
+                    addZigzag(changesOut, changes.get((int) keys[i]));
+                }
+            }
+        }
+
+        void clear() {
+            changes.clear();
+        }
+    }
+
+    /**
+     * A round's moves, tile changes and bytecodes used, as the Round would
+     * have them if it weren't compact; except that tile changes are sorted
+     * by tile, the changes to each tile in the order they happened, rather
+     * than all in the order they happened.
+     */
+    public static final class Decoded {
+        public final int[] movedIDs, movedXs, movedYs;
+        public final int[] dirtChangedXs, dirtChangedYs, dirtChanges;
+        public final int[] waterChangedXs, waterChangedYs;
+        public final int[] soupChangedXs, soupChangedYs, soupChanges;
+        public final int[] bytecodeIDs, bytecodesUsed;
+
+        private Decoded(int[] movedIDs, int[] movedXs, int[] movedYs,
+                        int[] dirtChangedXs, int[] dirtChangedYs, int[] dirtChanges,
+                        int[] waterChangedXs, int[] waterChangedYs,
+                        int[] soupChangedXs, int[] soupChangedYs, int[] soupChanges,
+                        int[] bytecodeIDs, int[] bytecodesUsed) {
+            this.movedIDs = movedIDs;
+            this.movedXs = movedXs;
+            this.movedYs = movedYs;
+            this.dirtChangedXs = dirtChangedXs;
+            this.dirtChangedYs = dirtChangedYs;
+            this.dirtChanges = dirtChanges;
+            this.waterChangedXs = waterChangedXs;
+            this.waterChangedYs = waterChangedYs;
+            this.soupChangedXs = soupChangedXs;
+            this.soupChangedYs = soupChangedYs;
+            this.soupChanges = soupChanges;
+            this.bytecodeIDs = bytecodeIDs;
+            this.bytecodesUsed = bytecodesUsed;
+        }
+    }
+
+    /**
+     * Decodes the rounds of a match; give it every round from where it
+     * starts, in order.
+     */
+    public static final class Decoder {
+        private final int originX, originY, width;
+
+        private final TIntObjectHashMap<MapLocation> locations;
+        private int[] lastBytecodeIDs;
+
+        /**
+         * Start at the beginning of a match.
+         *
+         * @param map the map in the match's header
+         */
+        public Decoder(GameMap map) {
+            this(map, map.bodies());
+        }
+
+        /**
+         * Start at a round with a keyframe; give it that round first.
+         *
+         * @param map the map in the match's header
+         * @param keyframe the round's keyframe
+         */
+        public Decoder(GameMap map, Keyframe keyframe) {
+            this(map, keyframe.bodies());
+        }
+
+        private Decoder(GameMap map, SpawnedBodyTable bodies) {
+            this.originX = map.minCorner().x();
+            this.originY = map.minCorner().y();
+            this.width = map.maxCorner().x() - map.minCorner().x();
+            this.locations = new TIntObjectHashMap<>();
+            addBodies(bodies);
+            this.lastBytecodeIDs = new int[0];
+        }
+
+        /**
+         * @param round the next round of the match, which must be compact
+         * @return the round's moves, tile changes and bytecodes used
+         */
+        public Decoded decode(Round round) {
+            CompactRound compact = round.compact();
+            if (compact == null) {
+                throw new IllegalArgumentException("Round " + round.roundID() + " isn't compact");
+            }
+            if (round.keyframe() != null) {
+                lastBytecodeIDs = new int[0];
+            }
+            addBodies(round.spawnedBodies());
+
+            ByteBuffer movedIDsBytes = compact.movedIDsAsByteBuffer();
+            int numMoved = compact.movedDirectionsLength();
+            int[] movedIDs = new int[numMoved];
+            int[] movedXs = new int[numMoved];
+            int[] movedYs = new int[numMoved];
+            VecTable movedLocs = compact.movedLocs();
+            int nextLoc = 0;
+            int id = 0;
+            for (int i = 0; i < numMoved; i++) {
+                id += readZigzag(movedIDsBytes);
+                byte direction = compact.movedDirections(i);
+                MapLocation loc;
+                if (direction == -1) {
+                    loc = new MapLocation(movedLocs.xs(nextLoc), movedLocs.ys(nextLoc));
+                    nextLoc++;
+                } else {
+                    loc = locations.get(id).add(DIRECTIONS[direction]);
+                }
+                locations.put(id, loc);
+                movedIDs[i] = id;
+                movedXs[i] = loc.x;
+                movedYs[i] = loc.y;
+            }
+
+            for (int i = 0; i < round.diedIDsLength(); i++) {
+                locations.remove(round.diedIDs(i));
+            }
+            if (round.keyframe() != null) {
+                locations.clear();
+                addBodies(round.keyframe().bodies());
+            }
+
+            TIntArrayList dirtTiles = readTiles(compact.dirtChangedTilesAsByteBuffer());
+            int[] dirtChanges = readZigzags(compact.dirtChangesAsByteBuffer(), dirtTiles.size());
+            TIntArrayList waterTiles = readTiles(compact.waterChangedTilesAsByteBuffer());
+            TIntArrayList soupTiles = readTiles(compact.soupChangedTilesAsByteBuffer());
+            int[] soupChanges = readZigzags(compact.soupChangesAsByteBuffer(), soupTiles.size());
+
+            ByteBuffer bytecodesUsedBytes = compact.bytecodesUsedAsByteBuffer();
+            ByteBuffer bytecodeIDsBytes = compact.bytecodeIDsAsByteBuffer();
+            TIntArrayList bytecodesUsed = new TIntArrayList();
+            TIntArrayList bytecodeIDs = new TIntArrayList();
+            while (bytecodesUsedBytes != null && bytecodesUsedBytes.hasRemaining()) {
+                int i = bytecodeIDs.size();
+                int last = i < lastBytecodeIDs.length ? lastBytecodeIDs[i] : 0;
+                bytecodeIDs.add(last + readZigzag(bytecodeIDsBytes));
+                bytecodesUsed.add(readVarint(bytecodesUsedBytes));
+            }
+            lastBytecodeIDs = bytecodeIDs.toArray();
+
+            return new Decoded(movedIDs, movedXs, movedYs,
+                    xs(dirtTiles), ys(dirtTiles), dirtChanges,
+                    xs(waterTiles), ys(waterTiles),
+                    xs(soupTiles), ys(soupTiles), soupChanges,
+                    lastBytecodeIDs, bytecodesUsed.toArray());
+        }
+
+        private void addBodies(SpawnedBodyTable bodies) {
+            if (bodies == null) {
+                return;
+            }
+            VecTable locs = bodies.locs();
+            for (int i = 0; i < bodies.robotIDsLength(); i++) {
+                locations.put(bodies.robotIDs(i), new MapLocation(locs.xs(i), locs.ys(i)));
+            }
+        }
+
+        private TIntArrayList readTiles(ByteBuffer bytes) {
+            TIntArrayList tiles = new TIntArrayList();
+            int tile = 0;
+            while (bytes != null && bytes.hasRemaining()) {
+                tile += readVarint(bytes);
+                tiles.add(tile);
+            }
+            return tiles;
+        }
+
+        private int[] xs(TIntArrayList tiles) {
+            int[] xs = new int[tiles.size()];
+            for (int i = 0; i < xs.length; i++) {
+                xs[i] = originX + tiles.get(i) % width;
+            }
+            return xs;
+        }
+
+        private int[] ys(TIntArrayList tiles) {
+            int[] ys = new int[tiles.size()];
+            for (int i = 0; i < ys.length; i++) {
+                ys[i] = originY + tiles.get(i) / width;
+            }
+            return ys;
+        }
+    }
+
+    /**
+     * @return the index of the direction from one location to an adjacent
+     *         one, or -1 if they aren't adjacent
+     */
+    private static byte directionIndex(MapLocation from, MapLocation to) {
+        if (from != null) {
+            for (byte i = 0; i < DIRECTIONS.length; i++) {
+                if (from.add(DIRECTIONS[i]).equals(to)) {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    public static void addVarint(TByteList out, int value) {
+        while ((value & ~0x7F) != 0) {
+            out.add((byte) (value & 0x7F | 0x80));
+            value >>>= 7;
+        }
+        out.add((byte) value);
+    }
+
+    public static void addZigzag(TByteList out, int value) {
+        addVarint(out, value << 1 ^ value >> 31);
+    }
+
+    public static int readVarint(ByteBuffer in) {
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    public static int readZigzag(ByteBuffer in) {
+        int value = readVarint(in);
+        return value >>> 1 ^ -(value & 1);
+    }
+
+    private static int[] readZigzags(ByteBuffer in, int count) {
+        int[] values = new int[count];
+        for (int i = 0; i < count; i++) {
+            values[i] = readZigzag(in);
+        }
+        return values;
+    }
+}
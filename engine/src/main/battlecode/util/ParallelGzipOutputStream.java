@@ -0,0 +1,221 @@
+package battlecode.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Writes a gzip stream, like GZIPOutputStream, but deflates it in blocks
+ * on several threads at once, like pigz.
+ *
+ * Each block is deflated on its own, primed with the end of the block
+ * before it, and ends on a byte boundary (with a sync flush), so the
+ * blocks can be written one after another as a single deflate stream. Any
+ * gzip reader can read it; it's just a bit bigger than a single-threaded
+ * stream would be.
+ *
+ * Blocks are deflated as soon as they're full, so most of the work is
+ * done by the time the stream is closed.
+ */
+public final class ParallelGzipOutputStream extends OutputStream {
+
+    /**
+     * How much of the previous block each block is primed with; the most
+     * deflate can refer back to.
+     */
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    /**
+     * Shared by every stream; each stream limits how many of its blocks
+     * are deflated at once.
+     */
+    private static final ExecutorService POOL = Executors.newCachedThreadPool(r -> {
+        Thread thread = new Thread(r, "gzip-deflater");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final OutputStream out;
+    private final int level;
+    private final int blockSize;
+    private final int threads;
+
+    /**
+     * The blocks being deflated, in order.
+     */
+    private final ArrayDeque<Future<byte[]>> pending;
+
+    private final CRC32 crc;
+    private long length;
+
+    private byte[] block;
+    private int blockLength;
+    private byte[] dictionary;
+
+    private boolean closed;
+
+    /**
+     * @param out where the gzip stream goes
+     * @param level the deflate level, 0-9, or -1 for the default
+     * @param blockSize how much to deflate at a time; at least 32KB
+     * @param threads how many blocks to deflate at once; 1 or less
+     *                deflates them on the writing thread
+     */
+    public ParallelGzipOutputStream(OutputStream out, int level, int blockSize, int threads) throws IOException {
+        this.out = out;
+        this.level = level;
+        this.blockSize = Math.max(blockSize, DICTIONARY_SIZE);
+        this.threads = Math.max(threads, 1);
+        this.pending = new ArrayDeque<>();
+        this.crc = new CRC32();
+        this.block = new byte[this.blockSize];
+
+        out.write(HEADER);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        block[blockLength++] = (byte) b;
+        if (blockLength == blockSize) {
+            submitBlock(false);
+        }
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (closed) {
+            throw new IOException("Stream closed");
+        }
+        while (len > 0) {
+            int n = Math.min(len, blockSize - blockLength);
+            System.arraycopy(b, off, block, blockLength, n);
+            blockLength += n;
+            off += n;
+            len -= n;
+            if (blockLength == blockSize) {
+                submitBlock(false);
+            }
+        }
+    }
+
+    /**
+     * Writes out the blocks that are done; the block being filled is left
+     * for later, since deflating it early would make the stream bigger.
+     */
+    @Override
+    public void flush() throws IOException {
+        while (!pending.isEmpty() && pending.peek().isDone()) {
+            writeNext();
+        }
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        try {
+            submitBlock(true);
+            while (!pending.isEmpty()) {
+                writeNext();
+            }
+            writeInt((int) crc.getValue());
+            writeInt((int) length);
+        } finally {
+            closed = true;
+            for (Future<byte[]> future : pending) {
+                future.cancel(false);
+            }
+            out.close();
+        }
+    }
+
+    private void submitBlock(boolean last) throws IOException {
+        final byte[] input = block;
+        final int inputLength = blockLength;
+        final byte[] inputDictionary = dictionary;
+
+        crc.update(input, 0, inputLength);
+        length += inputLength;
+
+        FutureTask<byte[]> task = new FutureTask<>(() -> deflate(input, inputLength, inputDictionary, last));
+        if (threads > 1) {
+            POOL.execute(task);
+        } else {
+            task.run();
+        }
+        pending.add(task);
+
+        if (!last) {
+            dictionary = Arrays.copyOfRange(input, inputLength - DICTIONARY_SIZE, inputLength);
+            block = new byte[blockSize];
+            blockLength = 0;
+        }
+
+        // keep at most one block waiting per thread
+        while (pending.size() > threads) {
+            writeNext();
+        }
+    }
+
+    private byte[] deflate(byte[] input, int inputLength, byte[] dictionary, boolean last) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary != null) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, inputLength);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream(inputLength / 2 + 64);
+            byte[] buffer = new byte[64 * 1024];
+            if (last) {
+                deflater.finish();
+                while (!deflater.finished()) {
+                    output.write(buffer, 0, deflater.deflate(buffer));
+                }
+            } else {
+                int n;
+                do {
+                    n = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                    output.write(buffer, 0, n);
+                } while (n == buffer.length);
+            }
+            return output.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private void writeNext() throws IOException {
+        try {
+            out.write(pending.poll().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while deflating", e);
+        } catch (ExecutionException e) {
+            throw new IOException("Deflating failed", e.getCause());
+        }
+    }
+
+    private void writeInt(int value) throws IOException {
+        out.write(value);
+        out.write(value >>> 8);
+        out.write(value >>> 16);
+        out.write(value >>> 24);
+    }
+}
@@ -0,0 +1,186 @@
+package battlecode.world;
+
+import battlecode.common.Transaction;
+import battlecode.server.GameMaker;
+
+import gnu.trove.map.hash.TIntObjectHashMap;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * This class holds the blockchain: the transactions waiting to be
+ * broadcast, and the blocks of transactions broadcast in past rounds.
+ *
+ * Broadcast messages are stored back to back in one int array, with the
+ * start of each message and of each block kept alongside, so that blocks
+ * can be looked up by round without walking the chain.
+ */
+public strictfp class Blockchain {
+    /**
+     * How many of the latest blocks keep the Transactions handed out for
+     * them; older blocks are rebuilt from the arena on each request.
+     */
+    private static final int CACHED_BLOCKS = 16;
+
+    private final int transactionsPerBlock;
+
+    // the pending messages, in FIFO order for each cost
+    private final TIntObjectHashMap<ArrayDeque<int[]>> pendingByCost;
+    // a max-heap of the costs with pending messages
+    private int[] pendingCosts;
+    private int numPendingCosts;
+
+    // the broadcast messages, back to back
+    private int[] messageArena;
+    private int messageArenaSize;
+    // the start of each message in the arena, then the end of the last one
+    private int[] messageStarts;
+    private int[] messageCosts;
+    private int numMessages;
+    // the first message of each block, then the end of the last one
+    private int[] blockStarts;
+    private int numBlocks;
+
+    // the Transactions handed out for recent blocks, by block modulo
+    // CACHED_BLOCKS, and the block each entry holds, or -1
+    private final Transaction[][] cachedTransactions;
+    private final int[] cachedBlocks;
+
+    public Blockchain(int transactionsPerBlock) {
+        this.transactionsPerBlock = transactionsPerBlock;
+        this.pendingByCost = new TIntObjectHashMap<>();
+        this.pendingCosts = new int[16];
+        this.messageArena = new int[256];
+        this.messageStarts = new int[64];
+        this.messageCosts = new int[64];
+        this.blockStarts = new int[64];
+        this.cachedTransactions = new Transaction[CACHED_BLOCKS][];
+        this.cachedBlocks = new int[CACHED_BLOCKS];
+        Arrays.fill(this.cachedBlocks, -1);
+    }
+
+    // *********************************
+    // ****** GETTER METHODS ***********
+    // *********************************
+
+    /**
+     * Returns the number of blocks broadcast so far.
+     */
+    public int getNumBlocks() {
+        return numBlocks;
+    }
+
+    /**
+     * Returns the transactions in a block, in the order they were broadcast.
+     * The array is a fresh copy, so the caller may modify it.
+     *
+     * @param block the index of the block, starting from 0
+     */
+    public Transaction[] getBlock(int block) {
+        int entry = block % CACHED_BLOCKS;
+        if (cachedBlocks[entry] == block)
+            return cachedTransactions[entry].clone();
+
+        int start = blockStarts[block];
+        int end = blockStarts[block + 1];
+        Transaction[] transactions = new Transaction[end - start];
+        for (int i = start; i < end; i++)
+            transactions[i - start] = new Transaction(messageCosts[i],
+                    Arrays.copyOfRange(messageArena, messageStarts[i], messageStarts[i + 1]));
+        if (block < numBlocks - CACHED_BLOCKS)
+            return transactions;
+        cachedBlocks[entry] = block;
+        cachedTransactions[entry] = transactions;
+        return transactions.clone();
+    }
+
+    // *********************************
+    // ****** UPDATE METHODS ***********
+    // *********************************
+
+    /**
+     * Adds a transaction to the ones waiting to be broadcast.
+     *
+     * @param cost the cost of the transaction
+     * @param message the message, which is copied
+     */
+    public void addTransaction(int cost, int[] message) {
+        ArrayDeque<int[]> pending = pendingByCost.get(cost);
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+            pendingByCost.put(cost, pending);
+            pushPendingCost(cost);
+        }
+        pending.add(message.clone());
+    }
+
+    /**
+     * Broadcasts the most costly pending transactions as the next block,
+     * transactions with the same cost going in the order they were added.
+     *
+     * @param matchMaker where to record the broadcast messages
+     */
+    public void mineBlock(GameMaker.MatchMaker matchMaker) {
+        if (numBlocks + 2 > blockStarts.length)
+            blockStarts = Arrays.copyOf(blockStarts, 2 * blockStarts.length);
+        for (int i = 0; i < transactionsPerBlock && numPendingCosts > 0; i++) {
+            int cost = pendingCosts[0];
+            ArrayDeque<int[]> pending = pendingByCost.get(cost);
+            int[] message = pending.poll();
+            if (pending.isEmpty()) {
+                pendingByCost.remove(cost);
+                popPendingCost();
+            }
+            int start = messageArenaSize;
+            appendMessage(cost, message);
+            matchMaker.addBroadcastedMessage(cost, messageArena, start, message.length);
+        }
+        numBlocks++;
+        blockStarts[numBlocks] = numMessages;
+    }
+
+    // *********************************
+    // ****** PRIVATE METHODS **********
+    // *********************************
+
+    private void appendMessage(int cost, int[] message) {
+        if (numMessages + 2 > messageStarts.length) {
+            messageStarts = Arrays.copyOf(messageStarts, 2 * messageStarts.length);
+            messageCosts = Arrays.copyOf(messageCosts, 2 * messageCosts.length);
+        }
+        if (messageArenaSize + message.length > messageArena.length)
+            messageArena = Arrays.copyOf(messageArena, Math.max(2 * messageArena.length, messageArenaSize + message.length));
+        System.arraycopy(message, 0, messageArena, messageArenaSize, message.length);
+        messageArenaSize += message.length;
+        messageCosts[numMessages] = cost;
+        numMessages++;
+        messageStarts[numMessages] = messageArenaSize;
+    }
+
+    private void pushPendingCost(int cost) {
+        if (numPendingCosts == pendingCosts.length)
+            pendingCosts = Arrays.copyOf(pendingCosts, 2 * pendingCosts.length);
+        int i = numPendingCosts++;
+        while (i > 0 && pendingCosts[(i - 1) / 2] < cost) {
+            pendingCosts[i] = pendingCosts[(i - 1) / 2];
+            i = (i - 1) / 2;
+        }
+        pendingCosts[i] = cost;
+    }
+
+    private void popPendingCost() {
+        int cost = pendingCosts[--numPendingCosts];
+        int i = 0;
+        while (2 * i + 1 < numPendingCosts) {
+            int child = 2 * i + 1;
+            if (child + 1 < numPendingCosts && pendingCosts[child + 1] > pendingCosts[child])
+                child++;
+            if (pendingCosts[child] <= cost)
+                break;
+            pendingCosts[i] = pendingCosts[child];
+            i = child;
+        }
+        pendingCosts[i] = cost;
+    }
+}
@@ -2,11 +2,15 @@ package battlecode.world;
 
 import battlecode.common.*;
 import battlecode.schema.Action;
+import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
 import battlecode.server.GameMaker;
 import battlecode.server.GameState;
 import battlecode.world.control.RobotControlProvider;
 
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntObjectHashMap;
+
 import java.util.*;
 
 /**
@@ -14,6 +18,8 @@ import java.util.*;
  * modifying the game map and the objects on it.
  */
 public strictfp class GameWorld {
+    private static final Direction[] DIRECTIONS = Direction.allDirections();
+
     /**
      * The current round we're running.
      */
@@ -29,8 +35,18 @@ public strictfp class GameWorld {
     private final int[] initialSoup;
     private int[] soup;
     private int globalPollution;
-    private int[] pollution;
-    private boolean pollutionNeedsUpdate;
+    // the pollution given by the map, used until pollution first changes
+    private int[] initialPollution;
+    private boolean initialPollutionActive;
+    // the sum of the additive effects of the local pollutions covering each tile
+    private int[] localPollutionSums;
+    // the distinct non-unit multiplicative effects seen so far, and for each
+    // of them the number of local pollutions applying it to each tile
+    private float[] pollutionMultipliers;
+    private int[][] pollutionMultiplierCounts;
+    private int numPollutionMultipliers;
+    // incremented whenever the pollution anywhere may have changed
+    private int pollutionVersion;
     // the local pollution effects that are currently active, mapped from
     // robot ID to pollution effect
     private class LocalPollutionEffect {
@@ -45,12 +61,20 @@ public strictfp class GameWorld {
             multiplicativeEffect = m;
         }
     }
-    HashMap<Integer, LocalPollutionEffect> localPollutions;
+    TIntObjectHashMap<LocalPollutionEffect> localPollutions;
     private int[] dirt;
     private int initialWaterLevel;
     private float waterLevel;
     private boolean[] flooded;
-    private InternalRobot[][] robots;
+    // flooded locations that border an unflooded location below the water
+    // level, i.e. those that may spread the flood this round
+    private TIntArrayList floodFrontier;
+    private boolean[] inFloodFrontier;
+    // flooded locations that border only unflooded locations at or above
+    // the water level, bucketed by the lowest such elevation; a location is
+    // only woken once the water level rises above its bucket
+    private TreeMap<Integer, TIntArrayList> floodWakeBuckets;
+    private int[] floodWakeElevation;
     private final LiveMap gameMap;
     private final TeamInfo teamInfo;
     private final ObjectInfo objectInfo;
@@ -58,31 +82,42 @@ public strictfp class GameWorld {
     private final RobotControlProvider controlProvider;
     private Random rand;
 
-    // the pool of messages not yet sent
-    private PriorityQueue<Transaction> blockchainQueue;
-    // the messages that have been broadcasted already
-    public ArrayList<ArrayList<Transaction>> blockchain;
+    // the messages not yet sent, and those that have been broadcasted already
+    private final Blockchain blockchain;
 
     private final GameMaker.MatchMaker matchMaker;
 
+    // whether the GameActionExceptions robots get record stack traces
+    private final boolean stackTraces;
+
     @SuppressWarnings("unchecked")
     public GameWorld(LiveMap gm, RobotControlProvider cp, GameMaker.MatchMaker matchMaker) {
         this.initialSoup = gm.getSoupArray();
         this.soup = gm.getSoupArray();
         this.globalPollution = 0;
-        this.pollution = gm.getPollutionArray();
-        this.pollutionNeedsUpdate = false;
-        this.localPollutions = new HashMap<>();
+        this.initialPollution = gm.getPollutionArray();
+        this.initialPollutionActive = true;
+        this.localPollutionSums = new int[gm.getWidth() * gm.getHeight()];
+        this.pollutionMultipliers = new float[0];
+        this.pollutionMultiplierCounts = new int[0][];
+        this.numPollutionMultipliers = 0;
+        this.localPollutions = new TIntObjectHashMap<>();
         this.dirt = gm.getDirtArray();
         this.initialWaterLevel = gm.getWaterLevel();
         this.waterLevel = this.initialWaterLevel;
         this.flooded = gm.getWaterArray();
-        this.robots = new InternalRobot[gm.getWidth()][gm.getHeight()]; // if represented in cartesian, should be height-width, but this should allow us to index x-y
+        this.floodFrontier = new TIntArrayList();
+        this.inFloodFrontier = new boolean[this.flooded.length];
+        this.floodWakeBuckets = new TreeMap<>();
+        this.floodWakeElevation = new int[this.flooded.length];
+        Arrays.fill(this.floodWakeElevation, Integer.MAX_VALUE);
         this.currentRound = 0;
         this.idGenerator = new IDGenerator(gm.getSeed());
         this.gameStats = new GameStats();
 
         this.gameMap = gm;
+        for (int idx = 0; idx < this.flooded.length; idx++)
+            updateFloodFrontier(idx);
         this.objectInfo = new ObjectInfo(gm);
         this.teamInfo = new TeamInfo(this);
 
@@ -90,11 +125,12 @@ public strictfp class GameWorld {
 
         this.rand = new Random(this.gameMap.getSeed());
 
-        this.blockchainQueue = new PriorityQueue<Transaction>();
-        this.blockchain = new ArrayList<ArrayList<Transaction>>();
+        this.blockchain = new Blockchain(GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK);
 
         this.matchMaker = matchMaker;
 
+        this.stackTraces = Config.getGlobalConfig().getBoolean("bc.server.debug");
+
         controlProvider.matchStarted(this);
 
         // Add the robots contained in the LiveMap to this world.
@@ -137,13 +173,28 @@ public strictfp class GameWorld {
             return GameState.DONE;
         }
         // Write out round data
+        if (matchMaker.isKeyframe(currentRound))
+            addKeyframe();
         matchMaker.makeRound(currentRound);
         return GameState.RUNNING;
     }
 
+    /**
+     * Adds the full state of the match to the round about to be made.
+     */
+    private void addKeyframe() {
+        objectInfo.eachRobot((robot) -> {
+            matchMaker.addKeyframeRobot(robot);
+            return true;
+        });
+        int[] pollution = new int[this.dirt.length];
+        for (int idx = 0; idx < pollution.length; idx++)
+            pollution[idx] = getPollution(idx);
+        matchMaker.setKeyframeMap(this.dirt, this.flooded, pollution, this.soup);
+    }
+
     private void updateDynamicBodies(){
         objectInfo.eachDynamicBodyByExecOrder((body) -> {
-            // System.out.println(Arrays.deepToString(this.robots));
             // System.out.println("iuqhwefiuwfiohqweofhqwiofh");
             // System.out.println(body);
             if (body instanceof InternalRobot) {
@@ -199,6 +250,15 @@ public strictfp class GameWorld {
         return this.matchMaker;
     }
 
+    /**
+     * Returns whether the GameActionExceptions robots get record stack
+     * traces. Recording one is most of the cost of creating an exception,
+     * so it is only done when bc.server.debug is set.
+     */
+    public boolean recordsStackTraces() {
+        return this.stackTraces;
+    }
+
     public Team getWinner() {
         return this.gameStats.getWinner();
     }
@@ -226,8 +286,18 @@ public strictfp class GameWorld {
      * @param idx the index
      */
     public MapLocation indexToLocation(int idx) {
-        return new MapLocation(idx % this.gameMap.getWidth() + this.gameMap.getOrigin().x,
-                               idx / this.gameMap.getWidth() + this.gameMap.getOrigin().y);
+        return this.gameMap.getLocation(idx);
+    }
+
+    /**
+     * Returns the location adjacent to a location in a direction, using the
+     * canonical MapLocation when it is on the map.
+     *
+     * @param loc the MapLocation
+     * @param dir the direction
+     */
+    public MapLocation adjacentLocation(MapLocation loc, Direction dir) {
+        return this.gameMap.getLocation(loc.x + dir.dx, loc.y + dir.dy);
     }
 
     // ***********************************
@@ -256,50 +326,114 @@ public strictfp class GameWorld {
     // ***********************************
 
     public int getPollution(MapLocation loc) {
-        if (pollutionNeedsUpdate)
-            calculatePollution();
-        return this.gameMap.onTheMap(loc) ? this.pollution[locationToIndex(loc)] : 0;
+        return this.gameMap.onTheMap(loc) ? getPollution(locationToIndex(loc)) : 0;
+    }
+
+    /**
+     * Returns the pollution at an index. Global pollution and the product
+     * of the multiplicative effects are applied here, on read, so a change
+     * in global pollution never touches the per-tile state.
+     *
+     * @param idx the index of the location
+     */
+    private int getPollution(int idx) {
+        if (this.initialPollutionActive)
+            return this.initialPollution[idx];
+        float multiplier = 1;
+        for (int i = 0; i < this.numPollutionMultipliers; i++)
+            for (int count = this.pollutionMultiplierCounts[i][idx]; count > 0; count--)
+                multiplier *= this.pollutionMultipliers[i];
+        return Math.round((this.globalPollution + this.localPollutionSums[idx]) * multiplier);
+    }
+
+    /**
+     * Returns a counter that changes whenever the pollution may have
+     * changed, so that values derived from pollution can be memoized.
+     */
+    public int getPollutionVersion() {
+        return this.pollutionVersion;
     }
 
     public void addLocalPollution(int robotID, MapLocation loc, int radiusSquared, int additive, float multiplicative) {
         LocalPollutionEffect pE = new LocalPollutionEffect(loc, radiusSquared, additive, multiplicative);
-        localPollutions.put(robotID, pE);
+        LocalPollutionEffect previous = localPollutions.put(robotID, pE);
+        if (previous != null)
+            applyLocalPollution(previous, -1);
+        applyLocalPollution(pE, 1);
         getMatchMaker().addLocalPollution(loc, radiusSquared, additive, multiplicative);
-        pollutionNeedsUpdate = true;
+        initialPollutionActive = false;
+        pollutionVersion++;
     }
 
     public void resetPollutionForRobot(int robotID) {
         // reset the pollution caused by this robot
         // i.e. remove it from the local pollution hash map
-        localPollutions.remove(robotID);
-        pollutionNeedsUpdate = true;
+        LocalPollutionEffect previous = localPollutions.remove(robotID);
+        if (previous != null)
+            applyLocalPollution(previous, -1);
+        initialPollutionActive = false;
+        pollutionVersion++;
     }
 
     public void addGlobalPollution(int amount) {
         this.globalPollution = Math.max(this.globalPollution + amount, 0);
         getMatchMaker().setGlobalPollution(this.globalPollution);
-        pollutionNeedsUpdate = true;
+        initialPollutionActive = false;
+        pollutionVersion++;
     }
 
-    private void calculatePollution() {
-        // calculates pollution based on pollution effects
-        // this has annoying time complexity but I think it'll be fine
-        for (int x = 0; x < this.gameMap.getWidth(); x++) {
-            for (int y = 0; y < this.gameMap.getHeight(); y++) {
-                MapLocation loc = new MapLocation(x, y);
-                int idx = locationToIndex(loc);
-                pollution[idx] = globalPollution;
-                float multiplier = 1;
-                for (LocalPollutionEffect localPollution : localPollutions.values()) {
-                    if (loc.isWithinDistanceSquared(localPollution.loc, localPollution.radiusSquared)) {
-                        pollution[idx] += localPollution.additiveEffect;
-                        multiplier *= localPollution.multiplicativeEffect;
-                    }
-                }
-                pollution[idx] = Math.round(pollution[idx] * multiplier);
+    /**
+     * Applies (sign = 1) or retracts (sign = -1) a local pollution effect on
+     * the tiles within its radius.
+     *
+     * @param effect the local pollution effect
+     * @param sign 1 to apply the effect, -1 to retract it
+     */
+    private void applyLocalPollution(LocalPollutionEffect effect, int sign) {
+        int[] multiplierCounts = null;
+        if (effect.multiplicativeEffect != 1) {
+            int multiplierIndex = getPollutionMultiplierIndex(effect.multiplicativeEffect);
+            multiplierCounts = this.pollutionMultiplierCounts[multiplierIndex];
+        }
+        int additive = sign * effect.additiveEffect;
+        int radius = (int) Math.sqrt(effect.radiusSquared) + 1; // add +1 just to be safe
+        MapLocation origin = this.gameMap.getOrigin();
+        int minX = Math.max(effect.loc.x - radius, origin.x);
+        int minY = Math.max(effect.loc.y - radius, origin.y);
+        int maxX = Math.min(effect.loc.x + radius, origin.x + this.gameMap.getWidth() - 1);
+        int maxY = Math.min(effect.loc.y + radius, origin.y + this.gameMap.getHeight() - 1);
+        for (int y = minY; y <= maxY; y++) {
+            int dy = y - effect.loc.y;
+            for (int x = minX; x <= maxX; x++) {
+                int dx = x - effect.loc.x;
+                if (dx * dx + dy * dy > effect.radiusSquared)
+                    continue;
+                int idx = x - origin.x + (y - origin.y) * this.gameMap.getWidth();
+                this.localPollutionSums[idx] += additive;
+                if (multiplierCounts != null)
+                    multiplierCounts[idx] += sign;
             }
         }
-        pollutionNeedsUpdate = false;
+    }
+
+    /**
+     * Returns the index of a multiplicative effect in pollutionMultipliers,
+     * registering it if it has not been seen before. Effects are multiplied
+     * in registration order; all robot types share a single non-unit
+     * multiplier, so the product matches any other order exactly.
+     *
+     * @param multiplier the multiplicative effect
+     */
+    private int getPollutionMultiplierIndex(float multiplier) {
+        for (int i = 0; i < this.numPollutionMultipliers; i++)
+            if (Float.floatToIntBits(this.pollutionMultipliers[i]) == Float.floatToIntBits(multiplier))
+                return i;
+        int i = this.numPollutionMultipliers++;
+        this.pollutionMultipliers = Arrays.copyOf(this.pollutionMultipliers, this.numPollutionMultipliers);
+        this.pollutionMultiplierCounts = Arrays.copyOf(this.pollutionMultiplierCounts, this.numPollutionMultipliers);
+        this.pollutionMultipliers[i] = multiplier;
+        this.pollutionMultiplierCounts[i] = new int[this.localPollutionSums.length];
+        return i;
     }
 
     // ***********************************
@@ -344,8 +478,12 @@ public strictfp class GameWorld {
                 targetID = targetRobot.getID();
             }
             else {
-                this.dirt[locationToIndex(loc)] -= 1;
+                int idx = locationToIndex(loc);
+                this.dirt[idx] -= 1;
                 getMatchMaker().addDirtChanged(loc, -1);
+                // the location may now be low enough to be flooded
+                if (!this.flooded[idx])
+                    updateFloodedNeighbors(idx);
             }
             getMatchMaker().addAction(robotID, Action.DIG_DIRT, targetID);
         }
@@ -412,14 +550,80 @@ public strictfp class GameWorld {
     public void setFloodStatus(int idx, boolean newStatus) {
         if (this.flooded[idx] != newStatus) {
             this.flooded[idx] = newStatus;
+            if (newStatus)
+                updateFloodFrontier(idx);
+            else
+                updateFloodedNeighbors(idx);
             getMatchMaker().addWaterChanged(indexToLocation(idx));
             // a robot potentially drowns
-            InternalRobot floodedRobot = getRobot(indexToLocation(idx));
+            InternalRobot floodedRobot = getRobot(idx);
             if (newStatus && floodedRobot != null && !floodedRobot.getType().canFly())
                 destroyRobot(floodedRobot.getID());
         }
     }
 
+    /**
+     * Files a flooded location under the flood frontier if it borders an
+     * unflooded location below the water level, or otherwise under the wake
+     * bucket of the lowest unflooded location it borders. Stale entries are
+     * allowed in both; they are checked again when they come up.
+     *
+     * @param idx the index of the location
+     */
+    private void updateFloodFrontier(int idx) {
+        if (!this.flooded[idx])
+            return;
+        int width = this.gameMap.getWidth();
+        int x = idx % width;
+        int y = idx / width;
+        int lowestDirt = Integer.MAX_VALUE;
+        boolean bordersLand = false;
+        for (Direction dir : DIRECTIONS) {
+            int nx = x + dir.dx;
+            int ny = y + dir.dy;
+            if (nx < 0 || ny < 0 || nx >= width || ny >= this.gameMap.getHeight())
+                continue;
+            int neighbor = nx + ny * width;
+            if (!this.flooded[neighbor]) {
+                bordersLand = true;
+                lowestDirt = Math.min(lowestDirt, this.dirt[neighbor]);
+            }
+        }
+        if (!bordersLand)
+            return;
+        if (lowestDirt < this.waterLevel) {
+            if (!this.inFloodFrontier[idx]) {
+                this.inFloodFrontier[idx] = true;
+                this.floodFrontier.add(idx);
+            }
+        } else if (lowestDirt < this.floodWakeElevation[idx]) {
+            this.floodWakeElevation[idx] = lowestDirt;
+            TIntArrayList bucket = this.floodWakeBuckets.get(lowestDirt);
+            if (bucket == null)
+                this.floodWakeBuckets.put(lowestDirt, bucket = new TIntArrayList());
+            bucket.add(idx);
+        }
+    }
+
+    /**
+     * Refiles the flooded locations around a location whose elevation or
+     * flood status changed.
+     *
+     * @param idx the index of the location
+     */
+    private void updateFloodedNeighbors(int idx) {
+        int width = this.gameMap.getWidth();
+        int x = idx % width;
+        int y = idx / width;
+        for (Direction dir : DIRECTIONS) {
+            int nx = x + dir.dx;
+            int ny = y + dir.dy;
+            if (nx < 0 || ny < 0 || nx >= width || ny >= this.gameMap.getHeight())
+                continue;
+            updateFloodFrontier(nx + ny * width);
+        }
+    }
+
     /**
      * Updates the global water level according to an arbitrary function.
      */
@@ -432,45 +636,55 @@ public strictfp class GameWorld {
     // ***********************************
 
     public InternalRobot getRobot(MapLocation loc) {
-        return this.robots[loc.x][loc.y];
+        return this.objectInfo.getRobotAtLocation(loc);
+    }
+
+    /**
+     * Returns the robot at an index of the map arrays, or null if there is none.
+     *
+     * @param idx the index of the location
+     */
+    public InternalRobot getRobot(int idx) {
+        return this.objectInfo.getRobotAtIndex(idx);
     }
 
     public void moveRobot(MapLocation start, MapLocation end) {
-        addRobot(end, this.robots[start.x][start.y]);
-        removeRobot(start);
+        this.objectInfo.moveRobot(start, end);
     }
 
     public void addRobot(MapLocation loc, InternalRobot robot) {
-        this.robots[loc.x][loc.y] = robot;
+        this.objectInfo.addRobotToLocation(loc, robot);
     }
 
     public void removeRobot(MapLocation loc) {
-        this.robots[loc.x][loc.y] = null;
+        this.objectInfo.removeRobotFromLocation(loc);
     }
 
     public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared) {
-        ArrayList<InternalRobot> returnRobots = new ArrayList<InternalRobot>();
-        for (MapLocation newLocation : getAllLocationsWithinRadiusSquared(center, radiusSquared))
-            if (this.robots[newLocation.x][newLocation.y] != null)
-                returnRobots.add(this.robots[newLocation.x][newLocation.y]);
-        return returnRobots.toArray(new InternalRobot[returnRobots.size()]);
+        return getAllRobotsWithinRadiusSquared(center, radiusSquared, null);
+    }
+
+    public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, Team team) {
+        return this.objectInfo.getAllRobotsWithinRadiusSquared(center, radiusSquared, team);
     }
 
     public MapLocation[] getAllLocationsWithinRadiusSquared(MapLocation center, int radiusSquared) {
         ArrayList<MapLocation> returnLocations = new ArrayList<MapLocation>();
         int ceiledRadius = (int) Math.ceil(Math.sqrt(radiusSquared)) + 1; // add +1 just to be safe
-        int minX = Math.max(center.x - ceiledRadius, 0);
-        int minY = Math.max(center.y - ceiledRadius, 0);
-        int maxX = Math.min(center.x + ceiledRadius, this.gameMap.getWidth() - 1);
-        int maxY = Math.min(center.y + ceiledRadius, this.gameMap.getHeight() - 1);
+        MapLocation origin = this.gameMap.getOrigin();
+        int minX = Math.max(center.x - ceiledRadius, origin.x);
+        int minY = Math.max(center.y - ceiledRadius, origin.y);
+        int maxX = Math.min(center.x + ceiledRadius, origin.x + this.gameMap.getWidth() - 1);
+        int maxY = Math.min(center.y + ceiledRadius, origin.y + this.gameMap.getHeight() - 1);
         for (int x = minX; x <= maxX; x++) {
             for (int y = minY; y <= maxY; y++) {
-                MapLocation newLocation = new MapLocation(x, y);
-                if (center.isWithinDistanceSquared(newLocation, radiusSquared))
-                    returnLocations.add(newLocation);
+                int dx = x - center.x;
+                int dy = y - center.y;
+                if (dx * dx + dy * dy <= radiusSquared)
+                    returnLocations.add(this.gameMap.getLocation(x, y));
             }
         }
-        return returnLocations.toArray(new MapLocation[0]);
+        return returnLocations.toArray(new MapLocation[returnLocations.size()]);
     }
 
     // *********************************
@@ -483,11 +697,10 @@ public strictfp class GameWorld {
         this.teamInfo.addSoupIncome(GameConstants.BASE_INCOME_PER_ROUND);
 
         // Process beginning of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            if (!robot.isBlocked()) // blocked robots don't do anything
-                robot.processBeginningOfRound();
-            return true;
-        });
+        RobotStore robots = objectInfo.getRobotStore();
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (!robots.isBlocked(slot)) // blocked robots don't do anything
+                robots.getRobot(slot).processBeginningOfRound();
     }
 
     public void setWinner(Team t, DominationFactor d)  {
@@ -539,12 +752,8 @@ public strictfp class GameWorld {
      */
     public boolean setWinnerIfQuality() {
         int[] netWorths = new int[2];
-        netWorths[0] = this.teamInfo.getSoup(Team.A);
-        netWorths[1] = this.teamInfo.getSoup(Team.B);
-        for (InternalRobot robot : objectInfo.robotsArray()) {
-            if (robot.getTeam() == Team.NEUTRAL) continue;
-            netWorths[robot.getTeam().ordinal()] += robot.getType().cost;
-        }
+        netWorths[0] = this.teamInfo.getSoup(Team.A) + objectInfo.getRobotCost(Team.A);
+        netWorths[1] = this.teamInfo.getSoup(Team.B) + objectInfo.getRobotCost(Team.B);
         if (netWorths[0] > netWorths[1]) {
             setWinner(Team.A, DominationFactor.QUALITY_OVER_QUANTITY);
             return true;
@@ -569,13 +778,14 @@ public strictfp class GameWorld {
      * Sets winner based on highest robot id.
      */
     public boolean setWinnerHighestRobotID() {
-        InternalRobot highestIDRobot = null;
-        for (InternalRobot robot : objectInfo.robotsArray())
-            if (highestIDRobot == null || robot.getID() > highestIDRobot.getID())
-                highestIDRobot = robot;
-        if (highestIDRobot == null)
+        RobotStore robots = objectInfo.getRobotStore();
+        int highestIDSlot = -1;
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (highestIDSlot == -1 || robots.getID(slot) > robots.getID(highestIDSlot))
+                highestIDSlot = slot;
+        if (highestIDSlot == -1)
             return false;
-        setWinner(highestIDRobot.getTeam(), DominationFactor.HIGHBORN);
+        setWinner(robots.getTeam(highestIDSlot), DominationFactor.HIGHBORN);
         return true;
     }
 
@@ -593,11 +803,10 @@ public strictfp class GameWorld {
 
     public void processEndOfRound() {
         // Process end of each robot's round
-        objectInfo.eachRobot((robot) -> {
-            if (!robot.isBlocked()) // blocked robots don't do anything
-                robot.processEndOfRound();
-            return true;
-        });
+        RobotStore robots = objectInfo.getRobotStore();
+        for (int slot = 0; slot < robots.size(); slot++)
+            if (!robots.isBlocked(slot)) // blocked robots don't do anything
+                robots.getRobot(slot).processEndOfRound();
 
         // process blockchain messages
         processBlockchain();
@@ -627,23 +836,53 @@ public strictfp class GameWorld {
     /**
      * Flood expands from currently flooded locations to immediately
      *  adjacent locations that are beneath the current water level.
+     * Only the flood frontier is visited, in index order, so the result
+     *  is the same as visiting every flooded location.
      */
     public void floodfill() {
-        ArrayList<MapLocation> floodOrigins = new ArrayList<MapLocation>();
-        for (int idx = 0; idx < this.flooded.length; idx++)
+        // wake the locations whose bordering land is now underwater
+        while (!this.floodWakeBuckets.isEmpty() && this.floodWakeBuckets.firstKey() < this.waterLevel) {
+            Map.Entry<Integer, TIntArrayList> bucket = this.floodWakeBuckets.pollFirstEntry();
+            int elevation = bucket.getKey();
+            TIntArrayList locations = bucket.getValue();
+            for (int i = 0; i < locations.size(); i++) {
+                int idx = locations.getQuick(i);
+                if (this.floodWakeElevation[idx] != elevation)
+                    continue; // refiled under a lower bucket since
+                this.floodWakeElevation[idx] = Integer.MAX_VALUE;
+                updateFloodFrontier(idx);
+            }
+        }
+
+        // locations flooded this round don't spread until the next one
+        int[] floodOrigins = this.floodFrontier.toArray();
+        this.floodFrontier.resetQuick();
+        int numOrigins = 0;
+        for (int idx : floodOrigins) {
+            this.inFloodFrontier[idx] = false;
             if (this.flooded[idx])
-                floodOrigins.add(indexToLocation(idx));
-        for (MapLocation center : floodOrigins) {
-            for (Direction dir : Direction.allDirections()) {
-                MapLocation targetLoc = center.add(dir);
-                if (!this.gameMap.onTheMap(targetLoc))
+                floodOrigins[numOrigins++] = idx;
+        }
+        Arrays.sort(floodOrigins, 0, numOrigins);
+
+        int width = this.gameMap.getWidth();
+        int height = this.gameMap.getHeight();
+        for (int i = 0; i < numOrigins; i++) {
+            int x = floodOrigins[i] % width;
+            int y = floodOrigins[i] / width;
+            for (Direction dir : DIRECTIONS) {
+                int nx = x + dir.dx;
+                int ny = y + dir.dy;
+                if (nx < 0 || ny < 0 || nx >= width || ny >= height)
                     continue;
-                int idx = locationToIndex(targetLoc);
+                int idx = nx + ny * width;
                 if (flooded[idx] || dirt[idx] >= waterLevel)
                     continue;
                 setFloodStatus(idx, true);
             }
         }
+        for (int i = 0; i < numOrigins; i++)
+            updateFloodFrontier(floodOrigins[i]);
     }
 
     // *********************************
@@ -669,32 +908,27 @@ public strictfp class GameWorld {
     // ****** BLOCKCHAIN *************** 
     // *********************************
 
+    public Blockchain getBlockchain() {
+        return this.blockchain;
+    }
+
     /**
-     * Add new transaction to the priority queue of transactions, and also add them
+     * Add new transaction to the pending transactions, and also add it
      * to the matchmaker.
-     * @param transaction The message to add.
+     *
+     * @param cost the cost of the transaction
+     * @param message the message to add
      */
-    public void addTransaction(Transaction transaction) {
-        getMatchMaker().addNewMessage(transaction.getCost(), transaction.getSerializedMessage());
+    public void addTransaction(int cost, int[] message) {
+        getMatchMaker().addNewMessage(cost, message, 0, message.length);
 
-        // add it to the priority queue 
-        blockchainQueue.add(transaction);
+        // add it to the pending transactions
+        blockchain.addTransaction(cost, message);
     }
 
     private void processBlockchain() {
-        // process messages, take the K first ones!
-        ArrayList<Transaction> block = new ArrayList<Transaction>();
-        for (int i = 0; i < GameConstants.NUMBER_OF_TRANSACTIONS_PER_BLOCK; i++) {
-            if (blockchainQueue.size() > 0) {
-                Transaction transaction = blockchainQueue.poll();
-                // send this to match maker!
-                matchMaker.addBroadcastedMessage(transaction.getCost(), transaction.getSerializedMessage());
-                // also add it to this round's list of messages!
-                block.add(transaction);
-            }
-        }
-        // add this to the blockchain!
-        blockchain.add(block);
+        // process messages, take the K first ones, and send them to match maker!
+        blockchain.mineBlock(matchMaker);
     }
    
     // *********************************
@@ -4,31 +4,36 @@ import battlecode.common.*;
 import battlecode.schema.Action;
 
 /**
- * The representation of a robot used by the server.
+ * The representation of a robot used by the server. The state of the
+ * robot lives in a slot of the world's RobotStore; this is a handle to it.
+ * Once the robot leaves the store, its state moves to the store's
+ * graveyard, so the handle keeps working.
  */
 public strictfp class InternalRobot {
+    private static final Team[] TEAMS = Team.values();
+    private static final RobotType[] TYPES = RobotType.values();
+
     private final RobotControllerImpl controller;
     private final GameWorld gameWorld;
 
     private final int ID;
-    private Team team;
-    private RobotType type;
-    private MapLocation location;
-
-    private long controlBits;
-    private int currentBytecodeLimit;
-    private int bytecodesUsed;
 
-    private int roundsAlive;
-    private int soupCarrying; // amount of soup the robot is carrying (miners and refineries)
-    private int dirtCarrying; // amount of dirt the robot is carrying (landscapers and buildings)
-    
-    private float cooldownTurns;
-
-    private boolean currentlyHoldingUnit;
-    private int idOfUnitCurrentlyHeld;
+    /**
+     * The store holding the state of the robot, and its slot there.
+     * The store also tracks the amount of soup and dirt the robot is
+     * carrying, the unit it is holding (if a delivery drone) and whether
+     * it is blocked (when picked up by a delivery drone).
+     */
+    private RobotStore store;
+    private int slot;
 
-    private boolean blocked;  // when picked up by a delivery drone
+    /**
+     * The sensor radius squared is memoized until the robot moves or the
+     * pollution changes, since sensing checks it once per sensed location.
+     */
+    private int cachedSensorRadiusSquared;
+    private MapLocation cachedSensorRadiusLocation;
+    private int cachedSensorRadiusPollutionVersion;
 
     /**
      * Used to avoid recreating the same RobotInfo object over and over.
@@ -46,24 +51,8 @@ public strictfp class InternalRobot {
     @SuppressWarnings("unchecked")
     public InternalRobot(GameWorld gw, int id, RobotType type, MapLocation loc, Team team) {
         this.ID = id;
-        this.team = team;
-        this.type = type;
-        this.location = loc;
-
-        this.controlBits = 0;
-        this.currentBytecodeLimit = type.bytecodeLimit;
-        this.bytecodesUsed = 0;
-
-        this.roundsAlive = 0;
-        this.soupCarrying = 0;
-        this.dirtCarrying = 0;
-        
-        this.cooldownTurns = 0;
-
-        this.currentlyHoldingUnit = false;
-        this.idOfUnitCurrentlyHeld = -1;
-
-        this.blocked = false;
+        this.store = gw.getObjectInfo().getRobotStore();
+        this.slot = this.store.add(this, id, type, loc, team);
 
         this.gameWorld = gw;
         this.controller = new RobotControllerImpl(gameWorld, this);
@@ -86,54 +75,57 @@ public strictfp class InternalRobot {
     }
 
     public Team getTeam() {
-        return team;
+        return TEAMS[store.teams[slot]];
     }
 
     public RobotType getType() {
-        return type;
+        return TYPES[store.types[slot]];
     }
 
     public MapLocation getLocation() {
-        return location;
+        return this.gameWorld.getGameMap().getLocation(store.xs[slot], store.ys[slot]);
     }
 
     public long getControlBits() {
-        return controlBits;
+        return store.controlBits[slot];
     }
 
     public int getBytecodesUsed() {
-        return bytecodesUsed;
+        return store.bytecodesUsed[slot];
     }
 
     public int getRoundsAlive() {
-        return roundsAlive;
+        return store.roundsAlive[slot];
     }
 
     public int getSoupCarrying() {
-        return soupCarrying;
+        return store.soupCarrying[slot];
     }
 
     public int getDirtCarrying() {
-        return dirtCarrying;
+        return store.dirtCarrying[slot];
     }
     
     public float getCooldownTurns() {
-        return cooldownTurns;
+        return store.cooldownTurns[slot];
     }
 
     public boolean isCurrentlyHoldingUnit() {
-        return currentlyHoldingUnit;
+        return store.heldUnitIDs[slot] != -1;
     }
 
     public int getIdOfUnitCurrentlyHeld() {
-        return idOfUnitCurrentlyHeld;
+        return store.heldUnitIDs[slot];
     }
 
     public boolean isBlocked() {
-        return blocked;
+        return store.blocked[slot];
     }
 
     public RobotInfo getRobotInfo() {
+        Team team = getTeam();
+        RobotType type = getType();
+        MapLocation location = getLocation();
         if (this.cachedRobotInfo != null
                 && this.cachedRobotInfo.ID == ID
                 && this.cachedRobotInfo.team == team
@@ -146,21 +138,32 @@ public strictfp class InternalRobot {
     }
 
     public void pickUpUnit(int id) {
-        this.currentlyHoldingUnit = true;
-        this.idOfUnitCurrentlyHeld = id;
+        store.heldUnitIDs[slot] = id;
     }
 
     public void dropUnit() {
-        this.currentlyHoldingUnit = false;
-        this.idOfUnitCurrentlyHeld = -1;
+        store.heldUnitIDs[slot] = -1;
     }
 
     public void blockUnit() {
-        this.blocked = true;
+        store.blocked[slot] = true;
     }
 
     public void unblockUnit() {
-        this.blocked = false;
+        store.blocked[slot] = false;
+    }
+
+    int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Points the handle at the robot's state, after it has been moved
+     * within its store or to the graveyard.
+     */
+    void setStore(RobotStore store, int slot) {
+        this.store = store;
+        this.slot = slot;
     }
 
     // **********************************
@@ -172,7 +175,15 @@ public strictfp class InternalRobot {
      * by the current pollution level at the present location.
      */
     public int getCurrentSensorRadiusSquared() {
-        return (int) Math.round(this.type.sensorRadiusSquared * GameConstants.getSensorRadiusPollutionCoefficient(this.gameWorld.getPollution(getLocation())));
+        int pollutionVersion = this.gameWorld.getPollutionVersion();
+        MapLocation location = getLocation();
+        if (this.cachedSensorRadiusLocation != location
+                || this.cachedSensorRadiusPollutionVersion != pollutionVersion) {
+            this.cachedSensorRadiusSquared = (int) Math.round(getType().sensorRadiusSquared * GameConstants.getSensorRadiusPollutionCoefficient(this.gameWorld.getPollution(location)));
+            this.cachedSensorRadiusLocation = location;
+            this.cachedSensorRadiusPollutionVersion = pollutionVersion;
+        }
+        return this.cachedSensorRadiusSquared;
     }
 
     /**
@@ -181,7 +192,7 @@ public strictfp class InternalRobot {
      * @param toSense the MapLocation to sense
      */
     public boolean canSenseLocation(MapLocation toSense){
-        return this.location.distanceSquaredTo(toSense) <= getCurrentSensorRadiusSquared();
+        return getLocation().distanceSquaredTo(toSense) <= getCurrentSensorRadiusSquared();
     }
 
     /**
@@ -203,15 +214,15 @@ public strictfp class InternalRobot {
      * @param loc the new location of the robot
      */
     public void setLocation(MapLocation loc) {
-        this.gameWorld.getObjectInfo().moveRobot(this, loc);
-        this.location = loc;
+        store.xs[slot] = loc.x;
+        store.ys[slot] = loc.y;
     }
 
     /**
      * Resets the action cooldown using the formula cooldown = type_cooldown + pollution_at_location.
      */
     public void addCooldownTurns() {
-        setCooldownTurns(this.cooldownTurns + this.type.actionCooldown * GameConstants.getCooldownPollutionCoefficient(this.gameWorld.getPollution(getLocation())));
+        setCooldownTurns(getCooldownTurns() + getType().actionCooldown * GameConstants.getCooldownPollutionCoefficient(this.gameWorld.getPollution(getLocation())));
     }
     
     /**
@@ -220,7 +231,7 @@ public strictfp class InternalRobot {
      * @param newTurns the number of cooldown turns
      */
     public void setCooldownTurns(float newTurns) {
-        this.cooldownTurns = newTurns;
+        store.cooldownTurns[slot] = newTurns;
     }
 
     // ******************************************
@@ -228,11 +239,12 @@ public strictfp class InternalRobot {
     // ******************************************
 
     public void addSoupCarrying(int amount) {
-        this.soupCarrying += amount;
+        store.soupCarrying[slot] += amount;
     }
 
     public void removeSoupCarrying(int amount) {
-        this.soupCarrying = amount > this.soupCarrying ? 0 : this.soupCarrying - amount;
+        int soupCarrying = store.soupCarrying[slot];
+        store.soupCarrying[slot] = amount > soupCarrying ? 0 : soupCarrying - amount;
     }
 
     // ******************************************
@@ -247,8 +259,8 @@ public strictfp class InternalRobot {
      * @param amount the amount of dirt to add
      */
     public void addDirtCarrying(int amount) {
-        this.dirtCarrying += amount;
-        if (getType().isBuilding() && this.dirtCarrying >= getType().dirtLimit)
+        store.dirtCarrying[slot] += amount;
+        if (getType().isBuilding() && store.dirtCarrying[slot] >= getType().dirtLimit)
             this.gameWorld.destroyRobot(getID());
     }
 
@@ -259,9 +271,9 @@ public strictfp class InternalRobot {
      * @return the amount of dirt removed
      */
     public int removeDirtCarrying(int amount) {
-        int oldDirtCarrying = this.dirtCarrying;
-        this.dirtCarrying = amount > this.dirtCarrying ? 0 : this.dirtCarrying - amount;
-        return oldDirtCarrying - this.dirtCarrying;
+        int oldDirtCarrying = store.dirtCarrying[slot];
+        store.dirtCarrying[slot] = amount > oldDirtCarrying ? 0 : oldDirtCarrying - amount;
+        return oldDirtCarrying - store.dirtCarrying[slot];
     }
 
     // *********************************
@@ -274,46 +286,47 @@ public strictfp class InternalRobot {
     }
 
     public void processBeginningOfTurn() {
-        if (this.cooldownTurns > 0)
-            this.cooldownTurns = Math.max(0, this.cooldownTurns-1);
-        this.currentBytecodeLimit = getType().bytecodeLimit;
+        if (store.cooldownTurns[slot] > 0)
+            store.cooldownTurns[slot] = Math.max(0, store.cooldownTurns[slot]-1);
+        store.bytecodeLimits[slot] = getType().bytecodeLimit;
     }
 
     public void processEndOfTurn() {
+        RobotType type = getType();
         // REFINING AND POLLUTION
         // if can produce pollution, reset it now
-        if (this.type.canAffectPollution()) {
+        if (type.canAffectPollution()) {
             this.gameWorld.resetPollutionForRobot(this.ID);
         }
         // whether the robot should pollute
         boolean shouldPollute = false;
         // If refinery//hq, produces refined soup
-        if (this.type.canRefine() && this.soupCarrying > 0) {
-            int soupProduced = Math.min(this.soupCarrying, this.type.maxSoupProduced);
-            this.soupCarrying -= soupProduced;
-            this.gameWorld.getTeamInfo().adjustSoup(this.team, soupProduced);
+        if (type.canRefine() && store.soupCarrying[slot] > 0) {
+            int soupProduced = Math.min(store.soupCarrying[slot], type.maxSoupProduced);
+            store.soupCarrying[slot] -= soupProduced;
+            this.gameWorld.getTeamInfo().adjustSoup(getTeam(), soupProduced);
             // this is an action!
             this.gameWorld.getMatchMaker().addAction(this.ID, Action.REFINE_SOUP, -1);
             shouldPollute = true;
         }
         // If vaporator, produces refined soup always
-        if (this.type == RobotType.VAPORATOR) {
-            this.gameWorld.getTeamInfo().adjustSoup(this.team, this.type.maxSoupProduced);
+        if (type == RobotType.VAPORATOR) {
+            this.gameWorld.getTeamInfo().adjustSoup(getTeam(), type.maxSoupProduced);
             shouldPollute = true;
         }
         // If cow, always pollute
-        if (this.type == RobotType.COW) {
+        if (type == RobotType.COW) {
             shouldPollute = true;
         }
-        if (this.type.canAffectPollution() && shouldPollute) {
-            this.gameWorld.addGlobalPollution(this.type.globalPollutionAmount);
+        if (type.canAffectPollution() && shouldPollute) {
+            this.gameWorld.addGlobalPollution(type.globalPollutionAmount);
             // now add a local pollution
-            this.gameWorld.addLocalPollution(this.ID, this.getLocation(), this.type.pollutionRadiusSquared, this.type.localPollutionAdditiveEffect, this.type.localPollutionMultiplicativeEffect);
+            this.gameWorld.addLocalPollution(this.ID, this.getLocation(), type.pollutionRadiusSquared, type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect);
         }
 
         // bytecode stuff!
-        this.gameWorld.getMatchMaker().addBytecodes(ID, this.bytecodesUsed);
-        this.roundsAlive++;
+        this.gameWorld.getMatchMaker().addBytecodes(ID, store.bytecodesUsed[slot]);
+        store.roundsAlive[slot]++;
     }
 
     public void processEndOfRound() {
@@ -336,11 +349,11 @@ public strictfp class InternalRobot {
     }
 
     public void setBytecodesUsed(int numBytecodes) {
-        this.bytecodesUsed = numBytecodes;
+        store.bytecodesUsed[slot] = numBytecodes;
     }
 
     public int getBytecodeLimit() {
-        return canExecuteCode() ? this.currentBytecodeLimit : 0;
+        return canExecuteCode() ? store.bytecodeLimits[slot] : 0;
     }
 
     // *********************************
@@ -55,6 +55,12 @@ public strictfp class LiveMap {
 
     private int waterLevel;
 
+    /**
+     * The canonical MapLocation of every location on the map, indexed like
+     * the map arrays, so that the engine does not allocate new ones.
+     */
+    private final MapLocation[] locations;
+
     public LiveMap(int width,
                    int height,
                    MapLocation origin,
@@ -74,6 +80,7 @@ public strictfp class LiveMap {
         this.waterArray = new boolean[width * height];
         this.dirtArray = new int[width * height];
         this.waterLevel = 0;
+        this.locations = createLocations(width, height, origin);
 
         // invariant: bodies is sorted by id
         Arrays.sort(this.initialBodies, (a, b) -> Integer.compare(a.getID(), b.getID()));
@@ -109,6 +116,7 @@ public strictfp class LiveMap {
             this.dirtArray[i] = dirtArray[i];
         }
         this.waterLevel = initialWater;
+        this.locations = createLocations(width, height, origin);
         // invariant: bodies is sorted by id
         Arrays.sort(this.initialBodies, (a, b) -> Integer.compare(a.getID(), b.getID()));
     }
@@ -229,10 +237,41 @@ public strictfp class LiveMap {
      *         false if it's not
      */
     public boolean onTheMap(MapLocation loc, int radius){
-        return (onTheMap(loc.translate(-radius, 0)) &&
-                onTheMap(loc.translate(radius, 0)) &&
-                onTheMap(loc.translate(0, -radius)) &&
-                onTheMap(loc.translate(0, radius)));
+        return (onTheMap(loc.x - radius, loc.y) &&
+                onTheMap(loc.x + radius, loc.y) &&
+                onTheMap(loc.x, loc.y - radius) &&
+                onTheMap(loc.x, loc.y + radius));
+    }
+
+    /**
+     * Returns the canonical MapLocation at an index of the map arrays.
+     *
+     * @param idx the index, which must be on the map
+     * @return the location at that index
+     */
+    public MapLocation getLocation(int idx) {
+        return locations[idx];
+    }
+
+    /**
+     * Returns the MapLocation with the given coordinates, which is the
+     * canonical one if the coordinates are on the map.
+     *
+     * @param x the x-coordinate of the location
+     * @param y the y-coordinate of the location
+     * @return the location with those coordinates
+     */
+    public MapLocation getLocation(int x, int y) {
+        if (!onTheMap(x, y))
+            return new MapLocation(x, y);
+        return locations[x - origin.x + (y - origin.y) * width];
+    }
+
+    private static MapLocation[] createLocations(int width, int height, MapLocation origin) {
+        MapLocation[] locations = new MapLocation[width * height];
+        for (int i = 0; i < locations.length; i++)
+            locations[i] = new MapLocation(i % width + origin.x, i / width + origin.y);
+        return locations;
     }
 
     /**
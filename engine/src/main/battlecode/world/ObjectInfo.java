@@ -6,20 +6,15 @@ import battlecode.common.RobotType;
 import battlecode.common.Team;
 
 import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.hash.TIntIntHashMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 import gnu.trove.procedure.TIntObjectProcedure;
 import gnu.trove.procedure.TIntProcedure;
 
 import gnu.trove.procedure.TObjectProcedure;
-import net.sf.jsi.SpatialIndex;
-import net.sf.jsi.rtree.RTree;
-import net.sf.jsi.Rectangle;
-import net.sf.jsi.Point;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
-import java.util.EnumMap;
-import java.util.Map;
 
 
 /**
@@ -27,19 +22,93 @@ import java.util.Map;
  * in the game world.
  */
 public strictfp class ObjectInfo {
+    /**
+     * The value of robotIDsByLocation at an unoccupied location.
+     */
+    private static final int NO_ROBOT = -1;
+
+    /**
+     * The side length of the square chunks that the map is split into
+     * for the chunk-level robot counts, as a power of two.
+     */
+    private static final int CHUNK_SHIFT = 3;
+    private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+
     private final int mapWidth;
     private final int mapHeight;
     private final MapLocation mapTopLeft;
 
     private final TIntObjectHashMap<InternalRobot> gameRobotsByID;
 
-    private final SpatialIndex robotIndex;
+    /**
+     * The state of every robot in the world.
+     */
+    private final RobotStore robotStore;
+
+    /**
+     * The ID of the robot at each location, indexed like the map arrays,
+     * or NO_ROBOT. Units held by delivery drones are not on the grid.
+     */
+    private final int[] robotIDsByLocation;
 
-    private final TIntArrayList dynamicBodyExecOrder;
+    /**
+     * For each team, a bitset of the locations occupied by its robots.
+     */
+    private final long[][] locationsByTeam;
+
+    /**
+     * The number of robots on the grid in each chunk, so that queries can
+     * skip empty chunks.
+     */
+    private final int[] robotCountByChunk;
+    private final int chunksPerRow;
+
+    /**
+     * For every radius squared up to the largest sensor radius squared, the
+     * offsets to the locations within that radius, ordered by dx and then
+     * by dy and stored as consecutive (dx, dy) pairs.
+     */
+    private static final int[][] OFFSETS_WITHIN_RADIUS_SQUARED;
+
+    static {
+        int maxRadiusSquared = 0;
+        for (RobotType type : RobotType.values())
+            maxRadiusSquared = Math.max(maxRadiusSquared, type.sensorRadiusSquared);
+        int maxRadius = (int) Math.sqrt(maxRadiusSquared) + 1;
+        OFFSETS_WITHIN_RADIUS_SQUARED = new int[maxRadiusSquared + 1][];
+        for (int radiusSquared = 0; radiusSquared <= maxRadiusSquared; radiusSquared++) {
+            TIntArrayList offsets = new TIntArrayList();
+            for (int dx = -maxRadius; dx <= maxRadius; dx++) {
+                for (int dy = -maxRadius; dy <= maxRadius; dy++) {
+                    if (dx * dx + dy * dy <= radiusSquared) {
+                        offsets.add(dx);
+                        offsets.add(dy);
+                    }
+                }
+            }
+            OFFSETS_WITHIN_RADIUS_SQUARED[radiusSquared] = offsets.toArray();
+        }
+    }
+
+    private final InternalRobot[] robotQueryBuffer;
+
+    /**
+     * The robots in the order they are updated, which is spawn order.
+     * Destroyed robots leave a null tombstone behind, so that removal
+     * doesn't shift the list; tombstones are compacted away between rounds.
+     */
+    private InternalRobot[] dynamicBodyExecOrder;
+    private int dynamicBodyExecOrderSize;
+    private int numExecOrderTombstones;
+    private final TIntIntHashMap execOrderIndicesByID;
 
-    private Map<Team, Map<RobotType, Integer>> robotTypeCount = new EnumMap<>(
-            Team.class);
-    private int[] robotCount = new int[3];
+    /**
+     * The number of live robots of each team, of each type by team, and
+     * the total soup cost of each team's live robots.
+     */
+    private final int[] robotCount = new int[Team.values().length];
+    private final int[][] robotTypeCount = new int[Team.values().length][RobotType.values().length];
+    private final int[] robotCost = new int[Team.values().length];
 
     public ObjectInfo(LiveMap gm){
         this.mapWidth = gm.getWidth();
@@ -47,27 +116,30 @@ public strictfp class ObjectInfo {
         this.mapTopLeft = gm.getOrigin();
 
         this.gameRobotsByID = new TIntObjectHashMap<>();
+        this.robotStore = new RobotStore(64);
 
-        robotIndex = new RTree();
-
-        dynamicBodyExecOrder = new TIntArrayList();
+        this.robotIDsByLocation = new int[mapWidth * mapHeight];
+        Arrays.fill(this.robotIDsByLocation, NO_ROBOT);
+        this.locationsByTeam = new long[Team.values().length][(mapWidth * mapHeight + 63) >>> 6];
+        this.chunksPerRow = (mapWidth + CHUNK_SIZE - 1) >> CHUNK_SHIFT;
+        this.robotCountByChunk = new int[chunksPerRow * ((mapHeight + CHUNK_SIZE - 1) >> CHUNK_SHIFT)];
+        this.robotQueryBuffer = new InternalRobot[mapWidth * mapHeight];
 
-        robotIndex.init(null);
-
-        robotTypeCount.put(Team.A, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.B, new EnumMap<>(
-                RobotType.class));
-        robotTypeCount.put(Team.NEUTRAL, new EnumMap<>(
-                RobotType.class));
+        dynamicBodyExecOrder = new InternalRobot[64];
+        execOrderIndicesByID = new TIntIntHashMap();
     }
 
     public int getRobotTypeCount(Team team, RobotType type) {
-        if (robotTypeCount.get(team).containsKey(type)) {
-            return robotTypeCount.get(team).get(type);
-        } else {
-            return 0;
-        }
+        return robotTypeCount[team.ordinal()][type.ordinal()];
+    }
+
+    /**
+     * Returns the total soup cost of a team's live robots.
+     *
+     * @param team the team
+     */
+    public int getRobotCost(Team team) {
+        return robotCost[team.ordinal()];
     }
 
     /**
@@ -93,20 +165,20 @@ public strictfp class ObjectInfo {
      * @param op a lambda (body) -> void
      */
     public void eachDynamicBodyByExecOrder(TObjectProcedure<InternalRobot> op) {
-        // We can't modify the ArrayList we are looping over
-        int[] spawnOrderArray = dynamicBodyExecOrder.toArray();
-
-        for (int id : spawnOrderArray) {
-            // Check if body still exists.
-            if (existsRobot(id)) {
-                boolean returnedTrue = op.execute(gameRobotsByID.get(id));
-                if (!returnedTrue)
-                    break;
-            } else {
-                // The body does not exist, so it was deleted in an earlier
-                // iteration and should be skipped.
+        if (4 * numExecOrderTombstones > dynamicBodyExecOrderSize)
+            compactExecOrder();
+
+        // Bodies spawned during iteration are appended past the end, and
+        // first update next time
+        int end = dynamicBodyExecOrderSize;
+        for (int i = 0; i < end; i++) {
+            InternalRobot robot = dynamicBodyExecOrder[i];
+            // The body was deleted in an earlier iteration and should be skipped.
+            if (robot == null)
                 continue;
-            }
+            boolean returnedTrue = op.execute(robot);
+            if (!returnedTrue)
+                break;
         }
     }
 
@@ -128,15 +200,161 @@ public strictfp class ObjectInfo {
         return robotCount[team.ordinal()];
     }
 
+    /**
+     * Returns the store holding the state of every robot in the world,
+     * for passes over all of them.
+     */
+    public RobotStore getRobotStore() {
+        return robotStore;
+    }
+
     public InternalRobot getRobotByID(int id) {
         return gameRobotsByID.get(id);
     }
 
-    public void moveRobot(InternalRobot robot, MapLocation newLocation) {
-        MapLocation loc = robot.getLocation();
+    // ****************************
+    // *** LOCATION METHODS *******
+    // ****************************
+
+    /**
+     * Returns the robot on the grid at a location, or null if there is none.
+     *
+     * @param loc the location, which must be on the map
+     */
+    public InternalRobot getRobotAtLocation(MapLocation loc) {
+        return getRobotAtIndex(locationToIndex(loc));
+    }
+
+    /**
+     * Returns the robot on the grid at an index of the map arrays, or null
+     * if there is none.
+     *
+     * @param idx the index of the location
+     */
+    public InternalRobot getRobotAtIndex(int idx) {
+        int id = robotIDsByLocation[idx];
+        return id == NO_ROBOT ? null : gameRobotsByID.get(id);
+    }
+
+    /**
+     * Puts a robot on the grid at a location, replacing any robot there.
+     *
+     * @param loc the location, which must be on the map
+     * @param robot the robot
+     */
+    public void addRobotToLocation(MapLocation loc, InternalRobot robot) {
+        int idx = locationToIndex(loc);
+        clearLocation(idx);
+        robotIDsByLocation[idx] = robot.getID();
+        locationsByTeam[robot.getTeam().ordinal()][idx >>> 6] |= 1L << idx;
+        robotCountByChunk[chunkIndex(idx)]++;
+    }
+
+    /**
+     * Takes whatever robot is at a location off the grid.
+     *
+     * @param loc the location, which must be on the map
+     */
+    public void removeRobotFromLocation(MapLocation loc) {
+        clearLocation(locationToIndex(loc));
+    }
+
+    /**
+     * Moves whatever robot is at one location to another.
+     *
+     * @param start the current location of the robot
+     * @param end the new location of the robot
+     */
+    public void moveRobot(MapLocation start, MapLocation end) {
+        int startIdx = locationToIndex(start);
+        int id = robotIDsByLocation[startIdx];
+        clearLocation(startIdx);
+        if (id == NO_ROBOT)
+            clearLocation(locationToIndex(end));
+        else
+            addRobotToLocation(end, gameRobotsByID.get(id));
+    }
+
+    /**
+     * Returns the robots on the grid within a radius of a location, ordered
+     * by x and then by y.
+     *
+     * @param center the center of the query, which may be off the map
+     * @param radiusSquared the radius squared of the query
+     * @param team the team of the robots to return, or null for all teams
+     */
+    public InternalRobot[] getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, Team team) {
+        int numRobots = getAllRobotsWithinRadiusSquared(center, radiusSquared, team, robotQueryBuffer);
+        return Arrays.copyOf(robotQueryBuffer, numRobots);
+    }
+
+    /**
+     * Writes the robots on the grid within a radius of a location into a
+     * buffer, ordered by x and then by y, and returns how many there are.
+     * Radii up to the largest sensor radius use the precomputed offset
+     * tables; larger ones scan the bounding box, skipping empty chunks.
+     *
+     * @param center the center of the query, which may be off the map
+     * @param radiusSquared the radius squared of the query
+     * @param team the team of the robots to return, or null for all teams
+     * @param result the buffer, which must be at least as large as the map
+     * @return the number of robots written to the buffer
+     */
+    public int getAllRobotsWithinRadiusSquared(MapLocation center, int radiusSquared, Team team,
+                                               InternalRobot[] result) {
+        if (radiusSquared < 0)
+            return 0;
+        long[] teamLocations = team == null ? null : locationsByTeam[team.ordinal()];
+        int cx = center.x - mapTopLeft.x;
+        int cy = center.y - mapTopLeft.y;
+        int numRobots = 0;
+        if (radiusSquared < OFFSETS_WITHIN_RADIUS_SQUARED.length) {
+            int[] offsets = OFFSETS_WITHIN_RADIUS_SQUARED[radiusSquared];
+            for (int i = 0; i < offsets.length; i += 2) {
+                int x = cx + offsets[i];
+                int y = cy + offsets[i + 1];
+                if (x < 0 || y < 0 || x >= mapWidth || y >= mapHeight)
+                    continue;
+                int idx = x + y * mapWidth;
+                if (teamLocations == null ? robotIDsByLocation[idx] == NO_ROBOT
+                        : (teamLocations[idx >>> 6] & (1L << idx)) == 0)
+                    continue;
+                result[numRobots++] = gameRobotsByID.get(robotIDsByLocation[idx]);
+            }
+            return numRobots;
+        }
+        int radius = (int) Math.sqrt(radiusSquared) + 1; // add +1 just to be safe
+        int minX = Math.max(cx - radius, 0);
+        int minY = Math.max(cy - radius, 0);
+        int maxX = Math.min(cx + radius, mapWidth - 1);
+        int maxY = Math.min(cy + radius, mapHeight - 1);
+        for (int x = minX; x <= maxX; x++) {
+            int dx = x - cx;
+            for (int y = minY; y <= maxY; y++) {
+                int idx = x + y * mapWidth;
+                if (robotCountByChunk[chunkIndex(idx)] == 0) {
+                    y |= CHUNK_SIZE - 1; // skip to the next chunk
+                    continue;
+                }
+                int dy = y - cy;
+                if (dx * dx + dy * dy > radiusSquared)
+                    continue;
+                if (teamLocations == null ? robotIDsByLocation[idx] == NO_ROBOT
+                        : (teamLocations[idx >>> 6] & (1L << idx)) == 0)
+                    continue;
+                result[numRobots++] = gameRobotsByID.get(robotIDsByLocation[idx]);
+            }
+        }
+        return numRobots;
+    }
 
-        robotIndex.delete(fromPoint(loc),robot.getID());
-        robotIndex.add(fromPoint(newLocation),robot.getID());
+    /**
+     * Returns a buffer large enough for any radius query on this map. It is
+     * shared so that sensing does not allocate, and its contents are only
+     * valid until the next query.
+     */
+    public InternalRobot[] getRobotQueryBuffer() {
+        return robotQueryBuffer;
     }
 
     // ****************************
@@ -144,16 +362,15 @@ public strictfp class ObjectInfo {
     // ****************************
 
     public void spawnRobot(InternalRobot robot){
-        incrementRobotCount(robot.getTeam());
-        incrementRobotTypeCount(robot.getTeam(), robot.getType());
+        adjustRobotCounts(robot.getTeam(), robot.getType(), 1);
 
         int id = robot.getID();
         gameRobotsByID.put(id, robot);
 
-        dynamicBodyExecOrder.add(id);
-
-        MapLocation loc = robot.getLocation();
-        robotIndex.add(fromPoint(loc),robot.getID());
+        if (dynamicBodyExecOrderSize == dynamicBodyExecOrder.length)
+            dynamicBodyExecOrder = Arrays.copyOf(dynamicBodyExecOrder, 2 * dynamicBodyExecOrder.length);
+        execOrderIndicesByID.put(id, dynamicBodyExecOrderSize);
+        dynamicBodyExecOrder[dynamicBodyExecOrderSize++] = robot;
     }
 
     // ****************************
@@ -178,56 +395,54 @@ public strictfp class ObjectInfo {
             pickedUpUnit.unblockUnit();
         }
 
-        decrementRobotCount(robot.getTeam());
-        decrementRobotTypeCount(robot.getTeam(), robot.getType());
+        adjustRobotCounts(robot.getTeam(), robot.getType(), -1);
 
-        MapLocation loc = robot.getLocation();
         gameRobotsByID.remove(id);
-        dynamicBodyExecOrder.remove(id);
-        robotIndex.delete(fromPoint(loc),id);
-    }
-    
-    // ****************************
-    // *** PLAYER METHODS *********
-    // ****************************
-
-    private Rectangle fromPoint(float x, float y) {
-        return new Rectangle(x,y,x,y);
-    }
-
-    private Rectangle fromPoint(Point p) {
-        return new Rectangle(p.x,p.y,p.x,p.y);
-    }
-
-    private Rectangle fromPoint(MapLocation loc) {
-        return new Rectangle(loc.x,loc.y,loc.x,loc.y);
+        robotStore.detach(robot);
+        dynamicBodyExecOrder[execOrderIndicesByID.remove(id)] = null;
+        numExecOrderTombstones++;
     }
 
     // ****************************
     // *** PRIVATE METHODS ********
     // ****************************
 
-    private void incrementRobotCount(Team team) {
-        robotCount[team.ordinal()]++;
+    private int locationToIndex(MapLocation loc) {
+        return loc.x - mapTopLeft.x + (loc.y - mapTopLeft.y) * mapWidth;
+    }
+
+    private void compactExecOrder() {
+        int size = 0;
+        for (int i = 0; i < dynamicBodyExecOrderSize; i++) {
+            InternalRobot robot = dynamicBodyExecOrder[i];
+            if (robot == null)
+                continue;
+            if (size != i)
+                execOrderIndicesByID.put(robot.getID(), size);
+            dynamicBodyExecOrder[size++] = robot;
+        }
+        Arrays.fill(dynamicBodyExecOrder, size, dynamicBodyExecOrderSize, null);
+        dynamicBodyExecOrderSize = size;
+        numExecOrderTombstones = 0;
     }
 
-    private void decrementRobotCount(Team team) {
-        robotCount[team.ordinal()]--;
+    private int chunkIndex(int idx) {
+        return ((idx % mapWidth) >> CHUNK_SHIFT) + ((idx / mapWidth) >> CHUNK_SHIFT) * chunksPerRow;
     }
 
-    private void incrementRobotTypeCount(Team team, RobotType type) {
-        robotTypeCount.get(team);
-        if (robotTypeCount.get(team).containsKey(type)) {
-            robotTypeCount.get(team).put(type,
-                    robotTypeCount.get(team).get(type) + 1);
-        } else {
-            robotTypeCount.get(team).put(type, 1);
-        }
+    private void clearLocation(int idx) {
+        if (robotIDsByLocation[idx] == NO_ROBOT)
+            return;
+        robotIDsByLocation[idx] = NO_ROBOT;
+        for (long[] teamLocations : locationsByTeam)
+            teamLocations[idx >>> 6] &= ~(1L << idx);
+        robotCountByChunk[chunkIndex(idx)]--;
     }
 
-    private void decrementRobotTypeCount(Team team, RobotType type) {
-        Integer currentCount = getRobotTypeCount(team, type);
-        robotTypeCount.get(team).put(type,currentCount - 1);
+    private void adjustRobotCounts(Team team, RobotType type, int amount) {
+        robotCount[team.ordinal()] += amount;
+        robotTypeCount[team.ordinal()][type.ordinal()] += amount;
+        robotCost[team.ordinal()] += amount * type.cost;
     }
 
 }
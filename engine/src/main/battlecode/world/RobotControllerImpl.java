@@ -5,9 +5,6 @@ import static battlecode.common.GameActionExceptionType.*;
 import battlecode.instrumenter.RobotDeathException;
 import battlecode.schema.Action;
 
-import java.util.ArrayList;
-import java.util.List;
-
 /**
  * The actual implementation of RobotController. Its methods *must* be called
  * from a player thread.
@@ -20,6 +17,29 @@ import java.util.List;
  */
 public final strictfp class RobotControllerImpl implements RobotController {
 
+    /**
+     * The reasons that an action can't be performed, as returned by the
+     * check methods. The can* methods only need to know whether there is
+     * a reason, and the assert methods turn it into a GameActionException.
+     */
+    private static final int OK = 0;
+    private static final int WRONG_TYPE = 1;
+    private static final int NOT_SENSED = 2;
+    private static final int NOT_READY = 3;
+    private static final int OUT_OF_REACH = 4;
+    private static final int OCCUPIED = 5;
+    private static final int TOO_STEEP = 6;
+    private static final int FLOODED = 7;
+    private static final int NOT_ENOUGH_SOUP = 8;
+    private static final int FULL = 9;
+    private static final int EMPTY = 10;
+    private static final int NOTHING_THERE = 11;
+    private static final int UNDER_BUILDING = 12;
+    private static final int HOLDING_UNIT = 13;
+    private static final int WRONG_TARGET_TYPE = 14;
+    private static final int TOO_LONG = 15;
+    private static final int NEGATIVE_COST = 16;
+
     /**
      * The world the robot controlled by this controller inhabits.
      */
@@ -63,6 +83,27 @@ public final strictfp class RobotControllerImpl implements RobotController {
         }
     }
 
+    /**
+     * Create a GameActionException, which only records a stack trace
+     * when the world is in debug mode.
+     *
+     * @param type the type of the exception
+     * @param message the error message
+     */
+    private GameActionException gameActionException(GameActionExceptionType type, String message) {
+        return new GameActionException(type, message, gameWorld.recordsStackTraces());
+    }
+
+    private GameActionException cantSenseException() {
+        return gameActionException(CANT_SENSE_THAT,
+                "Target location not within sensor range");
+    }
+
+    private GameActionException notReadyException() {
+        return gameActionException(IS_NOT_READY,
+                "Robot is still cooling down! You need to wait before you can perform another action.");
+    }
+
     @Override
     public int hashCode() {
         return robot.getID();
@@ -160,8 +201,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
     private void assertCanSenseLocation(MapLocation loc) throws GameActionException {
         if(!canSenseLocation(loc)){
-            throw new GameActionException(CANT_SENSE_THAT,
-                    "Target location not within sensor range");
+            throw cantSenseException();
         }
     }
 
@@ -202,7 +242,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
     @Override
     public RobotInfo senseRobot(int id) throws GameActionException {
         if(!canSenseRobot(id)){
-            throw new GameActionException(CANT_SENSE_THAT,
+            throw gameActionException(CANT_SENSE_THAT,
                     "Can't sense given robot; It may not exist anymore");
         }
         return getRobotByID(id).getRobotInfo();
@@ -226,23 +266,27 @@ public final strictfp class RobotControllerImpl implements RobotController {
     @Override
     public RobotInfo[] senseNearbyRobots(MapLocation center, int radiusSquared, Team team) {
         assertNotNull(center);
-        int sensorRadiusSquaredUpperBound = (int) Math.ceil(this.robot.getCurrentSensorRadiusSquared());
-        InternalRobot[] allSensedRobots = gameWorld.getAllRobotsWithinRadiusSquared(center,
-                radiusSquared == -1 ? sensorRadiusSquaredUpperBound : Math.min(radiusSquared, sensorRadiusSquaredUpperBound));
-        List<RobotInfo> validSensedRobots = new ArrayList<>();
-        for(InternalRobot sensedRobot : allSensedRobots){
+        int sensorRadiusSquaredUpperBound = this.robot.getCurrentSensorRadiusSquared();
+        ObjectInfo objectInfo = gameWorld.getObjectInfo();
+        InternalRobot[] sensedRobots = objectInfo.getRobotQueryBuffer();
+        int numSensedRobots = objectInfo.getAllRobotsWithinRadiusSquared(center,
+                radiusSquared == -1 ? sensorRadiusSquaredUpperBound : Math.min(radiusSquared, sensorRadiusSquaredUpperBound),
+                team, sensedRobots);
+        int numValidSensedRobots = 0;
+        for (int i = 0; i < numSensedRobots; i++) {
+            InternalRobot sensedRobot = sensedRobots[i];
             // check if this robot
-            if (sensedRobot.equals(this.robot))
+            if (sensedRobot == this.robot)
                 continue;
             // check if can sense
-            if (!canSenseLocation(sensedRobot.getLocation()))
-                continue;
-            // check if right team
-            if (team != null && sensedRobot.getTeam() != team)
+            if (!this.robot.canSenseLocation(sensedRobot.getLocation()))
                 continue;
-            validSensedRobots.add(sensedRobot.getRobotInfo());
+            sensedRobots[numValidSensedRobots++] = sensedRobot;
         }
-        return validSensedRobots.toArray(new RobotInfo[validSensedRobots.size()]);
+        RobotInfo[] validSensedRobots = new RobotInfo[numValidSensedRobots];
+        for (int i = 0; i < numValidSensedRobots; i++)
+            validSensedRobots[i] = sensedRobots[i].getRobotInfo();
+        return validSensedRobots;
     }
 
     @Override
@@ -271,7 +315,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
     @Override
     public MapLocation adjacentLocation(Direction dir) {
-        return getLocation().add(dir);
+        return gameWorld.adjacentLocation(getLocation(), dir);
     }
 
     // ***********************************
@@ -280,7 +324,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
 
     private void assertIsReady() throws GameActionException {
         if(!isReady()){
-            throw new GameActionException(IS_NOT_READY,
+            throw gameActionException(IS_NOT_READY,
                     "This robot's action cooldown has not expired.");
         }
     }
@@ -313,27 +357,43 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ****** MOVEMENT METHODS ***********
     // ***********************************
 
-    private void assertCanMove(MapLocation loc) throws GameActionException {
+    private int checkCanMove(MapLocation loc) {
         if (!getType().canMove())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot move.");
+            return WRONG_TYPE;
         if (!getLocation().isAdjacentTo(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only move to adjacent locations; " + loc + " is not adjacent to " + getLocation() + ".");
-        if (!onTheMap(loc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only move to locations on the map; " + loc + " is not on the map.");
-        if (isLocationOccupied(loc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot move to an occupied location; " + loc + " is occupied.");
+            return OUT_OF_REACH;
+        if (!canSenseLocation(loc))
+            return NOT_SENSED;
+        if (this.gameWorld.getRobot(loc) != null)
+            return OCCUPIED;
         if (gameWorld.getDirtDifference(getLocation(), loc) > GameConstants.MAX_DIRT_DIFFERENCE && !getType().canFly())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot fly, and the dirt difference to " + loc + " is " +
-                    gameWorld.getDirtDifference(getLocation(), loc) + " which is higher than the limit of " +
-                    GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units.");
+            return TOO_STEEP;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanMove(MapLocation loc) throws GameActionException {
+        switch (checkCanMove(loc)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot move.");
+            case OUT_OF_REACH:
+                throw gameActionException(OUT_OF_RANGE,
+                        "Can only move to adjacent locations; " + loc + " is not adjacent to " + getLocation() + ".");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case OCCUPIED:
+                throw gameActionException(CANT_MOVE_THERE,
+                        "Cannot move to an occupied location; " + loc + " is occupied.");
+            case TOO_STEEP:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot fly, and the dirt difference to " + loc + " is " +
+                        gameWorld.getDirtDifference(getLocation(), loc) + " which is higher than the limit of " +
+                        GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units.");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     @Override
@@ -343,11 +403,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
     }
 
     private boolean canMove(MapLocation location) {
-        try {
-            assertNotNull(location);
-            assertCanMove(location);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(location);
+        return checkCanMove(location) == OK;
     }
 
     @Override
@@ -377,42 +434,58 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ****** BUILDING/SPAWNING **********
     // ***********************************
 
-    private void assertCanBuildRobot(RobotType type, Direction dir) throws GameActionException {
+    private int checkCanBuildRobot(RobotType type, Direction dir) {
         MapLocation spawnLoc = adjacentLocation(dir);
         if (!getType().canBuild(type))
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot build robots of type" + type + ".");
+            return WRONG_TYPE;
         if (gameWorld.getTeamInfo().getSoup(getTeam()) < type.cost)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Not enough refined soup to build a robot of type" + type + ".");
-        if (!onTheMap(spawnLoc))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only spawn to locations on the map; " + spawnLoc + " is not on the map.");
-        if (isLocationOccupied(spawnLoc))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot spawn to an occupied location; " + spawnLoc + " is occupied.");
+            return NOT_ENOUGH_SOUP;
+        if (!canSenseLocation(spawnLoc))
+            return NOT_SENSED;
+        if (this.gameWorld.getRobot(spawnLoc) != null)
+            return OCCUPIED;
         if (gameWorld.isFlooded(spawnLoc) && type != RobotType.DELIVERY_DRONE)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Can only spawn delivery drones to flooded locations; " + spawnLoc + " is flooded but " + type + " is not a delivery drone.");
+            return FLOODED;
         if (type != RobotType.DELIVERY_DRONE && gameWorld.getDirtDifference(getLocation(), spawnLoc) > GameConstants.MAX_DIRT_DIFFERENCE)
-            throw new GameActionException(CANT_DO_THAT,
-                    "Can only spawn delivery drones to locations with high dirt difference; " +
-                    "the dirt difference to " + spawnLoc + " is " +
-                        gameWorld.getDirtDifference(getLocation(), spawnLoc) + " which is higher than the limit of " +
-                        GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units like " + type + ".");
+            return TOO_STEEP;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanBuildRobot(RobotType type, Direction dir) throws GameActionException {
+        MapLocation spawnLoc = adjacentLocation(dir);
+        switch (checkCanBuildRobot(type, dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot build robots of type" + type + ".");
+            case NOT_ENOUGH_SOUP:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "Not enough refined soup to build a robot of type" + type + ".");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case OCCUPIED:
+                throw gameActionException(CANT_MOVE_THERE,
+                        "Cannot spawn to an occupied location; " + spawnLoc + " is occupied.");
+            case FLOODED:
+                throw gameActionException(CANT_DO_THAT,
+                        "Can only spawn delivery drones to flooded locations; " + spawnLoc + " is flooded but " + type + " is not a delivery drone.");
+            case TOO_STEEP:
+                throw gameActionException(CANT_DO_THAT,
+                        "Can only spawn delivery drones to locations with high dirt difference; " +
+                        "the dirt difference to " + spawnLoc + " is " +
+                            gameWorld.getDirtDifference(getLocation(), spawnLoc) + " which is higher than the limit of " +
+                            GameConstants.MAX_DIRT_DIFFERENCE + " for non-flying units like " + type + ".");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     @Override
     public boolean canBuildRobot(RobotType type, Direction dir) {
-        try {
-            assertNotNull(type);
-            assertNotNull(dir);
-            assertCanBuildRobot(type, dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(type);
+        assertNotNull(dir);
+        return checkCanBuildRobot(type, dir) == OK;
     }
 
     @Override
@@ -438,23 +511,38 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanMineSoup(Direction dir) throws GameActionException {
+    private int checkCanMineSoup(Direction dir) {
         MapLocation center = adjacentLocation(dir);
         if (!getType().canMine())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot mine soup.");
+            return WRONG_TYPE;
         if (getSoupCarrying() >= getType().soupLimit)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "No space to carry more soup; robot is already carrying " + getType().soupLimit + " units of soup.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only mine from locations on the map; " + center + " is not on the map.");
+            return FULL;
+        if (!canSenseLocation(center))
+            return NOT_SENSED;
         if (gameWorld.getSoup(center) <= 0)
-            throw new GameActionException(CANT_DO_THAT,
-                    center + " does not have any soup to mine.");
+            return NOTHING_THERE;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanMineSoup(Direction dir) throws GameActionException {
+        MapLocation center = adjacentLocation(dir);
+        switch (checkCanMineSoup(dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot mine soup.");
+            case FULL:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "No space to carry more soup; robot is already carrying " + getType().soupLimit + " units of soup.");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case NOTHING_THERE:
+                throw gameActionException(CANT_DO_THAT,
+                        center + " does not have any soup to mine.");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -467,11 +555,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canMineSoup(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanMineSoup(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanMineSoup(dir) == OK;
     }
 
     /**
@@ -498,24 +583,39 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanDepositSoup(Direction dir) throws GameActionException {
+    private int checkCanDepositSoup(Direction dir) {
         MapLocation center = adjacentLocation(dir);
         if (!getType().canDepositSoup())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot deposit soup.");
+            return WRONG_TYPE;
         if (getSoupCarrying() <= 0)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is not carrying any soup available to be refined.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only deposit soup to locations on the map; " + center + " is not on the map.");
+            return EMPTY;
+        if (!canSenseLocation(center))
+            return NOT_SENSED;
         InternalRobot adjacentRobot = this.gameWorld.getRobot(center);
         if (adjacentRobot == null || !adjacentRobot.getType().canRefine())
-            throw new GameActionException(CANT_DO_THAT,
-                    center + " does not have a refinery or HQ.");
+            return NOTHING_THERE;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanDepositSoup(Direction dir) throws GameActionException {
+        MapLocation center = adjacentLocation(dir);
+        switch (checkCanDepositSoup(dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot deposit soup.");
+            case EMPTY:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is not carrying any soup available to be refined.");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case NOTHING_THERE:
+                throw gameActionException(CANT_DO_THAT,
+                        center + " does not have a refinery or HQ.");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -528,11 +628,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDepositSoup(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDepositSoup(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDepositSoup(dir) == OK;
     }
 
     /**
@@ -565,25 +662,40 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanDigDirt(Direction dir) throws GameActionException {
+    private int checkCanDigDirt(Direction dir) {
         MapLocation center = adjacentLocation(dir);
         if (!getType().canDig())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot dig dirt.");
+            return WRONG_TYPE;
         if (getDirtCarrying() >= getType().dirtLimit)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "No space to carry more dirt; robot is already carrying " + getType().dirtLimit + " units of dirt.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only dig dirt from locations on the map; " + center + " is not on the map.");
+            return FULL;
+        if (!canSenseLocation(center))
+            return NOT_SENSED;
         InternalRobot adjacentRobot = this.gameWorld.getRobot(center);
         if (adjacentRobot != null)
             if (adjacentRobot.getType().isBuilding() && adjacentRobot.getDirtCarrying() <= 0)
-                throw new GameActionException(CANT_DO_THAT,
-                        "Can't dig dirt from underneath buildings; " + center + " has a " + adjacentRobot.getType() + ".");
+                return UNDER_BUILDING;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanDigDirt(Direction dir) throws GameActionException {
+        MapLocation center = adjacentLocation(dir);
+        switch (checkCanDigDirt(dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot dig dirt.");
+            case FULL:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "No space to carry more dirt; robot is already carrying " + getType().dirtLimit + " units of dirt.");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case UNDER_BUILDING:
+                throw gameActionException(CANT_DO_THAT,
+                        "Can't dig dirt from underneath buildings; " + center + " has a " + this.gameWorld.getRobot(center).getType() + ".");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -595,11 +707,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDigDirt(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDigDirt(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDigDirt(dir) == OK;
     }
 
     /**
@@ -624,20 +733,32 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanDepositDirt(Direction dir) throws GameActionException {
+    private int checkCanDepositDirt(Direction dir) {
         MapLocation center = adjacentLocation(dir);
         if (!getType().canDepositDirt())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot deposit dirt.");
+            return WRONG_TYPE;
         if (getDirtCarrying() < 1)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is carrying " + getDirtCarrying() + " units of dirt, and thus cannot deposit any dirt.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only deposit dirt to locations on the map; " + center + " is not on the map.");
+            return EMPTY;
+        if (!canSenseLocation(center))
+            return NOT_SENSED;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanDepositDirt(Direction dir) throws GameActionException {
+        switch (checkCanDepositDirt(dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot deposit dirt.");
+            case EMPTY:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is carrying " + getDirtCarrying() + " units of dirt, and thus cannot deposit any dirt.");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -649,11 +770,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDepositDirt(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDepositDirt(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDepositDirt(dir) == OK;
     }
 
     /**
@@ -682,27 +800,45 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanPickUpUnit(int id) throws GameActionException {
+    private int checkCanPickUpUnit(int id) {
         if (!getType().canPickUpUnits())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Robot is of type " + getType() + " which cannot pick up other units.");
+            return WRONG_TYPE;
         if (robot.isCurrentlyHoldingUnit())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Robot is already holding a unit; you can't pick up another one!");
-        if (getRobotByID(id) == null)
-            throw new GameActionException(NO_ROBOT_THERE,
-                    "No unit of ID " + id + " exists! Impossible to pick up nonexistent things.");
-        if (!getRobotByID(id).getType().canBePickedUp())
-            throw new GameActionException(CANT_PICK_UP_UNIT,
-                    "Cannot pick up any unit of type " + getRobotByID(id).getType() + ".");
-        if (!getRobotByID(id).getLocation().isWithinDistanceSquared(getLocation(), GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Cannot pick up unit outside pickup radius; unit is " +
-                    getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
-                            " squared distance away, but the pickup radius squared is " + GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED);
+            return HOLDING_UNIT;
+        InternalRobot targetRobot = getRobotByID(id);
+        if (targetRobot == null)
+            return NOTHING_THERE;
+        if (!targetRobot.getType().canBePickedUp())
+            return WRONG_TARGET_TYPE;
+        if (!targetRobot.getLocation().isWithinDistanceSquared(getLocation(), GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED))
+            return OUT_OF_REACH;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanPickUpUnit(int id) throws GameActionException {
+        switch (checkCanPickUpUnit(id)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_PICK_UP_UNIT,
+                        "Robot is of type " + getType() + " which cannot pick up other units.");
+            case HOLDING_UNIT:
+                throw gameActionException(CANT_PICK_UP_UNIT,
+                        "Robot is already holding a unit; you can't pick up another one!");
+            case NOTHING_THERE:
+                throw gameActionException(NO_ROBOT_THERE,
+                        "No unit of ID " + id + " exists! Impossible to pick up nonexistent things.");
+            case WRONG_TARGET_TYPE:
+                throw gameActionException(CANT_PICK_UP_UNIT,
+                        "Cannot pick up any unit of type " + getRobotByID(id).getType() + ".");
+            case OUT_OF_REACH:
+                throw gameActionException(OUT_OF_RANGE,
+                        "Cannot pick up unit outside pickup radius; unit is " +
+                        getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
+                                " squared distance away, but the pickup radius squared is " + GameConstants.DELIVERY_DRONE_PICKUP_RADIUS_SQUARED);
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -715,10 +851,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canPickUpUnit(int id) {
-        try {
-            assertCanPickUpUnit(id);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanPickUpUnit(id) == OK;
     }
 
     /**
@@ -743,23 +876,38 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanDropUnit(Direction dir) throws GameActionException {
+    private int checkCanDropUnit(Direction dir) {
         MapLocation center = adjacentLocation(dir);
         if (!getType().canDropOffUnits())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot drop off units.");
+            return WRONG_TYPE;
         if (!this.robot.isCurrentlyHoldingUnit())
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Robot is not currently holding any units to drop off.");
-        if (!onTheMap(center))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only drop units to locations on the map; " + center + " is not on the map.");
-        if (isLocationOccupied(center))
-            throw new GameActionException(CANT_MOVE_THERE,
-                    "Cannot drop off units to an occupied location; " + center + " is occupied.");
+            return EMPTY;
+        if (!canSenseLocation(center))
+            return NOT_SENSED;
+        if (this.gameWorld.getRobot(center) != null)
+            return OCCUPIED;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanDropUnit(Direction dir) throws GameActionException {
+        MapLocation center = adjacentLocation(dir);
+        switch (checkCanDropUnit(dir)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot drop off units.");
+            case EMPTY:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "Robot is not currently holding any units to drop off.");
+            case NOT_SENSED:
+                throw cantSenseException();
+            case OCCUPIED:
+                throw gameActionException(CANT_MOVE_THERE,
+                        "Cannot drop off units to an occupied location; " + center + " is occupied.");
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -771,11 +919,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canDropUnit(Direction dir) {
-        try {
-            assertNotNull(dir);
-            assertCanDropUnit(dir);
-            return true;
-        } catch (GameActionException e) { return false; }
+        assertNotNull(dir);
+        return checkCanDropUnit(dir) == OK;
     }
 
     /**
@@ -840,26 +985,40 @@ public final strictfp class RobotControllerImpl implements RobotController {
      *
      * @throws GameActionException
      */
-    private void assertCanShootUnit(int id) throws GameActionException {
+    private int checkCanShootUnit(int id) {
         InternalRobot targetRobot = getRobotByID(id);
         if (!getType().canShoot())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Robot is of type " + getType() + " which cannot shoot units.");
+            return WRONG_TYPE;
         if (targetRobot == null)
-            throw new GameActionException(NO_ROBOT_THERE,
-                    "No unit of ID " + id + " exists! Impossible to shoot nonexistent things.");
+            return NOTHING_THERE;
         if (!targetRobot.getType().canBeShot())
-            throw new GameActionException(CANT_DO_THAT,
-                    "Target robot is of type " + targetRobot.getType() + " which cannot be shot.");
-
+            return WRONG_TARGET_TYPE;
         if (!targetRobot.getLocation().isWithinDistanceSquared(getLocation(), GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED))
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Cannot shoot unit outside shooting radius; unit is " +
-                    targetRobot.getLocation().distanceSquaredTo(getLocation()) +
-                            " squared distance away, but the shooting radius squared is " + GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED);
+            return OUT_OF_REACH;
         if (!isReady())
-            throw new GameActionException(IS_NOT_READY,
-                    "Robot is still cooling down! You need to wait before you can perform another action.");
+            return NOT_READY;
+        return OK;
+    }
+
+    private void assertCanShootUnit(int id) throws GameActionException {
+        switch (checkCanShootUnit(id)) {
+            case WRONG_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Robot is of type " + getType() + " which cannot shoot units.");
+            case NOTHING_THERE:
+                throw gameActionException(NO_ROBOT_THERE,
+                        "No unit of ID " + id + " exists! Impossible to shoot nonexistent things.");
+            case WRONG_TARGET_TYPE:
+                throw gameActionException(CANT_DO_THAT,
+                        "Target robot is of type " + getRobotByID(id).getType() + " which cannot be shot.");
+            case OUT_OF_REACH:
+                throw gameActionException(OUT_OF_RANGE,
+                        "Cannot shoot unit outside shooting radius; unit is " +
+                        getRobotByID(id).getLocation().distanceSquaredTo(getLocation()) +
+                                " squared distance away, but the shooting radius squared is " + GameConstants.NET_GUN_SHOOT_RADIUS_SQUARED);
+            case NOT_READY:
+                throw notReadyException();
+        }
     }
 
     /**
@@ -871,10 +1030,7 @@ public final strictfp class RobotControllerImpl implements RobotController {
      */
     @Override
     public boolean canShootUnit(int id) {
-        try {
-            assertCanShootUnit(id);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanShootUnit(id) == OK;
     }
 
     /**
@@ -916,26 +1072,34 @@ public final strictfp class RobotControllerImpl implements RobotController {
     // ****** BLOCKCHAINNNNNNNNNNN *******
     // ***********************************
 
-    private void assertCanSubmitTransaction(int[] message, int cost) throws GameActionException {
+    private int checkCanSubmitTransaction(int[] message, int cost) {
         if (message.length > GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH)
-            throw new GameActionException(TOO_LONG_BLOCKCHAIN_TRANSACTION,
-                    "Can only send " + Integer.toString(GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH) +
-                            " integers in one message, not " + Integer.toString(message.length) + ".");
-        int teamSoup = gameWorld.getTeamInfo().getSoup(getTeam());
+            return TOO_LONG;
         if (gameWorld.getTeamInfo().getSoup(getTeam()) < cost)
-            throw new GameActionException(NOT_ENOUGH_RESOURCE,
-                    "Tried to pay " + Integer.toString(cost) + " units of soup for a message, only has " + Integer.toString(teamSoup) + ".");
+            return NOT_ENOUGH_SOUP;
         if (cost < 0)
-            throw new GameActionException(OUT_OF_RANGE,
-                    "Can only submit transactions with non-negative cost!");
+            return NEGATIVE_COST;
+        return OK;
+    }
+
+    private void assertCanSubmitTransaction(int[] message, int cost) throws GameActionException {
+        switch (checkCanSubmitTransaction(message, cost)) {
+            case TOO_LONG:
+                throw gameActionException(TOO_LONG_BLOCKCHAIN_TRANSACTION,
+                        "Can only send " + Integer.toString(GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH) +
+                                " integers in one message, not " + Integer.toString(message.length) + ".");
+            case NOT_ENOUGH_SOUP:
+                throw gameActionException(NOT_ENOUGH_RESOURCE,
+                        "Tried to pay " + Integer.toString(cost) + " units of soup for a message, only has " + Integer.toString(gameWorld.getTeamInfo().getSoup(getTeam())) + ".");
+            case NEGATIVE_COST:
+                throw gameActionException(OUT_OF_RANGE,
+                        "Can only submit transactions with non-negative cost!");
+        }
     }
 
     @Override
     public boolean canSubmitTransaction(int[] message, int cost) {
-        try {
-            assertCanSubmitTransaction(message, cost);
-            return true;
-        } catch (GameActionException e) { return false; }
+        return checkCanSubmitTransaction(message, cost) == OK;
     }
 
 
@@ -953,10 +1117,8 @@ public final strictfp class RobotControllerImpl implements RobotController {
         assertCanSubmitTransaction(message, cost);
         // pay!
         gameWorld.getTeamInfo().adjustSoup(getTeam(), -cost);
-        // create a block chain entry
-        Transaction transaction = new Transaction(cost, message);
-        // add
-        gameWorld.addTransaction(transaction);
+        // add a block chain entry
+        gameWorld.addTransaction(cost, message);
     }
 
     /**
@@ -968,14 +1130,13 @@ public final strictfp class RobotControllerImpl implements RobotController {
     @Override
     public Transaction[] getBlock(int roundNumber) throws GameActionException {
         if (roundNumber <= 0)
-            throw new GameActionException(ROUND_OUT_OF_RANGE, "You cannot get the messages sent at round " + Integer.toString(roundNumber)
+            throw gameActionException(ROUND_OUT_OF_RANGE, "You cannot get the messages sent at round " + Integer.toString(roundNumber)
                 + "; in fact, no non-positive round numbers are allowed at all.");
         if (roundNumber >= gameWorld.currentRound)
-            throw new GameActionException(ROUND_OUT_OF_RANGE, "You cannot get the messages sent at round " + Integer.toString(roundNumber)
+            throw gameActionException(ROUND_OUT_OF_RANGE, "You cannot get the messages sent at round " + Integer.toString(roundNumber)
                 + "; you can only query previous rounds, and this is round " + Integer.toString(roundNumber) + ".");
         // just get it!
-        Transaction[] transactions = gameWorld.blockchain.get(roundNumber-1).toArray(new Transaction[0]);
-        return transactions;
+        return gameWorld.getBlockchain().getBlock(roundNumber-1);
     }
 
     // ***********************************
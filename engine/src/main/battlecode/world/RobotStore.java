@@ -0,0 +1,195 @@
+package battlecode.world;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+
+import java.util.Arrays;
+
+/**
+ * This class holds the state of robots in parallel primitive arrays,
+ * indexed by slot, so that passes over every robot stay cache-friendly.
+ * Each InternalRobot is a handle to its slot in a store.
+ *
+ * The slots are kept dense: when a robot leaves, the robot in the last
+ * slot moves into its place. The robot that left moves to the graveyard,
+ * a store of its own that is only ever added to, so that its handle stays
+ * usable; code such as the end of the turn it died in still touches it.
+ */
+public strictfp class RobotStore {
+    private static final Team[] TEAMS = Team.values();
+    private static final RobotType[] TYPES = RobotType.values();
+
+    private int size;
+
+    InternalRobot[] robots;
+    int[] ids;
+    int[] xs;
+    int[] ys;
+    int[] teams;
+    int[] types;
+    long[] controlBits;
+    int[] bytecodeLimits;
+    int[] bytecodesUsed;
+    int[] roundsAlive;
+    int[] soupCarrying;
+    int[] dirtCarrying;
+    float[] cooldownTurns;
+    int[] heldUnitIDs; // -1 if no unit is held
+    boolean[] blocked;
+
+    /**
+     * Where robots that have left go; null until the first one does.
+     */
+    private RobotStore graveyard;
+
+    public RobotStore(int capacity) {
+        this.robots = new InternalRobot[capacity];
+        this.ids = new int[capacity];
+        this.xs = new int[capacity];
+        this.ys = new int[capacity];
+        this.teams = new int[capacity];
+        this.types = new int[capacity];
+        this.controlBits = new long[capacity];
+        this.bytecodeLimits = new int[capacity];
+        this.bytecodesUsed = new int[capacity];
+        this.roundsAlive = new int[capacity];
+        this.soupCarrying = new int[capacity];
+        this.dirtCarrying = new int[capacity];
+        this.cooldownTurns = new float[capacity];
+        this.heldUnitIDs = new int[capacity];
+        this.blocked = new boolean[capacity];
+    }
+
+    // *********************************
+    // ****** GETTER METHODS ***********
+    // *********************************
+
+    /**
+     * Returns the number of robots in the store, which occupy the slots
+     * from 0 up to but not including this number.
+     */
+    public int size() {
+        return size;
+    }
+
+    public InternalRobot getRobot(int slot) {
+        return robots[slot];
+    }
+
+    public int getID(int slot) {
+        return ids[slot];
+    }
+
+    public Team getTeam(int slot) {
+        return TEAMS[teams[slot]];
+    }
+
+    public RobotType getType(int slot) {
+        return TYPES[types[slot]];
+    }
+
+    public boolean isBlocked(int slot) {
+        return blocked[slot];
+    }
+
+    // *********************************
+    // ****** UPDATE METHODS ***********
+    // *********************************
+
+    /**
+     * Adds a new robot to the store.
+     *
+     * @return the slot of the robot
+     */
+    public int add(InternalRobot robot, int id, RobotType type, MapLocation loc, Team team) {
+        int slot = allocateSlot();
+        robots[slot] = robot;
+        ids[slot] = id;
+        xs[slot] = loc.x;
+        ys[slot] = loc.y;
+        teams[slot] = team.ordinal();
+        types[slot] = type.ordinal();
+        controlBits[slot] = 0;
+        bytecodeLimits[slot] = type.bytecodeLimit;
+        bytecodesUsed[slot] = 0;
+        roundsAlive[slot] = 0;
+        soupCarrying[slot] = 0;
+        dirtCarrying[slot] = 0;
+        cooldownTurns[slot] = 0;
+        heldUnitIDs[slot] = -1;
+        blocked[slot] = false;
+        return slot;
+    }
+
+    /**
+     * Moves a robot's state out of this store into the graveyard.
+     *
+     * @param robot the robot, which must be in this store
+     */
+    public void detach(InternalRobot robot) {
+        if (graveyard == null)
+            graveyard = new RobotStore(robots.length);
+        int slot = robot.getSlot();
+        int grave = graveyard.allocateSlot();
+        copySlot(slot, graveyard, grave);
+        // the graveyard never moves its slots, so it doesn't need to reach
+        // the handles, and dead robots can be collected
+        graveyard.robots[grave] = null;
+        robot.setStore(graveyard, grave);
+        removeSlot(slot);
+    }
+
+    // *********************************
+    // ****** PRIVATE METHODS **********
+    // *********************************
+
+    private int allocateSlot() {
+        if (size == robots.length) {
+            int capacity = Math.max(2 * robots.length, 1);
+            robots = Arrays.copyOf(robots, capacity);
+            ids = Arrays.copyOf(ids, capacity);
+            xs = Arrays.copyOf(xs, capacity);
+            ys = Arrays.copyOf(ys, capacity);
+            teams = Arrays.copyOf(teams, capacity);
+            types = Arrays.copyOf(types, capacity);
+            controlBits = Arrays.copyOf(controlBits, capacity);
+            bytecodeLimits = Arrays.copyOf(bytecodeLimits, capacity);
+            bytecodesUsed = Arrays.copyOf(bytecodesUsed, capacity);
+            roundsAlive = Arrays.copyOf(roundsAlive, capacity);
+            soupCarrying = Arrays.copyOf(soupCarrying, capacity);
+            dirtCarrying = Arrays.copyOf(dirtCarrying, capacity);
+            cooldownTurns = Arrays.copyOf(cooldownTurns, capacity);
+            heldUnitIDs = Arrays.copyOf(heldUnitIDs, capacity);
+            blocked = Arrays.copyOf(blocked, capacity);
+        }
+        return size++;
+    }
+
+    private void removeSlot(int slot) {
+        int last = --size;
+        if (slot != last) {
+            copySlot(last, this, slot);
+            robots[slot].setStore(this, slot);
+        }
+        robots[last] = null;
+    }
+
+    private void copySlot(int fromSlot, RobotStore to, int slot) {
+        to.robots[slot] = robots[fromSlot];
+        to.ids[slot] = ids[fromSlot];
+        to.xs[slot] = xs[fromSlot];
+        to.ys[slot] = ys[fromSlot];
+        to.teams[slot] = teams[fromSlot];
+        to.types[slot] = types[fromSlot];
+        to.controlBits[slot] = controlBits[fromSlot];
+        to.bytecodeLimits[slot] = bytecodeLimits[fromSlot];
+        to.bytecodesUsed[slot] = bytecodesUsed[fromSlot];
+        to.roundsAlive[slot] = roundsAlive[fromSlot];
+        to.soupCarrying[slot] = soupCarrying[fromSlot];
+        to.dirtCarrying[slot] = dirtCarrying[fromSlot];
+        to.cooldownTurns[slot] = cooldownTurns[fromSlot];
+        to.heldUnitIDs[slot] = heldUnitIDs[fromSlot];
+        to.blocked[slot] = blocked[fromSlot];
+    }
+}
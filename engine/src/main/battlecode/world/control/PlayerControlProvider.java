@@ -1,9 +1,12 @@
 package battlecode.world.control;
 
 import battlecode.instrumenter.InstrumentationException;
+import battlecode.instrumenter.SandboxPool;
 import battlecode.instrumenter.TeamClassLoaderFactory;
 import battlecode.instrumenter.SandboxedRobotPlayer;
+import battlecode.server.Config;
 import battlecode.server.ErrorReporter;
+import battlecode.server.Server;
 import battlecode.world.GameWorld;
 import battlecode.world.InternalRobot;
 
@@ -36,6 +39,11 @@ public class PlayerControlProvider implements RobotControlProvider {
      */
     private final Map<Integer, SandboxedRobotPlayer> sandboxes;
 
+    /**
+     * Warm sandboxes for new robots to use; null outside of a match.
+     */
+    private SandboxPool pool;
+
     /**
      * The GameWorld we're providing for.
      */
@@ -62,11 +70,21 @@ public class PlayerControlProvider implements RobotControlProvider {
         this.sandboxes = new HashMap<>(); // GameWorld maintains order for us
         this.factory = new TeamClassLoaderFactory(teamURL);
         this.robotOut = robotOut;
+
+        Config options = Config.getGlobalConfig();
+        if (options.getBoolean("bc.engine.preinstrument")) {
+            factory.preinstrument(teamPackage, options.getInt("bc.engine.instrument-threads"));
+        }
     }
 
     @Override
     public void matchStarted(GameWorld gameWorld) {
         this.gameWorld = gameWorld;
+
+        Config options = Config.getGlobalConfig();
+        this.pool = new SandboxPool(factory, teamPackage,
+                options.getInt("bc.engine.sandbox-pool-min"),
+                options.getInt("bc.engine.sandbox-pool-max"));
     }
 
     @Override
@@ -74,20 +92,29 @@ public class PlayerControlProvider implements RobotControlProvider {
         for (final SandboxedRobotPlayer player : this.sandboxes.values()) {
            if (player != null && !player.getTerminated()) {
                player.terminate();
+               pool.release(player);
            }
         }
         this.sandboxes.clear();
+        this.pool.shutdown();
+        Server.debug(teamPackage + ": " + factory.getInstrumentationReport());
+        if (factory.isSharingClasses()) {
+            Server.debug(teamPackage + ": " + factory.getSharingReport());
+        }
+        this.pool = null;
         this.gameWorld = null;
     }
 
     @Override
     public void robotSpawned(InternalRobot robot) {
         try {
+            final SandboxPool.Sandbox sandbox = pool.take();
             final SandboxedRobotPlayer player = new SandboxedRobotPlayer(
                     teamPackage,
                     robot.getController(),
                     robot.getID(),
-                    factory.createLoader(),
+                    sandbox.getLoader(),
+                    sandbox.getCarrier(),
                     robotOut
             );
             this.sandboxes.put(robot.getID(), player);
@@ -108,8 +135,11 @@ public class PlayerControlProvider implements RobotControlProvider {
 
         final SandboxedRobotPlayer player = this.sandboxes.get(robot.getID());
 
-        if (player != null) {
-            this.sandboxes.get(robot.getID()).terminate();
+        if (player != null && !player.getTerminated()) {
+            // If the robot is killed during its own turn, it only terminates
+            // once the turn is over; runRobot releases it then.
+            player.terminate();
+            pool.release(player);
         }
 
         this.sandboxes.put(robot.getID(), null);
@@ -119,7 +149,9 @@ public class PlayerControlProvider implements RobotControlProvider {
     public void roundStarted() {}
 
     @Override
-    public void roundEnded() {}
+    public void roundEnded() {
+        pool.roundEnded();
+    }
 
     @Override
     public void runRobot(InternalRobot robot) {
@@ -130,6 +162,9 @@ public class PlayerControlProvider implements RobotControlProvider {
         if (player != null) {
             player.setBytecodeLimit(robot.getBytecodeLimit());
             player.step();
+            if (player.getTerminated()) {
+                pool.release(player);
+            }
         }
     }
 
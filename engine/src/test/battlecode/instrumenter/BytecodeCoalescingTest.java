@@ -0,0 +1,115 @@
+package battlecode.instrumenter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that coalescing bytecode counts (bc.engine.coalesce-bytecodes)
+ * doesn't change what players can observe: their output, including the
+ * bytecode counts they print, and the turns they print it or die in.
+ *
+ * The count when a player runs out of bytecodes mid-turn can differ, since
+ * a coalescing player only pauses at the next flush; but it pays the
+ * difference back next turn, so the counts agree again by the time it can
+ * look at them.
+ */
+public class BytecodeCoalescingTest {
+
+    static String tempClassFolder;
+
+    static final int BYTECODE_LIMIT = 211;
+    static final int STEPS = 40;
+
+    @BeforeClass
+    public static void setupFolder() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder(
+                "testplayercoalescing/RobotPlayer.class",
+                "testplayercoalescing/RobotPlayer$Lazy.class",
+                "testplayerarraybytecode/RobotPlayer.class",
+                "testplayermultiarraybytecode/RobotPlayer.class",
+                "testplayerloopforever/RobotPlayer.class"
+        );
+    }
+
+    /**
+     * Create a player with a fresh factory, instrumented with the current
+     * configuration.
+     */
+    private static SandboxedRobotPlayer spawn(String playerName, ByteArrayOutputStream out) {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(tempClassFolder);
+        return PlayerUtils.spawn(playerName, 0, factory.createLoader(), out);
+    }
+
+    /**
+     * Run a player for a number of turns, and describe each turn.
+     */
+    private static List<String> runTurns(String playerName, boolean coalesce) throws Exception {
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.coalesce-bytecodes", String.valueOf(coalesce),
+                "bc.server.robot-player-to-system-out", "false")) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            SandboxedRobotPlayer player = spawn(playerName, out);
+
+            List<String> turns = new ArrayList<>();
+            for (int i = 0; i < STEPS && !player.getTerminated(); i++) {
+                player.setBytecodeLimit(BYTECODE_LIMIT);
+                player.step();
+                turns.add(player.getTerminated() + " " + out.toString("UTF-8"));
+                out.reset();
+            }
+            player.terminate();
+            return turns;
+        }
+    }
+
+    private static void assertSameTurns(String playerName) throws Exception {
+        List<String> expected = runTurns(playerName, false);
+        List<String> actual = runTurns(playerName, true);
+        assertEquals(expected, actual);
+    }
+
+    @Test(timeout = 20000)
+    public void testBranchesAndExceptions() throws Exception {
+        List<String> turns = runTurns("testplayercoalescing", false);
+        // make sure the player gets far enough to test something
+        assertEquals(STEPS, turns.size());
+        assertTrue(String.join("", turns).contains("round 2"));
+
+        assertSameTurns("testplayercoalescing");
+    }
+
+    @Test(timeout = 20000)
+    public void testArrays() throws Exception {
+        assertSameTurns("testplayerarraybytecode");
+        assertSameTurns("testplayermultiarraybytecode");
+    }
+
+    @Test(timeout = 20000)
+    public void testLoopForever() throws Exception {
+        assertSameTurns("testplayerloopforever");
+    }
+
+    @Test(timeout = 20000)
+    public void testLimitReached() throws Exception {
+        // a player that loops flushes every iteration, so it runs out
+        // at most one iteration late
+        for (boolean coalesce : new boolean[]{false, true}) {
+            try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                    "bc.engine.coalesce-bytecodes", String.valueOf(coalesce))) {
+                SandboxedRobotPlayer player = spawn("testplayerloopforever", new ByteArrayOutputStream());
+                player.setBytecodeLimit(BYTECODE_LIMIT);
+                player.step();
+                assertFalse(player.getTerminated());
+                assertTrue(player.getBytecodesUsed() >= BYTECODE_LIMIT);
+                assertTrue(player.getBytecodesUsed() < BYTECODE_LIMIT + 10);
+                player.terminate();
+            }
+        }
+    }
+}
@@ -0,0 +1,180 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for submissions instrumented ahead of time.
+ */
+public class InstrumentedArtifactTest {
+
+    private PlayerUtils.ConfigOverride artifactConfig;
+
+    @Before
+    public void setKey() throws Exception {
+        artifactConfig = PlayerUtils.setConfig(
+                "bc.engine.instrumented-artifacts", "true",
+                "bc.engine.artifact-key", "");
+        useKey("secret");
+    }
+
+    @After
+    public void restoreKey() {
+        artifactConfig.close();
+    }
+
+    private static void useKey(String secret) throws Exception {
+        File key = Files.createTempFile("battlecode-test", ".key").toFile();
+        key.deleteOnExit();
+        Files.write(key.toPath(), secret.getBytes(StandardCharsets.UTF_8));
+        Config.getGlobalConfig().set("bc.engine.artifact-key", key.getPath());
+    }
+
+    private static String writeArtifact(String teamURL) throws Exception {
+        File artifact = Files.createTempFile("battlecode-test", ".jar").toFile();
+        artifact.deleteOnExit();
+        assertTrue(InstrumentedArtifact.write("testplayeractions", teamURL, artifact.getPath()));
+        return artifact.getPath();
+    }
+
+    @Test
+    public void testUsesArtifact() throws Exception {
+        String folder = URLUtils.toTempFolder("testplayeractions/RobotPlayer.class");
+        String artifact = writeArtifact(folder);
+
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(artifact);
+        assertEquals(1, factory.getNumFromArtifact());
+        assertTrue(factory.hasCached("testplayeractions.RobotPlayer"));
+
+        // the same bytes we'd have instrumented ourselves
+        TeamClassLoaderFactory fresh = new TeamClassLoaderFactory(folder);
+        fresh.createLoader().loadClass("testplayeractions.RobotPlayer");
+        assertArrayEquals(fresh.getCached("testplayeractions.RobotPlayer"),
+                factory.getCached("testplayeractions.RobotPlayer"));
+
+        factory.createLoader().loadClass("testplayeractions.RobotPlayer");
+        assertEquals(0, factory.getNumInstrumented());
+    }
+
+    @Test
+    public void testArtifactOfArtifact() throws Exception {
+        String artifact = writeArtifact(URLUtils.toTempJar("testplayeractions/RobotPlayer.class"));
+        String again = writeArtifact(artifact);
+
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(again);
+        assertEquals(1, factory.getNumFromArtifact());
+    }
+
+    @Test
+    public void testIgnoresMismatchedArtifact() throws Exception {
+        String artifact = writeArtifact(URLUtils.toTempFolder("testplayeractions/RobotPlayer.class"));
+
+        boolean coalesce = Config.getGlobalConfig().getBoolean("bc.engine.coalesce-bytecodes");
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.coalesce-bytecodes", String.valueOf(!coalesce))) {
+            TeamClassLoaderFactory factory = new TeamClassLoaderFactory(artifact);
+            assertEquals(0, factory.getNumFromArtifact());
+            assertFalse(factory.hasCached("testplayeractions.RobotPlayer"));
+
+            // falls back to instrumenting it
+            factory.createLoader().loadClass("testplayeractions.RobotPlayer");
+            assertTrue(factory.getNumInstrumented() > 0);
+        }
+    }
+
+    @Test
+    public void testIgnoresChangedClass() throws Exception {
+        String artifact = writeArtifact(URLUtils.toTempFolder("testplayeractions/RobotPlayer.class"));
+
+        // the same artifact, but with different classes where the team's should be
+        String changed = URLUtils.toTempJar(
+                new String[]{
+                        "testplayeractions/RobotPlayer.class",
+                        InstrumentedArtifact.INSTRUMENTED_PREFIX + "testplayeractions/RobotPlayer.class",
+                        InstrumentedArtifact.MANIFEST,
+                        InstrumentedArtifact.SIGNATURE
+                },
+                new URL[]{
+                        InstrumentedArtifactTest.class.getClassLoader().getResource("testplayerempty/RobotPlayer.class"),
+                        new URL("jar:" + new File(artifact).toURI() + "!/"
+                                + InstrumentedArtifact.INSTRUMENTED_PREFIX + "testplayeractions/RobotPlayer.class"),
+                        new URL("jar:" + new File(artifact).toURI() + "!/" + InstrumentedArtifact.MANIFEST),
+                        new URL("jar:" + new File(artifact).toURI() + "!/" + InstrumentedArtifact.SIGNATURE)
+                }
+        );
+
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(changed);
+        assertEquals(0, factory.getNumFromArtifact());
+    }
+
+    @Test
+    public void testIgnoresArtifactSignedWithAnotherKey() throws Exception {
+        String artifact = writeArtifact(URLUtils.toTempFolder("testplayeractions/RobotPlayer.class"));
+
+        useKey("another secret");
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(artifact);
+        assertEquals(0, factory.getNumFromArtifact());
+    }
+
+    @Test
+    public void testNeedsKey() throws Exception {
+        String folder = URLUtils.toTempFolder("testplayeractions/RobotPlayer.class");
+        String artifact = writeArtifact(folder);
+
+        Config.getGlobalConfig().set("bc.engine.artifact-key", "");
+        assertEquals(0, new TeamClassLoaderFactory(artifact).getNumFromArtifact());
+
+        File unsigned = Files.createTempFile("battlecode-test", ".jar").toFile();
+        unsigned.deleteOnExit();
+        assertFalse(InstrumentedArtifact.write("testplayeractions", folder, unsigned.getPath()));
+    }
+
+    @Test
+    public void testIgnoresUnsignedArtifact() throws Exception {
+        String artifact = writeArtifact(URLUtils.toTempFolder("testplayeractions/RobotPlayer.class"));
+
+        // everything but the signature, as a team could write it
+        String unsigned = URLUtils.toTempJar(
+                new String[]{
+                        "testplayeractions/RobotPlayer.class",
+                        InstrumentedArtifact.INSTRUMENTED_PREFIX + "testplayeractions/RobotPlayer.class",
+                        InstrumentedArtifact.MANIFEST
+                },
+                new URL[]{
+                        new URL("jar:" + new File(artifact).toURI() + "!/testplayeractions/RobotPlayer.class"),
+                        new URL("jar:" + new File(artifact).toURI() + "!/"
+                                + InstrumentedArtifact.INSTRUMENTED_PREFIX + "testplayeractions/RobotPlayer.class"),
+                        new URL("jar:" + new File(artifact).toURI() + "!/" + InstrumentedArtifact.MANIFEST)
+                }
+        );
+
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(unsigned);
+        assertEquals(0, factory.getNumFromArtifact());
+    }
+
+    @Test
+    public void testInstrumenterHashCoversWholeInstrumenter() throws Exception {
+        Set<String> files = InstrumentedArtifact.instrumenterFiles().keySet();
+
+        // the code that drives the visitors, nested classes, the classes
+        // instrumented code calls, and the files the instrumenter reads
+        assertTrue(files.contains("battlecode/instrumenter/TeamClassLoaderFactory$Loader.class"));
+        assertTrue(files.contains("battlecode/instrumenter/bytecode/SharedClassRewriter.class"));
+        assertTrue(files.contains("battlecode/instrumenter/bytecode/ClassReferenceUtil$BattlecodeSignatureWriter.class"));
+        assertTrue(files.contains("battlecode/instrumenter/inject/RobotMonitor.class"));
+        assertTrue(files.contains("battlecode/instrumenter/bytecode/resources/IntrinsicCosts.txt"));
+
+        assertFalse(files.contains(JdkBundle.RESOURCE));
+        assertFalse(files.contains(JdkBundle.DIGEST_RESOURCE));
+    }
+}
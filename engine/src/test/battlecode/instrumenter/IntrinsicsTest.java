@@ -0,0 +1,86 @@
+package battlecode.instrumenter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.lang.reflect.Field;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the intrinsic JDK methods listed in IntrinsicCosts.txt.
+ */
+public class IntrinsicsTest {
+
+    static String tempClassFolder;
+
+    @BeforeClass
+    public static void setupFolder() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder(
+                "testplayerintrinsics/RobotPlayer.class",
+                "testplayerintrinsics/RobotPlayer$Slow.class",
+                "testplayerintrinsics/RobotPlayer$Sized.class"
+        );
+    }
+
+    private static int getStatic(Class<?> c, String name) throws Exception {
+        Field field = c.getDeclaredField(name);
+        field.setAccessible(true);
+        return field.getInt(null);
+    }
+
+    @Test(timeout = 20000)
+    public void testCollections() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TeamClassLoaderFactory.Loader loader = new TeamClassLoaderFactory(tempClassFolder).createLoader();
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.server.robot-player-to-system-out", "false")) {
+            SandboxedRobotPlayer player = PlayerUtils.spawn("testplayerintrinsics", 0, loader, out);
+            player.setBytecodeLimit(1000000);
+            player.step();
+            assertTrue(player.getTerminated());
+        }
+
+        Map<String, String[]> lines = new HashMap<>();
+        for (String line : out.toString("UTF-8").split("\n")) {
+            String[] words = line.replaceFirst("^\\[.*?\\] ", "").split(" ");
+            lines.put(words[0], words);
+        }
+
+        // the collections still work
+        assertEquals("4950", lines.get("list")[1]);
+        assertEquals("0", lines.get("sort")[1]);
+        assertEquals("999", lines.get("sort")[2]);
+        assertArrayEquals(new String[]{"map", "49", "false", "50"}, lines.get("map"));
+        assertArrayEquals(new String[]{"deque", "2", "1", "true"}, lines.get("deque"));
+        assertEquals("1", lines.get("queue")[1]);
+        assertTrue(lines.containsKey("caught"));
+
+        // sorting 1000 ints costs 5 + 1000 * 10, plus the calls around it
+        int sortCost = Integer.parseInt(lines.get("sort")[3]);
+        assertTrue(sortCost >= 10005);
+        assertTrue(sortCost < 10100);
+
+        // a subclass overriding size() is charged like the JDK class, give or
+        // take the calls around the sort
+        int plainCost = Integer.parseInt(lines.get("sized")[1]);
+        int sizedCost = Integer.parseInt(lines.get("sized")[2]);
+        assertTrue(plainCost + " vs " + sizedCost, Math.abs(plainCost - sizedCost) < 10);
+
+        // the player's compareTo is still charged inside poll()
+        int pollCost = Integer.parseInt(lines.get("queue")[2]);
+        assertTrue(pollCost > 300);
+
+        // counting is back to normal after an intrinsic threw: the loop
+        // costs what it does anywhere else
+        assertEquals("103", lines.get("after")[1]);
+
+        // every intrinsic we entered was exited, even by exception
+        Class<?> monitor = loader.loadClass("battlecode.instrumenter.inject.RobotMonitor");
+        assertEquals(0, getStatic(monitor, "intrinsicLevel"));
+        assertEquals(0, getStatic(monitor, "numSuspended"));
+    }
+}
@@ -0,0 +1,79 @@
+package battlecode.instrumenter;
+
+import battlecode.server.Config;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the JDK classes instrumented when the engine is built.
+ */
+public class JdkBundleTest {
+
+    private static File tempBundle() throws Exception {
+        File file = Files.createTempFile("battlecode-test", ".bin").toFile();
+        file.deleteOnExit();
+        JdkBundle.digestFile(file).deleteOnExit();
+        return file;
+    }
+
+    private static JdkBundle open(File file) throws Exception {
+        return JdkBundle.open(file, JdkBundle.readDigest(JdkBundle.digestFile(file).toURI().toURL()));
+    }
+
+    @Test
+    public void testLookup() throws Exception {
+        File file = tempBundle();
+        assertEquals(3, JdkBundle.write(file, Arrays.asList(
+                "java/util/ArrayList", "java/util/HashMap", "java/math/BigInteger",
+                // not instrumented, so not bundled
+                "java/util/Iterator")));
+
+        JdkBundle bundle = open(file);
+        assertNotNull(bundle);
+        assertEquals(3, bundle.size());
+        assertNull(bundle.lookup("java/util/Iterator"));
+        assertNull(bundle.lookup("java/util/TreeMap"));
+
+        // the same bytes a robot would have instrumented
+        TeamClassLoaderFactory.Loader loader = new TeamClassLoaderFactory(
+                URLUtils.toTempFolder("testplayerempty/RobotPlayer.class")).createLoader();
+        for (String name : new String[]{"java/util/ArrayList", "java/util/HashMap", "java/math/BigInteger"}) {
+            assertArrayEquals(loader.instrument(TeamClassLoaderFactory.normalReader(name), false, false),
+                    bundle.lookup(name));
+        }
+    }
+
+    @Test
+    public void testIgnoresMismatchedBundle() throws Exception {
+        File file = tempBundle();
+        JdkBundle.write(file, Arrays.asList("java/util/ArrayList"));
+
+        boolean coalesce = Config.getGlobalConfig().getBoolean("bc.engine.coalesce-bytecodes");
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.coalesce-bytecodes", String.valueOf(!coalesce))) {
+            assertNull(open(file));
+        }
+    }
+
+    @Test
+    public void testIgnoresChangedBundle() throws Exception {
+        File file = tempBundle();
+        JdkBundle.write(file, Arrays.asList("java/util/ArrayList"));
+        assertNotNull(open(file));
+
+        // change a byte of the class, leaving the key and index alone
+        try (RandomAccessFile bytes = new RandomAccessFile(file, "rw")) {
+            bytes.seek(bytes.length() - 1);
+            int last = bytes.read();
+            bytes.seek(bytes.length() - 1);
+            bytes.write(last ^ 1);
+        }
+        assertNull(open(file));
+    }
+}
@@ -0,0 +1,112 @@
+package battlecode.instrumenter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for desugaring team lambdas into classes of their own
+ * (bc.engine.desugar-lambdas).
+ */
+public class LambdaDesugaringTest {
+
+    static String tempClassFolder;
+
+    @BeforeClass
+    public static void setupFolder() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder("testplayerlambdas/RobotPlayer.class");
+    }
+
+    private static TeamClassLoaderFactory createFactory(String url, boolean desugar) {
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.desugar-lambdas", String.valueOf(desugar))) {
+            return new TeamClassLoaderFactory(url);
+        }
+    }
+
+    /**
+     * Step a robot for a few turns.
+     *
+     * @return what it printed
+     */
+    private static String run(TeamClassLoaderFactory factory) throws Exception {
+        return run(factory, "testplayerlambdas");
+    }
+
+    private static String run(TeamClassLoaderFactory factory, String teamName) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.server.robot-player-to-system-out", "false")) {
+            SandboxedRobotPlayer player = PlayerUtils.spawn(teamName, 0, factory.createLoader(), out);
+            player.setBytecodeLimit(100000);
+            try {
+                for (int turn = 0; turn < 3; turn++) {
+                    player.step();
+                    assertFalse(player.getTerminated());
+                }
+            } finally {
+                player.terminate();
+            }
+        }
+        return out.toString("UTF-8");
+    }
+
+    @Test(timeout = 20000)
+    public void testSameBehavior() throws Exception {
+        TeamClassLoaderFactory factory = createFactory(tempClassFolder, true);
+        String desugared = run(factory);
+        String spun = run(createFactory(tempClassFolder, false));
+
+        assertFalse(desugared.isEmpty());
+        assertEquals(spun, desugared);
+
+        assertTrue(factory.getLambdaClasses().contains("testplayerlambdas.RobotPlayer$$Lambda$0"));
+        for (String lambda : factory.getLambdaClasses()) {
+            // instrumented and cached with the rest of the team
+            assertTrue(factory.hasTeamClass(lambda));
+            assertTrue(lambda, factory.hasCached(lambda));
+        }
+    }
+
+    @Test(timeout = 20000)
+    public void testInstrumentedMethodReference() throws Exception {
+        // Object::toString has to be replaced, so LambdaMetafactory can't call it
+        String folder = URLUtils.toTempFolder("testplayermethodref/RobotPlayer.class");
+        try {
+            createFactory(folder, false).createLoader().loadClass("testplayermethodref.RobotPlayer");
+            fail("Referenced Object::toString without desugaring");
+        } catch (InstrumentationException e) {
+            // expected
+        }
+
+        assertTrue(run(createFactory(folder, true), "testplayermethodref").endsWith("] [0, 0]\n"));
+    }
+
+    @Test(timeout = 20000)
+    public void testArtifact() throws Exception {
+        File key = Files.createTempFile("battlecode-test", ".key").toFile();
+        key.deleteOnExit();
+        Files.write(key.toPath(), "secret".getBytes(StandardCharsets.UTF_8));
+
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.desugar-lambdas", "true",
+                "bc.engine.instrumented-artifacts", "true",
+                "bc.engine.artifact-key", key.getPath())) {
+            File artifact = Files.createTempFile("battlecode-test", ".jar").toFile();
+            artifact.deleteOnExit();
+            assertTrue(InstrumentedArtifact.write("testplayerlambdas", tempClassFolder, artifact.getPath()));
+
+            TeamClassLoaderFactory factory = new TeamClassLoaderFactory(artifact.getPath());
+            assertTrue(factory.getNumFromArtifact() > 1);
+            assertTrue(factory.hasCached("testplayerlambdas.RobotPlayer$$Lambda$0"));
+
+            assertEquals(run(new TeamClassLoaderFactory(tempClassFolder)), run(factory));
+        }
+    }
+}
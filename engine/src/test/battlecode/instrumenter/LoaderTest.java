@@ -322,6 +322,40 @@ public class LoaderTest {
         assertTrue(jarClassLocation.toString().contains(new File(jar).toURI().toURL().toString()));
     }
 
+    @Test
+    public void testPreinstrument() throws Exception {
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(tempClassFolder);
+        factory.preinstrument("instrumentertest", 4);
+
+        // everything but the illegal classes, which wait for a robot to load them
+        assertTrue(factory.hasCached("instrumentertest.Nothing"));
+        assertTrue(factory.hasCached("instrumentertest.Outer$Inner"));
+        assertFalse(factory.hasCached("instrumentertest.IllegalMethodReference"));
+        assertEquals(factory.getNumPreinstrumented(), factory.getNumInstrumented());
+        assertFalse(factory.getError());
+
+        TeamClassLoaderFactory.Loader loader = setupLoader(factory);
+        loader.loadClass("instrumentertest.LegalMethodReference");
+        assertFalse(factory.getError());
+        try {
+            loader.loadClass("instrumentertest.IllegalMethodReference");
+            fail();
+        } catch (InstrumentationException e) {
+            assertTrue(factory.getError());
+        }
+    }
+
+    @Test
+    public void testPreinstrumentFromJar() throws Exception {
+        String jar = URLUtils.toTempJar("instrumentertest/Nothing.class", "instrumentertest/OverridesHashCode.class");
+        TeamClassLoaderFactory factory = new TeamClassLoaderFactory(jar);
+        factory.preinstrument("instrumentertest", 0);
+
+        assertTrue(factory.hasCached("instrumentertest.Nothing"));
+        assertTrue(factory.hasCached("instrumentertest.OverridesHashCode"));
+        assertEquals(2, factory.getNumPreinstrumented());
+    }
+
     @Test
     public void testOverrideLangClass() throws Exception {
         String folder = URLUtils.toTempFolder(
@@ -0,0 +1,94 @@
+package battlecode.instrumenter;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotController;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.server.Config;
+import org.junit.Ignore;
+
+import java.io.OutputStream;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Utilities for running test players in a sandbox, and for changing the
+ * global Config around them.
+ */
+@Ignore
+public class PlayerUtils {
+
+    /**
+     * Mock a team A miner at (0, 0).
+     *
+     * @param id the robot's ID
+     * @return the mock RobotController
+     */
+    public static RobotController mockController(int id) {
+        RobotController rc = mock(RobotController.class);
+        when(rc.getTeam()).thenReturn(Team.A);
+        when(rc.getType()).thenReturn(RobotType.MINER);
+        when(rc.getID()).thenReturn(id);
+        when(rc.getLocation()).thenReturn(new MapLocation(0, 0));
+        when(rc.getRoundNum()).thenReturn(0);
+        return rc;
+    }
+
+    /**
+     * Create a player for a mocked robot, seeded with its ID.
+     *
+     * @param teamName the package of the player's RobotPlayer
+     * @param id the robot's ID and seed
+     * @param loader the loader to load the player with
+     * @param out where the player prints to
+     * @return the new player
+     */
+    public static SandboxedRobotPlayer spawn(String teamName, int id,
+                                             TeamClassLoaderFactory.Loader loader,
+                                             OutputStream out) {
+        return new SandboxedRobotPlayer(teamName, mockController(id), id, loader, out);
+    }
+
+    /**
+     * Set global Config keys until the returned override is closed, e.g.
+     * <pre>
+     * try (ConfigOverride c = PlayerUtils.setConfig("bc.engine.share-classes", "true")) {
+     *     ...
+     * }
+     * </pre>
+     *
+     * @param keysAndValues alternating keys and the values to set them to
+     * @return an override that restores the old values when closed
+     */
+    public static ConfigOverride setConfig(String... keysAndValues) {
+        return new ConfigOverride(keysAndValues);
+    }
+
+    /**
+     * Keys set by {@link #setConfig}, and the values they had before.
+     */
+    public static class ConfigOverride implements AutoCloseable {
+        private final Map<String, String> oldValues = new LinkedHashMap<>();
+
+        private ConfigOverride(String[] keysAndValues) {
+            assert keysAndValues.length % 2 == 0;
+
+            Config config = Config.getGlobalConfig();
+            for (int i = 0; i < keysAndValues.length; i += 2) {
+                oldValues.putIfAbsent(keysAndValues[i], config.get(keysAndValues[i]));
+                config.set(keysAndValues[i], keysAndValues[i + 1]);
+            }
+        }
+
+        @Override
+        public void close() {
+            Config config = Config.getGlobalConfig();
+            for (Map.Entry<String, String> old : oldValues.entrySet()) {
+                config.set(old.getKey(), old.getValue());
+            }
+        }
+    }
+}
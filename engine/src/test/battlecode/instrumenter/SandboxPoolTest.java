@@ -0,0 +1,93 @@
+package battlecode.instrumenter;
+
+import battlecode.instrumenter.stream.SilencedPrintStream;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for SandboxPool.
+ */
+public class SandboxPoolTest {
+
+    static String tempClassFolder;
+
+    static PrintStream out = SilencedPrintStream.theInstance();
+
+    @BeforeClass
+    public static void setupFolder() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder("testplayerloopforever/RobotPlayer.class");
+    }
+
+    private static SandboxedRobotPlayer spawn(SandboxPool pool, int id) throws Exception {
+        SandboxPool.Sandbox sandbox = pool.take();
+        return new SandboxedRobotPlayer("testplayerloopforever", PlayerUtils.mockController(id), id,
+                sandbox.getLoader(), sandbox.getCarrier(), out);
+    }
+
+    @Test(timeout = 20000)
+    public void testReuseAndResize() throws Exception {
+        SandboxPool pool = new SandboxPool(new TeamClassLoaderFactory(tempClassFolder),
+                "testplayerloopforever", 1, 8);
+        assertEquals(1, pool.getNumWarm());
+
+        List<SandboxedRobotPlayer> players = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            players.add(spawn(pool, i));
+        }
+        assertEquals(0, pool.getNumWarm());
+        for (SandboxedRobotPlayer player : players) {
+            player.setBytecodeLimit(1000);
+            player.step();
+            assertFalse(player.getTerminated());
+            assertTrue(player.getBytecodesUsed() >= 1000);
+        }
+
+        // terminated players give their carriers back
+        SandboxedRobotPlayer dead = players.remove(0);
+        dead.terminate();
+        assertTrue(dead.getTerminated());
+        pool.release(dead);
+        assertEquals(1, pool.getNumIdle());
+        pool.release(players.get(0));
+        assertEquals(1, pool.getNumIdle());
+
+        // eight spawns in a round warm up enough sandboxes for two more
+        // rounds like it, starting with the idle carrier
+        pool.roundEnded();
+        assertEquals(4, pool.getNumWarm());
+        assertEquals(0, pool.getNumIdle());
+
+        // quiet rounds shrink the pool back down
+        for (int i = 0; i < 20; i++) {
+            pool.roundEnded();
+        }
+        assertEquals(1, pool.getNumWarm());
+        assertEquals(3, pool.getNumIdle());
+
+        SandboxedRobotPlayer reborn = spawn(pool, 100);
+        reborn.setBytecodeLimit(1000);
+        reborn.step();
+        assertFalse(reborn.getTerminated());
+        players.add(reborn);
+
+        List<SandboxCarrier> carriers = new ArrayList<>();
+        for (SandboxedRobotPlayer player : players) {
+            carriers.add(player.getCarrier());
+            player.terminate();
+            pool.release(player);
+        }
+        pool.shutdown();
+        for (SandboxCarrier carrier : carriers) {
+            for (int i = 0; i < 100 && carrier.isAlive(); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(carrier.isAlive());
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package battlecode.instrumenter;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for sharing instrumented library classes between a team's robots
+ * (bc.engine.share-classes).
+ */
+public class SharedClassesTest {
+
+    static String tempClassFolder;
+
+    @BeforeClass
+    public static void setupFolder() throws Exception {
+        tempClassFolder = URLUtils.toTempFolder("testplayersharing/RobotPlayer.class");
+    }
+
+    private static TeamClassLoaderFactory createFactory(boolean share) {
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.engine.share-classes", String.valueOf(share))) {
+            return new TeamClassLoaderFactory(tempClassFolder);
+        }
+    }
+
+    private static SandboxedRobotPlayer createPlayer(TeamClassLoaderFactory factory, int seed,
+                                                     ByteArrayOutputStream out) {
+        SandboxedRobotPlayer player = PlayerUtils.spawn("testplayersharing", seed, factory.createLoader(), out);
+        player.setBytecodeLimit(100000);
+        return player;
+    }
+
+    /**
+     * Step two robots, with different seeds, in turn.
+     *
+     * @return what each robot printed
+     */
+    private static String[] run(TeamClassLoaderFactory factory) throws Exception {
+        ByteArrayOutputStream[] outs = {new ByteArrayOutputStream(), new ByteArrayOutputStream()};
+        SandboxedRobotPlayer[] players = {createPlayer(factory, 1, outs[0]), createPlayer(factory, 2, outs[1])};
+        try {
+            for (int turn = 0; turn < 5; turn++) {
+                for (SandboxedRobotPlayer player : players) {
+                    player.step();
+                    assertFalse(player.getTerminated());
+                }
+            }
+        } finally {
+            for (SandboxedRobotPlayer player : players) {
+                player.terminate();
+            }
+        }
+        return new String[]{outs[0].toString("UTF-8"), outs[1].toString("UTF-8")};
+    }
+
+    @Test
+    public void testClassesShared() throws Exception {
+        TeamClassLoaderFactory shared = createFactory(true);
+        assertTrue(shared.isSharingClasses());
+        assertSame(shared.createLoader().loadClass("instrumented.java.util.ArrayList"),
+                shared.createLoader().loadClass("instrumented.java.util.ArrayList"));
+
+        TeamClassLoaderFactory unshared = createFactory(false);
+        assertFalse(unshared.isSharingClasses());
+        assertNotSame(unshared.createLoader().loadClass("instrumented.java.util.ArrayList"),
+                unshared.createLoader().loadClass("instrumented.java.util.ArrayList"));
+    }
+
+    @Test(timeout = 20000)
+    public void testStaticsPerRobot() throws Exception {
+        String[] unshared;
+        String[] shared;
+        TeamClassLoaderFactory factory = createFactory(true);
+        try (PlayerUtils.ConfigOverride c = PlayerUtils.setConfig(
+                "bc.server.robot-player-to-system-out", "false")) {
+            unshared = run(createFactory(false));
+            shared = run(factory);
+        }
+
+        // each robot shuffles with its own Random, as if nothing were shared
+        assertEquals(unshared[0], shared[0]);
+        assertEquals(unshared[1], shared[1]);
+        assertNotEquals(shared[0], shared[1]);
+
+        assertTrue(factory.getNumSharedClasses() > 0);
+        assertTrue(factory.getSharedBytesSavedPerRobot() > 0);
+    }
+}
@@ -0,0 +1,78 @@
+package battlecode.instrumenter;
+
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for TurnHandoff.
+ */
+public class TurnHandoffTest {
+
+    private static final int TURNS = 1000;
+
+    /**
+     * Run a player that takes TURNS turns, checking that the engine and
+     * player threads never run at the same time.
+     */
+    private static void testTurns(String strategy) throws Exception {
+        TurnHandoff handoff = TurnHandoff.create(strategy);
+        AtomicInteger playerTurns = new AtomicInteger();
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger overlaps = new AtomicInteger();
+
+        Thread player = handoff.newThread(() -> {
+            try {
+                for (int i = 0; i <= TURNS; i++) {
+                    if (running.incrementAndGet() != 1) overlaps.incrementAndGet();
+                    playerTurns.incrementAndGet();
+                    running.decrementAndGet();
+                    if (i < TURNS) handoff.pausePlayer();
+                }
+            } catch (InterruptedException e) {
+                fail("Player interrupted");
+            } finally {
+                handoff.finishPlayer();
+            }
+        }, strategy + " player");
+
+        handoff.start(player);
+        assertEquals(1, playerTurns.get());
+        for (int i = 1; i <= TURNS; i++) {
+            if (running.incrementAndGet() != 1) overlaps.incrementAndGet();
+            running.decrementAndGet();
+            handoff.runPlayer();
+            assertEquals(i + 1, playerTurns.get());
+        }
+        player.join(10000);
+        assertFalse(player.isAlive());
+        assertEquals(0, overlaps.get());
+    }
+
+    @Test(timeout = 20000)
+    public void testMonitor() throws Exception {
+        testTurns("monitor");
+    }
+
+    @Test(timeout = 20000)
+    public void testPark() throws Exception {
+        testTurns("park");
+    }
+
+    @Test(timeout = 20000)
+    public void testSpin() throws Exception {
+        testTurns("spin");
+    }
+
+    @Test(timeout = 20000)
+    public void testVirtual() throws Exception {
+        testTurns("virtual");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnknown() {
+        TurnHandoff.create("carrier-pigeon");
+    }
+}
@@ -0,0 +1,95 @@
+package testplayercoalescing;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+/**
+ * Runs loops, branches, exceptions and static initializers, printing the
+ * bytecode count as it goes, so that its output depends on exactly where
+ * bytecodes are charged.
+ */
+public class RobotPlayer {
+    static class Lazy {
+        static final int[] VALUES = new int[7];
+        static {
+            for (int i = 0; i < VALUES.length; i++) {
+                VALUES[i] = i * i;
+            }
+        }
+    }
+
+    static int divide(int a, int b) {
+        int sum = 0;
+        for (int i = 0; i < 3; i++) {
+            sum += i;
+        }
+        return a / b + sum;
+    }
+
+    static int fail(int depth) {
+        int x = depth * 3;
+        if (depth > 0) {
+            return fail(depth - 1) + x;
+        }
+        throw new IllegalStateException("bottom");
+    }
+
+    static int mix(int n) {
+        int total = 0;
+        for (int i = 0; i < n; i++) {
+            switch (i % 4) {
+                case 0:
+                    total += i;
+                    break;
+                case 1:
+                    total ^= i << 2;
+                    break;
+                case 2:
+                    total -= Math.abs(i - 7);
+                    break;
+                default:
+                    if ((total & 1) == 0) {
+                        total++;
+                    }
+            }
+        }
+        return total;
+    }
+
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) {
+        System.out.println("start " + Clock.getBytecodeNum());
+        int acc = mix(50);
+        System.out.println("mix " + acc + " " + Clock.getBytecodeNum());
+
+        try {
+            acc += divide(acc, 0);
+        } catch (ArithmeticException e) {
+            System.out.println("divide " + Clock.getBytecodeNum());
+        }
+        try {
+            acc += fail(5);
+        } catch (IllegalStateException e) {
+            System.out.println("fail " + Clock.getBytecodeNum());
+        }
+
+        acc += Lazy.VALUES[3];
+        System.out.println("lazy " + acc + " " + Clock.getBytecodeNum());
+
+        long[][] grid = new long[4][5];
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < grid.length; i++) {
+                for (int j = 0; j < grid[i].length; j++) {
+                    grid[i][j] += i * j + round;
+                }
+            }
+            System.out.println("round " + round + " " + grid[3][4] + " " + Clock.getBytecodeNum());
+            Clock.yield();
+        }
+
+        int spin = 0;
+        while (true) {
+            spin = mix(spin & 15) + 1;
+        }
+    }
+}
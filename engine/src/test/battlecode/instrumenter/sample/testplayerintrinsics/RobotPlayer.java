@@ -0,0 +1,109 @@
+package testplayerintrinsics;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.PriorityQueue;
+
+/**
+ * Uses the intrinsic JDK collections, printing what they return and what
+ * they cost.
+ */
+public class RobotPlayer {
+    static class Slow implements Comparable<Slow> {
+        final int value;
+
+        Slow(int value) {
+            this.value = value;
+        }
+
+        @Override
+        public int compareTo(Slow other) {
+            // burn some bytecodes, which should be charged
+            int x = 0;
+            for (int i = 0; i < 10; i++) {
+                x += i;
+            }
+            return Integer.compare(value, other.value) + x - x;
+        }
+    }
+
+    static class Sized extends ArrayList<Integer> {
+        @Override
+        public int size() {
+            // tries to make the intrinsics that scale with size free
+            return 0;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) {
+        ArrayList<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            list.add(99 - i);
+        }
+        int before = Clock.getBytecodeNum();
+        int sum = 0;
+        for (int i = 0; i < list.size(); i++) {
+            sum += list.get(i);
+        }
+        System.out.println("list " + sum + " " + (Clock.getBytecodeNum() - before));
+
+        before = Clock.getBytecodeNum();
+        int[] numbers = new int[1000];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = (i * 7919) % 1000;
+        }
+        int filled = Clock.getBytecodeNum();
+        Arrays.sort(numbers);
+        System.out.println("sort " + numbers[0] + " " + numbers[999] + " " + (Clock.getBytecodeNum() - filled));
+
+        ArrayList<Integer> plain = new ArrayList<>();
+        Sized sized = new Sized();
+        for (int i = 0; i < 1000; i++) {
+            plain.add((i * 7919) % 1000);
+            sized.add((i * 7919) % 1000);
+        }
+        before = Clock.getBytecodeNum();
+        plain.sort(null);
+        int plainCost = Clock.getBytecodeNum() - before;
+        before = Clock.getBytecodeNum();
+        sized.sort(null);
+        System.out.println("sized " + plainCost + " " + (Clock.getBytecodeNum() - before));
+
+        HashMap<Integer, Integer> map = new HashMap<>();
+        for (int i = 0; i < 50; i++) {
+            map.put(i, i * i);
+        }
+        System.out.println("map " + map.get(7) + " " + map.containsKey(50) + " " + map.size());
+
+        ArrayDeque<Integer> deque = new ArrayDeque<>();
+        deque.add(1);
+        deque.push(2);
+        System.out.println("deque " + deque.poll() + " " + deque.pollLast() + " " + deque.isEmpty());
+
+        PriorityQueue<Slow> queue = new PriorityQueue<>();
+        for (int i = 0; i < 20; i++) {
+            queue.add(new Slow((i * 13) % 20));
+        }
+        before = Clock.getBytecodeNum();
+        queue.poll();
+        System.out.println("queue " + queue.peek().value + " " + (Clock.getBytecodeNum() - before));
+
+        try {
+            list.get(1000);
+        } catch (IndexOutOfBoundsException e) {
+            System.out.println("caught");
+        }
+        before = Clock.getBytecodeNum();
+        sum = 0;
+        for (int i = 0; i < 10; i++) {
+            sum += i;
+        }
+        System.out.println("after " + (Clock.getBytecodeNum() - before));
+    }
+}
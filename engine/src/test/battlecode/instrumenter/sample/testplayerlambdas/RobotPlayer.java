@@ -0,0 +1,70 @@
+package testplayerlambdas;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.*;
+
+/**
+ * Uses lambdas and method references of every kind, and prints what they
+ * compute every turn.
+ */
+public class RobotPlayer {
+    private final int id;
+    private int turns;
+
+    private RobotPlayer(int id) {
+        this.id = id;
+    }
+
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) {
+        IntFunction<RobotPlayer> create = RobotPlayer::new;
+        RobotPlayer player = create.apply(rc.getID());
+        while (true) {
+            player.turn();
+            Clock.yield();
+        }
+    }
+
+    private void turn() {
+        turns++;
+
+        // capturing this and a local
+        int offset = turns * 3;
+        IntUnaryOperator shift = x -> x * id + offset + turns;
+        // not capturing anything, boxing and unboxing
+        BinaryOperator<Integer> add = (a, b) -> a + b;
+        ToLongFunction<Integer> widen = Integer::intValue;
+        // static and unbound method references
+        Function<Integer, String> describe = Integer::toHexString;
+        Comparator<String> byLength = Comparator.comparing(String::length);
+        // bound method reference and constructor reference
+        List<String> words = new ArrayList<>();
+        Consumer<String> addWord = words::add;
+        Supplier<StringBuilder> builder = StringBuilder::new;
+
+        for (int i = 0; i < 5; i++) {
+            addWord.accept(describe.apply(shift.applyAsInt(i)));
+        }
+        words.sort(byLength.reversed().thenComparing(Comparator.naturalOrder()));
+
+        List<Integer> numbers = new ArrayList<>();
+        for (int i = 0; i < turns; i++) {
+            numbers.add(i);
+        }
+        String squares = numbers.stream()
+                .map(i -> i * i)
+                .map(String::valueOf)
+                .reduce("", (a, b) -> a + b + ",");
+
+        System.out.println(builder.get()
+                .append(words).append(' ')
+                .append(add.apply(turns, id)).append(' ')
+                .append(widen.applyAsLong(offset)).append(' ')
+                .append(squares));
+    }
+}
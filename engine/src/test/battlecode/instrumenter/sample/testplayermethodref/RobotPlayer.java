@@ -0,0 +1,21 @@
+package testplayermethodref;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+import java.util.function.Function;
+
+/**
+ * Takes a reference to a method the instrumenter replaces, which only
+ * works if the reference is desugared.
+ */
+public class RobotPlayer {
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) {
+        Function<Object, String> describe = Object::toString;
+        while (true) {
+            System.out.println(describe.apply(rc.getLocation()));
+            Clock.yield();
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package testplayersharing;
+
+import battlecode.common.Clock;
+import battlecode.common.RobotController;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Shuffles a list every turn, using the Random kept in a static field of
+ * Collections, and prints it.
+ */
+public class RobotPlayer {
+    @SuppressWarnings("unused")
+    public static void run(RobotController rc) {
+        List<Integer> list = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            list.add(i);
+        }
+        while (true) {
+            Collections.shuffle(list);
+            System.out.println(list);
+            Clock.yield();
+        }
+    }
+}
@@ -5,9 +5,13 @@ import battlecode.common.MapLocation;
 import battlecode.common.RobotType;
 import battlecode.common.Team;
 import battlecode.schema.Event;
+import battlecode.schema.EventWrapper;
 import battlecode.schema.GameHeader;
 import battlecode.schema.GameWrapper;
+import battlecode.schema.Keyframe;
+import battlecode.schema.Round;
 import battlecode.util.TeamMapping;
+import battlecode.world.LiveMap;
 import battlecode.world.TestMapBuilder;
 
 import org.apache.commons.io.IOUtils;
@@ -19,6 +23,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.*;
@@ -49,11 +54,10 @@ public class GameMakerTest {
         gm.makeGameHeader();
         gm.getMatchMaker().makeMatchFooter(Team.A, 23);
     }
-    @Test
-    public void fullReasonableGame() throws Exception {
-        NetServer mockServer = Mockito.mock(NetServer.class);
-        GameMaker gm = new GameMaker(info, mockServer);
-
+    /**
+     * Play a game with two matches, of two rounds and one round.
+     */
+    private void playGame(GameMaker gm) {
         gm.makeGameHeader();
         GameMaker.MatchMaker mm = gm.getMatchMaker();
         mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 50, 50, 1337, 50, 0)
@@ -82,6 +86,13 @@ public class GameMakerTest {
         mm2.makeRound(0);
         mm2.makeMatchFooter(Team.A, 1);
         gm.makeGameFooter(Team.A);
+    }
+
+    @Test
+    public void fullReasonableGame() throws Exception {
+        NetServer mockServer = Mockito.mock(NetServer.class);
+        GameMaker gm = new GameMaker(info, mockServer);
+        playGame(gm);
 
         byte[] gameBytes = ungzip(gm.toBytes());
 
@@ -120,6 +131,176 @@ public class GameMakerTest {
         verify(mockServer, times(9)).addEvent(any(byte[].class));
     }
 
+    @Test
+    public void streamedGame() throws Exception {
+        NetServer mockServer = Mockito.mock(NetServer.class);
+        ByteArrayOutputStream replay = new ByteArrayOutputStream();
+        GameMaker gm = new GameMaker(info, mockServer, replay);
+        assertTrue(gm.isStreaming());
+        playGame(gm);
+        gm.closeReplay();
+
+        ByteBuffer stream = ByteBuffer.wrap(ungzip(replay.toByteArray())).order(ByteOrder.LITTLE_ENDIAN);
+        byte[] expectedTypes = {
+                Event.GameHeader, Event.MatchHeader, Event.Round, Event.Round, Event.MatchFooter,
+                Event.MatchHeader, Event.Round, Event.MatchFooter, Event.GameFooter
+        };
+        for (byte type : expectedTypes) {
+            EventWrapper event = EventWrapper.getRootAsEventWrapper(nextBuffer(stream));
+            assertEquals(type, event.eType());
+        }
+
+        GameWrapper trailer = GameWrapper.getRootAsGameWrapper(nextBuffer(stream));
+        assertFalse(stream.hasRemaining());
+        assertEquals(0, trailer.eventsLength());
+        assertEquals(2, trailer.matchHeadersLength());
+        assertEquals(1, trailer.matchHeaders(0));
+        assertEquals(5, trailer.matchHeaders(1));
+        assertEquals(2, trailer.matchFootersLength());
+        assertEquals(4, trailer.matchFooters(0));
+        assertEquals(7, trailer.matchFooters(1));
+
+        // the client gets the same events
+        verify(mockServer, times(9)).addEvent(any(byte[].class));
+    }
+
+    @Test
+    public void keyframes() throws Exception {
+        GameMaker gm = new GameMaker(info, null);
+        gm.setKeyframeInterval(2);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 2, 2, 1337, 50, 0)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        for (int round = 1; round <= 4; round++) {
+            if (mm.isKeyframe(round)) {
+                mm.setKeyframeMap(new int[]{round, 0, 0, 0}, new boolean[]{false, true, false, false},
+                        new int[]{0, 0, 7, 0}, new int[]{0, 0, 0, 5});
+            }
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, 4);
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        assertEquals(2, output.keyframesLength());
+        assertEquals(3, output.keyframes(0));
+        assertEquals(5, output.keyframes(1));
+
+        Round second = (Round) output.events(3).e(new Round());
+        assertEquals(2, second.roundID());
+        Keyframe keyframe = second.keyframe();
+        assertNotNull(keyframe);
+        assertEquals(0, keyframe.bodies().robotIDsLength());
+        assertEquals(2, keyframe.dirt(0));
+        assertTrue(keyframe.water(1));
+        assertEquals(7, keyframe.pollution(2));
+        assertEquals(5, keyframe.soup(3));
+
+        Round first = (Round) output.events(2).e(new Round());
+        assertNull(first.keyframe());
+    }
+
+    @Test
+    public void replayDetail() throws Exception {
+        GameMaker gm = new GameMaker(info, null);
+        gm.setReplayDetail(GameMaker.ReplayDetail.STANDARD);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(emptyMap());
+        assertNull(mm.getDroppedSummary());
+        mm.addIndicatorDot(0, new MapLocation(3, 4), 255, 0, 0);
+        mm.addIndicatorLine(0, new MapLocation(3, 4), new MapLocation(5, 6), 0, 255, 0);
+        mm.addBytecodes(0, 500);
+        mm.getOut().write("hello".getBytes());
+        mm.makeRound(1);
+        mm.makeMatchFooter(Team.A, 1);
+        assertEquals("Left out of the replay (standard detail): 1 indicator dots, 1 indicator lines, " +
+                "0 bytecode counts, 0 bytes of logs", mm.getDroppedSummary());
+
+        gm.setReplayDetail(GameMaker.ReplayDetail.MINIMAL);
+        mm.makeMatchHeader(emptyMap());
+        mm.addIndicatorDot(0, new MapLocation(3, 4), 255, 0, 0);
+        mm.addBytecodes(0, 500);
+        mm.getOut().write("hello".getBytes());
+        mm.makeRound(1);
+        mm.makeMatchFooter(Team.A, 1);
+        assertEquals("Left out of the replay (minimal detail): 1 indicator dots, 0 indicator lines, " +
+                "1 bytecode counts, 5 bytes of logs", mm.getDroppedSummary());
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        Round standard = (Round) output.events(2).e(new Round());
+        assertEquals(0, standard.indicatorDotIDsLength());
+        // still there, for viewers that don't check
+        assertNotNull(standard.indicatorDotLocs());
+        assertEquals(0, standard.indicatorLineIDsLength());
+        assertEquals(1, standard.bytecodeIDsLength());
+        assertEquals(500, standard.bytecodesUsed(0));
+        assertEquals("hello", standard.logs());
+
+        Round minimal = (Round) output.events(5).e(new Round());
+        assertEquals(0, minimal.indicatorDotIDsLength());
+        assertEquals(0, minimal.bytecodeIDsLength());
+        assertEquals("", minimal.logs());
+    }
+
+    @Test
+    public void indicatorLimits() throws Exception {
+        GameMaker gm = new GameMaker(info, null);
+        gm.setIndicatorLimits(2, 1);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(emptyMap());
+        for (int round = 1; round <= 2; round++) {
+            for (int id : new int[]{0, 1}) {
+                for (int i = 0; i < 3; i++) {
+                    mm.addIndicatorDot(id, new MapLocation(i, round), 255, 0, 0);
+                    mm.addIndicatorLine(id, new MapLocation(i, round), new MapLocation(0, 0), 0, 255, 0);
+                }
+            }
+            mm.makeRound(round);
+        }
+        mm.makeMatchFooter(Team.A, 2);
+        gm.makeGameFooter(Team.A);
+        assertEquals("Left out of the replay (full detail): 4 indicator dots, 8 indicator lines, " +
+                "0 bytecode counts, 0 bytes of logs", mm.getDroppedSummary());
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(ungzip(gm.toBytes())));
+        for (int event = 2; event <= 3; event++) {
+            Round round = (Round) output.events(event).e(new Round());
+            assertEquals(4, round.indicatorDotIDsLength());
+            assertEquals(0, round.indicatorDotIDs(1));
+            assertEquals(1, round.indicatorDotIDs(2));
+            assertEquals(1, round.indicatorDotLocs().xs(3));
+            assertEquals(2, round.indicatorLineIDsLength());
+        }
+    }
+
+    private static LiveMap emptyMap() {
+        return new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50, 0)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+    }
+
+    /**
+     * @return the next size-prefixed flatbuffer in a stream
+     */
+    private static ByteBuffer nextBuffer(ByteBuffer stream) {
+        int size = stream.getInt();
+        ByteBuffer buffer = stream.slice();
+        buffer.limit(size);
+        stream.position(stream.position() + size);
+        return buffer.order(ByteOrder.LITTLE_ENDIAN);
+    }
+
     public byte[] ungzip(byte[] in) throws IOException {
         ByteArrayOutputStream result = new ByteArrayOutputStream();
         IOUtils.copy(new GZIPInputStream(new ByteArrayInputStream(in)), result);
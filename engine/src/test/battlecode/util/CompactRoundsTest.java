@@ -0,0 +1,263 @@
+package battlecode.util;
+
+import battlecode.common.MapLocation;
+import battlecode.common.RobotType;
+import battlecode.common.Team;
+import battlecode.schema.Event;
+import battlecode.schema.GameMap;
+import battlecode.schema.GameWrapper;
+import battlecode.schema.MatchHeader;
+import battlecode.schema.Round;
+import battlecode.server.GameInfo;
+import battlecode.server.GameMaker;
+import battlecode.world.InternalRobot;
+import battlecode.world.TestMapBuilder;
+import gnu.trove.list.array.TByteArrayList;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.ByteBuffer;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class CompactRoundsTest {
+    @Test
+    public void testVarints() {
+        int[] values = {0, 1, -1, 63, -64, 64, 127, 128, 300, -300, Integer.MAX_VALUE, Integer.MIN_VALUE};
+        TByteArrayList bytes = new TByteArrayList();
+        for (int value : values) {
+            CompactRounds.addZigzag(bytes, value);
+            CompactRounds.addVarint(bytes, value);
+        }
+        ByteBuffer in = ByteBuffer.wrap(bytes.toArray());
+        for (int value : values) {
+            assertEquals(value, CompactRounds.readZigzag(in));
+            assertEquals(value, CompactRounds.readVarint(in));
+        }
+        assertFalse(in.hasRemaining());
+
+        bytes.clear();
+        CompactRounds.addZigzag(bytes, -1);
+        assertEquals(1, bytes.size());
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        GameMaker gm = new GameMaker(new GameInfo(
+                "bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[] {"honolulu"}, null, false
+        ), null);
+        gm.setCompactRounds(true);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50, 0)
+                .addRobot(5, Team.A, RobotType.MINER, new MapLocation(3, -2))
+                .addRobot(9, Team.B, RobotType.DELIVERY_DRONE, new MapLocation(8, 4))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+
+        mm.addMoved(9, new MapLocation(2, 6));
+        mm.addMoved(5, new MapLocation(4, -1));
+        mm.addDirtChanged(new MapLocation(7, 0), 3);
+        mm.addDirtChanged(new MapLocation(2, -3), -200);
+        mm.addDirtChanged(new MapLocation(7, 0), -1);
+        mm.addWaterChanged(new MapLocation(11, 6));
+        mm.addSoupChanged(new MapLocation(3, -2), -7);
+        mm.addBytecodes(5, 12000);
+        mm.addBytecodes(9, 40);
+        mm.makeRound(1);
+
+        mm.addMoved(5, new MapLocation(4, -2));
+        mm.addDied(9);
+        mm.addBytecodes(5, 3);
+        mm.makeRound(2);
+        mm.makeMatchFooter(Team.A, 2);
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(
+                IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gm.toBytes())))));
+        assertEquals(Event.MatchHeader, output.events(1).eType());
+        CompactRounds.Decoder decoder = new CompactRounds.Decoder(
+                ((MatchHeader) output.events(1).e(new MatchHeader())).map());
+
+        Round first = (Round) output.events(2).e(new Round());
+        assertEquals(0, first.movedIDsLength());
+        assertNull(first.movedLocs());
+        assertEquals(0, first.bytecodeIDsLength());
+        // only the drop isn't to an adjacent tile
+        assertEquals(1, first.compact().movedLocs().xsLength());
+
+        CompactRounds.Decoded round = decoder.decode(first);
+        assertArrayEquals(new int[]{9, 5}, round.movedIDs);
+        assertArrayEquals(new int[]{2, 4}, round.movedXs);
+        assertArrayEquals(new int[]{6, -1}, round.movedYs);
+        // sorted by tile, keeping the order of the changes to each tile
+        assertArrayEquals(new int[]{2, 7, 7}, round.dirtChangedXs);
+        assertArrayEquals(new int[]{-3, 0, 0}, round.dirtChangedYs);
+        assertArrayEquals(new int[]{-200, 3, -1}, round.dirtChanges);
+        assertArrayEquals(new int[]{11}, round.waterChangedXs);
+        assertArrayEquals(new int[]{6}, round.waterChangedYs);
+        assertArrayEquals(new int[]{3}, round.soupChangedXs);
+        assertArrayEquals(new int[]{-2}, round.soupChangedYs);
+        assertArrayEquals(new int[]{-7}, round.soupChanges);
+        assertArrayEquals(new int[]{5, 9}, round.bytecodeIDs);
+        assertArrayEquals(new int[]{12000, 40}, round.bytecodesUsed);
+
+        round = decoder.decode((Round) output.events(3).e(new Round()));
+        assertArrayEquals(new int[]{5}, round.movedIDs);
+        assertArrayEquals(new int[]{4}, round.movedXs);
+        assertArrayEquals(new int[]{-2}, round.movedYs);
+        assertEquals(0, round.dirtChanges.length);
+        assertArrayEquals(new int[]{5}, round.bytecodeIDs);
+        assertArrayEquals(new int[]{3}, round.bytecodesUsed);
+    }
+
+    private static InternalRobot robot(int id, Team team, RobotType type, MapLocation loc) {
+        InternalRobot robot = mock(InternalRobot.class);
+        when(robot.getID()).thenReturn(id);
+        when(robot.getTeam()).thenReturn(team);
+        when(robot.getType()).thenReturn(type);
+        when(robot.getLocation()).thenReturn(loc);
+        when(robot.getIdOfUnitCurrentlyHeld()).thenReturn(-1);
+        return robot;
+    }
+
+    @Test
+    public void testSeekToKeyframe() throws Exception {
+        GameMaker gm = new GameMaker(new GameInfo(
+                "bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[] {"honolulu"}, null, false
+        ), null);
+        gm.setCompactRounds(true);
+        gm.setKeyframeInterval(2);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50, 0)
+                .addRobot(5, Team.A, RobotType.MINER, new MapLocation(3, -2))
+                .addRobot(9, Team.B, RobotType.DELIVERY_DRONE, new MapLocation(8, 4))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        int[] tiles = new int[100];
+
+        mm.addMoved(5, new MapLocation(4, -1));
+        mm.addBytecodes(5, 100);
+        mm.addBytecodes(9, 200);
+        mm.makeRound(1);
+
+        mm.addMoved(9, new MapLocation(8, 5));
+        mm.addMoved(5, new MapLocation(5, 0));
+        mm.addBytecodes(9, 50);
+        mm.addBytecodes(5, 60);
+        assertTrue(mm.isKeyframe(2));
+        mm.addKeyframeRobot(robot(5, Team.A, RobotType.MINER, new MapLocation(5, 0)));
+        mm.addKeyframeRobot(robot(9, Team.B, RobotType.DELIVERY_DRONE, new MapLocation(8, 5)));
+        mm.setKeyframeMap(tiles, new boolean[100], tiles, tiles);
+        mm.makeRound(2);
+
+        mm.addMoved(5, new MapLocation(6, 1));
+        mm.addMoved(9, new MapLocation(2, 6));
+        mm.addBytecodes(5, 7);
+        mm.addBytecodes(9, 8);
+        mm.makeRound(3);
+        mm.makeMatchFooter(Team.A, 3);
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(
+                IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gm.toBytes())))));
+        GameMap map = ((MatchHeader) output.events(1).e(new MatchHeader())).map();
+        Round[] rounds = new Round[4];
+        for (int i = 1; i <= 3; i++) {
+            rounds[i] = (Round) output.events(i + 1).e(new Round());
+        }
+        assertNotNull(rounds[2].keyframe());
+        // every move in the keyframe's round is written out
+        assertEquals(2, rounds[2].compact().movedLocs().xsLength());
+
+        CompactRounds.Decoder fromStart = new CompactRounds.Decoder(map);
+        fromStart.decode(rounds[1]);
+        CompactRounds.Decoder fromKeyframe = new CompactRounds.Decoder(map, rounds[2].keyframe());
+        for (int i = 2; i <= 3; i++) {
+            CompactRounds.Decoded expected = fromStart.decode(rounds[i]);
+            CompactRounds.Decoded seeked = fromKeyframe.decode(rounds[i]);
+            assertArrayEquals(expected.movedIDs, seeked.movedIDs);
+            assertArrayEquals(expected.movedXs, seeked.movedXs);
+            assertArrayEquals(expected.movedYs, seeked.movedYs);
+            assertArrayEquals(expected.bytecodeIDs, seeked.bytecodeIDs);
+            assertArrayEquals(expected.bytecodesUsed, seeked.bytecodesUsed);
+            if (i == 3) {
+                assertArrayEquals(new int[]{6, 2}, seeked.movedXs);
+                assertArrayEquals(new int[]{1, 6}, seeked.movedYs);
+                assertArrayEquals(new int[]{5, 9}, seeked.bytecodeIDs);
+            }
+        }
+    }
+
+    @Test
+    public void testDroppedUnitAfterKeyframe() throws Exception {
+        GameMaker gm = new GameMaker(new GameInfo(
+                "bananas", "org.bananas", null,
+                "yellow", "org.yellow", null,
+                new String[] {"honolulu"}, null, false
+        ), null);
+        gm.setCompactRounds(true);
+        gm.setKeyframeInterval(2);
+        gm.makeGameHeader();
+        GameMaker.MatchMaker mm = gm.getMatchMaker();
+        mm.makeMatchHeader(new TestMapBuilder("honolulu", 2, -3, 10, 10, 1337, 50, 0)
+                .addRobot(5, Team.A, RobotType.MINER, new MapLocation(8, 4))
+                .addRobot(9, Team.B, RobotType.DELIVERY_DRONE, new MapLocation(8, 4))
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build());
+        int[] tiles = new int[100];
+
+        // a drone drops a unit north of it; the move is recorded at the
+        // drone's location
+        mm.addMoved(5, new MapLocation(8, 4));
+        mm.makeRound(1);
+
+        mm.addKeyframeRobot(robot(5, Team.A, RobotType.MINER, new MapLocation(8, 5)));
+        mm.addKeyframeRobot(robot(9, Team.B, RobotType.DELIVERY_DRONE, new MapLocation(8, 4)));
+        mm.setKeyframeMap(tiles, new boolean[100], tiles, tiles);
+        mm.makeRound(2);
+
+        // adjacent to both where the move left it and where it really is
+        mm.addMoved(5, new MapLocation(9, 5));
+        mm.makeRound(3);
+        mm.makeMatchFooter(Team.A, 3);
+        gm.makeGameFooter(Team.A);
+
+        GameWrapper output = GameWrapper.getRootAsGameWrapper(ByteBuffer.wrap(
+                IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gm.toBytes())))));
+        GameMap map = ((MatchHeader) output.events(1).e(new MatchHeader())).map();
+        Round[] rounds = new Round[4];
+        for (int i = 1; i <= 3; i++) {
+            rounds[i] = (Round) output.events(i + 1).e(new Round());
+        }
+
+        CompactRounds.Decoder fromStart = new CompactRounds.Decoder(map);
+        fromStart.decode(rounds[1]);
+        fromStart.decode(rounds[2]);
+        CompactRounds.Decoder fromKeyframe = new CompactRounds.Decoder(map, rounds[2].keyframe());
+        fromKeyframe.decode(rounds[2]);
+        CompactRounds.Decoded expected = fromStart.decode(rounds[3]);
+        CompactRounds.Decoded seeked = fromKeyframe.decode(rounds[3]);
+        assertArrayEquals(new int[]{9}, expected.movedXs);
+        assertArrayEquals(new int[]{5}, expected.movedYs);
+        assertArrayEquals(expected.movedXs, seeked.movedXs);
+        assertArrayEquals(expected.movedYs, seeked.movedYs);
+    }
+}
@@ -0,0 +1,87 @@
+package battlecode.util;
+
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class ParallelGzipOutputStreamTest {
+
+    /**
+     * Some data that compresses, but not too well.
+     */
+    private static byte[] data(int length) {
+        Random random = new Random(1337);
+        byte[] data = new byte[length];
+        for (int i = 0; i < length; i++) {
+            data[i] = (byte) (i % 100 < 80 ? i / 7 : random.nextInt());
+        }
+        return data;
+    }
+
+    private static byte[] gzip(byte[] data, int blockSize, int threads, int writeSize) throws IOException {
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        OutputStream zipper = new ParallelGzipOutputStream(result, 6, blockSize, threads);
+        for (int i = 0; i < data.length; i += writeSize) {
+            if (writeSize == 1) {
+                zipper.write(data[i]);
+            } else {
+                zipper.write(data, i, Math.min(writeSize, data.length - i));
+            }
+            if (i % (writeSize * 16) == 0) {
+                zipper.flush();
+            }
+        }
+        zipper.close();
+        return result.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] gzipped) throws IOException {
+        return IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(gzipped)));
+    }
+
+    @Test
+    public void testReadableByGzip() throws IOException {
+        byte[] data = data(1_000_000);
+        for (int threads : new int[]{1, 4}) {
+            assertArrayEquals(data, gunzip(gzip(data, 64 * 1024, threads, 10_000)));
+            assertArrayEquals(data, gunzip(gzip(data, 128 * 1024, threads, 1 << 20)));
+        }
+        assertArrayEquals(data(100_000), gunzip(gzip(data(100_000), 32 * 1024, 2, 1)));
+    }
+
+    @Test
+    public void testSameOnAnyNumberOfThreads() throws IOException {
+        byte[] data = data(500_000);
+        assertArrayEquals(gzip(data, 64 * 1024, 1, 4096), gzip(data, 64 * 1024, 8, 4096));
+    }
+
+    @Test
+    public void testEdgeCases() throws IOException {
+        assertArrayEquals(new byte[0], gunzip(gzip(new byte[0], 64 * 1024, 4, 1)));
+
+        // exactly one block, and blocks smaller than deflate can refer back
+        byte[] data = data(64 * 1024);
+        assertArrayEquals(data, gunzip(gzip(data, 64 * 1024, 4, 1000)));
+        assertArrayEquals(data, gunzip(gzip(data, 100, 4, 1000)));
+    }
+
+    @Test
+    public void testWithinFewPercentOfGzip() throws IOException {
+        byte[] data = data(2_000_000);
+        ByteArrayOutputStream single = new ByteArrayOutputStream();
+        try (OutputStream zipper = new GZIPOutputStream(single)) {
+            zipper.write(data);
+        }
+        int parallel = gzip(data, 128 * 1024, 4, 1 << 16).length;
+        assertTrue(parallel + " vs " + single.size(), parallel < single.size() * 1.02);
+    }
+}
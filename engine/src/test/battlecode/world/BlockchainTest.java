@@ -0,0 +1,91 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import battlecode.server.GameMaker;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+
+/**
+ * Unit tests for Blockchain.
+ */
+public class BlockchainTest {
+
+    @Test
+    public void testBlockOrder() {
+        Blockchain blockchain = new Blockchain(3);
+        GameMaker.MatchMaker matchMaker = Mockito.mock(GameMaker.MatchMaker.class);
+
+        int[] message = {1, 2, 3};
+        blockchain.addTransaction(5, message);
+        message[0] = 100; // the blockchain keeps its own copy
+        blockchain.addTransaction(9, new int[]{4});
+        blockchain.addTransaction(5, new int[]{5, 6});
+        blockchain.addTransaction(0, new int[]{});
+        blockchain.addTransaction(5, new int[]{-7});
+        blockchain.mineBlock(matchMaker);
+        blockchain.mineBlock(matchMaker);
+        blockchain.mineBlock(matchMaker);
+        blockchain.addTransaction(2, new int[]{8});
+        blockchain.mineBlock(matchMaker);
+
+        assertEquals(4, blockchain.getNumBlocks());
+        // highest cost first, and first come first served among equal costs
+        Transaction[] block = blockchain.getBlock(0);
+        assertEquals(3, block.length);
+        assertEquals(9, block[0].getCost());
+        assertArrayEquals(new int[]{4}, block[0].getMessage());
+        assertEquals(5, block[1].getCost());
+        assertArrayEquals(new int[]{1, 2, 3}, block[1].getMessage());
+        assertEquals("1_2_3", block[1].getSerializedMessage());
+        assertArrayEquals(new int[]{5, 6}, block[2].getMessage());
+
+        block = blockchain.getBlock(1);
+        assertEquals(2, block.length);
+        assertArrayEquals(new int[]{-7}, block[0].getMessage());
+        assertEquals(0, block[1].getCost());
+        assertArrayEquals(new int[]{}, block[1].getMessage());
+
+        assertEquals(0, blockchain.getBlock(2).length);
+        assertArrayEquals(new int[]{8}, blockchain.getBlock(3)[0].getMessage());
+
+        // callers get their own copy of a block
+        blockchain.getBlock(0)[0] = null;
+        assertNotNull(blockchain.getBlock(0)[0]);
+
+        InOrder inOrder = Mockito.inOrder(matchMaker);
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(9), any(int[].class), anyInt(), eq(1));
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(5), any(int[].class), anyInt(), eq(3));
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(5), any(int[].class), anyInt(), eq(2));
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(5), any(int[].class), anyInt(), eq(1));
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(0), any(int[].class), anyInt(), eq(0));
+        inOrder.verify(matchMaker).addBroadcastedMessage(eq(2), any(int[].class), anyInt(), eq(1));
+    }
+
+    @Test
+    public void testOldBlocks() {
+        Blockchain blockchain = new Blockchain(1);
+        GameMaker.MatchMaker matchMaker = Mockito.mock(GameMaker.MatchMaker.class);
+        for (int i = 0; i < 50; i++) {
+            blockchain.addTransaction(i, new int[]{i, -i});
+            blockchain.mineBlock(matchMaker);
+        }
+
+        // blocks long past and recent ones read the same, again and again
+        for (int pass = 0; pass < 2; pass++) {
+            for (int i = 0; i < 50; i++) {
+                Transaction[] block = blockchain.getBlock(i);
+                assertEquals(1, block.length);
+                assertEquals(i, block[0].getCost());
+                assertArrayEquals(new int[]{i, -i}, block[0].getMessage());
+            }
+        }
+        blockchain.getBlock(2)[0] = null;
+        assertNotNull(blockchain.getBlock(2)[0]);
+        blockchain.getBlock(49)[0] = null;
+        assertNotNull(blockchain.getBlock(49)[0]);
+    }
+}
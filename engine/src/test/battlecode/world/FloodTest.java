@@ -0,0 +1,102 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the frontier-based flood in GameWorld floods exactly the
+ * locations that spreading from every flooded location would.
+ */
+public class FloodTest {
+
+    /**
+     * Spreading from every flooded location, kept as a reference.
+     */
+    private static strictfp class ReferenceFlood {
+        private final int width, height;
+        private final int[] dirt;
+        private final boolean[] flooded;
+        private float waterLevel;
+
+        ReferenceFlood(int width, int height, int[] dirt, boolean[] flooded, int waterLevel) {
+            this.width = width;
+            this.height = height;
+            this.dirt = dirt.clone();
+            this.flooded = flooded.clone();
+            this.waterLevel = waterLevel;
+        }
+
+        void addDirt(int idx, int amount) {
+            dirt[idx] += amount;
+            if (dirt[idx] >= waterLevel)
+                flooded[idx] = false;
+        }
+
+        void removeDirt(int idx) {
+            dirt[idx] -= 1;
+        }
+
+        void round(int roundNumber) {
+            waterLevel = GameConstants.getWaterLevel(roundNumber);
+            ArrayList<Integer> origins = new ArrayList<>();
+            for (int idx = 0; idx < flooded.length; idx++)
+                if (flooded[idx])
+                    origins.add(idx);
+            for (int origin : origins) {
+                for (Direction dir : Direction.allDirections()) {
+                    int x = origin % width + dir.dx;
+                    int y = origin / width + dir.dy;
+                    if (x < 0 || y < 0 || x >= width || y >= height)
+                        continue;
+                    int idx = x + y * width;
+                    if (flooded[idx] || dirt[idx] >= waterLevel)
+                        continue;
+                    flooded[idx] = true;
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testMatchesFullScan() {
+        final int width = 40, height = 36;
+        Random random = new Random(2020);
+        int[] dirt = new int[width * height];
+        boolean[] water = new boolean[width * height];
+        for (int i = 0; i < dirt.length; i++) {
+            dirt[i] = random.nextInt(12) - 4;
+            water[i] = random.nextInt(200) == 0;
+        }
+        LiveMap map = new LiveMap(width, height, new MapLocation(0, 0), 1337,
+                GameConstants.GAME_MAX_NUMBER_OF_ROUNDS, "test", new RobotInfo[0],
+                new int[width * height], new int[width * height], water, dirt, 0);
+        ReferenceFlood reference = new ReferenceFlood(width, height, dirt, water, 0);
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+
+        for (int round = 1; round <= 1200; round++) {
+            for (int i = 0; i < 5; i++) {
+                int idx = random.nextInt(width * height);
+                MapLocation loc = new MapLocation(idx % width, idx / width);
+                if (random.nextBoolean()) {
+                    int amount = random.nextInt(3) + 1;
+                    world.addDirt(-1, loc, amount);
+                    reference.addDirt(idx, amount);
+                } else {
+                    world.removeDirt(-1, loc);
+                    reference.removeDirt(idx);
+                }
+            }
+            game.waitRounds(1);
+            reference.round(round);
+            for (int idx = 0; idx < width * height; idx++)
+                assertEquals("flooding at index " + idx + " in round " + round,
+                        reference.flooded[idx], world.isFlooded(new MapLocation(idx % width, idx / width)));
+        }
+    }
+}
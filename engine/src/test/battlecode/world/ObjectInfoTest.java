@@ -0,0 +1,106 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import gnu.trove.list.array.TIntArrayList;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the bookkeeping in ObjectInfo.
+ */
+public class ObjectInfoTest {
+
+    private static LiveMap buildMap() {
+        return new TestMapBuilder("test", new MapLocation(0, 0), 20, 20, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+    }
+
+    private static TIntArrayList execOrder(ObjectInfo objectInfo) {
+        TIntArrayList order = new TIntArrayList();
+        objectInfo.eachDynamicBodyByExecOrder((robot) -> {
+            order.add(robot.getID());
+            return true;
+        });
+        return order;
+    }
+
+    @Test
+    public void testExecOrder() {
+        TestGame game = new TestGame(buildMap());
+        GameWorld world = game.getWorld();
+        ObjectInfo objectInfo = world.getObjectInfo();
+
+        TIntArrayList expected = new TIntArrayList();
+        for (int i = 0; i < 40; i++)
+            expected.add(game.spawn(i % 20, i / 20, RobotType.MINER, Team.A));
+        assertEquals(expected, execOrder(objectInfo));
+
+        // robots destroyed mid-iteration are skipped, and robots spawned
+        // mid-iteration wait until the next one
+        TIntArrayList visited = new TIntArrayList();
+        TIntArrayList spawned = new TIntArrayList();
+        objectInfo.eachDynamicBodyByExecOrder((robot) -> {
+            visited.add(robot.getID());
+            int index = expected.indexOf(robot.getID());
+            if (index % 4 == 0 && index + 1 < expected.size())
+                world.destroyRobot(expected.get(index + 1));
+            if (index % 5 == 0)
+                spawned.add(world.spawnRobot(RobotType.MINER, new MapLocation(index / 5, 5), Team.B));
+            return true;
+        });
+        TIntArrayList survivors = new TIntArrayList();
+        for (int i = 0; i < expected.size(); i++)
+            if (i % 4 != 1)
+                survivors.add(expected.get(i));
+        assertEquals(survivors, visited);
+
+        survivors.addAll(spawned);
+        assertEquals(survivors, execOrder(objectInfo));
+
+        // destroying most robots compacts the order without reordering it
+        TIntArrayList remaining = new TIntArrayList();
+        for (int i = 0; i < survivors.size(); i++) {
+            if (i % 3 == 0)
+                remaining.add(survivors.get(i));
+            else
+                world.destroyRobot(survivors.get(i));
+        }
+        assertEquals(remaining, execOrder(objectInfo));
+        int id = game.spawn(19, 19, RobotType.MINER, Team.B);
+        remaining.add(id);
+        assertEquals(remaining, execOrder(objectInfo));
+    }
+
+    @Test
+    public void testRobotCounts() {
+        TestGame game = new TestGame(buildMap());
+        GameWorld world = game.getWorld();
+        ObjectInfo objectInfo = world.getObjectInfo();
+
+        int minerA = game.spawn(0, 0, RobotType.MINER, Team.A);
+        game.spawn(1, 0, RobotType.MINER, Team.A);
+        game.spawn(2, 0, RobotType.REFINERY, Team.A);
+        int landscaperB = game.spawn(3, 0, RobotType.LANDSCAPER, Team.B);
+        game.spawn(4, 0, RobotType.COW, Team.NEUTRAL);
+
+        assertEquals(3, objectInfo.getRobotCount(Team.A));
+        assertEquals(2, objectInfo.getRobotTypeCount(Team.A, RobotType.MINER));
+        assertEquals(0, objectInfo.getRobotTypeCount(Team.B, RobotType.MINER));
+        assertEquals(1, objectInfo.getRobotTypeCount(Team.NEUTRAL, RobotType.COW));
+        assertEquals(2 * RobotType.MINER.cost + RobotType.REFINERY.cost, objectInfo.getRobotCost(Team.A));
+        assertEquals(RobotType.LANDSCAPER.cost, objectInfo.getRobotCost(Team.B));
+
+        world.destroyRobot(minerA);
+        world.destroyRobot(landscaperB);
+        assertEquals(2, objectInfo.getRobotCount(Team.A));
+        assertEquals(1, objectInfo.getRobotTypeCount(Team.A, RobotType.MINER));
+        assertEquals(0, objectInfo.getRobotTypeCount(Team.B, RobotType.LANDSCAPER));
+        assertEquals(RobotType.MINER.cost + RobotType.REFINERY.cost, objectInfo.getRobotCost(Team.A));
+        assertEquals(0, objectInfo.getRobotCost(Team.B));
+    }
+}
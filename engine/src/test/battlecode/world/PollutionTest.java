@@ -0,0 +1,149 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that the incremental pollution field in GameWorld agrees exactly
+ * with a full recomputation of every tile from every active effect, which
+ * is how pollution used to be calculated.
+ */
+public class PollutionTest {
+
+    /**
+     * The full recomputation, kept as a reference.
+     */
+    private static strictfp class ReferencePollution {
+        private final int width, height;
+        private final HashMap<Integer, int[]> effects = new HashMap<>();
+        private final HashMap<Integer, Float> multipliers = new HashMap<>();
+        private int globalPollution = 0;
+
+        ReferencePollution(int width, int height) {
+            this.width = width;
+            this.height = height;
+        }
+
+        void addLocal(int id, MapLocation loc, int radiusSquared, int additive, float multiplicative) {
+            effects.put(id, new int[]{loc.x, loc.y, radiusSquared, additive});
+            multipliers.put(id, multiplicative);
+        }
+
+        void reset(int id) {
+            effects.remove(id);
+            multipliers.remove(id);
+        }
+
+        void addGlobal(int amount) {
+            globalPollution = Math.max(globalPollution + amount, 0);
+        }
+
+        int[] calculate() {
+            int[] pollution = new int[width * height];
+            for (int x = 0; x < width; x++) {
+                for (int y = 0; y < height; y++) {
+                    MapLocation loc = new MapLocation(x, y);
+                    int idx = x + y * width;
+                    pollution[idx] = globalPollution;
+                    float multiplier = 1;
+                    for (Integer id : effects.keySet()) {
+                        int[] e = effects.get(id);
+                        if (loc.isWithinDistanceSquared(new MapLocation(e[0], e[1]), e[2])) {
+                            pollution[idx] += e[3];
+                            multiplier *= multipliers.get(id);
+                        }
+                    }
+                    pollution[idx] = Math.round(pollution[idx] * multiplier);
+                }
+            }
+            return pollution;
+        }
+    }
+
+    private static LiveMap buildMap(int width, int height) {
+        return new TestMapBuilder("test", new MapLocation(0, 0), width, height, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+    }
+
+    private static void assertSamePollution(GameWorld world, ReferencePollution reference, int width, int height) {
+        int[] expected = reference.calculate();
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                assertEquals("pollution at [" + x + ", " + y + "]",
+                        expected[x + y * width], world.getPollution(new MapLocation(x, y)));
+    }
+
+    @Test
+    public void testMatchesFullRecomputation() {
+        final int width = 40, height = 33;
+        GameWorld world = new TestGame(buildMap(width, height)).getWorld();
+        ReferencePollution reference = new ReferencePollution(width, height);
+        RobotType[] polluters = {RobotType.HQ, RobotType.REFINERY, RobotType.VAPORATOR, RobotType.COW};
+        Random random = new Random(2020);
+
+        for (int step = 0; step < 400; step++) {
+            int id = random.nextInt(60);
+            int action = random.nextInt(10);
+            if (action < 6) {
+                RobotType type = polluters[random.nextInt(polluters.length)];
+                MapLocation loc = new MapLocation(random.nextInt(width), random.nextInt(height));
+                world.addLocalPollution(id, loc, type.pollutionRadiusSquared,
+                        type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect);
+                reference.addLocal(id, loc, type.pollutionRadiusSquared,
+                        type.localPollutionAdditiveEffect, type.localPollutionMultiplicativeEffect);
+            } else if (action < 9) {
+                world.resetPollutionForRobot(id);
+                reference.reset(id);
+            } else {
+                int amount = random.nextInt(7) - 2;
+                world.addGlobalPollution(amount);
+                reference.addGlobal(amount);
+            }
+            if (step % 20 == 0)
+                assertSamePollution(world, reference, width, height);
+        }
+        assertSamePollution(world, reference, width, height);
+    }
+
+    @Test
+    public void testOverlappingVaporators() {
+        final int width = 32, height = 32;
+        GameWorld world = new TestGame(buildMap(width, height)).getWorld();
+        ReferencePollution reference = new ReferencePollution(width, height);
+        RobotType vaporator = RobotType.VAPORATOR;
+        RobotType refinery = RobotType.REFINERY;
+
+        for (int id = 0; id < 12; id++) {
+            MapLocation loc = new MapLocation(10 + id % 4, 10 + id / 4);
+            world.addLocalPollution(id, loc, vaporator.pollutionRadiusSquared,
+                    vaporator.localPollutionAdditiveEffect, vaporator.localPollutionMultiplicativeEffect);
+            reference.addLocal(id, loc, vaporator.pollutionRadiusSquared,
+                    vaporator.localPollutionAdditiveEffect, vaporator.localPollutionMultiplicativeEffect);
+        }
+        for (int id = 100; id < 110; id++) {
+            MapLocation loc = new MapLocation(id - 95, 12);
+            world.addLocalPollution(id, loc, refinery.pollutionRadiusSquared,
+                    refinery.localPollutionAdditiveEffect, refinery.localPollutionMultiplicativeEffect);
+            reference.addLocal(id, loc, refinery.pollutionRadiusSquared,
+                    refinery.localPollutionAdditiveEffect, refinery.localPollutionMultiplicativeEffect);
+        }
+        world.addGlobalPollution(1234);
+        reference.addGlobal(1234);
+        assertSamePollution(world, reference, width, height);
+
+        for (int id = 0; id < 12; id += 2) {
+            world.resetPollutionForRobot(id);
+            reference.reset(id);
+        }
+        assertSamePollution(world, reference, width, height);
+    }
+}
@@ -1,6 +1,7 @@
 package battlecode.world;
 
 import battlecode.common.*;
+import battlecode.server.Config;
 
 import gnu.trove.list.array.TIntArrayList;
 import org.junit.Test;
@@ -135,6 +136,131 @@ public class RobotControllerTest {
         // hooray!
 
     }
+
+    @Test
+    public void testSenseNearbyRobots() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 40, 40, 1337, 100, 5)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+
+        final int minerA = game.spawn(10, 10, RobotType.MINER, Team.A);
+        final int nearA = game.spawn(12, 13, RobotType.MINER, Team.A);
+        final int nearB = game.spawn(7, 14, RobotType.MINER, Team.B);
+        final int edgeB = game.spawn(15, 12, RobotType.MINER, Team.B);
+        final int farB = game.spawn(30, 30, RobotType.MINER, Team.B);
+
+        game.round((id, rc) -> {
+            if (id != minerA) return;
+
+            RobotInfo[] all = rc.senseNearbyRobots();
+            assertEquals(3, all.length);
+            // ordered by x, then by y
+            assertEquals(nearB, all[0].ID);
+            assertEquals(nearA, all[1].ID);
+            assertEquals(edgeB, all[2].ID);
+
+            assertEquals(1, rc.senseNearbyRobots(-1, Team.A).length);
+            assertEquals(2, rc.senseNearbyRobots(-1, Team.B).length);
+            assertEquals(1, rc.senseNearbyRobots(25, Team.B).length);
+            assertEquals(0, rc.senseNearbyRobots(8).length);
+            assertEquals(edgeB, rc.senseRobotAtLocation(new MapLocation(15, 12)).ID);
+            assertNull(rc.senseRobotAtLocation(new MapLocation(15, 13)));
+
+            rc.move(Direction.NORTH);
+            assertEquals(nearA, rc.senseRobotAtLocation(new MapLocation(12, 13)).ID);
+            assertFalse(rc.isLocationOccupied(new MapLocation(10, 10)));
+            assertTrue(rc.isLocationOccupied(new MapLocation(10, 11)));
+        });
+
+        assertEquals(game.getBot(minerA), game.getWorld().getRobot(new MapLocation(10, 11)));
+        assertNull(game.getWorld().getRobot(new MapLocation(10, 10)));
+        assertEquals(1, game.getWorld().getAllRobotsWithinRadiusSquared(new MapLocation(35, 35), 50).length);
+        assertEquals(farB, game.getWorld().getAllRobotsWithinRadiusSquared(new MapLocation(35, 35), 50, Team.B)[0].getID());
+        assertEquals(0, game.getWorld().getAllRobotsWithinRadiusSquared(new MapLocation(35, 35), 50, Team.A).length);
+    }
+
+    private static void assertThrows(GameActionExceptionType type, TestGame.BiConsumerWithException action,
+                                     int id, RobotController rc) {
+        try {
+            action.accept(id, rc);
+            fail("expected a GameActionException of type " + type);
+        } catch (GameActionException e) {
+            assertEquals(type, e.getType());
+            // stack traces are only recorded when debugging
+            assertEquals(0, e.getStackTrace().length);
+        }
+    }
+
+    @Test
+    public void testCanMethodsAgreeWithActions() throws GameActionException {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 10, 10, 1337, 100, 5)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+
+        final int minerA = game.spawn(0, 0, RobotType.MINER, Team.A);
+        game.spawn(1, 0, RobotType.MINER, Team.B);
+
+        game.round((id, rc) -> {
+            if (id != minerA) return;
+
+            assertFalse(rc.canMove(Direction.WEST));
+            assertThrows(GameActionExceptionType.CANT_SENSE_THAT, (i, r) -> r.move(Direction.WEST), id, rc);
+            assertFalse(rc.canMove(Direction.EAST));
+            assertThrows(GameActionExceptionType.CANT_MOVE_THERE, (i, r) -> r.move(Direction.EAST), id, rc);
+            assertFalse(rc.canDigDirt(Direction.NORTH));
+            assertThrows(GameActionExceptionType.CANT_DO_THAT, (i, r) -> r.digDirt(Direction.NORTH), id, rc);
+            assertFalse(rc.canMineSoup(Direction.CENTER));
+            assertThrows(GameActionExceptionType.CANT_DO_THAT, (i, r) -> r.mineSoup(Direction.CENTER), id, rc);
+            assertFalse(rc.canDepositSoup(Direction.NORTH));
+            assertThrows(GameActionExceptionType.NOT_ENOUGH_RESOURCE, (i, r) -> r.depositSoup(Direction.NORTH, 1), id, rc);
+            assertFalse(rc.canSubmitTransaction(new int[GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH + 1], 1));
+            assertThrows(GameActionExceptionType.TOO_LONG_BLOCKCHAIN_TRANSACTION,
+                    (i, r) -> r.submitTransaction(new int[GameConstants.MAX_BLOCKCHAIN_TRANSACTION_LENGTH + 1], 1), id, rc);
+            assertFalse(rc.canSubmitTransaction(new int[1], -1));
+            assertThrows(GameActionExceptionType.OUT_OF_RANGE, (i, r) -> r.submitTransaction(new int[1], -1), id, rc);
+
+            assertTrue(rc.canMove(Direction.NORTH));
+            rc.move(Direction.NORTH);
+            assertFalse(rc.canMove(Direction.NORTH));
+            assertThrows(GameActionExceptionType.IS_NOT_READY, (i, r) -> r.move(Direction.NORTH), id, rc);
+        });
+    }
+
+    @Test
+    public void testStackTracesInDebugMode() throws GameActionException {
+        Config config = Config.getGlobalConfig();
+        String oldDebug = config.get("bc.server.debug");
+        config.set("bc.server.debug", "true");
+        try {
+            LiveMap map = new TestMapBuilder("test", new MapLocation(0,0), 10, 10, 1337, 100, 5)
+                .setSoup()
+                .setWater()
+                .setPollution()
+                .setDirt()
+                .build();
+            TestGame game = new TestGame(map);
+            final int minerA = game.spawn(0, 0, RobotType.MINER, Team.A);
+
+            game.round((id, rc) -> {
+                try {
+                    rc.move(Direction.WEST);
+                    fail("expected a GameActionException");
+                } catch (GameActionException e) {
+                    assertNotEquals(0, e.getStackTrace().length);
+                }
+            });
+        } finally {
+            config.set("bc.server.debug", oldDebug);
+        }
+    }
     
     /**
      * Ensure that actions take place immediately.
@@ -0,0 +1,71 @@
+package battlecode.world;
+
+import battlecode.common.*;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Checks that robots keep their state through the RobotStore when other
+ * robots are spawned and destroyed around them.
+ */
+public class RobotStoreTest {
+
+    @Test
+    public void testHandlesSurviveRemoval() {
+        LiveMap map = new TestMapBuilder("test", new MapLocation(0, 0), 20, 20, 1337, 100, 0)
+            .setSoup()
+            .setWater()
+            .setPollution()
+            .setDirt()
+            .build();
+        TestGame game = new TestGame(map);
+        GameWorld world = game.getWorld();
+        RobotStore store = world.getObjectInfo().getRobotStore();
+
+        int[] ids = new int[100];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = game.spawn(i % 20, i / 20, RobotType.MINER, i % 2 == 0 ? Team.A : Team.B);
+            game.getBot(ids[i]).addSoupCarrying(i);
+        }
+        assertEquals(ids.length, store.size());
+
+        InternalRobot destroyed = game.getBot(ids[0]);
+        for (int i = 0; i < ids.length; i += 3)
+            world.destroyRobot(ids[i]);
+        assertEquals(ids.length - (ids.length + 2) / 3, store.size());
+
+        for (int i = 0; i < ids.length; i++) {
+            if (i % 3 == 0) {
+                assertNull(game.getBot(ids[i]));
+                continue;
+            }
+            InternalRobot robot = game.getBot(ids[i]);
+            assertSame(robot, store.getRobot(robot.getSlot()));
+            assertEquals(ids[i], store.getID(robot.getSlot()));
+            assertEquals(i, robot.getSoupCarrying());
+            assertEquals(i % 2 == 0 ? Team.A : Team.B, robot.getTeam());
+            assertEquals(new MapLocation(i % 20, i / 20), robot.getLocation());
+        }
+
+        // a destroyed robot's handle still reads its last state
+        assertEquals(0, destroyed.getSoupCarrying());
+        assertEquals(RobotType.MINER, destroyed.getType());
+        assertEquals(new MapLocation(0, 0), destroyed.getLocation());
+        destroyed.setBytecodesUsed(17);
+        assertEquals(17, destroyed.getBytecodesUsed());
+
+        // and keeps it when the freed slots are reused
+        InternalRobot other = game.getBot(ids[29]);
+        InternalRobot otherDestroyed = game.getBot(ids[4]);
+        world.destroyRobot(ids[4]);
+        for (int i = 0; i < 40; i++)
+            game.spawn(i % 20, 10 + i / 20, RobotType.LANDSCAPER, Team.B);
+        assertEquals(17, destroyed.getBytecodesUsed());
+        assertEquals(new MapLocation(0, 0), destroyed.getLocation());
+        assertEquals(4, otherDestroyed.getSoupCarrying());
+        assertEquals(Team.A, otherDestroyed.getTeam());
+        assertEquals(29, other.getSoupCarrying());
+        assertSame(other, store.getRobot(other.getSlot()));
+    }
+}
@@ -15,6 +15,8 @@ import com.google.flatbuffers.*;
  * matchHeaders[0] is the index of the 0th match header in the event stream,
  * corresponding to matchFooters[0]. These indices allow quick traversal of
  * the file.
+ * keyframes are the indices of the rounds with keyframes, so a viewer can
+ * seek to any round by replaying the rounds after the keyframe before it.
  */
 public final class GameWrapper extends Table {
   public static GameWrapper getRootAsGameWrapper(ByteBuffer _bb) { return getRootAsGameWrapper(_bb, new GameWrapper()); }
@@ -39,19 +41,27 @@ public final class GameWrapper extends Table {
   public int matchFooters(int j) { int o = __offset(8); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
   public int matchFootersLength() { int o = __offset(8); return o != 0 ? __vector_len(o) : 0; }
   public ByteBuffer matchFootersAsByteBuffer() { return __vector_as_bytebuffer(8, 4); }
+  /**
+   * The indices of the rounds with keyframes, in order.
+   */
+  public int keyframes(int j) { int o = __offset(10); return o != 0 ? bb.getInt(__vector(o) + j * 4) : 0; }
+  public int keyframesLength() { int o = __offset(10); return o != 0 ? __vector_len(o) : 0; }
+  public ByteBuffer keyframesAsByteBuffer() { return __vector_as_bytebuffer(10, 4); }
 
   public static int createGameWrapper(FlatBufferBuilder builder,
       int eventsOffset,
       int matchHeadersOffset,
-      int matchFootersOffset) {
-    builder.startObject(3);
+      int matchFootersOffset,
+      int keyframesOffset) {
+    builder.startObject(4);
+    GameWrapper.addKeyframes(builder, keyframesOffset);
     GameWrapper.addMatchFooters(builder, matchFootersOffset);
     GameWrapper.addMatchHeaders(builder, matchHeadersOffset);
     GameWrapper.addEvents(builder, eventsOffset);
     return GameWrapper.endGameWrapper(builder);
   }
 
-  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startObject(3); }
+  public static void startGameWrapper(FlatBufferBuilder builder) { builder.startObject(4); }
   public static void addEvents(FlatBufferBuilder builder, int eventsOffset) { builder.addOffset(0, eventsOffset, 0); }
   public static int createEventsVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addOffset(data[i]); return builder.endVector(); }
   public static void startEventsVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
@@ -61,6 +71,9 @@ public final class GameWrapper extends Table {
   public static void addMatchFooters(FlatBufferBuilder builder, int matchFootersOffset) { builder.addOffset(2, matchFootersOffset, 0); }
   public static int createMatchFootersVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
   public static void startMatchFootersVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
+  public static void addKeyframes(FlatBufferBuilder builder, int keyframesOffset) { builder.addOffset(3, keyframesOffset, 0); }
+  public static int createKeyframesVector(FlatBufferBuilder builder, int[] data) { builder.startVector(4, data.length, 4); for (int i = data.length - 1; i >= 0; i--) builder.addInt(data[i]); return builder.endVector(); }
+  public static void startKeyframesVector(FlatBufferBuilder builder, int numElems) { builder.startVector(4, numElems, 4); }
   public static int endGameWrapper(FlatBufferBuilder builder) {
     int o = builder.endObject();
     return o;
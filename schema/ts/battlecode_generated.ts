@@ -3018,11 +3018,34 @@ bytecodesUsedArray():Int32Array|null {
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
+/**
+ * The full state at the end of this round, if this round has a keyframe.
+ *
+ * @param battlecode.schema.Keyframe= obj
+ * @returns battlecode.schema.Keyframe|null
+ */
+keyframe(obj?:battlecode.schema.Keyframe):battlecode.schema.Keyframe|null {
+  var offset = this.bb!.__offset(this.bb_pos, 66);
+  return offset ? (obj || new battlecode.schema.Keyframe).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * The moves, tile changes and bytecodes used, if the game was written
+ * with compact rounds; the fields it replaces are left out.
+ *
+ * @param battlecode.schema.CompactRound= obj
+ * @returns battlecode.schema.CompactRound|null
+ */
+compact(obj?:battlecode.schema.CompactRound):battlecode.schema.CompactRound|null {
+  var offset = this.bb!.__offset(this.bb_pos, 68);
+  return offset ? (obj || new battlecode.schema.CompactRound).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
 /**
  * @param flatbuffers.Builder builder
  */
 static startRound(builder:flatbuffers.Builder) {
-  builder.startObject(31);
+  builder.startObject(33);
 };
 
 /**
@@ -3630,6 +3653,22 @@ static startBytecodesUsedVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset keyframeOffset
+ */
+static addKeyframe(builder:flatbuffers.Builder, keyframeOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(31, keyframeOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset compactOffset
+ */
+static addCompact(builder:flatbuffers.Builder, compactOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(32, compactOffset, 0);
+};
+
 /**
  * @param flatbuffers.Builder builder
  * @returns flatbuffers.Offset
@@ -3639,7 +3678,7 @@ static endRound(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamSoupsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, dirtChangedLocsOffset:flatbuffers.Offset, dirtChangesOffset:flatbuffers.Offset, waterChangedLocsOffset:flatbuffers.Offset, globalPollution:number, localPollutionsOffset:flatbuffers.Offset, soupChangedLocsOffset:flatbuffers.Offset, soupChangesOffset:flatbuffers.Offset, newMessagesCostsOffset:flatbuffers.Offset, newMessagesOffset:flatbuffers.Offset, broadcastedMessagesCostsOffset:flatbuffers.Offset, broadcastedMessagesOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset, teamSoupsOffset:flatbuffers.Offset, movedIDsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, spawnedBodiesOffset:flatbuffers.Offset, diedIDsOffset:flatbuffers.Offset, actionIDsOffset:flatbuffers.Offset, actionsOffset:flatbuffers.Offset, actionTargetsOffset:flatbuffers.Offset, dirtChangedLocsOffset:flatbuffers.Offset, dirtChangesOffset:flatbuffers.Offset, waterChangedLocsOffset:flatbuffers.Offset, globalPollution:number, localPollutionsOffset:flatbuffers.Offset, soupChangedLocsOffset:flatbuffers.Offset, soupChangesOffset:flatbuffers.Offset, newMessagesCostsOffset:flatbuffers.Offset, newMessagesOffset:flatbuffers.Offset, broadcastedMessagesCostsOffset:flatbuffers.Offset, broadcastedMessagesOffset:flatbuffers.Offset, indicatorDotIDsOffset:flatbuffers.Offset, indicatorDotLocsOffset:flatbuffers.Offset, indicatorDotRGBsOffset:flatbuffers.Offset, indicatorLineIDsOffset:flatbuffers.Offset, indicatorLineStartLocsOffset:flatbuffers.Offset, indicatorLineEndLocsOffset:flatbuffers.Offset, indicatorLineRGBsOffset:flatbuffers.Offset, logsOffset:flatbuffers.Offset, roundID:number, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset, keyframeOffset:flatbuffers.Offset, compactOffset:flatbuffers.Offset):flatbuffers.Offset {
   Round.startRound(builder);
   Round.addTeamIDs(builder, teamIDsOffset);
   Round.addTeamSoups(builder, teamSoupsOffset);
@@ -3672,26 +3711,31 @@ static createRound(builder:flatbuffers.Builder, teamIDsOffset:flatbuffers.Offset
   Round.addRoundID(builder, roundID);
   Round.addBytecodeIDs(builder, bytecodeIDsOffset);
   Round.addBytecodesUsed(builder, bytecodesUsedOffset);
+  Round.addKeyframe(builder, keyframeOffset);
+  Round.addCompact(builder, compactOffset);
   return Round.endRound(builder);
 }
 }
 }
 /**
- * Necessary due to flatbuffers requiring unions to be wrapped in tables.
+ * The full state of a match at the end of a round, so that a viewer can
+ * start from it instead of replaying every round before it.
+ * Sent with some of the rounds; see GameWrapper.keyframes.
+ * The team soups are the round's.
  *
  * @constructor
  */
 export namespace battlecode.schema{
-export class EventWrapper {
+export class Keyframe {
   bb: flatbuffers.ByteBuffer|null = null;
 
   bb_pos:number = 0;
 /**
  * @param number i
  * @param flatbuffers.ByteBuffer bb
- * @returns EventWrapper
+ * @returns Keyframe
  */
-__init(i:number, bb:flatbuffers.ByteBuffer):EventWrapper {
+__init(i:number, bb:flatbuffers.ByteBuffer):Keyframe {
   this.bb_pos = i;
   this.bb = bb;
   return this;
@@ -3699,203 +3743,245 @@ __init(i:number, bb:flatbuffers.ByteBuffer):EventWrapper {
 
 /**
  * @param flatbuffers.ByteBuffer bb
- * @param EventWrapper= obj
- * @returns EventWrapper
+ * @param Keyframe= obj
+ * @returns Keyframe
  */
-static getRootAsEventWrapper(bb:flatbuffers.ByteBuffer, obj?:EventWrapper):EventWrapper {
-  return (obj || new EventWrapper).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+static getRootAsKeyframe(bb:flatbuffers.ByteBuffer, obj?:Keyframe):Keyframe {
+  return (obj || new Keyframe).__init(bb.readInt32(bb.position()) + bb.position(), bb);
 };
 
 /**
- * @returns battlecode.schema.Event
+ * Every body on the map, as if they had all just spawned.
+ *
+ * @param battlecode.schema.SpawnedBodyTable= obj
+ * @returns battlecode.schema.SpawnedBodyTable|null
  */
-eType():battlecode.schema.Event {
+bodies(obj?:battlecode.schema.SpawnedBodyTable):battlecode.schema.SpawnedBodyTable|null {
   var offset = this.bb!.__offset(this.bb_pos, 4);
-  return offset ? /**  */ (this.bb!.readUint8(this.bb_pos + offset)) : battlecode.schema.Event.NONE;
+  return offset ? (obj || new battlecode.schema.SpawnedBodyTable).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
 };
 
 /**
- * @param flatbuffers.Table obj
- * @returns ?flatbuffers.Table
+ * The soup each body carries.
+ *
+ * @param number index
+ * @returns number
  */
-e<T extends flatbuffers.Table>(obj:T):T|null {
+soupCarrying(index: number):number|null {
   var offset = this.bb!.__offset(this.bb_pos, 6);
-  return offset ? this.bb!.__union(obj, this.bb_pos + offset) : null;
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
 };
 
 /**
- * @param flatbuffers.Builder builder
+ * @returns number
  */
-static startEventWrapper(builder:flatbuffers.Builder) {
-  builder.startObject(2);
+soupCarryingLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
 /**
- * @param flatbuffers.Builder builder
- * @param battlecode.schema.Event eType
+ * @returns Int32Array
  */
-static addEType(builder:flatbuffers.Builder, eType:battlecode.schema.Event) {
-  builder.addFieldInt8(0, eType, battlecode.schema.Event.NONE);
+soupCarryingArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
 /**
- * @param flatbuffers.Builder builder
- * @param flatbuffers.Offset eOffset
+ * The dirt each body carries.
+ *
+ * @param number index
+ * @returns number
  */
-static addE(builder:flatbuffers.Builder, eOffset:flatbuffers.Offset) {
-  builder.addFieldOffset(1, eOffset, 0);
+dirtCarrying(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
 };
 
 /**
- * @param flatbuffers.Builder builder
- * @returns flatbuffers.Offset
+ * @returns number
  */
-static endEventWrapper(builder:flatbuffers.Builder):flatbuffers.Offset {
-  var offset = builder.endObject();
-  return offset;
+dirtCarryingLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
-static createEventWrapper(builder:flatbuffers.Builder, eType:battlecode.schema.Event, eOffset:flatbuffers.Offset):flatbuffers.Offset {
-  EventWrapper.startEventWrapper(builder);
-  EventWrapper.addEType(builder, eType);
-  EventWrapper.addE(builder, eOffset);
-  return EventWrapper.endEventWrapper(builder);
-}
-}
-}
 /**
- * If events are not otherwise delimited, this wrapper structure
- * allows a game to be stored in a single buffer.
- * The first event will be a GameHeader; the last event will be a GameFooter.
- * matchHeaders[0] is the index of the 0th match header in the event stream,
- * corresponding to matchFooters[0]. These indices allow quick traversal of
- * the file.
+ * @returns Int32Array
+ */
+dirtCarryingArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The ID of the body each body is holding, or -1.
  *
- * @constructor
+ * @param number index
+ * @returns number
  */
-export namespace battlecode.schema{
-export class GameWrapper {
-  bb: flatbuffers.ByteBuffer|null = null;
+heldIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
 
-  bb_pos:number = 0;
 /**
- * @param number i
- * @param flatbuffers.ByteBuffer bb
- * @returns GameWrapper
+ * @returns number
  */
-__init(i:number, bb:flatbuffers.ByteBuffer):GameWrapper {
-  this.bb_pos = i;
-  this.bb = bb;
-  return this;
+heldIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
 /**
- * @param flatbuffers.ByteBuffer bb
- * @param GameWrapper= obj
- * @returns GameWrapper
+ * @returns Int32Array
  */
-static getRootAsGameWrapper(bb:flatbuffers.ByteBuffer, obj?:GameWrapper):GameWrapper {
-  return (obj || new GameWrapper).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+heldIDsArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
 /**
- * The series of events comprising the game.
+ * The dirt levels, as in GameMap.
  *
  * @param number index
- * @param battlecode.schema.EventWrapper= obj
- * @returns battlecode.schema.EventWrapper
+ * @returns number
  */
-events(index: number, obj?:battlecode.schema.EventWrapper):battlecode.schema.EventWrapper|null {
-  var offset = this.bb!.__offset(this.bb_pos, 4);
-  return offset ? (obj || new battlecode.schema.EventWrapper).__init(this.bb!.__indirect(this.bb!.__vector(this.bb_pos + offset) + index * 4), this.bb!) : null;
+dirt(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
 };
 
 /**
  * @returns number
  */
-eventsLength():number {
-  var offset = this.bb!.__offset(this.bb_pos, 4);
+dirtLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
 /**
- * The indices of the headers of the matches, in order.
+ * @returns Int32Array
+ */
+dirtArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * Which locations are flooded.
  *
  * @param number index
+ * @returns boolean
+ */
+water(index: number):boolean|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? !!this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : false;
+};
+
+/**
  * @returns number
  */
-matchHeaders(index: number):number|null {
-  var offset = this.bb!.__offset(this.bb_pos, 6);
+waterLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+waterArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The pollution levels, global pollution included.
+ *
+ * @param number index
+ * @returns number
+ */
+pollution(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
   return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
 };
 
 /**
  * @returns number
  */
-matchHeadersLength():number {
-  var offset = this.bb!.__offset(this.bb_pos, 6);
+pollutionLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
 /**
  * @returns Int32Array
  */
-matchHeadersArray():Int32Array|null {
-  var offset = this.bb!.__offset(this.bb_pos, 6);
+pollutionArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
 /**
- * The indices of the footers of the matches, in order.
+ * The soup left to be mined.
  *
  * @param number index
  * @returns number
  */
-matchFooters(index: number):number|null {
-  var offset = this.bb!.__offset(this.bb_pos, 8);
+soup(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
   return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
 };
 
 /**
  * @returns number
  */
-matchFootersLength():number {
-  var offset = this.bb!.__offset(this.bb_pos, 8);
+soupLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
   return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
 };
 
 /**
  * @returns Int32Array
  */
-matchFootersArray():Int32Array|null {
-  var offset = this.bb!.__offset(this.bb_pos, 8);
+soupArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
   return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
 };
 
 /**
  * @param flatbuffers.Builder builder
  */
-static startGameWrapper(builder:flatbuffers.Builder) {
-  builder.startObject(3);
+static startKeyframe(builder:flatbuffers.Builder) {
+  builder.startObject(8);
 };
 
 /**
  * @param flatbuffers.Builder builder
- * @param flatbuffers.Offset eventsOffset
+ * @param flatbuffers.Offset bodiesOffset
  */
-static addEvents(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset) {
-  builder.addFieldOffset(0, eventsOffset, 0);
+static addBodies(builder:flatbuffers.Builder, bodiesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(0, bodiesOffset, 0);
 };
 
 /**
  * @param flatbuffers.Builder builder
- * @param Array.<flatbuffers.Offset> data
+ * @param flatbuffers.Offset soupCarryingOffset
+ */
+static addSoupCarrying(builder:flatbuffers.Builder, soupCarryingOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, soupCarryingOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
  * @returns flatbuffers.Offset
  */
-static createEventsVector(builder:flatbuffers.Builder, data:flatbuffers.Offset[]):flatbuffers.Offset {
+static createSoupCarryingVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
   builder.startVector(4, data.length, 4);
   for (var i = data.length - 1; i >= 0; i--) {
-    builder.addOffset(data[i]);
+    builder.addInt32(data[i]);
   }
   return builder.endVector();
 };
@@ -3904,16 +3990,16 @@ static createEventsVector(builder:flatbuffers.Builder, data:flatbuffers.Offset[]
  * @param flatbuffers.Builder builder
  * @param number numElems
  */
-static startEventsVector(builder:flatbuffers.Builder, numElems:number) {
+static startSoupCarryingVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
 /**
  * @param flatbuffers.Builder builder
- * @param flatbuffers.Offset matchHeadersOffset
+ * @param flatbuffers.Offset dirtCarryingOffset
  */
-static addMatchHeaders(builder:flatbuffers.Builder, matchHeadersOffset:flatbuffers.Offset) {
-  builder.addFieldOffset(1, matchHeadersOffset, 0);
+static addDirtCarrying(builder:flatbuffers.Builder, dirtCarryingOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, dirtCarryingOffset, 0);
 };
 
 /**
@@ -3921,7 +4007,7 @@ static addMatchHeaders(builder:flatbuffers.Builder, matchHeadersOffset:flatbuffe
  * @param Array.<number> data
  * @returns flatbuffers.Offset
  */
-static createMatchHeadersVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+static createDirtCarryingVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
   builder.startVector(4, data.length, 4);
   for (var i = data.length - 1; i >= 0; i--) {
     builder.addInt32(data[i]);
@@ -3933,16 +4019,16 @@ static createMatchHeadersVector(builder:flatbuffers.Builder, data:number[] | Uin
  * @param flatbuffers.Builder builder
  * @param number numElems
  */
-static startMatchHeadersVector(builder:flatbuffers.Builder, numElems:number) {
+static startDirtCarryingVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
 /**
  * @param flatbuffers.Builder builder
- * @param flatbuffers.Offset matchFootersOffset
+ * @param flatbuffers.Offset heldIDsOffset
  */
-static addMatchFooters(builder:flatbuffers.Builder, matchFootersOffset:flatbuffers.Offset) {
-  builder.addFieldOffset(2, matchFootersOffset, 0);
+static addHeldIDs(builder:flatbuffers.Builder, heldIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, heldIDsOffset, 0);
 };
 
 /**
@@ -3950,7 +4036,7 @@ static addMatchFooters(builder:flatbuffers.Builder, matchFootersOffset:flatbuffe
  * @param Array.<number> data
  * @returns flatbuffers.Offset
  */
-static createMatchFootersVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+static createHeldIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
   builder.startVector(4, data.length, 4);
   for (var i = data.length - 1; i >= 0; i--) {
     builder.addInt32(data[i]);
@@ -3962,7 +4048,1103 @@ static createMatchFootersVector(builder:flatbuffers.Builder, data:number[] | Uin
  * @param flatbuffers.Builder builder
  * @param number numElems
  */
-static startMatchFootersVector(builder:flatbuffers.Builder, numElems:number) {
+static startHeldIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset dirtOffset
+ */
+static addDirt(builder:flatbuffers.Builder, dirtOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(4, dirtOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createDirtVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startDirtVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset waterOffset
+ */
+static addWater(builder:flatbuffers.Builder, waterOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(5, waterOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<boolean> data
+ * @returns flatbuffers.Offset
+ */
+static createWaterVector(builder:flatbuffers.Builder, data:boolean[]):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(+data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startWaterVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset pollutionOffset
+ */
+static addPollution(builder:flatbuffers.Builder, pollutionOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(6, pollutionOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createPollutionVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startPollutionVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset soupOffset
+ */
+static addSoup(builder:flatbuffers.Builder, soupOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(7, soupOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createSoupVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startSoupVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endKeyframe(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createKeyframe(builder:flatbuffers.Builder, bodiesOffset:flatbuffers.Offset, soupCarryingOffset:flatbuffers.Offset, dirtCarryingOffset:flatbuffers.Offset, heldIDsOffset:flatbuffers.Offset, dirtOffset:flatbuffers.Offset, waterOffset:flatbuffers.Offset, pollutionOffset:flatbuffers.Offset, soupOffset:flatbuffers.Offset):flatbuffers.Offset {
+  Keyframe.startKeyframe(builder);
+  Keyframe.addBodies(builder, bodiesOffset);
+  Keyframe.addSoupCarrying(builder, soupCarryingOffset);
+  Keyframe.addDirtCarrying(builder, dirtCarryingOffset);
+  Keyframe.addHeldIDs(builder, heldIDsOffset);
+  Keyframe.addDirt(builder, dirtOffset);
+  Keyframe.addWater(builder, waterOffset);
+  Keyframe.addPollution(builder, pollutionOffset);
+  Keyframe.addSoup(builder, soupOffset);
+  return Keyframe.endKeyframe(builder);
+}
+}
+}
+/**
+ * A round's moves, tile changes and bytecodes used, written compactly.
+ * Replaces movedIDs, movedLocs, dirtChangedLocs, dirtChanges,
+ * waterChangedLocs, soupChangedLocs, soupChanges, bytecodeIDs and
+ * bytecodesUsed; battlecode.util.CompactRounds decodes it.
+ *
+ * The [ubyte] fields are runs of varints: 7 bits at a time, lowest first,
+ * with the high bit set on every byte but the last. Signed values are
+ * zigzag encoded first, so that small negative numbers stay small.
+ * Tiles are numbered x + y * width, from the map's minCorner.
+ *
+ * A round with a keyframe can be decoded without the rounds before it:
+ * every move in it is written out as a location, and its bytecode IDs
+ * as differences from 0. Moves in the rounds after it are from where its
+ * keyframe has each body.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class CompactRound {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns CompactRound
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):CompactRound {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param CompactRound= obj
+ * @returns CompactRound
+ */
+static getRootAsCompactRound(bb:flatbuffers.ByteBuffer, obj?:CompactRound):CompactRound {
+  return (obj || new CompactRound).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * The IDs of the bodies that moved, in order, each as the signed
+ * difference from the one before it (the first from 0).
+ *
+ * @param number index
+ * @returns number
+ */
+movedIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+movedIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+movedIDsArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The direction each body moved from where it was, as an index into
+ * NORTH, NORTHEAST, EAST, SOUTHEAST, SOUTH, SOUTHWEST, WEST, NORTHWEST;
+ * or -1 if it didn't move to an adjacent tile, or the round has a
+ * keyframe, in which case it ended up at the next of movedLocs.
+ *
+ * @param number index
+ * @returns number
+ */
+movedDirections(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.readInt8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+movedDirectionsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int8Array
+ */
+movedDirectionsArray():Int8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? new Int8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * Where the bodies written as -1 in movedDirections ended up.
+ *
+ * @param battlecode.schema.VecTable= obj
+ * @returns battlecode.schema.VecTable|null
+ */
+movedLocs(obj?:battlecode.schema.VecTable):battlecode.schema.VecTable|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? (obj || new battlecode.schema.VecTable).__init(this.bb!.__indirect(this.bb_pos + offset), this.bb!) : null;
+};
+
+/**
+ * The tiles whose dirt changed, sorted, each as the difference from
+ * the one before it (the first from 0); a tile changed more than once
+ * is listed once per change. So the changes don't decode in the order
+ * they happened, but sorted by tile, each tile's in the order they
+ * happened.
+ *
+ * @param number index
+ * @returns number
+ */
+dirtChangedTiles(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+dirtChangedTilesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+dirtChangedTilesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The signed dirt changes, for each of the tiles.
+ *
+ * @param number index
+ * @returns number
+ */
+dirtChanges(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+dirtChangesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+dirtChangesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 12);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The tiles that flooded, like dirtChangedTiles.
+ *
+ * @param number index
+ * @returns number
+ */
+waterChangedTiles(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+waterChangedTilesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+waterChangedTilesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 14);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The tiles whose soup changed, like dirtChangedTiles.
+ *
+ * @param number index
+ * @returns number
+ */
+soupChangedTiles(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+soupChangedTilesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+soupChangedTilesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 16);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The signed soup changes, for each of the tiles.
+ *
+ * @param number index
+ * @returns number
+ */
+soupChanges(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+soupChangesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+soupChangesArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 18);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The IDs of the bodies that used bytecodes, each as the signed
+ * difference from the ID at the same place in the previous round's
+ * list (from 0 past its end, in the first round of a match, or in a
+ * round with a keyframe).
+ *
+ * @param number index
+ * @returns number
+ */
+bytecodeIDs(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+bytecodeIDsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+bytecodeIDsArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 20);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The bytecodes used, for each of the bodies.
+ *
+ * @param number index
+ * @returns number
+ */
+bytecodesUsed(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? this.bb!.readUint8(this.bb!.__vector(this.bb_pos + offset) + index) : 0;
+};
+
+/**
+ * @returns number
+ */
+bytecodesUsedLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Uint8Array
+ */
+bytecodesUsedArray():Uint8Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 22);
+  return offset ? new Uint8Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startCompactRound(builder:flatbuffers.Builder) {
+  builder.startObject(10);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedIDsOffset
+ */
+static addMovedIDs(builder:flatbuffers.Builder, movedIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(0, movedIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMovedIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMovedIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedDirectionsOffset
+ */
+static addMovedDirections(builder:flatbuffers.Builder, movedDirectionsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, movedDirectionsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMovedDirectionsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMovedDirectionsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset movedLocsOffset
+ */
+static addMovedLocs(builder:flatbuffers.Builder, movedLocsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, movedLocsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset dirtChangedTilesOffset
+ */
+static addDirtChangedTiles(builder:flatbuffers.Builder, dirtChangedTilesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, dirtChangedTilesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createDirtChangedTilesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startDirtChangedTilesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset dirtChangesOffset
+ */
+static addDirtChanges(builder:flatbuffers.Builder, dirtChangesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(4, dirtChangesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createDirtChangesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startDirtChangesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset waterChangedTilesOffset
+ */
+static addWaterChangedTiles(builder:flatbuffers.Builder, waterChangedTilesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(5, waterChangedTilesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createWaterChangedTilesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startWaterChangedTilesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset soupChangedTilesOffset
+ */
+static addSoupChangedTiles(builder:flatbuffers.Builder, soupChangedTilesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(6, soupChangedTilesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createSoupChangedTilesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startSoupChangedTilesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset soupChangesOffset
+ */
+static addSoupChanges(builder:flatbuffers.Builder, soupChangesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(7, soupChangesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createSoupChangesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startSoupChangesVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bytecodeIDsOffset
+ */
+static addBytecodeIDs(builder:flatbuffers.Builder, bytecodeIDsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(8, bytecodeIDsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createBytecodeIDsVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startBytecodeIDsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset bytecodesUsedOffset
+ */
+static addBytecodesUsed(builder:flatbuffers.Builder, bytecodesUsedOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(9, bytecodesUsedOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createBytecodesUsedVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(1, data.length, 1);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt8(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startBytecodesUsedVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(1, numElems, 1);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endCompactRound(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createCompactRound(builder:flatbuffers.Builder, movedIDsOffset:flatbuffers.Offset, movedDirectionsOffset:flatbuffers.Offset, movedLocsOffset:flatbuffers.Offset, dirtChangedTilesOffset:flatbuffers.Offset, dirtChangesOffset:flatbuffers.Offset, waterChangedTilesOffset:flatbuffers.Offset, soupChangedTilesOffset:flatbuffers.Offset, soupChangesOffset:flatbuffers.Offset, bytecodeIDsOffset:flatbuffers.Offset, bytecodesUsedOffset:flatbuffers.Offset):flatbuffers.Offset {
+  CompactRound.startCompactRound(builder);
+  CompactRound.addMovedIDs(builder, movedIDsOffset);
+  CompactRound.addMovedDirections(builder, movedDirectionsOffset);
+  CompactRound.addMovedLocs(builder, movedLocsOffset);
+  CompactRound.addDirtChangedTiles(builder, dirtChangedTilesOffset);
+  CompactRound.addDirtChanges(builder, dirtChangesOffset);
+  CompactRound.addWaterChangedTiles(builder, waterChangedTilesOffset);
+  CompactRound.addSoupChangedTiles(builder, soupChangedTilesOffset);
+  CompactRound.addSoupChanges(builder, soupChangesOffset);
+  CompactRound.addBytecodeIDs(builder, bytecodeIDsOffset);
+  CompactRound.addBytecodesUsed(builder, bytecodesUsedOffset);
+  return CompactRound.endCompactRound(builder);
+}
+}
+}
+/**
+ * Necessary due to flatbuffers requiring unions to be wrapped in tables.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class EventWrapper {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns EventWrapper
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):EventWrapper {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param EventWrapper= obj
+ * @returns EventWrapper
+ */
+static getRootAsEventWrapper(bb:flatbuffers.ByteBuffer, obj?:EventWrapper):EventWrapper {
+  return (obj || new EventWrapper).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * @returns battlecode.schema.Event
+ */
+eType():battlecode.schema.Event {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? /**  */ (this.bb!.readUint8(this.bb_pos + offset)) : battlecode.schema.Event.NONE;
+};
+
+/**
+ * @param flatbuffers.Table obj
+ * @returns ?flatbuffers.Table
+ */
+e<T extends flatbuffers.Table>(obj:T):T|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__union(obj, this.bb_pos + offset) : null;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startEventWrapper(builder:flatbuffers.Builder) {
+  builder.startObject(2);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param battlecode.schema.Event eType
+ */
+static addEType(builder:flatbuffers.Builder, eType:battlecode.schema.Event) {
+  builder.addFieldInt8(0, eType, battlecode.schema.Event.NONE);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset eOffset
+ */
+static addE(builder:flatbuffers.Builder, eOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, eOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @returns flatbuffers.Offset
+ */
+static endEventWrapper(builder:flatbuffers.Builder):flatbuffers.Offset {
+  var offset = builder.endObject();
+  return offset;
+};
+
+static createEventWrapper(builder:flatbuffers.Builder, eType:battlecode.schema.Event, eOffset:flatbuffers.Offset):flatbuffers.Offset {
+  EventWrapper.startEventWrapper(builder);
+  EventWrapper.addEType(builder, eType);
+  EventWrapper.addE(builder, eOffset);
+  return EventWrapper.endEventWrapper(builder);
+}
+}
+}
+/**
+ * If events are not otherwise delimited, this wrapper structure
+ * allows a game to be stored in a single buffer.
+ * The first event will be a GameHeader; the last event will be a GameFooter.
+ * matchHeaders[0] is the index of the 0th match header in the event stream,
+ * corresponding to matchFooters[0]. These indices allow quick traversal of
+ * the file.
+ * keyframes are the indices of the rounds with keyframes, so a viewer can
+ * seek to any round by replaying the rounds after the keyframe before it.
+ *
+ * @constructor
+ */
+export namespace battlecode.schema{
+export class GameWrapper {
+  bb: flatbuffers.ByteBuffer|null = null;
+
+  bb_pos:number = 0;
+/**
+ * @param number i
+ * @param flatbuffers.ByteBuffer bb
+ * @returns GameWrapper
+ */
+__init(i:number, bb:flatbuffers.ByteBuffer):GameWrapper {
+  this.bb_pos = i;
+  this.bb = bb;
+  return this;
+};
+
+/**
+ * @param flatbuffers.ByteBuffer bb
+ * @param GameWrapper= obj
+ * @returns GameWrapper
+ */
+static getRootAsGameWrapper(bb:flatbuffers.ByteBuffer, obj?:GameWrapper):GameWrapper {
+  return (obj || new GameWrapper).__init(bb.readInt32(bb.position()) + bb.position(), bb);
+};
+
+/**
+ * The series of events comprising the game.
+ *
+ * @param number index
+ * @param battlecode.schema.EventWrapper= obj
+ * @returns battlecode.schema.EventWrapper
+ */
+events(index: number, obj?:battlecode.schema.EventWrapper):battlecode.schema.EventWrapper|null {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? (obj || new battlecode.schema.EventWrapper).__init(this.bb!.__indirect(this.bb!.__vector(this.bb_pos + offset) + index * 4), this.bb!) : null;
+};
+
+/**
+ * @returns number
+ */
+eventsLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 4);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * The indices of the headers of the matches, in order.
+ *
+ * @param number index
+ * @returns number
+ */
+matchHeaders(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+matchHeadersLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+matchHeadersArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 6);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The indices of the footers of the matches, in order.
+ *
+ * @param number index
+ * @returns number
+ */
+matchFooters(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+matchFootersLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+matchFootersArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 8);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * The indices of the rounds with keyframes, in order.
+ *
+ * @param number index
+ * @returns number
+ */
+keyframes(index: number):number|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.readInt32(this.bb!.__vector(this.bb_pos + offset) + index * 4) : 0;
+};
+
+/**
+ * @returns number
+ */
+keyframesLength():number {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? this.bb!.__vector_len(this.bb_pos + offset) : 0;
+};
+
+/**
+ * @returns Int32Array
+ */
+keyframesArray():Int32Array|null {
+  var offset = this.bb!.__offset(this.bb_pos, 10);
+  return offset ? new Int32Array(this.bb!.bytes().buffer, this.bb!.bytes().byteOffset + this.bb!.__vector(this.bb_pos + offset), this.bb!.__vector_len(this.bb_pos + offset)) : null;
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ */
+static startGameWrapper(builder:flatbuffers.Builder) {
+  builder.startObject(4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset eventsOffset
+ */
+static addEvents(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(0, eventsOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<flatbuffers.Offset> data
+ * @returns flatbuffers.Offset
+ */
+static createEventsVector(builder:flatbuffers.Builder, data:flatbuffers.Offset[]):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addOffset(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startEventsVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset matchHeadersOffset
+ */
+static addMatchHeaders(builder:flatbuffers.Builder, matchHeadersOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(1, matchHeadersOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMatchHeadersVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMatchHeadersVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset matchFootersOffset
+ */
+static addMatchFooters(builder:flatbuffers.Builder, matchFootersOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(2, matchFootersOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createMatchFootersVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startMatchFootersVector(builder:flatbuffers.Builder, numElems:number) {
+  builder.startVector(4, numElems, 4);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param flatbuffers.Offset keyframesOffset
+ */
+static addKeyframes(builder:flatbuffers.Builder, keyframesOffset:flatbuffers.Offset) {
+  builder.addFieldOffset(3, keyframesOffset, 0);
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param Array.<number> data
+ * @returns flatbuffers.Offset
+ */
+static createKeyframesVector(builder:flatbuffers.Builder, data:number[] | Uint8Array):flatbuffers.Offset {
+  builder.startVector(4, data.length, 4);
+  for (var i = data.length - 1; i >= 0; i--) {
+    builder.addInt32(data[i]);
+  }
+  return builder.endVector();
+};
+
+/**
+ * @param flatbuffers.Builder builder
+ * @param number numElems
+ */
+static startKeyframesVector(builder:flatbuffers.Builder, numElems:number) {
   builder.startVector(4, numElems, 4);
 };
 
@@ -3975,11 +5157,12 @@ static endGameWrapper(builder:flatbuffers.Builder):flatbuffers.Offset {
   return offset;
 };
 
-static createGameWrapper(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset, matchHeadersOffset:flatbuffers.Offset, matchFootersOffset:flatbuffers.Offset):flatbuffers.Offset {
+static createGameWrapper(builder:flatbuffers.Builder, eventsOffset:flatbuffers.Offset, matchHeadersOffset:flatbuffers.Offset, matchFootersOffset:flatbuffers.Offset, keyframesOffset:flatbuffers.Offset):flatbuffers.Offset {
   GameWrapper.startGameWrapper(builder);
   GameWrapper.addEvents(builder, eventsOffset);
   GameWrapper.addMatchHeaders(builder, matchHeadersOffset);
   GameWrapper.addMatchFooters(builder, matchFootersOffset);
+  GameWrapper.addKeyframes(builder, keyframesOffset);
   return GameWrapper.endGameWrapper(builder);
 }
 }